@@ -1,270 +0,0 @@
-package base;
-
-import base.components.*;
-import base.fundamentals.*;
-
-import javafx.application.Application;
-import javafx.animation.*;
-import javafx.geometry.Orientation;
-import javafx.geometry.Pos;
-import javafx.scene.*;
-import javafx.scene.control.*;
-import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
-import javafx.scene.text.TextAlignment;
-import javafx.stage.Stage;
-import javafx.util.Duration;
-
-import java.util.*;
-
-/// Things to do:
-/// Fix Compound Creation exceptions
-/// Add input/output ports on interiors of Compounds
-/// Compound update method
-/// Persistence of compounds
-
-/**
- * Main simulation class <br>
- * Sets up the Application and holds every Component
- * @author Lucas Peterson
- */
-public class Simulation extends Application {
-    /** Number of cells wide the board is at the start of the simulation */
-    public final static int INIT_BOARD_WIDTH = 900;
-    /** Number of cells tall the board is at the start of the simulation */
-    public final static int INIT_BOARD_HEIGHT = 900;
-    /** Pixels wide the side UI frame should be */
-    public final static int PREF_UI_WIDTH = 225;
-    /** Max pixels tall the TextAreas should be */
-    public final static int MAX_TEXT_AREA_HEIGHT = 40;
-
-    /** X position at which all new Components appear, in pixels */
-    public final static double NEW_COMPONENT_X = 60;
-    /** Y position at which all new Components appear, in pixels */
-    public final static double NEW_COMPONENT_Y = 60;
-
-    /** Number of milliseconds between each logical update frame */
-    public final static int FRAME_DELAY_MS = 33;
-
-    /** Main top-level display Pane */
-    private final static DisplayPane mainPane = new DisplayPane("Main View");
-    /** Current display Pane being viewed */
-    private static DisplayPane currentPane = mainPane;
-    /** Top-level layout object all UI and display objects */
-    private final static BorderPane window = new BorderPane();
-
-    /** Stack of Pane view history, for back-history jumps */
-    private final static Deque<DisplayPane> paneViewStack = new LinkedList<>();
-
-
-    /**
-     * Get the main-level display pane used by the Simulation Class
-     * @return The top level Pane object
-     */
-    public static DisplayPane getMainPane() {
-        return mainPane;
-    }
-
-    /**
-     * Initializes everything related to the main display window
-     */
-    private static void initMainDisplay() {
-        // Set up logic update loop
-        final Timeline timeline = new Timeline(new KeyFrame(Duration.millis(FRAME_DELAY_MS),
-            e -> Utils.componentsFromChildren(mainPane.getChildren()).forEach(Component::update)
-            ));
-
-        timeline.setCycleCount(Animation.INDEFINITE);
-        timeline.play();
-    }
-
-    /**
-     * Creates a new Text area with standard attributes. Helper function for text-entry UIs
-     * @param promptText The prompt text to display before a user starts typing
-     * @return The initialized TextArea
-     */
-    private static TextArea createTextArea(String promptText) {
-        TextArea ret = new TextArea();
-        ret.setMaxHeight(MAX_TEXT_AREA_HEIGHT);
-        ret.setWrapText(true);
-        ret.setPromptText(promptText);
-        return ret;
-    }
-
-    /**
-     * Sets up everything related to the Compound Component UI elements
-     * @return The initialized VBox UI frame
-     */
-    private static VBox initAddCompoundComponentUI() {
-        VBox addCompoundComponentUI = new VBox();
-
-        TextArea nameField = createTextArea("Enter Compound Component Name, e.g. XOR");
-
-        Label colorLabel = new Label("Select Compound Component Color");
-        ColorPicker colorPicker = new ColorPicker();
-        colorPicker.setValue(CompoundComponent.DEFAULT_COLOR);
-
-        TextArea widthField = createTextArea("Enter Compound Component Width (in cells)");
-        TextArea heightField = createTextArea("Enter Compound Component Height (in cells)");
-
-        Button createCompoundButton = new Button("Create new Compound Component from highlighted Components");
-        createCompoundButton.setWrapText(true);
-        createCompoundButton.setTextAlignment(TextAlignment.CENTER);
-        createCompoundButton.setOnAction(e -> {
-            CompoundComponent.makeCompoundComponent(
-                    mainPane.getSelection(),
-                    widthField.getText(),
-                    heightField.getText(),
-                    colorPicker.getValue(),
-                    nameField.getText(),
-                    currentPane);
-            mainPane.getSelection().getSelected().forEach(Component::remove);
-            mainPane.getSelection().clearSelection();
-        });
-
-        addCompoundComponentUI.getChildren().addAll(
-                nameField, colorLabel, colorPicker, widthField, heightField, createCompoundButton);
-        addCompoundComponentUI.setAlignment(Pos.CENTER);
-
-        return addCompoundComponentUI;
-    }
-
-    /**
-     * Creates a VBox which holds UI elements to add new basic Components to the current Screen
-     * @return The VBox described above
-     */
-    private static VBox initAddComponentUI() {
-        Button addButton = new Button("Add new ____");
-        ChoiceBox<String> componentSelector = new ChoiceBox<>();
-        ArrayList<Class<? extends Component>> componentClasses = new ArrayList<>(
-                List.of(AND.class, OR.class, NOT.class, Light.class, Splitter.class, SignalSource.class));
-
-        addButton.setOnAction(ae -> {
-            Class<? extends Component> componentToMake = switch(componentSelector.getValue()) {
-                case "AND" -> AND.class;
-                case "OR" -> OR.class;
-                case "Splitter" -> Splitter.class;
-                case "SignalSource" -> SignalSource.class;
-                case "Light" -> Light.class;
-                case "NOT" -> NOT.class;
-                default -> null;
-            };
-            try {
-                componentToMake.getDeclaredConstructor(Double.TYPE, Double.TYPE, DisplayPane.class)
-                        .newInstance(NEW_COMPONENT_X, NEW_COMPONENT_Y, currentPane);
-            } catch (Exception e) {
-                System.out.println("Basic Component Creation " + e.getClass() + ": " + e.getLocalizedMessage());
-            }
-        });
-
-        componentSelector.getItems().addAll(componentClasses.stream().map(Class::getSimpleName).toList());
-        componentSelector.setValue("AND");
-        componentSelector.setOnAction(e -> {
-            String addText = componentSelector.getValue();
-            addButton.setText("Add new " + (addText == null ? "____" : addText));
-        });
-
-        VBox addComponentUI = new VBox(addButton, componentSelector);
-        addComponentUI.setAlignment(Pos.CENTER);
-
-        return addComponentUI;
-    }
-
-    /**
-     * Changes the view displayed on the window, saving the previous view in the view history
-     */
-    public static void setCenterPane(DisplayPane paneToView) {
-        try {
-            // Save previous view
-            paneViewStack.push(currentPane);
-            currentPane = paneToView;
-            updateCurrentPane();
-        } catch (IllegalStateException ise) {
-            System.out.println("You're digging too deep! You've hit the max view level");
-        }
-    }
-
-    /**
-     * Returns to the view visited most recently in the view history
-     */
-    private static void previousCenterPane() {
-        if (!paneViewStack.isEmpty()) {
-            currentPane = paneViewStack.pop();
-            updateCurrentPane();
-        } else {
-            System.out.println("You're back to the top level!");
-        }
-    }
-
-    /**
-     * Updates the UI to reflect the value of currentPane
-     */
-    private static void updateCurrentPane() {
-        window.setCenter(currentPane.getPane());
-        Label viewLabel = (Label) window.lookup("#viewLabel");
-        viewLabel.setText("Current View: " + currentPane.getName());
-    }
-
-    /**
-     * Creates a UI to control the current view Pane
-     * @return An HBox containing the UI described above
-     */
-    private static HBox initPaneViewUI() {
-        Button backButton = new Button("<");
-        Label viewLabel = new Label("Current View: Main View");
-        viewLabel.setId("viewLabel");
-
-        backButton.setOnAction(e -> previousCenterPane());
-        HBox paneViewUI = new HBox(backButton, viewLabel);
-        paneViewUI.setAlignment(Pos.CENTER);
-
-        return paneViewUI;
-    }
-
-    /**
-     * Sets up everything related to the UI
-     * @return The initialized UI frame
-     */
-    private static VBox initUI() {
-        VBox frame = new VBox();
-        frame.setAlignment(Pos.CENTER);
-        frame.setPrefWidth(PREF_UI_WIDTH);
-        frame.setBackground(new Background(new BackgroundFill(Color.GRAY, null, null)));
-
-        frame.getChildren().addAll(
-                initPaneViewUI(),
-                new Separator(Orientation.HORIZONTAL),
-                initAddComponentUI(),
-                new Separator(Orientation.HORIZONTAL),
-                initAddCompoundComponentUI());
-
-        return frame;
-    }
-
-    /**
-     * Construct the JavaFX Scene structure for this Application
-     *
-     * @param primaryStage the primary stage for this application, onto which
-     * the application scene can be set.
-     * Applications may create other stages, if needed, but they will not be
-     * primary stages.
-     * @throws Exception If any exception occurs
-     */
-    @Override
-    public void start(Stage primaryStage) throws Exception {
-        initMainDisplay();
-        VBox addUI = initUI();
-
-        window.setCenter(mainPane.getPane());
-        window.setLeft(addUI);
-
-        Scene scene = new Scene(window);
-        primaryStage.setTitle("Modular Logic");
-        primaryStage.setScene(scene);
-        primaryStage.show();
-    }
-
-    public static void main(String[] args) {
-        Simulation.launch();
-    }
-}
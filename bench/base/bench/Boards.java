@@ -0,0 +1,152 @@
+package base.bench;
+
+import base.components.*;
+import base.fundamentals.Component;
+import base.fundamentals.DisplayPane;
+import base.fundamentals.Port;
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the synthetic boards the benchmarks run on
+ */
+public class Boards {
+    /** Number of Components placed in each row of a generated board */
+    private final static int COLUMNS = 100;
+    /** Distance between neighbouring Components of a generated board, in pixels */
+    private final static double SPACING = 150;
+
+    /**
+     * Start the JavaFX toolkit, which Components need to lay out their Text. Safe to call more than once
+     */
+    public static void startToolkit() {
+        try {
+            Platform.startup(() -> {});
+        } catch (IllegalStateException alreadyStarted) {
+            // Started by an earlier benchmark in the same JVM
+        }
+        Platform.setImplicitExit(false);
+    }
+
+    /**
+     * Fill a DisplayPane with a random acyclic circuit. <br>
+     * Each gate reads from free outputs of the Components before it, with Signal Sources added whenever there are
+     * not enough free outputs, and Splitters give signals more than one reader. Every Component gets its own
+     * position on a grid, so none overlap as they would not on a board laid out by hand.
+     * @param displayPane The DisplayPane to fill
+     * @param gates The number of Components to create, not counting Signal Sources
+     * @param seed Seed of the random layout, so every run builds the same board
+     * @return The Signal Sources feeding the circuit, in the order they were created
+     */
+    public static List<SignalSource> randomCircuit(DisplayPane displayPane, int gates, long seed) {
+        Random random = new Random(seed);
+        List<SignalSource> sources = new ArrayList<>();
+        List<Port> freeOutputs = new ArrayList<>();
+        int placed = 0;
+
+        for (int g = 0; g < gates; g++) {
+            int choice = random.nextInt(10);
+            Component gate;
+            if (choice < 3) {
+                gate = new AND(x(placed), y(placed), displayPane);
+            } else if (choice < 6) {
+                gate = new OR(x(placed), y(placed), displayPane);
+            } else if (choice < 8) {
+                gate = new NOT(x(placed), y(placed), displayPane);
+            } else {
+                gate = new Splitter(x(placed), y(placed), displayPane);
+            }
+            placed++;
+
+            for (int input = 0; input < gate.getNumInputs(); input++) {
+                if (freeOutputs.isEmpty()) {
+                    SignalSource source = new SignalSource(x(placed), y(placed), displayPane);
+                    source.setOn(random.nextBoolean());
+                    placed++;
+                    sources.add(source);
+                    freeOutputs.add(source.getOutputPort(0));
+                }
+                // Prefer recent outputs, so the circuit is deep rather than wide
+                int pick = freeOutputs.size() - 1 - random.nextInt(Math.min(freeOutputs.size(), 8));
+                Port output = freeOutputs.remove(pick);
+                output.connectTo(gate, input);
+            }
+            for (int output = 0; output < gate.getNumOutputs(); output++) {
+                freeOutputs.add(gate.getOutputPort(output));
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Build a Netlist of the same shape as {@link #randomCircuit}, without creating any Components
+     * @param gates The number of Components to create, not counting Signal Sources
+     * @param seed Seed of the random layout, so every run builds the same Netlist
+     * @return The new Netlist
+     */
+    public static Netlist randomNetlist(int gates, long seed) {
+        Random random = new Random(seed);
+        Netlist netlist = new Netlist(gates * 2, gates * 2);
+        // Free outputs, each packed as component index * 2 + port number
+        List<Integer> freeOutputs = new ArrayList<>();
+
+        for (int g = 0; g < gates; g++) {
+            int choice = random.nextInt(10);
+            GateType type = choice < 3 ? GateType.AND
+                    : choice < 6 ? GateType.OR
+                    : choice < 8 ? GateType.NOT
+                    : GateType.SPLITTER;
+            int gate = netlist.addComponent(type, netlist.size(), x(netlist.size()), y(netlist.size()));
+
+            for (int input = 0; input < type.getNumInputs(); input++) {
+                if (freeOutputs.isEmpty()) {
+                    int source = netlist.addComponent(GateType.SIGNAL_SOURCE, netlist.size(),
+                            x(netlist.size()), y(netlist.size()));
+                    netlist.setState(source, random.nextBoolean());
+                    freeOutputs.add(source * 2);
+                }
+                int pick = freeOutputs.size() - 1 - random.nextInt(Math.min(freeOutputs.size(), 8));
+                int output = freeOutputs.remove(pick);
+                netlist.addConnection(output / 2, output % 2, gate, input);
+            }
+            for (int output = 0; output < type.getNumOutputs(); output++) {
+                freeOutputs.add(gate * 2 + output);
+            }
+        }
+        return netlist;
+    }
+
+    /**
+     * Build a Netlist of a Signal Source feeding a straight chain of NOT gates, ending in a Light
+     * @param length The number of NOT gates in the chain
+     * @return The new Netlist. The Signal Source is Component 0 and the Light is the last Component
+     */
+    public static Netlist notChainNetlist(int length) {
+        Netlist netlist = new Netlist(length + 2, length + 1);
+        netlist.addComponent(GateType.SIGNAL_SOURCE, 0, x(0), y(0));
+        for (int i = 1; i <= length + 1; i++) {
+            netlist.addComponent(i <= length ? GateType.NOT : GateType.LIGHT, i, x(i), y(i));
+            netlist.addConnection(i - 1, 0, i, 0);
+        }
+        return netlist;
+    }
+
+    /**
+     * Get the x coordinate of the nth grid position
+     */
+    public static double x(int n) {
+        return (n % COLUMNS) * SPACING + SPACING / 2;
+    }
+
+    /**
+     * Get the y coordinate of the nth grid position
+     */
+    public static double y(int n) {
+        return (double) (n / COLUMNS) * SPACING + SPACING / 2;
+    }
+}
@@ -0,0 +1,82 @@
+package base.bench;
+
+import base.components.CompoundComponent;
+import base.fundamentals.DisplayPane;
+import base.fundamentals.SelectionArea;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning a large selection into a Compound Component, copying the result, and placing a chained 8 by 8
+ * grid of it. <br>
+ * Making and copying both copy every Component and then rebuild their Connections with connectComponents
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompoundBenchmark {
+    /** Number of gates selected */
+    @Param({"100", "1000"})
+    public int selected;
+
+    private DisplayPane board;
+    private SelectionArea selection;
+    /** A Compound Component made from the selection, for the copy benchmark */
+    private CompoundComponent compound;
+    /** The copy made by the last invocation, which is removed again so copies do not pile up */
+    private CompoundComponent lastCopy;
+    /** Where new Compound Components are put, replaced before every invocation so it does not keep growing */
+    private DisplayPane scratch;
+
+    @Setup(Level.Trial)
+    public void buildSelection() {
+        Boards.startToolkit();
+        board = new DisplayPane("Benchmark Board");
+        Boards.randomCircuit(board, selected, 1);
+        selection = board.getSelection();
+        selection.clearSelection();
+        selection.getSelected().addAll(board.getComponents().snapshot());
+
+        DisplayPane compoundPane = new DisplayPane("Benchmark Compound");
+        CompoundComponent.makeCompoundComponent(selection, "", "", Color.BLUE, "Benchmark", compoundPane);
+        compound = (CompoundComponent) compoundPane.getComponents().get(0);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearScratch() {
+        scratch = new DisplayPane("Benchmark Scratch");
+    }
+
+    @Benchmark
+    public DisplayPane makeCompoundComponent() {
+        CompoundComponent.makeCompoundComponent(selection, "", "", Color.BLUE, "Benchmark", scratch);
+        return scratch;
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeCopy() {
+        if (lastCopy != null) {
+            lastCopy.remove();
+            lastCopy = null;
+        }
+    }
+
+    @Benchmark
+    public CompoundComponent copyCompoundComponent() {
+        lastCopy = new CompoundComponent(compound);
+        return lastCopy;
+    }
+
+    @Benchmark
+    public List<CompoundComponent> instantiateGrid() {
+        // Chains the first output of each instance to the first input of the next, like a ripple carry
+        return CompoundComponent.instantiateGrid(compound.getDefinition(), 8, 8, 0, 0,
+                compound.getNumOutputs() > 0 && compound.getNumInputs() > 0 ? 0 : -1, 0, scratch);
+    }
+}
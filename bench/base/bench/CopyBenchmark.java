@@ -0,0 +1,56 @@
+package base.bench;
+
+import base.fundamentals.Component;
+import base.fundamentals.DisplayPane;
+import base.netlist.GateType;
+import base.view.BoardCapture;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Component.copy, which looks up the ComponentFactory registered for the Component's class in
+ * ComponentFactories and creates the copy through it, against calling the same constructor directly. <br>
+ * Every copy stays on the Pane it was made on, so each iteration is a fixed batch of copies onto a fresh Pane
+ * rather than as many as fit in a time limit
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = CopyBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = CopyBenchmark.BATCH_SIZE)
+@Fork(1)
+public class CopyBenchmark {
+    /** Number of copies made in each iteration */
+    final static int BATCH_SIZE = 1000;
+
+    /** Type of Component copied */
+    @Param({"AND", "NOT", "SPLITTER", "SIGNAL_SOURCE"})
+    public GateType type;
+
+    private Component original;
+    /** Where copies are put, replaced every iteration */
+    private DisplayPane scratch;
+
+    @Setup(Level.Trial)
+    public void createOriginal() {
+        Boards.startToolkit();
+        original = BoardCapture.create(type, 60, 60, new DisplayPane("Benchmark Board"));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearScratch() {
+        scratch = new DisplayPane("Benchmark Scratch");
+    }
+
+    @Benchmark
+    public DisplayPane copy() {
+        original.copy(scratch);
+        return scratch;
+    }
+
+    @Benchmark
+    public Component construct() {
+        return BoardCapture.create(type, original.getRect().getX(), original.getRect().getY(), scratch);
+    }
+}
@@ -0,0 +1,52 @@
+package base.bench;
+
+import base.engine.CompiledCircuit;
+import base.engine.Engine;
+import base.netlist.Netlist;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the core Engine on its own, with no JavaFX involved: compiling a board, and settling it after one
+ * Signal Source changes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+    /** Most ticks to settle for, in case the random board happens to oscillate */
+    private final static int MAX_TICKS = 10_000;
+
+    /** Number of gates on the board */
+    @Param({"1000", "10000", "100000"})
+    public int gates;
+
+    private Netlist board;
+    private Engine engine;
+    /** Which Signal Source is toggled next */
+    private int nextSource;
+
+    @Setup(Level.Trial)
+    public void buildBoard() {
+        board = Boards.randomNetlist(gates, 1);
+        engine = new Engine(CompiledCircuit.compile(board));
+        engine.settle(MAX_TICKS);
+        nextSource = 0;
+    }
+
+    @Benchmark
+    public CompiledCircuit compile() {
+        return CompiledCircuit.compile(board);
+    }
+
+    @Benchmark
+    public int toggleAndSettle() {
+        engine.setSource(nextSource, !engine.isSourceOn(nextSource));
+        nextSource = (nextSource + 1) % engine.getCircuit().getSourceCount();
+        return engine.settle(MAX_TICKS);
+    }
+}
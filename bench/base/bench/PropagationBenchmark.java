@@ -0,0 +1,45 @@
+package base.bench;
+
+import base.engine.CompiledCircuit;
+import base.engine.Engine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a signal change travelling down a chain of NOT gates in the Engine. <br>
+ * Every hop is one tick, and each tick evaluates only the one gate whose input just changed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropagationBenchmark {
+    /** Number of NOT gates in the chain */
+    @Param({"10", "100", "1000"})
+    public int length;
+
+    private Engine engine;
+    /** Net read by the Light at the end of the chain */
+    private int endNet;
+    private boolean on;
+
+    @Setup(Level.Trial)
+    public void buildChain() {
+        CompiledCircuit circuit = CompiledCircuit.compile(Boards.notChainNetlist(length));
+        engine = new Engine(circuit);
+        engine.settle(length + 1);
+        endNet = circuit.getInputNet(length + 1, 0);
+        on = false;
+    }
+
+    @Benchmark
+    public boolean propagate() {
+        on = !on;
+        engine.setSource(0, on);
+        engine.settle(length + 1);
+        return engine.isOn(endNet);
+    }
+}
@@ -0,0 +1,57 @@
+package base.bench;
+
+import base.fundamentals.ComponentIndex;
+import base.fundamentals.DisplayPane;
+import base.fundamentals.SelectionArea;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures dragging a selection box over a densely packed board. <br>
+ * Each invocation moves the free corner between covering half the board and covering all of it, so half the
+ * Components are selected or deselected every time, as they would be mid-drag
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectionBenchmark {
+    /** Number of gates on the board */
+    @Param({"1000", "10000"})
+    public int gates;
+
+    private SelectionArea selection;
+    private ComponentIndex index;
+    private double boardWidth;
+    private double boardHeight;
+    private boolean wholeBoard;
+
+    @Setup(Level.Trial)
+    public void buildBoard() {
+        Boards.startToolkit();
+        DisplayPane board = new DisplayPane("Benchmark Board");
+        Boards.randomCircuit(board, gates, 1);
+        index = board.getComponentIndex();
+        double[] extent = new double[2];
+        index.forEach(c -> {
+            extent[0] = Math.max(extent[0], c.getRect().getX());
+            extent[1] = Math.max(extent[1], c.getRect().getY());
+        });
+        boardWidth = extent[0] + 200;
+        boardHeight = extent[1] + 200;
+
+        selection = board.getSelection();
+        selection.clearSelection();
+        selection.startNew(0, 0);
+    }
+
+    @Benchmark
+    public int expandSelection() {
+        wholeBoard = !wholeBoard;
+        selection.expandSelection(boardWidth, wholeBoard ? boardHeight : boardHeight / 2, index);
+        return selection.getSelected().size();
+    }
+}
@@ -0,0 +1,50 @@
+package base.bench;
+
+import base.components.SignalSource;
+import base.fundamentals.DisplayPane;
+import base.view.LiveSimulation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one display frame over boards of increasing size, done the same way as the Simulation's update loop:
+ * the Engine settles the board, then every Port and Component on it is shown the new signals
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickBenchmark {
+    /** Number of gates on the board */
+    @Param({"1000", "10000", "100000"})
+    public int gates;
+
+    private LiveSimulation simulation;
+    private List<SignalSource> sources;
+    /** Which Signal Source is toggled next, so every frame has a changing input */
+    private int nextSource;
+
+    @Setup(Level.Trial)
+    public void buildBoard() {
+        Boards.startToolkit();
+        DisplayPane board = new DisplayPane("Benchmark Board");
+        sources = Boards.randomCircuit(board, gates, 1);
+        nextSource = 0;
+        simulation = new LiveSimulation(board);
+        // Compile outside the measurement
+        simulation.frame();
+    }
+
+    @Benchmark
+    public int tick() {
+        SignalSource toggled = sources.get(nextSource);
+        toggled.setOn(!toggled.isOn());
+        nextSource = (nextSource + 1) % sources.size();
+
+        return simulation.frame();
+    }
+}
@@ -0,0 +1,405 @@
+package base.engine;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.MemoryBlock;
+import base.netlist.Netlist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flattens a Netlist into a CompiledCircuit. <br>
+ * Every output Port starts out with a net of its own. Splitters and the pins of Compound Components then merge
+ * nets together, and once everything has been visited each group of merged nets is numbered as one.
+ * <br><br>
+ * RAM on the compiled Netlist keeps its contents, which belong to the board. Every instance of a Compound
+ * Component gets its own copy of each RAM inside it, so instances never share contents.
+ * <br><br>
+ * Registers are not readers of their data inputs, since they only sample them when clocked. Instead, each net
+ * lists the Registers it clocks.
+ */
+class CircuitCompiler {
+    /** Initial size of every growable array */
+    private final static int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The nets touched by every Component of one Netlist, whether the compiled Netlist or a Compound interior
+     * @param inputOffsets Start of each Component's input nets within inputNets, plus one extra entry
+     * @param inputNets Net read by each input Port, grouped by Component
+     * @param outputOffsets Start of each Component's output nets within outputNets, plus one extra entry
+     * @param outputNets Net driven by each output Port, grouped by Component
+     * @param sources Signal Source number of each Component, or -1
+     */
+    private record Instance(int[] inputOffsets, int[] inputNets, int[] outputOffsets, int[] outputNets,
+                            int[] sources) {}
+
+    /** Union-find parent of each net. Merged nets always point towards the lower numbered net */
+    private int[] parents;
+    private int netCount;
+
+    private byte[] gateTypes;
+    private int[] gateIn0;
+    private int[] gateIn1;
+    private int[] gateOuts;
+    private int gateCount;
+
+    private int[] sourceNets;
+    private boolean[] sourceStates;
+    private int sourceCount;
+
+    /** Contents of every RAM and ROM, in the order they were visited */
+    private final List<MemoryBlock> memories;
+    /** Input nets of every RAM and ROM, one after another */
+    private final IntList blockInputs;
+    /** Output nets of every RAM and ROM, one after another */
+    private final IntList blockOutputs;
+
+    /** Start of each Register's bits within registerData and registerOutputs */
+    private final IntList registerOffsets;
+    /** Data input nets of every Register, one after another */
+    private final IntList registerData;
+    /** Output nets of every Register, one after another */
+    private final IntList registerOutputs;
+    /** Clock net of each Register */
+    private final IntList registerClocks;
+
+    /** Definition of every Compound Component instantiated, in the order they were instantiated */
+    private final List<CompoundDefinition> interiorDefinitions;
+    /** The nets of every Compound Component instantiated, in the same order */
+    private final List<Instance> interiors;
+
+    CircuitCompiler() {
+        this.parents = new int[INITIAL_CAPACITY];
+        this.gateTypes = new byte[INITIAL_CAPACITY];
+        this.gateIn0 = new int[INITIAL_CAPACITY];
+        this.gateIn1 = new int[INITIAL_CAPACITY];
+        this.gateOuts = new int[INITIAL_CAPACITY];
+        this.sourceNets = new int[INITIAL_CAPACITY];
+        this.sourceStates = new boolean[INITIAL_CAPACITY];
+        this.interiorDefinitions = new ArrayList<>();
+        this.interiors = new ArrayList<>();
+        this.memories = new ArrayList<>();
+        this.blockInputs = new IntList();
+        this.blockOutputs = new IntList();
+        this.registerOffsets = new IntList();
+        this.registerOffsets.add(0);
+        this.registerData = new IntList();
+        this.registerOutputs = new IntList();
+        this.registerClocks = new IntList();
+    }
+
+    /**
+     * A growable list of ints
+     */
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Compile a Netlist. Each CircuitCompiler may only be used once
+     */
+    CompiledCircuit compile(Netlist netlist) {
+        newNet();
+        Instance top = instantiate(netlist, null, null);
+
+        // Number each group of merged nets, in order, so LOW stays 0
+        int[] numbers = new int[netCount];
+        int count = 0;
+        for (int net = 0; net < netCount; net++) {
+            int root = root(net);
+            numbers[net] = root == net ? count++ : numbers[root];
+        }
+
+        byte[] types = Arrays.copyOf(gateTypes, gateCount);
+        int[] in0 = renumber(gateIn0, gateCount, numbers);
+        int[] in1 = renumber(gateIn1, gateCount, numbers);
+        int[] outs = renumber(gateOuts, gateCount, numbers);
+
+        CompiledCircuit.Blocks blocks = groupBlocks(numbers);
+        int[] blockInputOffsets = blocks.inputOffsets();
+        int[] blockInputNets = blocks.inputNets();
+        // Last block counted as reading each net, so a block reading a net on several inputs is listed once
+        int[] lastBlock = new int[count];
+        Arrays.fill(lastBlock, -1);
+
+        int[] drivers = new int[count];
+        Arrays.fill(drivers, -1);
+        int[] readerOffsets = new int[count + 1];
+        for (int gate = 0; gate < gateCount; gate++) {
+            drivers[outs[gate]] = gate;
+            readerOffsets[in0[gate] + 1]++;
+            if (types[gate] != CompiledCircuit.NOT && in1[gate] != in0[gate]) {
+                readerOffsets[in1[gate] + 1]++;
+            }
+        }
+        for (int block = 0; block < memories.size(); block++) {
+            for (int i = blockInputOffsets[block]; i < blockInputOffsets[block + 1]; i++) {
+                int net = blockInputNets[i];
+                if (lastBlock[net] != block) {
+                    lastBlock[net] = block;
+                    readerOffsets[net + 1]++;
+                }
+            }
+        }
+        for (int net = 0; net < count; net++) {
+            readerOffsets[net + 1] += readerOffsets[net];
+        }
+        int[] readers = new int[readerOffsets[count]];
+        int[] filled = Arrays.copyOf(readerOffsets, count);
+        for (int gate = 0; gate < gateCount; gate++) {
+            readers[filled[in0[gate]]++] = gate;
+            if (types[gate] != CompiledCircuit.NOT && in1[gate] != in0[gate]) {
+                readers[filled[in1[gate]]++] = gate;
+            }
+        }
+        Arrays.fill(lastBlock, -1);
+        for (int block = 0; block < memories.size(); block++) {
+            for (int i = blockInputOffsets[block]; i < blockInputOffsets[block + 1]; i++) {
+                int net = blockInputNets[i];
+                if (lastBlock[net] != block) {
+                    lastBlock[net] = block;
+                    readers[filled[net]++] = -1 - block;
+                }
+            }
+        }
+
+        return new CompiledCircuit(count, types, in0, in1, outs, readerOffsets, readers, drivers,
+                renumber(sourceNets, sourceCount, numbers), Arrays.copyOf(sourceStates, sourceCount),
+                top.inputOffsets(), renumber(top.inputNets(), top.inputNets().length, numbers),
+                top.outputOffsets(), renumber(top.outputNets(), top.outputNets().length, numbers), top.sources(),
+                groupInteriors(numbers), blocks, groupRegisters(numbers, count));
+    }
+
+    /**
+     * Gather every Register visited, with their nets numbered as in the compiled circuit, and list the Registers
+     * clocked by each net
+     */
+    private CompiledCircuit.Registers groupRegisters(int[] numbers, int count) {
+        int[] clocks = renumber(registerClocks.values, registerClocks.size, numbers);
+        int[] clockedOffsets = new int[count + 1];
+        for (int clock : clocks) {
+            clockedOffsets[clock + 1]++;
+        }
+        for (int net = 0; net < count; net++) {
+            clockedOffsets[net + 1] += clockedOffsets[net];
+        }
+        int[] clocked = new int[clocks.length];
+        int[] filled = Arrays.copyOf(clockedOffsets, count);
+        for (int register = 0; register < clocks.length; register++) {
+            clocked[filled[clocks[register]]++] = register;
+        }
+        return new CompiledCircuit.Registers(Arrays.copyOf(registerOffsets.values, registerOffsets.size),
+                renumber(registerData.values, registerData.size, numbers),
+                renumber(registerOutputs.values, registerOutputs.size, numbers), clocks, clockedOffsets, clocked);
+    }
+
+    /**
+     * Gather every RAM and ROM visited, with their nets numbered as in the compiled circuit
+     */
+    private CompiledCircuit.Blocks groupBlocks(int[] numbers) {
+        int count = memories.size();
+        int[] inputOffsets = new int[count + 1];
+        int[] outputOffsets = new int[count + 1];
+        for (int block = 0; block < count; block++) {
+            inputOffsets[block + 1] = inputOffsets[block] + memories.get(block).getNumInputs();
+            outputOffsets[block + 1] = outputOffsets[block] + memories.get(block).getNumOutputs();
+        }
+        return new CompiledCircuit.Blocks(memories.toArray(new MemoryBlock[0]),
+                inputOffsets, renumber(blockInputs.values, blockInputs.size, numbers),
+                outputOffsets, renumber(blockOutputs.values, blockOutputs.size, numbers));
+    }
+
+    /**
+     * Gather the nets of every Compound Component instantiated by definition, numbered as in the compiled circuit
+     */
+    private Map<CompoundDefinition, CompiledCircuit.Interiors> groupInteriors(int[] numbers) {
+        Map<CompoundDefinition, Integer> counts = new IdentityHashMap<>();
+        for (CompoundDefinition definition : interiorDefinitions) {
+            counts.merge(definition, 1, Integer::sum);
+        }
+
+        Map<CompoundDefinition, CompiledCircuit.Interiors> grouped = new IdentityHashMap<>();
+        Map<CompoundDefinition, Integer> filled = new IdentityHashMap<>();
+        for (int i = 0; i < interiors.size(); i++) {
+            CompoundDefinition definition = interiorDefinitions.get(i);
+            Instance instance = interiors.get(i);
+            int count = counts.get(definition);
+            CompiledCircuit.Interiors group = grouped.computeIfAbsent(definition, d -> new CompiledCircuit.Interiors(
+                    count, instance.inputOffsets(), new int[count * instance.inputNets().length],
+                    instance.outputOffsets(), new int[count * instance.outputNets().length]));
+            int n = filled.merge(definition, 1, Integer::sum) - 1;
+            int inputStart = n * instance.inputNets().length;
+            for (int p = 0; p < instance.inputNets().length; p++) {
+                group.inputNets()[inputStart + p] = numbers[instance.inputNets()[p]];
+            }
+            int outputStart = n * instance.outputNets().length;
+            for (int p = 0; p < instance.outputNets().length; p++) {
+                group.outputNets()[outputStart + p] = numbers[instance.outputNets()[p]];
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * Add the gates of one Netlist
+     * @param netlist The Netlist to add
+     * @param definition The definition the Netlist is the interior of, or null for the compiled Netlist
+     * @param pinNets The net connected to each input pin of the definition, or null for the compiled Netlist
+     * @return The nets touched by every Component of the Netlist
+     */
+    private Instance instantiate(Netlist netlist, CompoundDefinition definition, int[] pinNets) {
+        int size = netlist.size();
+        int[] inputOffsets = new int[size + 1];
+        int[] outputOffsets = new int[size + 1];
+        for (int c = 0; c < size; c++) {
+            inputOffsets[c + 1] = inputOffsets[c] + netlist.getNumInputs(c);
+            outputOffsets[c + 1] = outputOffsets[c] + netlist.getNumOutputs(c);
+        }
+
+        // Inputs with nothing connected read LOW, which is net 0
+        int[] inputNets = new int[inputOffsets[size]];
+        int[] outputNets = new int[outputOffsets[size]];
+        for (int i = 0; i < outputNets.length; i++) {
+            outputNets[i] = newNet();
+        }
+        for (int c = 0; c < netlist.getConnectionCount(); c++) {
+            inputNets[inputOffsets[netlist.getDest(c)] + netlist.getDestPort(c)] =
+                    outputNets[outputOffsets[netlist.getSource(c)] + netlist.getSourcePort(c)];
+        }
+        if (definition != null) {
+            for (int pin = 0; pin < definition.getNumInputs(); pin++) {
+                inputNets[inputOffsets[definition.getInputPinComponent(pin)] + definition.getInputPinPort(pin)] =
+                        pinNets[pin];
+            }
+        }
+
+        int[] sources = new int[size];
+        Arrays.fill(sources, -1);
+        for (int c = 0; c < size; c++) {
+            int in = inputOffsets[c];
+            int out = outputOffsets[c];
+            switch (netlist.getType(c)) {
+                case AND -> addGate(CompiledCircuit.AND, inputNets[in], inputNets[in + 1], outputNets[out]);
+                case OR -> addGate(CompiledCircuit.OR, inputNets[in], inputNets[in + 1], outputNets[out]);
+                case NOT -> addGate(CompiledCircuit.NOT, inputNets[in], CompiledCircuit.LOW, outputNets[out]);
+                case SPLITTER -> {
+                    merge(outputNets[out], inputNets[in]);
+                    merge(outputNets[out + 1], inputNets[in]);
+                }
+                case SIGNAL_SOURCE -> sources[c] = addSource(outputNets[out], netlist.getState(c));
+                case LIGHT -> {
+                    // Lights only read their net
+                }
+                case RAM, ROM -> {
+                    MemoryBlock memory = netlist.getMemory(c);
+                    memories.add(definition == null ? memory : memory.copy());
+                    for (int port = 0; port < memory.getNumInputs(); port++) {
+                        blockInputs.add(inputNets[in + port]);
+                    }
+                    for (int port = 0; port < memory.getNumOutputs(); port++) {
+                        blockOutputs.add(outputNets[out + port]);
+                    }
+                }
+                case REGISTER -> {
+                    int width = netlist.getWidth(c);
+                    for (int bit = 0; bit < width; bit++) {
+                        registerData.add(inputNets[in + bit]);
+                        registerOutputs.add(outputNets[out + bit]);
+                    }
+                    registerClocks.add(inputNets[in + width]);
+                    registerOffsets.add(registerData.size);
+                }
+                case COMPOUND -> {
+                    CompoundDefinition inner = netlist.getDefinition(c);
+                    Instance interior = instantiate(inner.getInterior(), inner,
+                            Arrays.copyOfRange(inputNets, in, in + inner.getNumInputs()));
+                    interiorDefinitions.add(inner);
+                    interiors.add(interior);
+                    for (int pin = 0; pin < inner.getNumOutputs(); pin++) {
+                        int pinComponent = inner.getOutputPinComponent(pin);
+                        merge(outputNets[out + pin],
+                                interior.outputNets()[interior.outputOffsets()[pinComponent]
+                                        + inner.getOutputPinPort(pin)]);
+                    }
+                }
+            }
+        }
+        return new Instance(inputOffsets, inputNets, outputOffsets, outputNets, sources);
+    }
+
+    private int newNet() {
+        if (netCount == parents.length) {
+            parents = Arrays.copyOf(parents, netCount * 2);
+        }
+        parents[netCount] = netCount;
+        return netCount++;
+    }
+
+    /**
+     * Merge two nets into one
+     */
+    private void merge(int a, int b) {
+        a = root(a);
+        b = root(b);
+        if (a < b) {
+            parents[b] = a;
+        } else if (b < a) {
+            parents[a] = b;
+        }
+    }
+
+    private int root(int net) {
+        while (parents[net] != net) {
+            parents[net] = parents[parents[net]];
+            net = parents[net];
+        }
+        return net;
+    }
+
+    private void addGate(byte type, int in0, int in1, int out) {
+        if (gateCount == gateTypes.length) {
+            int newCapacity = gateCount * 2;
+            gateTypes = Arrays.copyOf(gateTypes, newCapacity);
+            gateIn0 = Arrays.copyOf(gateIn0, newCapacity);
+            gateIn1 = Arrays.copyOf(gateIn1, newCapacity);
+            gateOuts = Arrays.copyOf(gateOuts, newCapacity);
+        }
+        gateTypes[gateCount] = type;
+        gateIn0[gateCount] = in0;
+        gateIn1[gateCount] = in1;
+        gateOuts[gateCount] = out;
+        gateCount++;
+    }
+
+    private int addSource(int net, boolean on) {
+        if (sourceCount == sourceNets.length) {
+            sourceNets = Arrays.copyOf(sourceNets, sourceCount * 2);
+            sourceStates = Arrays.copyOf(sourceStates, sourceCount * 2);
+        }
+        sourceNets[sourceCount] = net;
+        sourceStates[sourceCount] = on;
+        return sourceCount++;
+    }
+
+    /**
+     * Copy the first count nets of an array, replacing each with the number of its merged group
+     */
+    private static int[] renumber(int[] nets, int count, int[] numbers) {
+        int[] renumbered = new int[count];
+        for (int i = 0; i < count; i++) {
+            renumbered[i] = numbers[nets[i]];
+        }
+        return renumbered;
+    }
+}
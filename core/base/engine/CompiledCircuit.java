@@ -0,0 +1,258 @@
+package base.engine;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.MemoryBlock;
+import base.netlist.Netlist;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A Netlist flattened into the form the Engine simulates. <br>
+ * Compound Components are replaced by their interiors, recursively, and Splitters disappear entirely: everything
+ * a Splitter connects becomes one net. What is left is a set of nets, each holding one signal, and a set of AND,
+ * OR and NOT gates reading from and driving them, plus any RAM and ROM blocks and Registers. Net {@link #LOW} is
+ * always off and is read by every input Port with nothing connected to it.
+ * <br><br>
+ * A CompiledCircuit never changes once built, so one can be shared by any number of Engines on any threads. The
+ * exception is the contents of its RAMs, which belong to the board they were compiled from, so Engines sharing a
+ * circuit must {@link Engine#detachMemory} if more than one may write to them.
+ * The Components of the compiled Netlist itself, but not those inside Compound Components, can still be found by
+ * their index in that Netlist. The nets of Components inside Compound Components can be found per definition, by
+ * instance and by their index in the definition's interior.
+ */
+public class CompiledCircuit {
+    /** The net which is always off */
+    public final static int LOW = 0;
+
+    /** Gate type which outputs the logical and of its two inputs */
+    public final static byte AND = 0;
+    /** Gate type which outputs the logical or of its two inputs */
+    public final static byte OR = 1;
+    /** Gate type which outputs the inverse of its first input */
+    public final static byte NOT = 2;
+
+    /** Number of nets */
+    final int netCount;
+    /** Type of each gate */
+    final byte[] gateTypes;
+    /** Net read by the first input of each gate */
+    final int[] gateIn0;
+    /** Net read by the second input of each gate, LOW for NOT gates */
+    final int[] gateIn1;
+    /** Net driven by each gate */
+    final int[] gateOuts;
+
+    /** Start of each net's readers within the readers array, with one extra entry marking the end */
+    final int[] readerOffsets;
+    /** Gates reading from each net, grouped by net. RAM and ROM block b is listed as -1 - b */
+    final int[] readers;
+    /** Gate driving each net, or -1 if it is driven by a Signal Source or nothing */
+    final int[] netDrivers;
+
+    /** Net driven by each Signal Source */
+    final int[] sourceNets;
+    /** Whether each Signal Source starts on */
+    final boolean[] sourceInitialStates;
+
+    /** Start of each top-level Component's input nets within componentInputNets */
+    private final int[] inputOffsets;
+    /** Net read by each input Port of every top-level Component, grouped by Component */
+    private final int[] componentInputNets;
+    /** Start of each top-level Component's output nets within componentOutputNets */
+    private final int[] outputOffsets;
+    /** Net driven by each output Port of every top-level Component, grouped by Component */
+    private final int[] componentOutputNets;
+    /** Signal Source number of each top-level Component, or -1 if it is not a Signal Source */
+    private final int[] componentSources;
+    /** Nets of every instance of each Compound definition used anywhere in the circuit */
+    private final Map<CompoundDefinition, Interiors> interiors;
+    /** Every RAM and ROM, and the nets each reads and drives */
+    final Blocks blocks;
+    /** Every Register, and the nets each reads and drives */
+    final Registers registers;
+
+    /**
+     * The nets touched by the interior Components of every instance of one Compound definition
+     * @param count The number of instances
+     * @param inputOffsets Start of each interior Component's input nets within one instance, plus one extra entry
+     * @param inputNets Net read by each interior input Port, grouped by Component, instance after instance
+     * @param outputOffsets Start of each interior Component's output nets within one instance, plus one extra entry
+     * @param outputNets Net driven by each interior output Port, grouped by Component, instance after instance
+     */
+    record Interiors(int count, int[] inputOffsets, int[] inputNets, int[] outputOffsets, int[] outputNets) {}
+
+    /**
+     * Every RAM and ROM in the circuit, including those inside Compound Components
+     * @param memories The contents of each block
+     * @param inputOffsets Start of each block's input nets within inputNets, plus one extra entry
+     * @param inputNets Net read by each input Port of every block, grouped by block
+     * @param outputOffsets Start of each block's output nets within outputNets, plus one extra entry
+     * @param outputNets Net driven by each output Port of every block, grouped by block
+     */
+    record Blocks(MemoryBlock[] memories, int[] inputOffsets, int[] inputNets, int[] outputOffsets,
+                  int[] outputNets) {}
+
+    /**
+     * Every Register in the circuit, including D flip-flops and those inside Compound Components
+     * @param offsets Start of each Register's bits within dataNets and outputNets, plus one extra entry
+     * @param dataNets Net read by each data input of every Register, grouped by Register
+     * @param outputNets Net driven by each output of every Register, grouped by Register
+     * @param clockNets Net read by the clock input of each Register
+     * @param clockedOffsets Start of each net's Registers within clocked, with one extra entry marking the end
+     * @param clocked Registers clocked by each net, grouped by net
+     */
+    record Registers(int[] offsets, int[] dataNets, int[] outputNets, int[] clockNets, int[] clockedOffsets,
+                     int[] clocked) {}
+
+    CompiledCircuit(int netCount, byte[] gateTypes, int[] gateIn0, int[] gateIn1, int[] gateOuts,
+                    int[] readerOffsets, int[] readers, int[] netDrivers, int[] sourceNets,
+                    boolean[] sourceInitialStates, int[] inputOffsets, int[] componentInputNets,
+                    int[] outputOffsets, int[] componentOutputNets, int[] componentSources,
+                    Map<CompoundDefinition, Interiors> interiors, Blocks blocks, Registers registers) {
+        this.netCount = netCount;
+        this.gateTypes = gateTypes;
+        this.gateIn0 = gateIn0;
+        this.gateIn1 = gateIn1;
+        this.gateOuts = gateOuts;
+        this.readerOffsets = readerOffsets;
+        this.readers = readers;
+        this.netDrivers = netDrivers;
+        this.sourceNets = sourceNets;
+        this.sourceInitialStates = sourceInitialStates;
+        this.inputOffsets = inputOffsets;
+        this.componentInputNets = componentInputNets;
+        this.outputOffsets = outputOffsets;
+        this.componentOutputNets = componentOutputNets;
+        this.componentSources = componentSources;
+        this.interiors = new IdentityHashMap<>(interiors);
+        this.blocks = blocks;
+        this.registers = registers;
+    }
+
+    /**
+     * Compile a Netlist, including the interiors of every Compound Component in it
+     * @param netlist The Netlist to compile
+     * @return The compiled circuit
+     */
+    public static CompiledCircuit compile(Netlist netlist) {
+        return new CircuitCompiler().compile(netlist);
+    }
+
+    /**
+     * Get the number of nets in this circuit, including LOW
+     * @return The number of nets
+     */
+    public int getNetCount() {
+        return netCount;
+    }
+
+    /**
+     * Get the number of gates in this circuit
+     * @return The number of AND, OR and NOT gates left after flattening
+     */
+    public int getGateCount() {
+        return gateTypes.length;
+    }
+
+    /**
+     * Get the number of Signal Sources in this circuit, including those inside Compound Components
+     * @return The number of Signal Sources
+     */
+    public int getSourceCount() {
+        return sourceNets.length;
+    }
+
+    /**
+     * Get the number of RAM and ROM blocks in this circuit, including those inside Compound Components
+     * @return The number of blocks
+     */
+    public int getBlockCount() {
+        return blocks.memories().length;
+    }
+
+    /**
+     * Get the number of Registers in this circuit, including D flip-flops and those inside Compound Components
+     * @return The number of Registers
+     */
+    public int getRegisterCount() {
+        return registers.clockNets().length;
+    }
+
+    /**
+     * Get the net read by an input Port of a Component of the compiled Netlist
+     * @param component The index of the Component in the compiled Netlist
+     * @param port The input Port number
+     * @return The net the Port reads from
+     */
+    public int getInputNet(int component, int port) {
+        return componentInputNets[inputOffsets[component] + port];
+    }
+
+    /**
+     * Get the net driven by an output Port of a Component of the compiled Netlist
+     * @param component The index of the Component in the compiled Netlist
+     * @param port The output Port number
+     * @return The net the Port drives
+     */
+    public int getOutputNet(int component, int port) {
+        return componentOutputNets[outputOffsets[component] + port];
+    }
+
+    /**
+     * Get the Signal Source number of a Component of the compiled Netlist
+     * @param component The index of the Component in the compiled Netlist
+     * @return The Signal Source number to pass to {@link Engine#setSource}, or -1 if it is not a Signal Source
+     */
+    public int getSource(int component) {
+        return componentSources[component];
+    }
+
+    /**
+     * Get the number of instances of a Compound definition in this circuit, counting those nested inside other
+     * Compound Components
+     * @param definition The definition in question
+     * @return The number of instances, 0 if it is not used
+     */
+    public int getInstanceCount(CompoundDefinition definition) {
+        Interiors interior = interiors.get(definition);
+        return interior == null ? 0 : interior.count();
+    }
+
+    /**
+     * Get the net read by an input Port of a Component inside one instance of a Compound definition
+     * @param definition The definition the Component is inside
+     * @param instance The instance, from 0 to {@link #getInstanceCount} - 1
+     * @param component The index of the Component in the definition's interior Netlist
+     * @param port The input Port number
+     * @return The net the Port reads from
+     */
+    public int getInteriorInputNet(CompoundDefinition definition, int instance, int component, int port) {
+        Interiors interior = interiors.get(definition);
+        int[] offsets = interior.inputOffsets();
+        return interior.inputNets()[instance * offsets[offsets.length - 1] + offsets[component] + port];
+    }
+
+    /**
+     * Get the net driven by an output Port of a Component inside one instance of a Compound definition
+     * @param definition The definition the Component is inside
+     * @param instance The instance, from 0 to {@link #getInstanceCount} - 1
+     * @param component The index of the Component in the definition's interior Netlist
+     * @param port The output Port number
+     * @return The net the Port drives
+     */
+    public int getInteriorOutputNet(CompoundDefinition definition, int instance, int component, int port) {
+        Interiors interior = interiors.get(definition);
+        int[] offsets = interior.outputOffsets();
+        return interior.outputNets()[instance * offsets[offsets.length - 1] + offsets[component] + port];
+    }
+
+    /**
+     * Get whether a net is driven by a gate, rather than by a Signal Source or nothing at all
+     * @param net The net in question
+     * @return Whether a gate drives the net
+     */
+    public boolean isGateDriven(int net) {
+        return netDrivers[net] != -1;
+    }
+}
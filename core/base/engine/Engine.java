@@ -0,0 +1,798 @@
+package base.engine;
+
+import base.netlist.MemoryBlock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Simulates a CompiledCircuit. <br>
+ * Every gate takes one tick to respond to a change on its inputs. Each tick, only the gates with an input which
+ * changed during the previous tick are evaluated, all against the values from the end of that tick, and their
+ * new outputs are applied together afterwards. The result does not depend on the order gates were added in, and
+ * a circuit where nothing changes costs nothing to tick.
+ * <br><br>
+ * Watchpoints stop {@link #settle} at the end of the exact tick on which their condition becomes true. Each net
+ * carries a flag saying whether any watchpoint reads it, and conditions are only evaluated after a tick which
+ * changed a flagged net, so ticks which change nothing watched cost one array read per changed net.
+ * <br><br>
+ * An Engine can be patched while it runs, adding gates and Signal Sources, rewiring gate inputs and removing gates,
+ * so a live edit does not need the whole circuit recompiled. Only the fan-out lists of the nets a patch touches
+ * change. The first patch gives the Engine its own copy of the gate arrays, leaving the CompiledCircuit as it was.
+ * <br><br>
+ * RAM and ROM blocks are evaluated like gates, one tick after any input changes, driving every data output at once.
+ * They read and write the board's own contents, so a RAM keeps what was written to it when the board is
+ * recompiled.
+ * <br><br>
+ * Registers, including D flip-flops, are not evaluated with the gates. A Register only wakes when its clock net
+ * turns on, and on the next tick, once every gate has been evaluated, a separate commit phase copies each clocked
+ * Register's data inputs to its outputs. Data changes never queue anything, and since every Register samples the
+ * values from the end of the clock edge's tick, chains of Registers shift exactly one place per edge however they
+ * were added.
+ * <br><br>
+ * An Engine holds only the per-run state of a simulation, so many can share one CompiledCircuit, as long as each
+ * calls {@link #detachMemory} first if the circuit has RAM. A single Engine must only be used by one thread at a
+ * time.
+ */
+public class Engine {
+    /** Smallest capacity the net and gate arrays grow to when patched */
+    private final static int MIN_CAPACITY = 16;
+
+    /** The circuit being simulated, as it was compiled */
+    private final CompiledCircuit circuit;
+    /** Number of nets, including any added by patches */
+    private int netCount;
+    /** Number of gates, including any added by patches */
+    private int gateCount;
+    /** Number of Signal Sources, including any added by patches */
+    private int sourceCount;
+    /** Whether the gate, driver and Signal Source arrays are this Engine's own, rather than the circuit's */
+    private boolean patched;
+    /** Type of each gate */
+    private byte[] gateTypes;
+    /** Net read by the first input of each gate */
+    private int[] gateIn0;
+    /** Net read by the second input of each gate, LOW for NOT gates */
+    private int[] gateIn1;
+    /** Net driven by each gate */
+    private int[] gateOuts;
+    /** Gate driving each net, or -1 if it is driven by a Signal Source or nothing */
+    private int[] netDrivers;
+    /** Net driven by each Signal Source */
+    private int[] sourceNets;
+    /** Gates reading from each net, with RAM and ROM block b listed as -1 - b. LOW's list is never walked, so it
+     *  is not kept up to date */
+    private final IntLists readers;
+
+    /** Number of RAM and ROM blocks */
+    private final int blockCount;
+    /** Contents of each block, shared with the circuit until detached */
+    private final MemoryBlock[] memories;
+    /** Start of each block's input nets within blockInputs, plus one extra entry */
+    private final int[] blockInputOffsets;
+    /** Net read by each input Port of every block, grouped by block */
+    private final int[] blockInputs;
+    /** Start of each block's output nets within blockOutputs, plus one extra entry */
+    private final int[] blockOutputOffsets;
+    /** Net driven by each output Port of every block, grouped by block */
+    private final int[] blockOutputs;
+    /** Whether each block is already in the queue */
+    private final boolean[] blockQueued;
+    /** Whether each RAM's write input was on when it was last evaluated */
+    private final boolean[] blockWriting;
+
+    /** Start of each Register's bits within registerData and registerOutputs, plus one extra entry */
+    private final int[] registerOffsets;
+    /** Net read by each data input of every Register, grouped by Register */
+    private final int[] registerData;
+    /** Net driven by each output of every Register, grouped by Register */
+    private final int[] registerOutputs;
+    /** Start of each compiled net's Registers within clockedBy, plus one extra entry */
+    private final int[] clockedOffsets;
+    /** Registers clocked by each compiled net, grouped by net */
+    private final int[] clockedBy;
+    /** Whether each compiled net is driven by a Register */
+    private final boolean[] registerDriven;
+    /** Registers to commit next tick, whose clock turned on since the last commit phase */
+    private final int[] clocked;
+    /** Number of Registers waiting to commit */
+    private int clockedCount;
+    /** Whether each Register is already waiting to commit */
+    private final boolean[] registerClocked;
+
+    /** Whether each net is on */
+    private boolean[] values;
+
+    /** Gates to evaluate next tick, with block b queued as -1 - b */
+    private int[] queue;
+    /** Number of gates in the queue */
+    private int queueSize;
+    /** The queue being evaluated, kept to be reused as the next queue */
+    private int[] spareQueue;
+    /** Whether each gate is already in the queue */
+    private boolean[] queued;
+    /** Nets which change at the end of the tick being evaluated */
+    private int[] changing;
+
+    /** Nets which have changed since they were last drained */
+    private int[] changed;
+    /** Number of nets in the changed list */
+    private int changedCount;
+    /** Whether each net is already in the changed list */
+    private boolean[] inChanged;
+
+    /** Number of ticks run */
+    private long tickCount;
+    /** Number of gates evaluated over every tick run */
+    private long gateEvaluations;
+    /** Number of nets changed by gates over every tick run */
+    private long signalChanges;
+    /** Number of times each net has been changed by a gate or a Signal Source */
+    private long[] toggleCounts;
+
+    /**
+     * A condition on a group of nets, read as a binary number
+     */
+    private static class Watchpoint {
+        /** Identifier returned when the watchpoint was added */
+        private final int id;
+        /** Nets read, least significant bit first */
+        private final int[] nets;
+        /** Value the nets must show for the condition to hold */
+        private final long value;
+        /** Whether the condition held when last evaluated */
+        private boolean held;
+
+        private Watchpoint(int id, int[] nets, long value) {
+            this.id = id;
+            this.nets = nets;
+            this.value = value;
+        }
+    }
+
+    /** Every watchpoint, in the order they were added */
+    private final List<Watchpoint> watchpoints;
+    /** Whether any watchpoint reads each net */
+    private boolean[] watchedNets;
+    /** Whether a watched net has changed since the watchpoints were last evaluated */
+    private boolean watchedChanged;
+    /** Identifier of the watchpoint which stopped the simulation, or -1 if none has */
+    private int triggered;
+    /** Identifier given to the next watchpoint added */
+    private int nextWatchpointId;
+
+    /**
+     * Start simulating a circuit from every net off and every Signal Source in its saved state. <br>
+     * Every gate is evaluated on the first tick
+     * @param circuit The circuit to simulate
+     */
+    public Engine(CompiledCircuit circuit) {
+        this.circuit = circuit;
+        this.netCount = circuit.netCount;
+        this.gateCount = circuit.getGateCount();
+        this.sourceCount = circuit.sourceNets.length;
+        this.patched = false;
+        this.gateTypes = circuit.gateTypes;
+        this.gateIn0 = circuit.gateIn0;
+        this.gateIn1 = circuit.gateIn1;
+        this.gateOuts = circuit.gateOuts;
+        this.netDrivers = circuit.netDrivers;
+        this.sourceNets = circuit.sourceNets;
+        this.readers = new IntLists(circuit.readerOffsets, circuit.readers);
+        this.blockCount = circuit.getBlockCount();
+        this.memories = circuit.blocks.memories().clone();
+        this.blockInputOffsets = circuit.blocks.inputOffsets();
+        this.blockInputs = circuit.blocks.inputNets();
+        this.blockOutputOffsets = circuit.blocks.outputOffsets();
+        this.blockOutputs = circuit.blocks.outputNets();
+        this.blockQueued = new boolean[blockCount];
+        this.blockWriting = new boolean[blockCount];
+        this.registerOffsets = circuit.registers.offsets();
+        this.registerData = circuit.registers.dataNets();
+        this.registerOutputs = circuit.registers.outputNets();
+        this.clockedOffsets = circuit.registers.clockedOffsets();
+        this.clockedBy = circuit.registers.clocked();
+        this.registerDriven = new boolean[circuit.netCount];
+        for (int net : registerOutputs) {
+            registerDriven[net] = true;
+        }
+        this.clocked = new int[circuit.getRegisterCount()];
+        this.clockedCount = 0;
+        this.registerClocked = new boolean[circuit.getRegisterCount()];
+        this.values = new boolean[circuit.netCount];
+        this.queue = new int[gateCount + blockCount];
+        this.spareQueue = new int[gateCount + blockCount];
+        this.queued = new boolean[gateCount];
+        this.changing = new int[gateCount + blockOutputs.length + registerOutputs.length];
+        this.changed = new int[circuit.netCount];
+        this.changedCount = 0;
+        this.inChanged = new boolean[circuit.netCount];
+        this.tickCount = 0;
+        this.gateEvaluations = 0;
+        this.signalChanges = 0;
+        this.toggleCounts = new long[circuit.netCount];
+        this.watchpoints = new ArrayList<>();
+        this.watchedNets = new boolean[circuit.netCount];
+        this.watchedChanged = false;
+        this.triggered = -1;
+        this.nextWatchpointId = 0;
+
+        for (int gate = 0; gate < gateCount; gate++) {
+            queue[gate] = gate;
+            queued[gate] = true;
+        }
+        queueSize = gateCount;
+        for (int block = 0; block < blockCount; block++) {
+            queueBlock(block);
+        }
+        for (int source = 0; source < sourceCount; source++) {
+            values[sourceNets[source]] = circuit.sourceInitialStates[source];
+        }
+    }
+
+    /**
+     * Get the circuit being simulated, as it was compiled. Patches are not reflected in it
+     * @return The circuit
+     */
+    public CompiledCircuit getCircuit() {
+        return circuit;
+    }
+
+    /**
+     * Get whether a net is on
+     * @param net The net in question
+     * @return Whether the net is on
+     */
+    public boolean isOn(int net) {
+        return values[net];
+    }
+
+    /**
+     * Get whether a Signal Source is on
+     * @param source The Signal Source number
+     * @return Whether the Signal Source is on
+     */
+    public boolean isSourceOn(int source) {
+        return values[sourceNets[source]];
+    }
+
+    /**
+     * Get the net driven by a Signal Source
+     * @param source The Signal Source number
+     * @return The net it drives
+     */
+    public int getSourceNet(int source) {
+        return sourceNets[source];
+    }
+
+    /**
+     * Get the number of nets, including LOW and any added by patches
+     * @return The number of nets
+     */
+    public int getNetCount() {
+        return netCount;
+    }
+
+    /**
+     * Turn a Signal Source on or off. Gates reading from it respond on the next tick
+     * @param source The Signal Source number
+     * @param on Whether the Signal Source should be on
+     */
+    public void setSource(int source, boolean on) {
+        int net = sourceNets[source];
+        if (values[net] != on) {
+            toggleCounts[net]++;
+            set(net, on);
+            if (on) {
+                clock(net);
+            }
+        }
+    }
+
+    /**
+     * Set the value of a net driven by a gate or a Register, such as one carried over from an earlier Engine. <br>
+     * Nets driven by Signal Sources or by nothing are left alone. Gates reading from the net respond on the
+     * next tick, and the gate driving it keeps the value until one of that gate's inputs changes. A Register keeps
+     * it until it is next clocked, so restoring a Register's outputs restores what it holds. Restoring a clock net
+     * does not clock anything
+     * @param net The net to set
+     * @param on Whether the net should be on
+     */
+    public void restore(int net, boolean on) {
+        if (netDrivers[net] != -1 || (net < registerDriven.length && registerDriven[net])) {
+            set(net, on);
+        }
+    }
+
+    private void set(int net, boolean on) {
+        if (values[net] != on) {
+            values[net] = on;
+            queueReaders(net);
+            recordChange(net);
+            if (watchedNets[net]) {
+                checkWatchpoints();
+            }
+        }
+    }
+
+    /**
+     * Advance the simulation by one gate delay
+     * @return The number of nets which changed
+     */
+    public int tick() {
+        int[] evaluating = queue;
+        int count = queueSize;
+        queue = spareQueue;
+        queueSize = 0;
+        spareQueue = evaluating;
+
+        byte[] types = gateTypes;
+        int[] in0 = gateIn0;
+        int[] in1 = gateIn1;
+        int[] outs = gateOuts;
+        int changes = 0;
+        for (int i = 0; i < count; i++) {
+            int gate = evaluating[i];
+            if (gate < 0) {
+                changes = evaluateBlock(-1 - gate, changes);
+                continue;
+            }
+            queued[gate] = false;
+            boolean result = switch (types[gate]) {
+                case CompiledCircuit.AND -> values[in0[gate]] && values[in1[gate]];
+                case CompiledCircuit.OR -> values[in0[gate]] || values[in1[gate]];
+                default -> !values[in0[gate]];
+            };
+            if (result != values[outs[gate]]) {
+                changing[changes++] = outs[gate];
+            }
+        }
+
+        // Commit phase, against the same values the gates just read
+        int committed = clockedCount;
+        clockedCount = 0;
+        for (int i = 0; i < committed; i++) {
+            changes = commitRegister(clocked[i], changes);
+        }
+
+        for (int i = 0; i < changes; i++) {
+            int net = changing[i];
+            values[net] = !values[net];
+            toggleCounts[net]++;
+            queueReaders(net);
+            if (values[net]) {
+                clock(net);
+            }
+            recordChange(net);
+            watchedChanged |= watchedNets[net];
+        }
+        if (watchedChanged) {
+            checkWatchpoints();
+        }
+        tickCount++;
+        gateEvaluations += count + committed;
+        signalChanges += changes;
+        return changes;
+    }
+
+    /**
+     * Tick until nothing changes any more, or until a watchpoint is triggered. <br>
+     * Nothing is run while a watchpoint is still triggered from before
+     * @param maxTicks The most ticks to run, for circuits which never settle such as oscillators
+     * @return The number of ticks run
+     */
+    public int settle(int maxTicks) {
+        int ticks = 0;
+        while (!isSettled() && ticks < maxTicks && triggered == -1) {
+            tick();
+            ticks++;
+        }
+        return ticks;
+    }
+
+    /**
+     * Get whether another tick would change nothing
+     * @return Whether the circuit has settled
+     */
+    public boolean isSettled() {
+        return queueSize == 0 && clockedCount == 0;
+    }
+
+    /**
+     * Add a gate reading nothing, driving a new net of its own. It is evaluated on the next tick
+     * @param type The type of gate, AND, OR or NOT
+     * @return The net the new gate drives
+     */
+    public int addGate(byte type) {
+        own();
+        int net = addNet();
+        if (gateCount == gateTypes.length) {
+            int capacity = Math.max(gateCount * 2, MIN_CAPACITY);
+            gateTypes = Arrays.copyOf(gateTypes, capacity);
+            gateIn0 = Arrays.copyOf(gateIn0, capacity);
+            gateIn1 = Arrays.copyOf(gateIn1, capacity);
+            gateOuts = Arrays.copyOf(gateOuts, capacity);
+        }
+        if (gateCount == queued.length) {
+            int capacity = Math.max(gateCount * 2, MIN_CAPACITY);
+            queue = Arrays.copyOf(queue, capacity + blockCount);
+            spareQueue = Arrays.copyOf(spareQueue, capacity + blockCount);
+            queued = Arrays.copyOf(queued, capacity);
+            changing = Arrays.copyOf(changing, capacity + blockOutputs.length + registerOutputs.length);
+        }
+        int gate = gateCount++;
+        gateTypes[gate] = type;
+        gateIn0[gate] = CompiledCircuit.LOW;
+        gateIn1[gate] = CompiledCircuit.LOW;
+        gateOuts[gate] = net;
+        netDrivers[net] = gate;
+        queue(gate);
+        return net;
+    }
+
+    /**
+     * Add a Signal Source driving a new net of its own
+     * @param on Whether the Signal Source starts on
+     * @return The new Signal Source number
+     */
+    public int addSource(boolean on) {
+        own();
+        int net = addNet();
+        if (sourceCount == sourceNets.length) {
+            sourceNets = Arrays.copyOf(sourceNets, Math.max(sourceCount * 2, MIN_CAPACITY));
+        }
+        sourceNets[sourceCount] = net;
+        values[net] = on;
+        return sourceCount++;
+    }
+
+    /**
+     * Change the net read by one input of a gate. The gate is evaluated against its new input on the next tick
+     * @param output The net driven by the gate
+     * @param input The input to change, 0 or 1. NOT gates only read input 0
+     * @param net The net to read from now, or LOW to read nothing
+     * @throws IllegalArgumentException If no gate drives the output net, or the gate has no such input
+     */
+    public void rewire(int output, int input, int net) {
+        int gate = netDrivers[output];
+        if (gate == -1) {
+            throw new IllegalArgumentException("No gate drives net " + output);
+        }
+        int numInputs = gateTypes[gate] == CompiledCircuit.NOT ? 1 : 2;
+        if (input < 0 || input >= numInputs) {
+            throw new IllegalArgumentException("Gate driving net " + output + " has no input " + input);
+        }
+        own();
+        int[] inputs = input == 0 ? gateIn0 : gateIn1;
+        int old = inputs[gate];
+        int other = gateTypes[gate] == CompiledCircuit.NOT ? CompiledCircuit.LOW
+                : (input == 0 ? gateIn1 : gateIn0)[gate];
+        if (old == net) {
+            return;
+        }
+        // A gate is only listed once per net, however many of its inputs read it
+        if (old != CompiledCircuit.LOW && old != other) {
+            readers.remove(old, gate);
+        }
+        if (net != CompiledCircuit.LOW && net != other) {
+            readers.add(net, gate);
+        }
+        inputs[gate] = net;
+        queue(gate);
+    }
+
+    /**
+     * Disconnect a gate from everything it reads, so its net turns off on the next tick and stays off. <br>
+     * The gate and its net stay in the Engine, costing nothing, since LOW never changes
+     * @param output The net driven by the gate
+     * @throws IllegalArgumentException If no gate drives the output net
+     */
+    public void removeGate(int output) {
+        rewire(output, 0, CompiledCircuit.LOW);
+        int gate = netDrivers[output];
+        if (gateTypes[gate] != CompiledCircuit.NOT) {
+            rewire(output, 1, CompiledCircuit.LOW);
+        }
+        gateTypes[gate] = CompiledCircuit.AND;
+    }
+
+    /**
+     * Give this Engine its own copy of every RAM's contents, so its writes no longer reach the board or any other
+     * Engine sharing the circuit. ROMs are never written, so they stay shared
+     */
+    public void detachMemory() {
+        for (int block = 0; block < blockCount; block++) {
+            memories[block] = memories[block].copy();
+        }
+    }
+
+    /**
+     * Evaluate a RAM or ROM block against the values from the end of the previous tick, writing a RAM if its write
+     * input has just turned on
+     * @param block The block to evaluate
+     * @param changes Number of nets already changing this tick
+     * @return Number of nets changing this tick, including the block's data outputs which differ
+     */
+    private int evaluateBlock(int block, int changes) {
+        blockQueued[block] = false;
+        MemoryBlock memory = memories[block];
+        int in = blockInputOffsets[block];
+        int address = 0;
+        for (int bit = 0; bit < memory.getAddressBits(); bit++) {
+            if (values[blockInputs[in + bit]]) {
+                address |= 1 << bit;
+            }
+        }
+        if (!memory.isReadOnly()) {
+            int dataIn = in + memory.getAddressBits();
+            boolean write = values[blockInputs[dataIn + memory.getDataBits()]];
+            if (write && !blockWriting[block]) {
+                long word = 0;
+                for (int bit = 0; bit < memory.getDataBits(); bit++) {
+                    if (values[blockInputs[dataIn + bit]]) {
+                        word |= 1L << bit;
+                    }
+                }
+                memory.write(address, word);
+            }
+            blockWriting[block] = write;
+        }
+
+        long word = memory.read(address);
+        for (int out = blockOutputOffsets[block], bit = 0; out < blockOutputOffsets[block + 1]; out++, bit++) {
+            int net = blockOutputs[out];
+            if (((word >>> bit & 1) != 0) != values[net]) {
+                changing[changes++] = net;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Copy a clocked Register's data inputs, as they were at the end of the previous tick, to its outputs
+     * @param register The Register to commit
+     * @param changes Number of nets already changing this tick
+     * @return Number of nets changing this tick, including the Register's outputs which differ
+     */
+    private int commitRegister(int register, int changes) {
+        registerClocked[register] = false;
+        for (int bit = registerOffsets[register]; bit < registerOffsets[register + 1]; bit++) {
+            int net = registerOutputs[bit];
+            if (values[registerData[bit]] != values[net]) {
+                changing[changes++] = net;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Take copies of the arrays shared with the circuit, before the first patch changes them
+     */
+    private void own() {
+        if (!patched) {
+            patched = true;
+            gateTypes = gateTypes.clone();
+            gateIn0 = gateIn0.clone();
+            gateIn1 = gateIn1.clone();
+            gateOuts = gateOuts.clone();
+            netDrivers = netDrivers.clone();
+            sourceNets = sourceNets.clone();
+        }
+    }
+
+    /**
+     * Add a net which is off, driven by nothing and read by nothing
+     */
+    private int addNet() {
+        if (netCount == values.length) {
+            int capacity = Math.max(netCount * 2, MIN_CAPACITY);
+            values = Arrays.copyOf(values, capacity);
+            changed = Arrays.copyOf(changed, capacity);
+            inChanged = Arrays.copyOf(inChanged, capacity);
+            toggleCounts = Arrays.copyOf(toggleCounts, capacity);
+            watchedNets = Arrays.copyOf(watchedNets, capacity);
+        }
+        if (netCount == netDrivers.length) {
+            netDrivers = Arrays.copyOf(netDrivers, Math.max(netCount * 2, MIN_CAPACITY));
+        }
+        netDrivers[netCount] = -1;
+        readers.addKey();
+        return netCount++;
+    }
+
+    /**
+     * Watch a group of nets, stopping {@link #settle} on the tick they start to show a value. <br>
+     * The watchpoint triggers when its condition goes from not holding to holding, so one which already holds
+     * when added only triggers once it has stopped holding and then holds again
+     * @param nets The nets to read as a binary number, least significant bit first. At most 64
+     * @param value The value the nets must show
+     * @return An identifier for the watchpoint
+     * @throws IllegalArgumentException If there are no nets, more than 64, or any does not exist
+     */
+    public int addWatchpoint(int[] nets, long value) {
+        if (nets.length == 0 || nets.length > Long.SIZE) {
+            throw new IllegalArgumentException("A watchpoint reads 1 to 64 nets, not " + nets.length);
+        }
+        for (int net : nets) {
+            if (net < 0 || net >= netCount) {
+                throw new IllegalArgumentException("No net " + net + " to watch");
+            }
+        }
+        Watchpoint watchpoint = new Watchpoint(nextWatchpointId++, nets.clone(), value);
+        watchpoint.held = holds(watchpoint);
+        watchpoints.add(watchpoint);
+        for (int net : nets) {
+            watchedNets[net] = true;
+        }
+        return watchpoint.id;
+    }
+
+    /**
+     * Stop watching a group of nets. Identifiers which are not watched are ignored
+     * @param id The identifier returned when the watchpoint was added
+     */
+    public void removeWatchpoint(int id) {
+        watchpoints.removeIf(watchpoint -> watchpoint.id == id);
+        Arrays.fill(watchedNets, false);
+        for (Watchpoint watchpoint : watchpoints) {
+            for (int net : watchpoint.nets) {
+                watchedNets[net] = true;
+            }
+        }
+        if (triggered == id) {
+            triggered = -1;
+        }
+    }
+
+    /**
+     * Get the watchpoint which stopped the simulation
+     * @return The identifier of the triggered watchpoint, or -1 if none has triggered since the last resume
+     */
+    public int getTriggeredWatchpoint() {
+        return triggered;
+    }
+
+    /**
+     * Let {@link #settle} run again after a watchpoint stopped it
+     */
+    public void resume() {
+        triggered = -1;
+    }
+
+    /**
+     * Evaluate every watchpoint after a watched net changed, triggering the first whose condition became true
+     */
+    private void checkWatchpoints() {
+        watchedChanged = false;
+        for (Watchpoint watchpoint : watchpoints) {
+            boolean held = holds(watchpoint);
+            if (held && !watchpoint.held && triggered == -1) {
+                triggered = watchpoint.id;
+            }
+            watchpoint.held = held;
+        }
+    }
+
+    private boolean holds(Watchpoint watchpoint) {
+        long shown = 0;
+        for (int bit = 0; bit < watchpoint.nets.length; bit++) {
+            if (values[watchpoint.nets[bit]]) {
+                shown |= 1L << bit;
+            }
+        }
+        return shown == watchpoint.value;
+    }
+
+    /**
+     * Get the number of ticks run since this Engine was created
+     * @return The number of ticks run
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Get the number of gates evaluated since this Engine was created. Gates are only evaluated when an input
+     * changes, so this is usually far less than the gate count times the tick count. RAM and ROM blocks evaluated and
+     * Registers committed count as one each
+     * @return The number of gate evaluations
+     */
+    public long getGateEvaluations() {
+        return gateEvaluations;
+    }
+
+    /**
+     * Get the number of times a gate changed its output net since this Engine was created
+     * @return The number of signal changes
+     */
+    public long getSignalChanges() {
+        return signalChanges;
+    }
+
+    /**
+     * Get the number of times a net has been changed by the gate driving it, or by its Signal Source, since this
+     * Engine was created or its toggle counts were last cleared. Values restored from an earlier Engine are not
+     * counted
+     * @param net The net in question
+     * @return The number of times the net has toggled
+     */
+    public long getToggleCount(int net) {
+        return toggleCounts[net];
+    }
+
+    /**
+     * Start counting toggles from zero on every net
+     */
+    public void clearToggleCounts() {
+        Arrays.fill(toggleCounts, 0);
+    }
+
+    /**
+     * Visit every net which has changed since the last drain, once each, then forget them. <br>
+     * A net which changed and then changed back is still visited
+     * @param visitor Called with each changed net
+     */
+    public void drainChangedNets(IntConsumer visitor) {
+        for (int i = 0; i < changedCount; i++) {
+            int net = changed[i];
+            inChanged[net] = false;
+            visitor.accept(net);
+        }
+        changedCount = 0;
+    }
+
+    private void recordChange(int net) {
+        if (!inChanged[net]) {
+            inChanged[net] = true;
+            changed[changedCount++] = net;
+        }
+    }
+
+    /**
+     * Queue every gate reading from a net to be evaluated next tick
+     */
+    private void queueReaders(int net) {
+        int[] list = readers.values();
+        for (int r = readers.start(net), end = readers.end(net); r < end; r++) {
+            int reader = list[r];
+            if (reader >= 0) {
+                queue(reader);
+            } else {
+                queueBlock(-1 - reader);
+            }
+        }
+    }
+
+    /**
+     * Mark every Register clocked by a net which just turned on to commit next tick. Nets added by patches clock
+     * nothing
+     */
+    private void clock(int net) {
+        if (net >= registerDriven.length) {
+            return;
+        }
+        for (int i = clockedOffsets[net]; i < clockedOffsets[net + 1]; i++) {
+            int register = clockedBy[i];
+            if (!registerClocked[register]) {
+                registerClocked[register] = true;
+                clocked[clockedCount++] = register;
+            }
+        }
+    }
+
+    private void queueBlock(int block) {
+        if (!blockQueued[block]) {
+            blockQueued[block] = true;
+            queue[queueSize++] = -1 - block;
+        }
+    }
+
+    private void queue(int gate) {
+        if (!queued[gate]) {
+            queued[gate] = true;
+            queue[queueSize++] = gate;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package base.engine;
+
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import base.persistence.CircuitFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Simulates a saved board without a window. <br>
+ * Loads a board saved by the editor, runs it until it settles, and prints the state of every Light on it.
+ * Nothing here touches JavaFX, so it starts in a fraction of the time the editor does.
+ * <br><br>
+ * Usage: java -jar modular-logic-core.jar &lt;board.mlc&gt; [max ticks]
+ */
+public class HeadlessSimulation {
+    /** Ticks to run before giving up on a board settling, unless given on the command line */
+    private final static int DEFAULT_MAX_TICKS = 100_000;
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java -jar modular-logic-core.jar <board.mlc> [max ticks]");
+            System.exit(2);
+        }
+
+        Netlist board;
+        int maxTicks;
+        try {
+            board = CircuitFile.load(Path.of(args[0]));
+            maxTicks = args.length == 2 ? Integer.parseInt(args[1]) : DEFAULT_MAX_TICKS;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Loading error " + e.getClass() + ": " + e.getLocalizedMessage());
+            System.exit(1);
+            return;
+        }
+
+        long start = System.nanoTime();
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        Engine engine = new Engine(circuit);
+        int ticks = engine.settle(maxTicks);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(circuit.getGateCount() + " gates, " + circuit.getNetCount() + " nets, "
+                + circuit.getSourceCount() + " signal sources");
+        System.out.println((engine.isSettled() ? "Settled after " : "Still changing after ") + ticks + " ticks in "
+                + elapsed / 1_000_000 + " ms");
+        for (int c = 0; c < board.size(); c++) {
+            if (board.getType(c) == GateType.LIGHT) {
+                System.out.println("Light " + board.getId(c) + " at (" + board.getX(c) + ", " + board.getY(c)
+                        + "): " + (engine.isOn(circuit.getInputNet(c, 0)) ? "on" : "off"));
+            }
+        }
+    }
+}
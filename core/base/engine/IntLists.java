@@ -0,0 +1,160 @@
+package base.engine;
+
+import java.util.Arrays;
+
+/**
+ * A list of ints for each of a growing number of keys, all kept in one array. <br>
+ * Each key's list is one contiguous run of the array, so walking a list is as cheap as walking a compressed
+ * adjacency list. Removing swaps the last value of the list into the gap. Adding to a list with no room left moves
+ * it to the end of the array with twice the room, leaving a gap behind which is only reclaimed by building a new
+ * IntLists.
+ * <br><br>
+ * An IntLists built from existing arrays shares them until it is first changed, then works on its own copies, so
+ * the arrays can belong to something which must not change, such as a CompiledCircuit.
+ */
+public class IntLists {
+    /** Room given to the first value added to an empty list */
+    private final static int MIN_ROOM = 2;
+
+    /** Every list, each in its own run */
+    private int[] values;
+    /** Number of array slots used, including gaps left by moved lists */
+    private int used;
+    /** Start of each key's list */
+    private int[] starts;
+    /** End of each key's list, exclusive */
+    private int[] ends;
+    /** Room in each key's run, or null while the arrays are still shared */
+    private int[] rooms;
+    /** Number of keys */
+    private int keys;
+
+    /**
+     * Create lists for a number of keys, all empty
+     * @param keys The number of keys
+     */
+    public IntLists(int keys) {
+        this(new int[keys + 1], new int[0]);
+    }
+
+    /**
+     * Create lists from a compressed adjacency list, sharing its arrays until the first change
+     * @param offsets Start of each key's list within values, with one extra entry marking the end
+     * @param values Every list, one after another
+     */
+    public IntLists(int[] offsets, int[] values) {
+        this.keys = offsets.length - 1;
+        this.values = values;
+        this.used = offsets[keys];
+        this.starts = offsets;
+        this.ends = Arrays.copyOfRange(offsets, 1, offsets.length);
+        this.rooms = null;
+    }
+
+    /**
+     * Get the number of keys
+     * @return The number of keys
+     */
+    public int keyCount() {
+        return keys;
+    }
+
+    /**
+     * Get the array holding every list. Only valid until the next change
+     * @return The array, indexed from {@link #start} to {@link #end}
+     */
+    public int[] values() {
+        return values;
+    }
+
+    /**
+     * Get where a key's list starts within {@link #values()}
+     * @param key The key in question
+     * @return The index of the first value
+     */
+    public int start(int key) {
+        return starts[key];
+    }
+
+    /**
+     * Get where a key's list ends within {@link #values()}
+     * @param key The key in question
+     * @return The index after the last value
+     */
+    public int end(int key) {
+        return ends[key];
+    }
+
+    /**
+     * Add a key with an empty list
+     * @return The new key
+     */
+    public int addKey() {
+        own();
+        if (keys == ends.length) {
+            int capacity = Math.max(keys * 2, 1);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            rooms = Arrays.copyOf(rooms, capacity);
+        }
+        starts[keys] = used;
+        ends[keys] = used;
+        rooms[keys] = 0;
+        return keys++;
+    }
+
+    /**
+     * Add a value to the end of a key's list
+     * @param key The key whose list to add to
+     * @param value The value to add
+     */
+    public void add(int key, int value) {
+        own();
+        int start = starts[key];
+        int size = ends[key] - start;
+        if (size == rooms[key]) {
+            int room = Math.max(size * 2, MIN_ROOM);
+            if (used + room > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, used + room));
+            }
+            System.arraycopy(values, start, values, used, size);
+            starts[key] = used;
+            ends[key] = used + size;
+            rooms[key] = room;
+            used += room;
+        }
+        values[ends[key]++] = value;
+    }
+
+    /**
+     * Remove a value from a key's list. The order of the rest of the list may change
+     * @param key The key whose list to remove from
+     * @param value The value to remove
+     * @return False if the list did not contain the value
+     */
+    public boolean remove(int key, int value) {
+        for (int i = starts[key]; i < ends[key]; i++) {
+            if (values[i] == value) {
+                own();
+                values[i] = values[--ends[key]];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stop sharing arrays, if they still are
+     */
+    private void own() {
+        if (rooms != null) {
+            return;
+        }
+        values = values.clone();
+        starts = Arrays.copyOf(starts, keys);
+        rooms = new int[keys];
+        for (int key = 0; key < keys; key++) {
+            rooms[key] = ends[key] - starts[key];
+        }
+    }
+}
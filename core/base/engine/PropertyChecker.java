@@ -0,0 +1,470 @@
+package base.engine;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.Netlist;
+
+import java.util.*;
+
+/**
+ * Checks properties of a Compound Component against random input vectors. <br>
+ * A property is a predicate over the packed input and output pins, pin 0 in the lowest bit, such as
+ * {@code (in, out) -> out == ((in & 0xFF) + (in >>> 8 & 0xFF))}. Each vector is simulated from every net off, as a
+ * freshly placed instance would be, until it settles, and every property must hold for the outputs it settles on.
+ * A vector whose outputs never settle fails the check no matter what the properties say.
+ * <br><br>
+ * Vectors are simulated 64 at a time, one per bit of a long, with the same gate delays as the Engine. When there
+ * are no more distinct vectors than were asked for, every one is checked instead of random ones. Each failure is
+ * shrunk to a minimal counterexample, one which still fails but where turning off any one input pin, or moving it to
+ * a lower pin, would make it pass. Candidates are simulated up to 64 at a time.
+ * <br><br>
+ * A PropertyChecker reuses its state arrays between checks, so it must only be used by one thread at a time.
+ */
+public class PropertyChecker {
+    /** Ticks to run each batch of vectors before giving up on it settling, unless changed */
+    public final static int DEFAULT_MAX_TICKS = 10_000;
+    /** Name a counterexample is reported under when its outputs never settle */
+    public final static String SETTLES = "settles";
+    /** Vectors simulated at once, one per bit of a long */
+    private final static int LANES = 64;
+    /** Most input or output pins a checked Compound Component may have, one per bit of a long */
+    private final static int MAX_PINS = 64;
+
+    /**
+     * A condition the outputs of a Compound Component must meet for every input
+     */
+    @FunctionalInterface
+    public interface Property {
+        /**
+         * Decide whether the outputs are right for the inputs
+         * @param inputs The state of every input pin, pin 0 in the lowest bit
+         * @param outputs The settled state of every output pin, pin 0 in the lowest bit
+         * @return Whether the property holds
+         */
+        boolean holds(long inputs, long outputs);
+    }
+
+    /**
+     * The smallest input found which breaks a property
+     * @param property Name of the property broken, or SETTLES if the outputs never settle
+     * @param inputs The shrunk input, pin 0 in the lowest bit
+     * @param outputs The outputs the shrunk input settles on, pin 0 in the lowest bit
+     * @param original The input first found to break the property, before shrinking
+     */
+    public record Counterexample(String property, long inputs, long outputs, long original) {}
+
+    /**
+     * The outcome of a check
+     * @param vectors Number of input vectors checked, not counting those tried while shrinking
+     * @param elapsedNanos Time the check took, including shrinking
+     * @param exhaustive Whether every possible input was checked
+     * @param counterexamples One counterexample for each property broken, in the order the properties were added
+     */
+    public record Report(long vectors, long elapsedNanos, boolean exhaustive, List<Counterexample> counterexamples) {
+        /**
+         * Get whether every property held for every vector checked
+         * @return Whether no counterexample was found
+         */
+        public boolean passed() {
+            return counterexamples.isEmpty();
+        }
+
+        /**
+         * Get the number of vectors checked per second
+         * @return The throughput of the check
+         */
+        public double getVectorsPerSecond() {
+            return elapsedNanos == 0 ? 0 : vectors * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format("%d %s vectors in %.1f ms (%.0f/s): ", vectors,
+                    exhaustive ? "exhaustive" : "random", elapsedNanos / 1e6, getVectorsPerSecond()));
+            if (counterexamples.isEmpty()) {
+                return text.append("passed").toString();
+            }
+            text.append(counterexamples.size()).append(" failed");
+            for (Counterexample counterexample : counterexamples) {
+                text.append(String.format("%n  %s: inputs 0x%X gave outputs 0x%X", counterexample.property(),
+                        counterexample.inputs(), counterexample.outputs()));
+            }
+            return text.toString();
+        }
+    }
+
+    /** The Compound Component checked */
+    private final CompoundDefinition definition;
+    /** One instance of it, fed by a Signal Source per input pin and feeding a Light per output pin */
+    private final CompiledCircuit circuit;
+    /** Net driven by each input pin's Signal Source */
+    private final int[] inputNets;
+    /** Net read by each output pin's Light */
+    private final int[] outputNets;
+    /** Whether each Signal Source is one of the input pins, rather than inside the Compound Component */
+    private final boolean[] pinSources;
+    /** Every property, by name, in the order they were added */
+    private final Map<String, Property> properties;
+    /** Most ticks run each batch */
+    private int maxTicks;
+
+    /** Value of each net, one vector per bit */
+    private final long[] values;
+    /** Gates to evaluate next tick */
+    private int[] queue;
+    /** Number of gates in the queue */
+    private int queueSize;
+    /** The queue being evaluated, kept to be reused as the next queue */
+    private int[] spareQueue;
+    /** Whether each gate is already in the queue */
+    private final boolean[] queued;
+    /** Nets which change at the end of the tick being evaluated */
+    private final int[] changingNets;
+    /** New value of each net which changes at the end of the tick being evaluated */
+    private final long[] changingValues;
+
+    /**
+     * Create a checker for a Compound Component, with no properties yet
+     * @param definition The definition of the Compound Component to check
+     * @throws IllegalArgumentException If it has more than 64 input or output pins, or holds any RAM, ROM or
+     * Registers
+     */
+    public PropertyChecker(CompoundDefinition definition) {
+        if (definition.getNumInputs() > MAX_PINS || definition.getNumOutputs() > MAX_PINS) {
+            throw new IllegalArgumentException(definition.getName() + " has more than " + MAX_PINS
+                    + " input or output pins");
+        }
+        this.definition = definition;
+
+        Netlist harness = new Netlist();
+        int compound = harness.addCompound(definition, 0, 0, 0);
+        int[] sources = new int[definition.getNumInputs()];
+        int[] lights = new int[definition.getNumOutputs()];
+        for (int pin = 0; pin < sources.length; pin++) {
+            sources[pin] = harness.addComponent(GateType.SIGNAL_SOURCE, 0, 0, 0);
+            harness.addConnection(sources[pin], 0, compound, pin);
+        }
+        for (int pin = 0; pin < lights.length; pin++) {
+            lights[pin] = harness.addComponent(GateType.LIGHT, 0, 0, 0);
+            harness.addConnection(compound, pin, lights[pin], 0);
+        }
+        this.circuit = CompiledCircuit.compile(harness);
+        if (circuit.getBlockCount() > 0) {
+            // Each vector would need its own copy of every RAM, and its own address into every ROM
+            throw new IllegalArgumentException(definition.getName() + " holds RAM or ROM, which cannot be checked "
+                    + "64 vectors at a time");
+        }
+        if (circuit.getRegisterCount() > 0) {
+            throw new IllegalArgumentException(definition.getName() + " holds Registers, whose outputs depend on "
+                    + "what they were clocked with before rather than on the inputs alone");
+        }
+
+        this.inputNets = new int[sources.length];
+        this.pinSources = new boolean[circuit.getSourceCount()];
+        for (int pin = 0; pin < sources.length; pin++) {
+            int source = circuit.getSource(sources[pin]);
+            inputNets[pin] = circuit.sourceNets[source];
+            pinSources[source] = true;
+        }
+        this.outputNets = new int[lights.length];
+        for (int pin = 0; pin < lights.length; pin++) {
+            outputNets[pin] = circuit.getInputNet(lights[pin], 0);
+        }
+        this.properties = new LinkedHashMap<>();
+        this.maxTicks = DEFAULT_MAX_TICKS;
+
+        int gates = circuit.getGateCount();
+        this.values = new long[circuit.netCount];
+        this.queue = new int[gates];
+        this.spareQueue = new int[gates];
+        this.queued = new boolean[gates];
+        this.changingNets = new int[gates];
+        this.changingValues = new long[gates];
+    }
+
+    /**
+     * Get the Compound Component checked
+     * @return Its definition
+     */
+    public CompoundDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Add a property which every input must meet
+     * @param name Name the property is reported under. Replaces any property already added with that name
+     * @param property The property
+     * @return This checker, so properties can be added one after another
+     */
+    public PropertyChecker addProperty(String name, Property property) {
+        properties.put(name, property);
+        return this;
+    }
+
+    /**
+     * Change the most ticks each batch of vectors may run before its unsettled vectors fail
+     * @param maxTicks The new limit, at least 1
+     */
+    public void setMaxTicks(int maxTicks) {
+        this.maxTicks = Math.max(1, maxTicks);
+    }
+
+    /**
+     * Check every property against random inputs, or every possible input if there are no more than asked for
+     * @param vectors The number of inputs to check
+     * @param seed Seed of the random inputs, so a failing check can be repeated
+     * @return Every property broken, with a shrunk counterexample for each
+     */
+    public Report check(long vectors, long seed) {
+        long start = System.nanoTime();
+        int numInputs = inputNets.length;
+        boolean exhaustive = numInputs < Long.SIZE - 1 && (1L << numInputs) <= vectors;
+        long total = exhaustive ? 1L << numInputs : Math.max(0, vectors);
+        long inputMask = numInputs == MAX_PINS ? -1L : (1L << numInputs) - 1;
+
+        Random random = new Random(seed);
+        long[] inputWords = new long[numInputs];
+        long[] lanes = new long[LANES];
+        // The first input found to break each property, and to never settle
+        Map<String, Long> failures = new HashMap<>();
+        int broken = 0;
+        long checked = 0;
+        while (checked < total && (broken < properties.size() || properties.isEmpty())) {
+            int batch = (int) Math.min(LANES, total - checked);
+            if (exhaustive) {
+                for (int lane = 0; lane < batch; lane++) {
+                    lanes[lane] = checked + lane;
+                }
+                transpose(lanes, batch, inputWords);
+            } else {
+                for (int pin = 0; pin < numInputs; pin++) {
+                    inputWords[pin] = random.nextLong();
+                }
+            }
+            long unsettled = simulate(inputWords);
+
+            for (int lane = 0; lane < batch; lane++) {
+                long inputs = exhaustive ? lanes[lane] : gather(inputWords, lane) & inputMask;
+                if ((unsettled >>> lane & 1) != 0) {
+                    failures.putIfAbsent(SETTLES, inputs);
+                    continue;
+                }
+                long outputs = gatherOutputs(lane);
+                for (Map.Entry<String, Property> entry : properties.entrySet()) {
+                    if (!failures.containsKey(entry.getKey()) && !entry.getValue().holds(inputs, outputs)) {
+                        failures.put(entry.getKey(), inputs);
+                        broken++;
+                    }
+                }
+            }
+            checked += batch;
+        }
+
+        List<Counterexample> counterexamples = new ArrayList<>(failures.size());
+        if (failures.containsKey(SETTLES)) {
+            counterexamples.add(shrink(SETTLES, null, failures.get(SETTLES)));
+        }
+        for (Map.Entry<String, Property> entry : properties.entrySet()) {
+            Long failure = failures.get(entry.getKey());
+            if (failure != null) {
+                counterexamples.add(shrink(entry.getKey(), entry.getValue(), failure));
+            }
+        }
+        return new Report(checked, System.nanoTime() - start, exhaustive && checked == total, counterexamples);
+    }
+
+    /**
+     * Shrink an input which breaks a property by turning off pins, or moving them to lower pins, one at a time,
+     * until no such change still breaks it. Fewer pins on is preferred over a lower value
+     * @param name Name the property is reported under
+     * @param property The property broken, or null if the input never settles
+     * @param original The input found to break it
+     */
+    private Counterexample shrink(String name, Property property, long original) {
+        long best = original;
+        long bestOutputs = 0;
+        long[] candidates = new long[LANES];
+        long[] inputWords = new long[inputNets.length];
+        boolean shrunk = true;
+        while (shrunk) {
+            shrunk = false;
+            long current = best;
+            int count = 0;
+            for (long on = current; on != 0; on &= on - 1) {
+                int high = Long.numberOfTrailingZeros(on);
+                long without = current & ~(1L << high);
+                // Turning a pin off first, then moving it to each lower pin which is off
+                for (int low = -1; low < high; low++) {
+                    if (low >= 0 && (current >>> low & 1) != 0) {
+                        continue;
+                    }
+                    candidates[count++] = low < 0 ? without : without | 1L << low;
+                    if (count == LANES) {
+                        transpose(candidates, count, inputWords);
+                        long found = findSmallest(property, candidates, count, best, simulate(inputWords));
+                        if (found != best) {
+                            best = found;
+                            bestOutputs = gatherOutputs(indexOf(candidates, count, found));
+                            shrunk = true;
+                        }
+                        count = 0;
+                    }
+                }
+            }
+            if (count > 0) {
+                transpose(candidates, count, inputWords);
+                long found = findSmallest(property, candidates, count, best, simulate(inputWords));
+                if (found != best) {
+                    best = found;
+                    bestOutputs = gatherOutputs(indexOf(candidates, count, found));
+                    shrunk = true;
+                }
+            }
+        }
+        if (best == original) {
+            transpose(new long[] {original}, 1, inputWords);
+            simulate(inputWords);
+            bestOutputs = gatherOutputs(0);
+        }
+        return new Counterexample(name, best, bestOutputs, original);
+    }
+
+    /**
+     * Find the smallest candidate which still breaks a property, fewest pins on first, then lowest value
+     * @param unsettled The vectors of the last simulation which did not settle
+     * @return The smallest failing candidate smaller than best, or best if there is none
+     */
+    private long findSmallest(Property property, long[] candidates, int count, long best, long unsettled) {
+        for (int lane = 0; lane < count; lane++) {
+            long candidate = candidates[lane];
+            boolean fails = property == null
+                    ? (unsettled >>> lane & 1) != 0
+                    : (unsettled >>> lane & 1) == 0 && !property.holds(candidate, gatherOutputs(lane));
+            if (fails && isSmaller(candidate, best)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isSmaller(long a, long b) {
+        int bits = Long.compare(Long.bitCount(a), Long.bitCount(b));
+        return bits < 0 || bits == 0 && Long.compareUnsigned(a, b) < 0;
+    }
+
+    private static int indexOf(long[] values, int count, long value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Simulate up to 64 vectors at once, from every net off until they settle
+     * @param inputWords The state of each input pin, one vector per bit
+     * @return The vectors still changing after the most ticks allowed, one per bit
+     */
+    private long simulate(long[] inputWords) {
+        Arrays.fill(values, 0);
+        for (int source = 0; source < pinSources.length; source++) {
+            if (!pinSources[source] && circuit.sourceInitialStates[source]) {
+                values[circuit.sourceNets[source]] = -1L;
+            }
+        }
+        for (int pin = 0; pin < inputNets.length; pin++) {
+            values[inputNets[pin]] = inputWords[pin];
+        }
+        queueSize = queue.length;
+        for (int gate = 0; gate < queueSize; gate++) {
+            queue[gate] = gate;
+            queued[gate] = true;
+        }
+
+        byte[] types = circuit.gateTypes;
+        int[] in0 = circuit.gateIn0;
+        int[] in1 = circuit.gateIn1;
+        int[] outs = circuit.gateOuts;
+        int[] readerOffsets = circuit.readerOffsets;
+        int[] readers = circuit.readers;
+        long changedLanes = 0;
+        int ticks = 0;
+        while (queueSize > 0 && ticks < maxTicks) {
+            int[] evaluating = queue;
+            int count = queueSize;
+            queue = spareQueue;
+            queueSize = 0;
+            spareQueue = evaluating;
+
+            int changes = 0;
+            for (int i = 0; i < count; i++) {
+                int gate = evaluating[i];
+                queued[gate] = false;
+                long result = switch (types[gate]) {
+                    case CompiledCircuit.AND -> values[in0[gate]] & values[in1[gate]];
+                    case CompiledCircuit.OR -> values[in0[gate]] | values[in1[gate]];
+                    default -> ~values[in0[gate]];
+                };
+                if (result != values[outs[gate]]) {
+                    changingNets[changes] = outs[gate];
+                    changingValues[changes++] = result;
+                }
+            }
+
+            changedLanes = 0;
+            for (int i = 0; i < changes; i++) {
+                int net = changingNets[i];
+                changedLanes |= values[net] ^ changingValues[i];
+                values[net] = changingValues[i];
+                for (int r = readerOffsets[net]; r < readerOffsets[net + 1]; r++) {
+                    int reader = readers[r];
+                    if (!queued[reader]) {
+                        queued[reader] = true;
+                        queue[queueSize++] = reader;
+                    }
+                }
+            }
+            ticks++;
+        }
+        for (int i = 0; i < queueSize; i++) {
+            queued[queue[i]] = false;
+        }
+        return queueSize > 0 ? changedLanes : 0;
+    }
+
+    /**
+     * Spread vectors across one word per input pin, vector n in bit n of each word
+     */
+    private void transpose(long[] vectors, int count, long[] inputWords) {
+        for (int pin = 0; pin < inputWords.length; pin++) {
+            long word = 0;
+            for (int lane = 0; lane < count; lane++) {
+                word |= (vectors[lane] >>> pin & 1) << lane;
+            }
+            inputWords[pin] = word;
+        }
+    }
+
+    /**
+     * Pack one vector's bit of each word, the first word in the lowest bit
+     */
+    private static long gather(long[] words, int lane) {
+        long packed = 0;
+        for (int i = 0; i < words.length; i++) {
+            packed |= (words[i] >>> lane & 1) << i;
+        }
+        return packed;
+    }
+
+    /**
+     * Pack the settled output pins of one vector of the last simulation
+     */
+    private long gatherOutputs(int lane) {
+        long packed = 0;
+        for (int pin = 0; pin < outputNets.length; pin++) {
+            packed |= (values[outputNets[pin]] >>> lane & 1) << pin;
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,288 @@
+package base.engine;
+
+import base.netlist.GateType;
+import base.netlist.Netlist;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs many independent simulations of one circuit at once, each driven by its own stimulus. <br>
+ * Every run gets its own Engine, which shares the CompiledCircuit and allocates only the per-run state arrays, so
+ * thousands of runs cost little more memory than the runs in progress at any moment. Each stimulus is a series of
+ * steps, each giving the state of every Signal Source. After each step the circuit is settled and the probed nets
+ * are read.
+ * <br><br>
+ * Runs are started on virtual threads where the Java runtime has them, and otherwise on a pool with one thread
+ * per processor. Either way, no more runs than the parallelism are in progress at once.
+ */
+public class ScenarioRunner {
+    /** Ticks to run each step before giving up on it settling, unless changed */
+    public final static int DEFAULT_MAX_TICKS = 100_000;
+
+    /** Executors.newVirtualThreadPerTaskExecutor, or null if this runtime has no virtual threads */
+    private final static MethodHandle VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    /**
+     * One simulation to run
+     * @param name Name reported with the result
+     * @param steps The state of every Signal Source at each step, in the circuit's Signal Source order
+     */
+    public record Stimulus(String name, boolean[][] steps) {}
+
+    /**
+     * The outcome of one simulation
+     * @param name Name of the stimulus
+     * @param outputs The value of every probed net after each step, in the order the nets were given
+     * @param ticks Ticks run over every step
+     * @param gateEvaluations Gates evaluated over every step
+     * @param unsettledSteps Steps which were still changing after the most ticks allowed
+     */
+    public record Result(String name, boolean[][] outputs, long ticks, long gateEvaluations, int unsettledSteps) {}
+
+    /**
+     * The outcome of every simulation in a batch, with totals across them
+     * @param results The result of each stimulus, in the order they were given
+     * @param ticks Ticks run over every simulation
+     * @param gateEvaluations Gates evaluated over every simulation
+     * @param unsettledRuns Simulations with at least one step which did not settle
+     * @param elapsedNanos Time the whole batch took
+     * @param parallelism Most simulations run at once
+     * @param virtualThreads Whether the simulations ran on virtual threads
+     */
+    public record Report(List<Result> results, long ticks, long gateEvaluations, int unsettledRuns,
+                         long elapsedNanos, int parallelism, boolean virtualThreads) {
+        /**
+         * Get the number of simulations finished per second
+         * @return The throughput of the batch
+         */
+        public double getRunsPerSecond() {
+            return elapsedNanos == 0 ? 0 : results.size() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Get the number of ticks run per second, across every thread
+         * @return The tick rate of the batch
+         */
+        public double getTicksPerSecond() {
+            return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Get the number of gates evaluated per second, across every thread
+         * @return The evaluation rate of the batch
+         */
+        public double getGateEvaluationsPerSecond() {
+            return elapsedNanos == 0 ? 0 : gateEvaluations * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d runs in %.1f ms on %d %s threads: %.0f runs/s, %.0f ticks/s, "
+                            + "%.0f gate evaluations/s, %d unsettled",
+                    results.size(), elapsedNanos / 1e6, parallelism, virtualThreads ? "virtual" : "platform",
+                    getRunsPerSecond(), getTicksPerSecond(), getGateEvaluationsPerSecond(), unsettledRuns);
+        }
+    }
+
+    /** The circuit every simulation runs */
+    private final CompiledCircuit circuit;
+    /** Nets read after each step */
+    private final int[] probes;
+    /** Most ticks run each step */
+    private int maxTicks;
+    /** Most simulations run at once */
+    private int parallelism;
+
+    /**
+     * Create a runner for a circuit, running one simulation per processor at once
+     * @param circuit The circuit to simulate
+     * @param probes The nets to read after each step
+     */
+    public ScenarioRunner(CompiledCircuit circuit, int[] probes) {
+        for (int net : probes) {
+            if (net < 0 || net >= circuit.getNetCount()) {
+                throw new IllegalArgumentException("No net " + net + " in a circuit of " + circuit.getNetCount());
+            }
+        }
+        this.circuit = circuit;
+        this.probes = probes.clone();
+        this.maxTicks = DEFAULT_MAX_TICKS;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Get the nets read by every Light on a board, in the order the Lights appear, to use as probes
+     * @param board The board the circuit was compiled from
+     * @param circuit The compiled circuit
+     * @return The net of each Light
+     */
+    public static int[] lightNets(Netlist board, CompiledCircuit circuit) {
+        int[] nets = new int[board.size()];
+        int count = 0;
+        for (int c = 0; c < board.size(); c++) {
+            if (board.getType(c) == GateType.LIGHT) {
+                nets[count++] = circuit.getInputNet(c, 0);
+            }
+        }
+        return Arrays.copyOf(nets, count);
+    }
+
+    /**
+     * Get whether this runtime has virtual threads to run simulations on
+     * @return Whether virtual threads can be tried
+     */
+    public static boolean hasVirtualThreads() {
+        return VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Change the most ticks each step may run before it is counted as unsettled
+     * @param maxTicks The new limit, at least 1
+     */
+    public void setMaxTicks(int maxTicks) {
+        this.maxTicks = Math.max(1, maxTicks);
+    }
+
+    /**
+     * Change the most simulations run at once
+     * @param parallelism The new limit, at least 1
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Run a simulation for every stimulus, and wait for them all to finish
+     * @param stimuli The stimuli to run
+     * @return The result of each, with totals and throughput
+     * @throws IllegalArgumentException If a step does not give the state of exactly every Signal Source
+     * @throws InterruptedException If interrupted while waiting. Simulations still running are cancelled
+     */
+    public Report run(List<Stimulus> stimuli) throws InterruptedException {
+        int sources = circuit.getSourceCount();
+        for (Stimulus stimulus : stimuli) {
+            for (boolean[] step : stimulus.steps()) {
+                if (step.length != sources) {
+                    throw new IllegalArgumentException("Stimulus " + stimulus.name() + " gives " + step.length
+                            + " Signal Source states for a circuit with " + sources);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = createVirtualExecutor();
+        boolean virtualThreads = executor != null;
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "Scenario Runner");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        // Bounds how many runs are in progress, since virtual threads would otherwise all start at once
+        Semaphore permits = new Semaphore(parallelism);
+        List<Future<Result>> futures = new ArrayList<>(stimuli.size());
+        try {
+            for (Stimulus stimulus : stimuli) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return simulate(stimulus);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<Result> results = new ArrayList<>(stimuli.size());
+            long ticks = 0;
+            long gateEvaluations = 0;
+            int unsettledRuns = 0;
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                results.add(result);
+                ticks += result.ticks();
+                gateEvaluations += result.gateEvaluations();
+                if (result.unsettledSteps() > 0) {
+                    unsettledRuns++;
+                }
+            }
+            return new Report(results, ticks, gateEvaluations, unsettledRuns, System.nanoTime() - start,
+                    parallelism, virtualThreads);
+        } catch (ExecutionException ee) {
+            // Simulations only throw on bugs, so pass them on as they were
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            for (Future<Result> future : futures) {
+                future.cancel(true);
+            }
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Run one simulation on the calling thread
+     */
+    private Result simulate(Stimulus stimulus) {
+        Engine engine = new Engine(circuit);
+        if (circuit.getBlockCount() > 0) {
+            // Runs must not see each other's writes, nor those of the board the circuit was compiled from
+            engine.detachMemory();
+        }
+        boolean[][] outputs = new boolean[stimulus.steps().length][probes.length];
+        int unsettledSteps = 0;
+        for (int step = 0; step < outputs.length; step++) {
+            boolean[] states = stimulus.steps()[step];
+            for (int source = 0; source < states.length; source++) {
+                engine.setSource(source, states[source]);
+            }
+            engine.settle(maxTicks);
+            if (!engine.isSettled()) {
+                unsettledSteps++;
+            }
+            for (int p = 0; p < probes.length; p++) {
+                outputs[step][p] = engine.isOn(probes[p]);
+            }
+        }
+        return new Result(stimulus.name(), outputs, engine.getTickCount(), engine.getGateEvaluations(),
+                unsettledSteps);
+    }
+
+    /**
+     * Create an executor starting each simulation on a new virtual thread
+     * @return The executor, or null if this runtime cannot create virtual threads
+     */
+    private static ExecutorService createVirtualExecutor() {
+        if (VIRTUAL_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) VIRTUAL_EXECUTOR.invoke();
+        } catch (Throwable t) {
+            // Such as on a runtime where virtual threads are still a preview feature which is not enabled
+            return null;
+        }
+    }
+
+    /**
+     * Look up the virtual thread executor factory, which only exists from Java 21
+     */
+    private static MethodHandle findVirtualExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package base.netlist;
+
+/**
+ * The shared description of a Compound Component: how it looks and the Netlist it is built from. <br>
+ * Every copy of a Compound Component refers to the same CompoundDefinition, so it only needs to be stored once.
+ * <br><br>
+ * Each input pin of the Compound Component feeds one input Port inside the interior Netlist, and each output pin
+ * is fed by one output Port inside it.
+ */
+public class CompoundDefinition {
+    /** Name displayed on every instance of this definition */
+    private final String name;
+    /** Color of every instance, packed as 0xAARRGGBB */
+    private final int color;
+    /** Width of every instance, in pixels */
+    private final double width;
+    /** Height of every instance, in pixels */
+    private final double height;
+    /** The Components and Connections making up the interior */
+    private final Netlist interior;
+
+    /** Interior Component index fed by each input pin */
+    private final int[] inputPinComponents;
+    /** Interior input Port number fed by each input pin */
+    private final int[] inputPinPorts;
+    /** Interior Component index feeding each output pin */
+    private final int[] outputPinComponents;
+    /** Interior output Port number feeding each output pin */
+    private final int[] outputPinPorts;
+
+    /**
+     * Create a new CompoundDefinition whose pins are every interior Port left unconnected. <br>
+     * Pins are ordered by Component index, then by Port number.
+     * @param name The name displayed on every instance
+     * @param color The color of every instance, packed as 0xAARRGGBB
+     * @param width The width of every instance, in pixels
+     * @param height The height of every instance, in pixels
+     * @param interior The Netlist making up the interior
+     */
+    public CompoundDefinition(String name, int color, double width, double height, Netlist interior) {
+        this.name = name;
+        this.color = color;
+        this.width = width;
+        this.height = height;
+        this.interior = interior;
+
+        // Mark every Port which is already connected inside the interior
+        int size = interior.size();
+        int[] inputOffsets = new int[size + 1];
+        int[] outputOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            inputOffsets[i + 1] = inputOffsets[i] + interior.getNumInputs(i);
+            outputOffsets[i + 1] = outputOffsets[i] + interior.getNumOutputs(i);
+        }
+        boolean[] inputUsed = new boolean[inputOffsets[size]];
+        boolean[] outputUsed = new boolean[outputOffsets[size]];
+        for (int c = 0; c < interior.getConnectionCount(); c++) {
+            outputUsed[outputOffsets[interior.getSource(c)] + interior.getSourcePort(c)] = true;
+            inputUsed[inputOffsets[interior.getDest(c)] + interior.getDestPort(c)] = true;
+        }
+
+        int numInputs = inputUsed.length - countSet(inputUsed);
+        int numOutputs = outputUsed.length - countSet(outputUsed);
+        this.inputPinComponents = new int[numInputs];
+        this.inputPinPorts = new int[numInputs];
+        this.outputPinComponents = new int[numOutputs];
+        this.outputPinPorts = new int[numOutputs];
+
+        int inPin = 0;
+        int outPin = 0;
+        for (int i = 0; i < size; i++) {
+            for (int port = 0; port < interior.getNumInputs(i); port++) {
+                if (!inputUsed[inputOffsets[i] + port]) {
+                    inputPinComponents[inPin] = i;
+                    inputPinPorts[inPin++] = port;
+                }
+            }
+            for (int port = 0; port < interior.getNumOutputs(i); port++) {
+                if (!outputUsed[outputOffsets[i] + port]) {
+                    outputPinComponents[outPin] = i;
+                    outputPinPorts[outPin++] = port;
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a new CompoundDefinition with explicitly chosen pins
+     * @param name The name displayed on every instance
+     * @param color The color of every instance, packed as 0xAARRGGBB
+     * @param width The width of every instance, in pixels
+     * @param height The height of every instance, in pixels
+     * @param interior The Netlist making up the interior
+     * @param inputPinComponents The interior Component index fed by each input pin
+     * @param inputPinPorts The interior input Port number fed by each input pin
+     * @param outputPinComponents The interior Component index feeding each output pin
+     * @param outputPinPorts The interior output Port number feeding each output pin
+     */
+    public CompoundDefinition(String name, int color, double width, double height, Netlist interior,
+                              int[] inputPinComponents, int[] inputPinPorts,
+                              int[] outputPinComponents, int[] outputPinPorts) {
+        if (inputPinComponents.length != inputPinPorts.length
+                || outputPinComponents.length != outputPinPorts.length) {
+            throw new IllegalArgumentException("Every pin needs both a Component and a Port number");
+        }
+        this.name = name;
+        this.color = color;
+        this.width = width;
+        this.height = height;
+        this.interior = interior;
+        this.inputPinComponents = inputPinComponents;
+        this.inputPinPorts = inputPinPorts;
+        this.outputPinComponents = outputPinComponents;
+        this.outputPinPorts = outputPinPorts;
+    }
+
+    /**
+     * Count the number of true values in an array
+     */
+    private static int countSet(boolean[] flags) {
+        int count = 0;
+        for (boolean flag : flags) {
+            if (flag) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the name displayed on every instance of this definition
+     * @return The name of this definition
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the color of every instance of this definition
+     * @return The color, packed as 0xAARRGGBB
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Get the width of every instance of this definition
+     * @return The width, in pixels
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of every instance of this definition
+     * @return The height, in pixels
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the Netlist making up the interior of this definition
+     * @return The interior Netlist
+     */
+    public Netlist getInterior() {
+        return interior;
+    }
+
+    /**
+     * Get the number of input pins on every instance of this definition
+     * @return The number of input pins
+     */
+    public int getNumInputs() {
+        return inputPinComponents.length;
+    }
+
+    /**
+     * Get the number of output pins on every instance of this definition
+     * @return The number of output pins
+     */
+    public int getNumOutputs() {
+        return outputPinComponents.length;
+    }
+
+    /**
+     * Get the interior Component fed by an input pin
+     * @param pin The (zero-indexed) input pin number
+     * @return The index of the interior Component
+     */
+    public int getInputPinComponent(int pin) {
+        return inputPinComponents[pin];
+    }
+
+    /**
+     * Get the interior input Port fed by an input pin
+     * @param pin The (zero-indexed) input pin number
+     * @return The input Port number on the interior Component
+     */
+    public int getInputPinPort(int pin) {
+        return inputPinPorts[pin];
+    }
+
+    /**
+     * Get the interior Component feeding an output pin
+     * @param pin The (zero-indexed) output pin number
+     * @return The index of the interior Component
+     */
+    public int getOutputPinComponent(int pin) {
+        return outputPinComponents[pin];
+    }
+
+    /**
+     * Get the interior output Port feeding an output pin
+     * @param pin The (zero-indexed) output pin number
+     * @return The output Port number on the interior Component
+     */
+    public int getOutputPinPort(int pin) {
+        return outputPinPorts[pin];
+    }
+
+    @Override
+    public String toString() {
+        return name + " definition with " + getNumInputs() + " ins, " + getNumOutputs() + " outs";
+    }
+}
@@ -0,0 +1,63 @@
+package base.netlist;
+
+/**
+ * Every kind of Component which can appear in a Netlist. <br>
+ * Ordinals are written to save files, so new types must only ever be added to the end of this list
+ */
+public enum GateType {
+    AND(2, 1),
+    OR(2, 1),
+    NOT(1, 1),
+    LIGHT(1, 0),
+    SPLITTER(1, 2),
+    SIGNAL_SOURCE(0, 1),
+    /** Port counts of a Compound depend on its CompoundDefinition */
+    COMPOUND(-1, -1),
+    /** Port counts of a RAM or ROM depend on the widths of its MemoryBlock */
+    RAM(-1, -1),
+    ROM(-1, -1),
+    /** Port counts of a Register depend on its width. A Register of width 1 is a D flip-flop */
+    REGISTER(-1, -1);
+
+    /** Every GateType, indexed by ordinal. Avoids the copy made by values() on each lookup */
+    private final static GateType[] BY_ORDINAL = values();
+
+    /** Number of input Ports on this type of Component, or -1 if it varies */
+    private final int numInputs;
+    /** Number of output Ports on this type of Component, or -1 if it varies */
+    private final int numOutputs;
+
+    GateType(int numInputs, int numOutputs) {
+        this.numInputs = numInputs;
+        this.numOutputs = numOutputs;
+    }
+
+    /**
+     * Get the number of input Ports this type of Component has
+     * @return The number of input Ports, or -1 if it depends on the instance
+     */
+    public int getNumInputs() {
+        return numInputs;
+    }
+
+    /**
+     * Get the number of output Ports this type of Component has
+     * @return The number of output Ports, or -1 if it depends on the instance
+     */
+    public int getNumOutputs() {
+        return numOutputs;
+    }
+
+    /**
+     * Look up a GateType from its ordinal
+     * @param ordinal The ordinal of the GateType
+     * @return The GateType with that ordinal
+     * @throws IllegalArgumentException If no GateType has that ordinal
+     */
+    public static GateType fromOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= BY_ORDINAL.length) {
+            throw new IllegalArgumentException("Unknown gate type " + ordinal);
+        }
+        return BY_ORDINAL[ordinal];
+    }
+}
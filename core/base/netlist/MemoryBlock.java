@@ -0,0 +1,216 @@
+package base.netlist;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The contents of a RAM or ROM Component, held off the Java heap. <br>
+ * A memory holds 2<sup>address bits</sup> words of up to 64 data bits each. Each word takes 1, 2, 4 or 8
+ * little-endian bytes, whichever is the smallest to fit the data bits, and bits above the data bits are ignored.
+ * RAM starts cleared and lives in a direct ByteBuffer. ROM is memory-mapped read-only straight from an image file
+ * laid out the same way, so large images cost no heap and load instantly. Words past the end of a short image
+ * read as 0.
+ * <br><br>
+ * A RAM has an input Port for each address bit, lowest first, then one for each data bit, lowest first, then a
+ * write input. Its contents change on the tick the write input turns on, to the data inputs at the address inputs.
+ * A ROM only has the address inputs. Both have an output Port for each data bit, lowest first, showing the word at
+ * the address inputs.
+ */
+public class MemoryBlock {
+    /** Most address bits a memory may have */
+    public final static int MAX_ADDRESS_BITS = 24;
+    /** Most data bits a memory may have */
+    public final static int MAX_DATA_BITS = 64;
+
+    /** Whether this is a ROM */
+    private final boolean readOnly;
+    /** Number of address bits */
+    private final int addressBits;
+    /** Number of data bits */
+    private final int dataBits;
+    /** Bytes taken by each word, 1, 2, 4 or 8 */
+    private final int wordBytes;
+    /** Mask of the data bits within a word */
+    private final long dataMask;
+    /** Every word, little-endian */
+    private final ByteBuffer contents;
+    /** File a ROM's contents are mapped from, or null for a RAM */
+    private final Path image;
+
+    private MemoryBlock(boolean readOnly, int addressBits, int dataBits, ByteBuffer contents, Path image) {
+        this.readOnly = readOnly;
+        this.addressBits = addressBits;
+        this.dataBits = dataBits;
+        this.wordBytes = wordBytes(dataBits);
+        this.dataMask = dataBits == Long.SIZE ? -1L : (1L << dataBits) - 1;
+        this.contents = contents.order(ByteOrder.LITTLE_ENDIAN);
+        this.image = image;
+    }
+
+    /**
+     * Create a RAM with every word cleared
+     * @param addressBits The number of address bits, from 1 to MAX_ADDRESS_BITS
+     * @param dataBits The number of data bits, from 1 to MAX_DATA_BITS
+     * @return The new RAM
+     * @throws IllegalArgumentException If either width is out of range
+     */
+    public static MemoryBlock ram(int addressBits, int dataBits) {
+        checkWidths(addressBits, dataBits);
+        return new MemoryBlock(false, addressBits, dataBits,
+                ByteBuffer.allocateDirect((1 << addressBits) * wordBytes(dataBits)), null);
+    }
+
+    /**
+     * Create a ROM by mapping an image file. Only as much of the file as the ROM can address is mapped
+     * @param image The image file
+     * @param addressBits The number of address bits, from 1 to MAX_ADDRESS_BITS
+     * @param dataBits The number of data bits, from 1 to MAX_DATA_BITS
+     * @return The new ROM
+     * @throws IOException If the image cannot be read
+     * @throws IllegalArgumentException If either width is out of range
+     */
+    public static MemoryBlock rom(Path image, int addressBits, int dataBits) throws IOException {
+        checkWidths(addressBits, dataBits);
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), (long) (1 << addressBits) * wordBytes(dataBits));
+            return new MemoryBlock(true, addressBits, dataBits,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, size), image.toAbsolutePath());
+        }
+    }
+
+    private static void checkWidths(int addressBits, int dataBits) {
+        if (addressBits < 1 || addressBits > MAX_ADDRESS_BITS) {
+            throw new IllegalArgumentException("Memories need 1 to " + MAX_ADDRESS_BITS + " address bits, not "
+                    + addressBits);
+        }
+        if (dataBits < 1 || dataBits > MAX_DATA_BITS) {
+            throw new IllegalArgumentException("Memories need 1 to " + MAX_DATA_BITS + " data bits, not "
+                    + dataBits);
+        }
+    }
+
+    /**
+     * Get the smallest of 1, 2, 4 or 8 bytes which holds a number of data bits
+     */
+    private static int wordBytes(int dataBits) {
+        return dataBits <= 8 ? 1 : dataBits <= 16 ? 2 : dataBits <= 32 ? 4 : 8;
+    }
+
+    /**
+     * Get a copy of this memory for another Component. A RAM's contents are copied, while a ROM can never change,
+     * so it is returned as it is
+     * @return A memory with the same widths and contents
+     */
+    public MemoryBlock copy() {
+        if (readOnly) {
+            return this;
+        }
+        ByteBuffer copied = ByteBuffer.allocateDirect(contents.capacity());
+        copied.put(contents.duplicate().clear());
+        return new MemoryBlock(false, addressBits, dataBits, copied.clear(), null);
+    }
+
+    /**
+     * Get the type of Component this memory belongs to
+     * @return ROM or RAM
+     */
+    public GateType getType() {
+        return readOnly ? GateType.ROM : GateType.RAM;
+    }
+
+    /**
+     * Get whether this is a ROM
+     * @return True for a ROM, false for a RAM
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Get the number of address bits
+     * @return The number of address bits
+     */
+    public int getAddressBits() {
+        return addressBits;
+    }
+
+    /**
+     * Get the number of data bits
+     * @return The number of data bits in each word
+     */
+    public int getDataBits() {
+        return dataBits;
+    }
+
+    /**
+     * Get the file a ROM was mapped from
+     * @return The absolute path of the image, or null for a RAM
+     */
+    public Path getImage() {
+        return image;
+    }
+
+    /**
+     * Get the number of input Ports the Component holding this memory has
+     * @return The address bits, plus the data bits and the write input for a RAM
+     */
+    public int getNumInputs() {
+        return readOnly ? addressBits : addressBits + dataBits + 1;
+    }
+
+    /**
+     * Get the number of output Ports the Component holding this memory has
+     * @return The data bits
+     */
+    public int getNumOutputs() {
+        return dataBits;
+    }
+
+    /**
+     * Read a word
+     * @param address The address of the word, below 2<sup>address bits</sup>
+     * @return The word, with only the data bits set
+     */
+    public long read(int address) {
+        int index = address * wordBytes;
+        if (index + wordBytes > contents.limit()) {
+            return 0;
+        }
+        long word = switch (wordBytes) {
+            case 1 -> contents.get(index);
+            case 2 -> contents.getShort(index);
+            case 4 -> contents.getInt(index);
+            default -> contents.getLong(index);
+        };
+        return word & dataMask;
+    }
+
+    /**
+     * Write a word to a RAM
+     * @param address The address of the word, below 2<sup>address bits</sup>
+     * @param word The word to write. Bits above the data bits are ignored
+     * @throws UnsupportedOperationException If this is a ROM
+     */
+    public void write(int address, long word) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("ROMs cannot be written");
+        }
+        int index = address * wordBytes;
+        word &= dataMask;
+        switch (wordBytes) {
+            case 1 -> contents.put(index, (byte) word);
+            case 2 -> contents.putShort(index, (short) word);
+            case 4 -> contents.putInt(index, (int) word);
+            default -> contents.putLong(index, word);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (readOnly ? "ROM " : "RAM ") + (1 << addressBits) + "x" + dataBits;
+    }
+}
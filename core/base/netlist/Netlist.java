@@ -0,0 +1,361 @@
+package base.netlist;
+
+import java.util.Arrays;
+
+/**
+ * A compact, display-free description of a set of Components and the Connections between them. <br>
+ * Components are stored column-wise in parallel primitive arrays and referred to by their index, in the order
+ * they were added. Connections refer to Components by those same indices.
+ */
+public class Netlist {
+    /** Number of Component slots allocated when no size hint is given */
+    private final static int DEFAULT_CAPACITY = 16;
+    /** Most bits a Register may hold */
+    public final static int MAX_REGISTER_WIDTH = 64;
+
+    /** Number of Components in this Netlist */
+    private int size;
+    /** GateType ordinal of each Component */
+    private byte[] types;
+    /** Identifier of each Component, unique within this Netlist */
+    private int[] ids;
+    /** X coordinate (in pixels) of each Component */
+    private double[] xs;
+    /** Y coordinate (in pixels) of each Component */
+    private double[] ys;
+    /** Whether each Component is on. Only meaningful for Signal Sources */
+    private boolean[] states;
+    /** Definition of each Compound Component, null for every other type */
+    private CompoundDefinition[] definitions;
+    /** Contents of each RAM and ROM, null for every other type */
+    private MemoryBlock[] memories;
+    /** Number of bits held by each Register, 0 for every other type */
+    private int[] widths;
+
+    /** Number of Connections in this Netlist */
+    private int connectionCount;
+    /** Index of the Component each Connection receives its signal from */
+    private int[] sources;
+    /** Output Port number each Connection receives its signal from */
+    private int[] sourcePorts;
+    /** Index of the Component each Connection sends its signal to */
+    private int[] dests;
+    /** Input Port number each Connection sends its signal to */
+    private int[] destPorts;
+
+    /**
+     * Create a new, empty Netlist
+     */
+    public Netlist() {
+        this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new, empty Netlist with room for a known number of Components and Connections
+     * @param componentCapacity The number of Components to allocate room for
+     * @param connectionCapacity The number of Connections to allocate room for
+     */
+    public Netlist(int componentCapacity, int connectionCapacity) {
+        componentCapacity = Math.max(componentCapacity, 1);
+        connectionCapacity = Math.max(connectionCapacity, 1);
+
+        this.types = new byte[componentCapacity];
+        this.ids = new int[componentCapacity];
+        this.xs = new double[componentCapacity];
+        this.ys = new double[componentCapacity];
+        this.states = new boolean[componentCapacity];
+        this.definitions = new CompoundDefinition[componentCapacity];
+        this.memories = new MemoryBlock[componentCapacity];
+        this.widths = new int[componentCapacity];
+
+        this.sources = new int[connectionCapacity];
+        this.sourcePorts = new int[connectionCapacity];
+        this.dests = new int[connectionCapacity];
+        this.destPorts = new int[connectionCapacity];
+    }
+
+    /**
+     * Add a basic (non-Compound) Component to this Netlist
+     * @param type The type of Component
+     * @param id The identifier of the Component
+     * @param x The x coordinate (in pixels) of the Component
+     * @param y The y coordinate (in pixels) of the Component
+     * @return The index of the new Component
+     */
+    public int addComponent(GateType type, int id, double x, double y) {
+        if (type == GateType.COMPOUND) {
+            throw new IllegalArgumentException("Compound Components must be added with their definition");
+        }
+        if (type == GateType.RAM || type == GateType.ROM) {
+            throw new IllegalArgumentException("RAM and ROM must be added with their contents");
+        }
+        if (type == GateType.REGISTER) {
+            throw new IllegalArgumentException("Registers must be added with their width");
+        }
+        return add(type, id, x, y, null, null, 0);
+    }
+
+    /**
+     * Add a Compound Component to this Netlist
+     * @param definition The definition the Compound Component is an instance of
+     * @param id The identifier of the Component
+     * @param x The x coordinate (in pixels) of the Component
+     * @param y The y coordinate (in pixels) of the Component
+     * @return The index of the new Component
+     */
+    public int addCompound(CompoundDefinition definition, int id, double x, double y) {
+        return add(GateType.COMPOUND, id, x, y, definition, null, 0);
+    }
+
+    /**
+     * Add a RAM or ROM to this Netlist. The contents are shared, not copied
+     * @param memory The contents of the RAM or ROM
+     * @param id The identifier of the Component
+     * @param x The x coordinate (in pixels) of the Component
+     * @param y The y coordinate (in pixels) of the Component
+     * @return The index of the new Component
+     */
+    public int addMemory(MemoryBlock memory, int id, double x, double y) {
+        return add(memory.getType(), id, x, y, null, memory, 0);
+    }
+
+    /**
+     * Add a Register to this Netlist. A Register of width 1 is a D flip-flop
+     * @param width The number of bits the Register holds, from 1 to MAX_REGISTER_WIDTH
+     * @param id The identifier of the Component
+     * @param x The x coordinate (in pixels) of the Component
+     * @param y The y coordinate (in pixels) of the Component
+     * @return The index of the new Component
+     * @throws IllegalArgumentException If the width is out of range
+     */
+    public int addRegister(int width, int id, double x, double y) {
+        if (width < 1 || width > MAX_REGISTER_WIDTH) {
+            throw new IllegalArgumentException("Registers hold 1 to " + MAX_REGISTER_WIDTH + " bits, not " + width);
+        }
+        return add(GateType.REGISTER, id, x, y, null, null, width);
+    }
+
+    /**
+     * Append a Component to every column, growing them if needed
+     * @return The index of the new Component
+     */
+    private int add(GateType type, int id, double x, double y, CompoundDefinition definition,
+                    MemoryBlock memory, int width) {
+        if (size == types.length) {
+            int newCapacity = size * 2;
+            types = Arrays.copyOf(types, newCapacity);
+            ids = Arrays.copyOf(ids, newCapacity);
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+            states = Arrays.copyOf(states, newCapacity);
+            definitions = Arrays.copyOf(definitions, newCapacity);
+            memories = Arrays.copyOf(memories, newCapacity);
+            widths = Arrays.copyOf(widths, newCapacity);
+        }
+        types[size] = (byte) type.ordinal();
+        ids[size] = id;
+        xs[size] = x;
+        ys[size] = y;
+        definitions[size] = definition;
+        memories[size] = memory;
+        widths[size] = width;
+        return size++;
+    }
+
+    /**
+     * Record a Connection from an output Port of one Component to an input Port of another
+     * @param source The index of the Component the signal comes from
+     * @param sourcePort The output Port number on the source Component
+     * @param dest The index of the Component the signal goes to
+     * @param destPort The input Port number on the dest Component
+     * @return The index of the new Connection
+     */
+    public int addConnection(int source, int sourcePort, int dest, int destPort) {
+        if (connectionCount == sources.length) {
+            int newCapacity = connectionCount * 2;
+            sources = Arrays.copyOf(sources, newCapacity);
+            sourcePorts = Arrays.copyOf(sourcePorts, newCapacity);
+            dests = Arrays.copyOf(dests, newCapacity);
+            destPorts = Arrays.copyOf(destPorts, newCapacity);
+        }
+        sources[connectionCount] = source;
+        sourcePorts[connectionCount] = sourcePort;
+        dests[connectionCount] = dest;
+        destPorts[connectionCount] = destPort;
+        return connectionCount++;
+    }
+
+    /**
+     * Estimate how much memory this Netlist's own arrays take up. Definitions it refers to are not included
+     * @return The estimated size, in bytes
+     */
+    public long estimatedBytes() {
+        // type + id + x + y + state + definition and memory references + width per Component, four ints per
+        // Connection
+        return types.length * (1L + 4 + 8 + 8 + 1 + 8 + 8 + 4) + sources.length * 16L;
+    }
+
+    /**
+     * Get the number of Components in this Netlist
+     * @return The number of Components
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the type of a Component
+     * @param index The index of the Component
+     * @return The Component's GateType
+     */
+    public GateType getType(int index) {
+        return GateType.fromOrdinal(types[index]);
+    }
+
+    /**
+     * Get the identifier of a Component
+     * @param index The index of the Component
+     * @return The Component's identifier
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Get the x coordinate of a Component
+     * @param index The index of the Component
+     * @return The Component's x coordinate, in pixels
+     */
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Get the y coordinate of a Component
+     * @param index The index of the Component
+     * @return The Component's y coordinate, in pixels
+     */
+    public double getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Get whether a Component is on. Only meaningful for Signal Sources
+     * @param index The index of the Component
+     * @return Whether the Component is on
+     */
+    public boolean getState(int index) {
+        return states[index];
+    }
+
+    /**
+     * Set whether a Component is on. Only meaningful for Signal Sources
+     * @param index The index of the Component
+     * @param on Whether the Component is on
+     */
+    public void setState(int index, boolean on) {
+        states[index] = on;
+    }
+
+    /**
+     * Get the definition of a Compound Component
+     * @param index The index of the Component
+     * @return The Component's definition, or null if it is not a Compound Component
+     */
+    public CompoundDefinition getDefinition(int index) {
+        return definitions[index];
+    }
+
+    /**
+     * Get the contents of a RAM or ROM
+     * @param index The index of the Component
+     * @return The Component's contents, or null if it is not a RAM or ROM
+     */
+    public MemoryBlock getMemory(int index) {
+        return memories[index];
+    }
+
+    /**
+     * Get the number of bits a Register holds
+     * @param index The index of the Component
+     * @return The Register's width, or 0 if it is not a Register
+     */
+    public int getWidth(int index) {
+        return widths[index];
+    }
+
+    /**
+     * Get the number of input Ports on a Component
+     * @param index The index of the Component
+     * @return The number of input Ports on the Component
+     */
+    public int getNumInputs(int index) {
+        if (definitions[index] != null) {
+            return definitions[index].getNumInputs();
+        }
+        if (widths[index] != 0) {
+            // A data input for each bit, then the clock
+            return widths[index] + 1;
+        }
+        return memories[index] == null ? getType(index).getNumInputs() : memories[index].getNumInputs();
+    }
+
+    /**
+     * Get the number of output Ports on a Component
+     * @param index The index of the Component
+     * @return The number of output Ports on the Component
+     */
+    public int getNumOutputs(int index) {
+        if (definitions[index] != null) {
+            return definitions[index].getNumOutputs();
+        }
+        if (widths[index] != 0) {
+            return widths[index];
+        }
+        return memories[index] == null ? getType(index).getNumOutputs() : memories[index].getNumOutputs();
+    }
+
+    /**
+     * Get the number of Connections in this Netlist
+     * @return The number of Connections
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Get the index of the Component a Connection receives its signal from
+     * @param connection The index of the Connection
+     * @return The index of the source Component
+     */
+    public int getSource(int connection) {
+        return sources[connection];
+    }
+
+    /**
+     * Get the output Port number a Connection receives its signal from
+     * @param connection The index of the Connection
+     * @return The output Port number on the source Component
+     */
+    public int getSourcePort(int connection) {
+        return sourcePorts[connection];
+    }
+
+    /**
+     * Get the index of the Component a Connection sends its signal to
+     * @param connection The index of the Connection
+     * @return The index of the dest Component
+     */
+    public int getDest(int connection) {
+        return dests[connection];
+    }
+
+    /**
+     * Get the input Port number a Connection sends its signal to
+     * @param connection The index of the Connection
+     * @return The input Port number on the dest Component
+     */
+    public int getDestPort(int connection) {
+        return destPorts[connection];
+    }
+}
@@ -0,0 +1,268 @@
+package base.persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads netlists in the Berkeley Logic Interchange Format, as written by ABC, Yosys and SIS. <br>
+ * Every .model becomes a CompoundDefinition and the first model in the file is the top-level one. Each .names
+ * cover is built as a sum of products: one AND tree per cube, an OR tree joining the cubes, and a NOT at the end
+ * when the cover lists the off-set. .subckt lines become Compound Components, and may refer to models further
+ * down the file. Latches and library-mapped .gate lines have no Component to become, and are rejected.
+ */
+public class BlifImporter extends NetlistImporter {
+    /** Name given to a model whose .model line is missing */
+    private final static String DEFAULT_MODEL_NAME = "top";
+
+    /** The model currently being read, or null between models */
+    private NetlistAssembler model;
+    /** Input and output net names of the .names cover currently being read, or null if none is */
+    private String[] coverNets;
+    /** Input columns of every row of the current cover */
+    private final List<String> coverRows;
+    /** Output column shared by every row of the current cover */
+    private char coverValue;
+    /** Line number of the line being read, for error messages */
+    private int lineNumber;
+
+    public BlifImporter() {
+        this.coverRows = new ArrayList<>();
+    }
+
+    @Override
+    void parse(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        StringBuilder continued = new StringBuilder();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment != -1) {
+                line = line.substring(0, comment);
+            }
+            // A trailing backslash continues the line
+            if (line.endsWith("\\")) {
+                continued.append(line, 0, line.length() - 1).append(' ');
+                continue;
+            }
+            if (!continued.isEmpty()) {
+                line = continued.append(line).toString();
+                continued.setLength(0);
+            }
+
+            String[] tokens = tokens(line);
+            if (tokens.length > 0) {
+                try {
+                    command(tokens);
+                } catch (IOException ioe) {
+                    throw new IOException("Line " + lineNumber + ": " + ioe.getMessage(), ioe);
+                }
+            }
+        }
+        endCover();
+        if (model != null) {
+            endModel(model);
+            model = null;
+        }
+    }
+
+    @Override
+    String topModel(List<String> modelOrder, Set<String> instantiated) {
+        return modelOrder.get(0);
+    }
+
+    /**
+     * Carry out one line of the file
+     */
+    private void command(String[] tokens) throws IOException {
+        if (!tokens[0].startsWith(".")) {
+            coverRow(tokens);
+            return;
+        }
+        endCover();
+
+        switch (tokens[0]) {
+            case ".model" -> {
+                if (model != null) {
+                    endModel(model);
+                }
+                model = new NetlistAssembler(tokens.length > 1 ? tokens[1] : DEFAULT_MODEL_NAME);
+            }
+            case ".inputs" -> {
+                for (int i = 1; i < tokens.length; i++) {
+                    currentModel().addInput(tokens[i]);
+                }
+            }
+            case ".outputs" -> {
+                for (int i = 1; i < tokens.length; i++) {
+                    currentModel().addOutput(tokens[i]);
+                }
+            }
+            case ".names" -> {
+                if (tokens.length < 2) {
+                    throw new IOException(".names needs an output");
+                }
+                coverNets = new String[tokens.length - 1];
+                System.arraycopy(tokens, 1, coverNets, 0, coverNets.length);
+                coverRows.clear();
+                currentModel();
+            }
+            case ".subckt" -> subcircuit(tokens);
+            case ".end" -> {
+                if (model != null) {
+                    endModel(model);
+                    model = null;
+                }
+            }
+            case ".latch" -> throw new IOException("Latches are not supported");
+            case ".gate", ".mlatch" -> throw new IOException(tokens[0] + " needs a cell library, which is not"
+                    + " supported. Write the netlist out unmapped instead");
+            // Timing, clock and don't-care information has no effect on the circuit itself
+            default -> {}
+        }
+    }
+
+    /**
+     * Add a row to the current .names cover
+     */
+    private void coverRow(String[] tokens) throws IOException {
+        if (coverNets == null) {
+            throw new IOException("Unexpected " + tokens[0]);
+        }
+        int numInputs = coverNets.length - 1;
+        String inputs = numInputs == 0 ? "" : tokens[0];
+        String output = numInputs == 0 ? tokens[0] : (tokens.length > 1 ? tokens[1] : "");
+        if (inputs.length() != numInputs || output.length() != 1 || "01".indexOf(output.charAt(0)) == -1) {
+            throw new IOException("Malformed cover row for " + coverNets[numInputs]);
+        }
+        if (!coverRows.isEmpty() && output.charAt(0) != coverValue) {
+            throw new IOException("Cover for " + coverNets[numInputs] + " mixes on-set and off-set rows");
+        }
+        coverValue = output.charAt(0);
+        coverRows.add(inputs);
+    }
+
+    /**
+     * Build the gates for the .names cover which has just been read, if any
+     */
+    private void endCover() throws IOException {
+        if (coverNets == null) {
+            return;
+        }
+        NetlistAssembler assembler = currentModel();
+        int numInputs = coverNets.length - 1;
+        int out = assembler.net(coverNets[numInputs]);
+        String[] cover = coverNets;
+        coverNets = null;
+
+        // A cover with no rows is constant off
+        if (coverRows.isEmpty()) {
+            assembler.constant(out, false);
+            return;
+        }
+        boolean onSet = coverValue == '1';
+
+        int[] ins = new int[numInputs];
+        int[] inverted = new int[numInputs];
+        for (int i = 0; i < numInputs; i++) {
+            ins[i] = assembler.net(cover[i]);
+            inverted[i] = -1;
+        }
+
+        int[] terms = new int[coverRows.size()];
+        for (int row = 0; row < coverRows.size(); row++) {
+            String cube = coverRows.get(row);
+            int[] literals = new int[numInputs];
+            int numLiterals = 0;
+            for (int i = 0; i < numInputs; i++) {
+                char column = cube.charAt(i);
+                if (column == '1') {
+                    literals[numLiterals++] = ins[i];
+                } else if (column == '0') {
+                    // Each inverted input gets one shared NOT gate
+                    if (inverted[i] == -1) {
+                        inverted[i] = assembler.newNet();
+                        assembler.not(ins[i], inverted[i]);
+                    }
+                    literals[numLiterals++] = inverted[i];
+                } else if (column != '-') {
+                    throw new IOException("Malformed cover row for " + cover[numInputs]);
+                }
+            }
+            if (numLiterals == 0) {
+                // A cube of don't-cares covers every input, so the whole cover is constant
+                assembler.constant(out, onSet);
+                return;
+            }
+            if (numLiterals == 1) {
+                terms[row] = literals[0];
+            } else {
+                terms[row] = assembler.newNet();
+                int[] used = new int[numLiterals];
+                System.arraycopy(literals, 0, used, 0, numLiterals);
+                assembler.and(used, terms[row]);
+            }
+        }
+
+        if (onSet) {
+            assembler.or(terms, out);
+        } else {
+            int sum = assembler.newNet();
+            assembler.or(terms, sum);
+            assembler.not(sum, out);
+        }
+    }
+
+    /**
+     * Add an instance of another model from a .subckt line
+     */
+    private void subcircuit(String[] tokens) throws IOException {
+        if (tokens.length < 2) {
+            throw new IOException(".subckt needs a model name");
+        }
+        NetlistAssembler assembler = currentModel();
+        String[] formals = new String[tokens.length - 2];
+        int[][] actuals = new int[tokens.length - 2][];
+        for (int i = 2; i < tokens.length; i++) {
+            int equals = tokens[i].indexOf('=');
+            if (equals == -1) {
+                throw new IOException("Expected formal=actual, found " + tokens[i]);
+            }
+            formals[i - 2] = tokens[i].substring(0, equals);
+            actuals[i - 2] = new int[] {assembler.net(tokens[i].substring(equals + 1))};
+        }
+        assembler.instance(new NetlistAssembler.Instance(tokens[1], formals, actuals));
+    }
+
+    /**
+     * Get the model being read, starting an unnamed one if the file has no .model line
+     */
+    private NetlistAssembler currentModel() {
+        if (model == null) {
+            model = new NetlistAssembler(DEFAULT_MODEL_NAME);
+        }
+        return model;
+    }
+
+    /**
+     * Split a line on whitespace
+     */
+    private static String[] tokens(String line) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= line.length(); i++) {
+            boolean space = i == line.length() || Character.isWhitespace(line.charAt(i));
+            if (space && start != -1) {
+                tokens.add(line.substring(start, i));
+                start = -1;
+            } else if (!space && start == -1) {
+                start = i;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,364 @@
+package base.persistence;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.MemoryBlock;
+import base.netlist.Netlist;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Reads and writes Netlists in the binary save format. <br>
+ * A file is laid out as:
+ * <pre>
+ *     magic          4 bytes, "MLGC"
+ *     version        varint
+ *     definitions    varint count, then each CompoundDefinition
+ *     board          the top-level Netlist
+ * </pre>
+ * Every CompoundDefinition used anywhere in the board is written exactly once, after any definitions it uses
+ * itself, and Compound Components refer to it by its position in the definition table. <br>
+ * Component identifiers, positions and Connection endpoints are written as deltas from the previous entry, so a
+ * typical board needs only a few bytes per Component. <br>
+ * RAM and ROM are written as their widths, plus the path of the image a ROM is mapped from. A RAM's contents are
+ * not saved, so it starts cleared when loaded. Registers are written as their width, and start cleared too.
+ */
+public class CircuitFile {
+    /** First four bytes of every save file, "MLGC" */
+    public final static int MAGIC = 0x4D4C4743;
+    /** Version of the format written by this class */
+    public final static int VERSION = 1;
+    /** Positions are stored as fixed-point numbers with this many steps per pixel */
+    private final static double POSITION_SCALE = 16;
+
+    /**
+     * Save a board to a file, replacing it if it already exists. <br>
+     * The file is written to a temporary sibling first and moved into place, so a crash mid-save never leaves
+     * a half-written file behind.
+     * @param path The file to save to
+     * @param board The board to save
+     * @throws IOException If the file cannot be written
+     */
+    public static void save(Path path, Netlist board) throws IOException {
+        VarIntOutput out = new VarIntOutput(board.size() * 8 + board.getConnectionCount() * 4);
+        write(out, board);
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a board from a file. The file is memory-mapped rather than read into the heap
+     * @param path The file to load from
+     * @return The board stored in the file
+     * @throws IOException If the file cannot be read or is not a valid save file
+     */
+    public static Netlist load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(new VarIntInput(mapped));
+        }
+    }
+
+    /**
+     * Write a board, including its header and definition table
+     * @param out The output to write to
+     * @param board The board to write
+     */
+    public static void write(VarIntOutput out, Netlist board) {
+        out.writeFixedInt(MAGIC);
+        out.writeVarInt(VERSION);
+
+        // Collect definitions so that each one comes after every definition it uses
+        IdentityHashMap<CompoundDefinition, Integer> definitionIndices = new IdentityHashMap<>();
+        List<CompoundDefinition> definitions = new ArrayList<>();
+        collectDefinitions(board, definitionIndices, definitions);
+
+        out.writeVarInt(definitions.size());
+        for (CompoundDefinition definition : definitions) {
+            writeDefinition(out, definition, definitionIndices);
+        }
+        writeNetlist(out, board, definitionIndices);
+    }
+
+    /**
+     * Read a board, including its header and definition table
+     * @param in The input to read from
+     * @return The board read
+     * @throws IOException If the data is not a valid save file
+     */
+    public static Netlist read(VarIntInput in) throws IOException {
+        if (in.readFixedInt() != MAGIC) {
+            throw new IOException("Not a Modular Logic save file");
+        }
+        int version = in.readVarInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported save file version " + version);
+        }
+
+        CompoundDefinition[] definitions = new CompoundDefinition[in.readVarInt()];
+        for (int i = 0; i < definitions.length; i++) {
+            // A definition may only use definitions which come before it
+            definitions[i] = readDefinition(in, definitions, i);
+        }
+        return readNetlist(in, definitions, definitions.length);
+    }
+
+    /**
+     * Write a single CompoundDefinition as a self-contained save file, holding a board with one instance of it
+     * @param out The output to write to
+     * @param definition The definition to write
+     */
+    public static void writeDefinition(VarIntOutput out, CompoundDefinition definition) {
+        Netlist holder = new Netlist(1, 1);
+        holder.addCompound(definition, 0, 0, 0);
+        write(out, holder);
+    }
+
+    /**
+     * Read a single CompoundDefinition written by {@link #writeDefinition(VarIntOutput, CompoundDefinition)}
+     * @param in The input to read from
+     * @return The definition read
+     * @throws IOException If the data is not a valid save file holding a single definition
+     */
+    public static CompoundDefinition readDefinition(VarIntInput in) throws IOException {
+        Netlist holder = read(in);
+        if (holder.size() != 1 || holder.getDefinition(0) == null) {
+            throw new IOException("Save file does not hold a single Compound Component");
+        }
+        return holder.getDefinition(0);
+    }
+
+    /**
+     * Add every definition used by a Netlist to the definition table, depth first
+     */
+    private static void collectDefinitions(Netlist netlist, IdentityHashMap<CompoundDefinition, Integer> indices,
+                                           List<CompoundDefinition> ordered) {
+        for (int i = 0; i < netlist.size(); i++) {
+            CompoundDefinition definition = netlist.getDefinition(i);
+            if (definition != null && !indices.containsKey(definition)) {
+                collectDefinitions(definition.getInterior(), indices, ordered);
+                indices.put(definition, ordered.size());
+                ordered.add(definition);
+            }
+        }
+    }
+
+    private static void writeDefinition(VarIntOutput out, CompoundDefinition definition,
+                                        IdentityHashMap<CompoundDefinition, Integer> definitionIndices) {
+        out.writeString(definition.getName());
+        out.writeFixedInt(definition.getColor());
+        out.writeVarInt(toFixed(definition.getWidth()));
+        out.writeVarInt(toFixed(definition.getHeight()));
+        writeNetlist(out, definition.getInterior(), definitionIndices);
+
+        out.writeVarInt(definition.getNumInputs());
+        for (int pin = 0; pin < definition.getNumInputs(); pin++) {
+            out.writeVarInt(definition.getInputPinComponent(pin));
+            out.writeVarInt(definition.getInputPinPort(pin));
+        }
+        out.writeVarInt(definition.getNumOutputs());
+        for (int pin = 0; pin < definition.getNumOutputs(); pin++) {
+            out.writeVarInt(definition.getOutputPinComponent(pin));
+            out.writeVarInt(definition.getOutputPinPort(pin));
+        }
+    }
+
+    private static CompoundDefinition readDefinition(VarIntInput in, CompoundDefinition[] definitions,
+                                                     int usableDefinitions) throws IOException {
+        String name = in.readString();
+        int color = in.readFixedInt();
+        double width = fromFixed(in.readVarInt());
+        double height = fromFixed(in.readVarInt());
+        Netlist interior = readNetlist(in, definitions, usableDefinitions);
+
+        int[][] inputPins = readPins(in, interior, true);
+        int[][] outputPins = readPins(in, interior, false);
+        return new CompoundDefinition(name, color, width, height, interior,
+                inputPins[0], inputPins[1], outputPins[0], outputPins[1]);
+    }
+
+    /**
+     * Read a pin table
+     * @return A pair of arrays, the pins' Component indices and their Port numbers
+     */
+    private static int[][] readPins(VarIntInput in, Netlist interior, boolean inputs) throws IOException {
+        int count = in.readVarInt();
+        int[][] pins = new int[2][count];
+        for (int pin = 0; pin < count; pin++) {
+            pins[0][pin] = checkIndex(in.readVarInt(), interior.size(), "pin Component");
+            int numPorts = inputs ? interior.getNumInputs(pins[0][pin]) : interior.getNumOutputs(pins[0][pin]);
+            pins[1][pin] = checkIndex(in.readVarInt(), numPorts, "pin Port");
+        }
+        return pins;
+    }
+
+    private static void writeNetlist(VarIntOutput out, Netlist netlist,
+                                     IdentityHashMap<CompoundDefinition, Integer> definitionIndices) {
+        out.writeVarInt(netlist.size());
+        out.writeVarInt(netlist.getConnectionCount());
+
+        int previousId = 0;
+        int previousX = 0;
+        int previousY = 0;
+        for (int i = 0; i < netlist.size(); i++) {
+            GateType type = netlist.getType(i);
+            out.writeVarInt(type.ordinal());
+
+            out.writeSignedVarInt(netlist.getId(i) - previousId);
+            previousId = netlist.getId(i);
+
+            int x = toFixed(netlist.getX(i));
+            int y = toFixed(netlist.getY(i));
+            out.writeSignedVarInt(x - previousX);
+            out.writeSignedVarInt(y - previousY);
+            previousX = x;
+            previousY = y;
+
+            if (type == GateType.COMPOUND) {
+                out.writeVarInt(definitionIndices.get(netlist.getDefinition(i)));
+            } else if (type == GateType.SIGNAL_SOURCE) {
+                out.writeByte(netlist.getState(i) ? 1 : 0);
+            } else if (type == GateType.RAM || type == GateType.ROM) {
+                writeMemory(out, netlist.getMemory(i));
+            } else if (type == GateType.REGISTER) {
+                out.writeVarInt(netlist.getWidth(i));
+            }
+        }
+
+        for (int c = 0; c < netlist.getConnectionCount(); c++) {
+            int source = netlist.getSource(c);
+            out.writeVarInt(source);
+            out.writeVarInt(netlist.getSourcePort(c));
+            // Connections are usually between nearby Components
+            out.writeSignedVarInt(netlist.getDest(c) - source);
+            out.writeVarInt(netlist.getDestPort(c));
+        }
+    }
+
+    private static Netlist readNetlist(VarIntInput in, CompoundDefinition[] definitions, int usableDefinitions)
+            throws IOException {
+        int size = in.readVarInt();
+        int connectionCount = in.readVarInt();
+        Netlist netlist = new Netlist(size, connectionCount);
+
+        int id = 0;
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < size; i++) {
+            GateType type;
+            try {
+                type = GateType.fromOrdinal(in.readVarInt());
+            } catch (IllegalArgumentException iae) {
+                throw new IOException(iae.getMessage(), iae);
+            }
+            id += in.readSignedVarInt();
+            x += in.readSignedVarInt();
+            y += in.readSignedVarInt();
+
+            if (type == GateType.COMPOUND) {
+                CompoundDefinition definition =
+                        definitions[checkIndex(in.readVarInt(), usableDefinitions, "definition")];
+                netlist.addCompound(definition, id, fromFixed(x), fromFixed(y));
+            } else if (type == GateType.RAM || type == GateType.ROM) {
+                netlist.addMemory(readMemory(in, type), id, fromFixed(x), fromFixed(y));
+            } else if (type == GateType.REGISTER) {
+                try {
+                    netlist.addRegister(in.readVarInt(), id, fromFixed(x), fromFixed(y));
+                } catch (IllegalArgumentException iae) {
+                    throw new IOException(iae.getMessage(), iae);
+                }
+            } else {
+                int index = netlist.addComponent(type, id, fromFixed(x), fromFixed(y));
+                if (type == GateType.SIGNAL_SOURCE) {
+                    netlist.setState(index, in.readByte() != 0);
+                }
+            }
+        }
+
+        for (int c = 0; c < connectionCount; c++) {
+            int source = checkIndex(in.readVarInt(), size, "Connection source");
+            int sourcePort = checkIndex(in.readVarInt(), netlist.getNumOutputs(source), "Connection source Port");
+            int dest = checkIndex(source + in.readSignedVarInt(), size, "Connection dest");
+            int destPort = checkIndex(in.readVarInt(), netlist.getNumInputs(dest), "Connection dest Port");
+            netlist.addConnection(source, sourcePort, dest, destPort);
+        }
+        return netlist;
+    }
+
+    /**
+     * Write the widths of a RAM or ROM, and the image a ROM is mapped from
+     * @param out The output to write to
+     * @param memory The RAM or ROM to write
+     */
+    public static void writeMemory(VarIntOutput out, MemoryBlock memory) {
+        out.writeVarInt(memory.getAddressBits());
+        out.writeVarInt(memory.getDataBits());
+        if (memory.isReadOnly()) {
+            out.writeString(memory.getImage().toString());
+        }
+    }
+
+    /**
+     * Read a RAM or ROM written by {@link #writeMemory}, mapping a ROM's image again
+     * @param in The input to read from
+     * @param type RAM or ROM
+     * @return A cleared RAM, or the ROM mapped from its image
+     * @throws IOException If the widths are invalid, or a ROM's image cannot be read
+     */
+    public static MemoryBlock readMemory(VarIntInput in, GateType type) throws IOException {
+        int addressBits = in.readVarInt();
+        int dataBits = in.readVarInt();
+        try {
+            return type == GateType.ROM
+                    ? MemoryBlock.rom(Path.of(in.readString()), addressBits, dataBits)
+                    : MemoryBlock.ram(addressBits, dataBits);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(iae.getMessage(), iae);
+        }
+    }
+
+    /**
+     * Make sure an index read from a file is in range
+     * @return The index, if it is valid
+     * @throws IOException If the index is out of range
+     */
+    private static int checkIndex(int index, int limit, String what) throws IOException {
+        if (index < 0 || index >= limit) {
+            throw new IOException("Invalid " + what + " index " + index);
+        }
+        return index;
+    }
+
+    /**
+     * Convert a position to the fixed-point form it is stored in
+     * @param pixels The position, in pixels
+     * @return The stored form of the position
+     */
+    static int toFixed(double pixels) {
+        return (int) Math.round(pixels * POSITION_SCALE);
+    }
+
+    /**
+     * Convert a stored position back to pixels
+     * @param fixed The stored form of the position
+     * @return The position, in pixels
+     */
+    static double fromFixed(int fixed) {
+        return fixed / POSITION_SCALE;
+    }
+}
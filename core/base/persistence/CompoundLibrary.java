@@ -0,0 +1,262 @@
+package base.persistence;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.Netlist;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A directory of reusable CompoundDefinitions, looked up by name. <br>
+ * Each definition is stored in its own file named after the hash of its contents, so identical definitions saved
+ * under different names share one file. A small index file maps names to hashes, and opening a library only reads
+ * that index: definitions are loaded the first time they are asked for.
+ * <br><br>
+ * Loaded definitions are kept in a least-recently-used cache limited to a number of bytes. Definitions pushed out
+ * of the cache while Compound Components still use them stay reachable through those Components, and are found
+ * again without reloading, so a definition is only ever truly dropped once nothing uses it.
+ */
+public class CompoundLibrary {
+    /** First four bytes of the index file, "MLGL" */
+    private final static int INDEX_MAGIC = 0x4D4C474C;
+    /** Version of the index format written by this class */
+    private final static int INDEX_VERSION = 1;
+    /** Name of the index file within the library directory */
+    private final static String INDEX_FILE = "index.bin";
+    /** Name suffix of definition files */
+    private final static String DEFINITION_SUFFIX = ".mlc";
+
+    /**
+     * A definition loaded into the cache
+     * @param definition The loaded definition
+     * @param bytes Estimated memory taken up by the definition
+     */
+    private record CachedDefinition(CompoundDefinition definition, long bytes) {}
+
+    /** The directory holding the index and every definition */
+    private final Path directory;
+    /** Most memory the cache may take up, in bytes */
+    private final long cacheBudget;
+
+    /** Content hash of the definition saved under each name, sorted by name */
+    private final TreeMap<String, String> hashesByName;
+    /** Loaded definitions by content hash, least recently used first */
+    private final LinkedHashMap<String, CachedDefinition> cache;
+    /** Memory taken up by every cached definition, in bytes */
+    private long cachedBytes;
+    /** Definitions pushed out of the cache, which may still be in use */
+    private final HashMap<String, WeakReference<CompoundDefinition>> evicted;
+
+    private CompoundLibrary(Path directory, long cacheBudget) {
+        this.directory = directory;
+        this.cacheBudget = cacheBudget;
+        this.hashesByName = new TreeMap<>();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.cachedBytes = 0;
+        this.evicted = new HashMap<>();
+    }
+
+    /**
+     * Open the library in a directory, reading only its index
+     * @param directory The library directory. Created if it does not exist
+     * @param cacheBudget Most memory loaded definitions may take up, in bytes
+     * @return The opened library
+     * @throws IOException If the directory cannot be created or its index cannot be read
+     */
+    public static CompoundLibrary open(Path directory, long cacheBudget) throws IOException {
+        Files.createDirectories(directory);
+        CompoundLibrary library = new CompoundLibrary(directory, cacheBudget);
+
+        Path index = directory.resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                VarIntInput in = new VarIntInput(mapped);
+                if (in.readFixedInt() != INDEX_MAGIC || in.readVarInt() != INDEX_VERSION) {
+                    throw new IOException("Not a Compound library index");
+                }
+                int count = in.readVarInt();
+                for (int i = 0; i < count; i++) {
+                    library.hashesByName.put(in.readString(), in.readString());
+                }
+            }
+        }
+        return library;
+    }
+
+    /**
+     * Get the name of every definition in the library
+     * @return Every name, in alphabetical order
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(hashesByName.keySet());
+    }
+
+    /**
+     * Get the content hash of the definition saved under a name
+     * @param name The name of the definition
+     * @return The hash of the definition, or null if no definition has that name
+     */
+    public String getHash(String name) {
+        return hashesByName.get(name);
+    }
+
+    /**
+     * Get a definition, loading it from disk if it is not already loaded
+     * @param name The name of the definition
+     * @return The definition saved under that name
+     * @throws IOException If no definition has that name, or it cannot be loaded
+     */
+    public CompoundDefinition get(String name) throws IOException {
+        String hash = hashesByName.get(name);
+        if (hash == null) {
+            throw new IOException("No Compound named " + name + " in the library");
+        }
+
+        CachedDefinition cached = cache.get(hash);
+        if (cached != null) {
+            return cached.definition();
+        }
+
+        WeakReference<CompoundDefinition> stillInUse = evicted.remove(hash);
+        CompoundDefinition definition = stillInUse == null ? null : stillInUse.get();
+        if (definition == null) {
+            definition = load(hash);
+        }
+        cache(hash, definition);
+        return definition;
+    }
+
+    /**
+     * Save a definition into the library under its name, replacing any definition already saved under that name
+     * @param definition The definition to save
+     * @throws IOException If the definition or the index cannot be written
+     */
+    public void add(CompoundDefinition definition) throws IOException {
+        VarIntOutput out = new VarIntOutput(256);
+        CircuitFile.writeDefinition(out, definition);
+        String hash = hash(out);
+
+        Path file = definitionPath(hash);
+        if (!Files.exists(file)) {
+            Path temp = directory.resolve(hash + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.writeTo(channel);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        hashesByName.put(definition.getName(), hash);
+        writeIndex();
+        if (!cache.containsKey(hash)) {
+            cache(hash, definition);
+        }
+    }
+
+    /**
+     * Memory-map and decode a definition file
+     */
+    private CompoundDefinition load(String hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(definitionPath(hash), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return CircuitFile.readDefinition(new VarIntInput(mapped));
+        }
+    }
+
+    /**
+     * Add a definition to the cache, then evict the least recently used definitions until it fits its budget. <br>
+     * The definition just added is never evicted, even if it is larger than the whole budget on its own
+     */
+    private void cache(String hash, CompoundDefinition definition) {
+        CachedDefinition cached = new CachedDefinition(definition, estimatedBytes(definition));
+        cache.put(hash, cached);
+        cachedBytes += cached.bytes();
+
+        Iterator<Map.Entry<String, CachedDefinition>> leastRecent = cache.entrySet().iterator();
+        while (cachedBytes > cacheBudget && leastRecent.hasNext()) {
+            Map.Entry<String, CachedDefinition> entry = leastRecent.next();
+            if (entry.getValue() != cached) {
+                leastRecent.remove();
+                cachedBytes -= entry.getValue().bytes();
+                evicted.put(entry.getKey(), new WeakReference<>(entry.getValue().definition()));
+            }
+        }
+        // Forget definitions the garbage collector has since dropped
+        evicted.values().removeIf(reference -> reference.get() == null);
+    }
+
+    /**
+     * Rewrite the index file to match the current set of names
+     */
+    private void writeIndex() throws IOException {
+        VarIntOutput out = new VarIntOutput(hashesByName.size() * 48 + 16);
+        out.writeFixedInt(INDEX_MAGIC);
+        out.writeVarInt(INDEX_VERSION);
+        out.writeVarInt(hashesByName.size());
+        for (Map.Entry<String, String> entry : hashesByName.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeString(entry.getValue());
+        }
+
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Estimate the memory taken up by a definition and every definition nested within it
+     */
+    private static long estimatedBytes(CompoundDefinition definition) {
+        long bytes = 0;
+        IdentityHashMap<CompoundDefinition, Boolean> counted = new IdentityHashMap<>();
+        Deque<CompoundDefinition> toCount = new ArrayDeque<>(List.of(definition));
+        while (!toCount.isEmpty()) {
+            CompoundDefinition next = toCount.pop();
+            if (counted.put(next, Boolean.TRUE) == null) {
+                Netlist interior = next.getInterior();
+                bytes += interior.estimatedBytes() + (next.getNumInputs() + next.getNumOutputs()) * 8L;
+                for (int i = 0; i < interior.size(); i++) {
+                    if (interior.getDefinition(i) != null) {
+                        toCount.push(interior.getDefinition(i));
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Hash the contents of an encoded definition
+     * @return The SHA-256 hash, as lowercase hex
+     */
+    private static String hash(VarIntOutput encoded) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(encoded.getBytes(), 0, encoded.length());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException nsae) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(nsae);
+        }
+    }
+
+    private Path definitionPath(String hash) {
+        return directory.resolve(hash + DEFINITION_SUFFIX);
+    }
+}
@@ -0,0 +1,652 @@
+package base.persistence;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.MemoryBlock;
+import base.netlist.Netlist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of every edit made to a board, kept alongside periodic snapshots of the whole board. <br>
+ * The directory holds numbered generations. Snapshot <i>g</i> is the whole board as it was when journal <i>g</i>
+ * was started, so the board can always be rebuilt from the newest snapshot followed by every journal from that
+ * generation onwards.
+ * <br><br>
+ * Edits are encoded on the calling thread, which is cheap, and handed to a background thread to be written.
+ * Snapshots are serialized and written on another background thread, so recording an edit never waits on disk.
+ * Every record carries its own length and checksum, so a record torn by a crash is detected and ignored.
+ * <br><br>
+ * Recording methods must all be called from the same thread.
+ */
+public class EditJournal implements Closeable {
+    /** First four bytes of every journal file, "MLGJ" */
+    private final static int MAGIC = 0x4D4C474A;
+    /** Version of the journal format written by this class */
+    private final static int VERSION = 1;
+
+    /** Record kinds */
+    private final static int ADD = 1;
+    private final static int ADD_COMPOUND = 2;
+    private final static int DEFINE = 3;
+    private final static int MOVE = 4;
+    private final static int REMOVE = 5;
+    private final static int CONNECT = 6;
+    private final static int DISCONNECT = 7;
+    private final static int STATE = 8;
+    private final static int ADD_MEMORY = 9;
+    private final static int ADD_REGISTER = 10;
+
+    /** Name prefix of journal files */
+    private final static String JOURNAL_PREFIX = "journal-";
+    /** Name suffix of journal files */
+    private final static String JOURNAL_SUFFIX = ".log";
+    /** Name prefix of snapshot files */
+    private final static String SNAPSHOT_PREFIX = "snapshot-";
+    /** Name suffix of snapshot files */
+    private final static String SNAPSHOT_SUFFIX = ".mlc";
+    /** Name prefix of the subdirectories generations that could not be recovered are moved into */
+    private final static String DAMAGED_PREFIX = "damaged-";
+
+    /** Number of bytes a journal may grow to before a snapshot is suggested */
+    public final static long COMPACTION_THRESHOLD_BYTES = 4L << 20;
+    /** Least number of milliseconds between forcing the journal out to the disk */
+    private final static long FORCE_INTERVAL_MS = 500;
+
+    /**
+     * Receives the newest snapshot read back out of a journal directory, then every edit made since, in the order
+     * they were made
+     */
+    public interface Replayer {
+        void restore(Netlist snapshot);
+        void add(GateType type, int id, double x, double y, boolean on);
+        void addCompound(CompoundDefinition definition, int id, double x, double y);
+        void addMemory(MemoryBlock memory, int id, double x, double y);
+        void addRegister(int width, int id, double x, double y);
+        void move(int id, double x, double y);
+        void remove(int id);
+        void connect(int sourceId, int sourcePort, int destId, int destPort);
+        void disconnect(int destId, int destPort);
+        void setState(int id, boolean on);
+    }
+
+    /** The directory holding every journal and snapshot */
+    private final Path directory;
+    /** Writes journal records in order */
+    private final ExecutorService writer;
+    /** Serializes and writes snapshots */
+    private final ExecutorService compactor;
+    /** Whether a snapshot is currently being written */
+    private final AtomicBoolean compacting;
+
+    /** The generation edits are currently recorded in */
+    private long generation;
+    /** The journal file edits are currently written to. Only touched by the writer thread */
+    private FileChannel channel;
+    /** When the journal was last forced out to the disk. Only touched by the writer thread */
+    private long lastForceTime;
+
+    /** Records encoded since the last commit */
+    private final VarIntOutput batch;
+    /** A single record being encoded */
+    private final VarIntOutput encoding;
+    /** Checksum of each record */
+    private final CRC32 crc;
+    /** Number of bytes handed to the writer in the current generation */
+    private long generationBytes;
+    /** Journal index of every definition already written in the current generation */
+    private final IdentityHashMap<CompoundDefinition, Integer> definitionIndices;
+
+    /**
+     * Start a new journal generation in a directory, writing an initial snapshot of the board first. <br>
+     * The snapshot is written before this returns, since edits in the new journal are only meaningful on top
+     * of it. Every older generation is deleted afterwards.
+     * @param directory The directory to keep the journal in. Created if it does not exist
+     * @param board The board as it is right now
+     * @return The new EditJournal
+     * @throws IOException If the directory or files within it cannot be written
+     */
+    public static EditJournal start(Path directory, Netlist board) throws IOException {
+        Files.createDirectories(directory);
+        long generation = newestGeneration(directory, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+        generation = Math.max(generation, newestGeneration(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) + 1;
+
+        CircuitFile.save(snapshotPath(directory, generation), board);
+        EditJournal journal = new EditJournal(directory, generation);
+        journal.deleteGenerationsBefore(generation);
+        return journal;
+    }
+
+    private EditJournal(Path directory, long generation) throws IOException {
+        this.directory = directory;
+        this.generation = generation;
+        this.writer = Executors.newSingleThreadExecutor(r -> daemon(r, "Journal Writer"));
+        this.compactor = Executors.newSingleThreadExecutor(r -> daemon(r, "Journal Compactor"));
+        this.compacting = new AtomicBoolean(false);
+
+        this.batch = new VarIntOutput(1024);
+        this.encoding = new VarIntOutput(64);
+        this.crc = new CRC32();
+        this.definitionIndices = new IdentityHashMap<>();
+
+        this.channel = openJournal(journalPath(directory, generation));
+        this.lastForceTime = System.currentTimeMillis();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Record that a basic Component was created
+     * @param type The type of the new Component
+     * @param id The identifier of the new Component
+     * @param x The x coordinate (in pixels) of the new Component
+     * @param y The y coordinate (in pixels) of the new Component
+     * @param on Whether the new Component is on. Only meaningful for Signal Sources
+     */
+    public void recordAdd(GateType type, int id, double x, double y, boolean on) {
+        encoding.writeVarInt(ADD);
+        encoding.writeVarInt(type.ordinal());
+        encoding.writeVarInt(id);
+        encoding.writeSignedVarInt(CircuitFile.toFixed(x));
+        encoding.writeSignedVarInt(CircuitFile.toFixed(y));
+        encoding.writeByte(on ? 1 : 0);
+        endRecord();
+    }
+
+    /**
+     * Record that a Compound Component was created. Its definition is written too, once per generation
+     * @param definition The definition of the new Compound Component
+     * @param id The identifier of the new Compound Component
+     * @param x The x coordinate (in pixels) of the new Compound Component
+     * @param y The y coordinate (in pixels) of the new Compound Component
+     */
+    public void recordAddCompound(CompoundDefinition definition, int id, double x, double y) {
+        Integer definitionIndex = definitionIndices.get(definition);
+        if (definitionIndex == null) {
+            definitionIndex = definitionIndices.size();
+            definitionIndices.put(definition, definitionIndex);
+
+            VarIntOutput encoded = new VarIntOutput(256);
+            CircuitFile.writeDefinition(encoded, definition);
+
+            encoding.writeVarInt(DEFINE);
+            encoding.writeVarInt(definitionIndex);
+            encoding.writeVarInt(encoded.length());
+            encoding.writeBytes(encoded.getBytes(), 0, encoded.length());
+            endRecord();
+        }
+        encoding.writeVarInt(ADD_COMPOUND);
+        encoding.writeVarInt(definitionIndex);
+        encoding.writeVarInt(id);
+        encoding.writeSignedVarInt(CircuitFile.toFixed(x));
+        encoding.writeSignedVarInt(CircuitFile.toFixed(y));
+        endRecord();
+    }
+
+    /**
+     * Record that a RAM or ROM was created. A RAM's contents are not recorded, so it is replayed cleared
+     * @param memory The contents of the new RAM or ROM
+     * @param id The identifier of the new Component
+     * @param x The x coordinate (in pixels) of the new Component
+     * @param y The y coordinate (in pixels) of the new Component
+     */
+    public void recordAddMemory(MemoryBlock memory, int id, double x, double y) {
+        encoding.writeVarInt(ADD_MEMORY);
+        encoding.writeVarInt(memory.getType().ordinal());
+        CircuitFile.writeMemory(encoding, memory);
+        encoding.writeVarInt(id);
+        encoding.writeSignedVarInt(CircuitFile.toFixed(x));
+        encoding.writeSignedVarInt(CircuitFile.toFixed(y));
+        endRecord();
+    }
+
+    /**
+     * Record that a Register was created. It is replayed cleared
+     * @param width The number of bits the Register holds
+     * @param id The identifier of the new Component
+     * @param x The x coordinate (in pixels) of the new Component
+     * @param y The y coordinate (in pixels) of the new Component
+     */
+    public void recordAddRegister(int width, int id, double x, double y) {
+        encoding.writeVarInt(ADD_REGISTER);
+        encoding.writeVarInt(width);
+        encoding.writeVarInt(id);
+        encoding.writeSignedVarInt(CircuitFile.toFixed(x));
+        encoding.writeSignedVarInt(CircuitFile.toFixed(y));
+        endRecord();
+    }
+
+    /**
+     * Record that a Component moved
+     * @param id The identifier of the Component
+     * @param x The new x coordinate (in pixels) of the Component
+     * @param y The new y coordinate (in pixels) of the Component
+     */
+    public void recordMove(int id, double x, double y) {
+        encoding.writeVarInt(MOVE);
+        encoding.writeVarInt(id);
+        encoding.writeSignedVarInt(CircuitFile.toFixed(x));
+        encoding.writeSignedVarInt(CircuitFile.toFixed(y));
+        endRecord();
+    }
+
+    /**
+     * Record that a Component was removed
+     * @param id The identifier of the removed Component
+     */
+    public void recordRemove(int id) {
+        encoding.writeVarInt(REMOVE);
+        encoding.writeVarInt(id);
+        endRecord();
+    }
+
+    /**
+     * Record that two Components were connected
+     * @param sourceId The identifier of the Component the signal comes from
+     * @param sourcePort The output Port number on the source Component
+     * @param destId The identifier of the Component the signal goes to
+     * @param destPort The input Port number on the dest Component
+     */
+    public void recordConnect(int sourceId, int sourcePort, int destId, int destPort) {
+        encoding.writeVarInt(CONNECT);
+        encoding.writeVarInt(sourceId);
+        encoding.writeVarInt(sourcePort);
+        encoding.writeVarInt(destId);
+        encoding.writeVarInt(destPort);
+        endRecord();
+    }
+
+    /**
+     * Record that a Connection was removed. An input Port has at most one Connection, so it identifies it
+     * @param destId The identifier of the Component the signal went to
+     * @param destPort The input Port number on the dest Component
+     */
+    public void recordDisconnect(int destId, int destPort) {
+        encoding.writeVarInt(DISCONNECT);
+        encoding.writeVarInt(destId);
+        encoding.writeVarInt(destPort);
+        endRecord();
+    }
+
+    /**
+     * Record that a Component was turned on or off
+     * @param id The identifier of the Component
+     * @param on Whether the Component is now on
+     */
+    public void recordState(int id, boolean on) {
+        encoding.writeVarInt(STATE);
+        encoding.writeVarInt(id);
+        encoding.writeByte(on ? 1 : 0);
+        endRecord();
+    }
+
+    /**
+     * Frame the record just encoded with its length and checksum, and add it to the current batch
+     */
+    private void endRecord() {
+        crc.reset();
+        crc.update(encoding.getBytes(), 0, encoding.length());
+        batch.writeVarInt(encoding.length());
+        batch.writeBytes(encoding.getBytes(), 0, encoding.length());
+        batch.writeFixedInt((int) crc.getValue());
+        encoding.reset();
+    }
+
+    /**
+     * Hand every record since the last commit to the background writer
+     */
+    public void commit() {
+        if (batch.length() == 0) {
+            return;
+        }
+        byte[] bytes = Arrays.copyOf(batch.getBytes(), batch.length());
+        generationBytes += bytes.length;
+        batch.reset();
+        writer.execute(() -> append(bytes));
+    }
+
+    /**
+     * Write a batch of records to the end of the current journal file. Only run on the writer thread
+     */
+    private void append(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            // Written bytes survive the program crashing, forcing them out also survives the machine crashing
+            long now = System.currentTimeMillis();
+            if (now - lastForceTime >= FORCE_INTERVAL_MS) {
+                channel.force(false);
+                lastForceTime = now;
+            }
+        } catch (IOException ioe) {
+            System.out.println("Journal Writing " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Get whether the current journal has grown large enough that it should be compacted
+     * @return Whether {@link #compact} should be called
+     */
+    public boolean shouldCompact() {
+        return generationBytes >= COMPACTION_THRESHOLD_BYTES && !compacting.get();
+    }
+
+    /**
+     * Start a new generation whose snapshot is the board provided. <br>
+     * Edits recorded from now on go to the new journal straight away, while the snapshot is serialized and
+     * written in the background. Older generations are deleted once the snapshot is safely on disk.
+     * Does nothing if a snapshot is already being written.
+     * @param board The board as it is right now, including every edit recorded so far. Must not be changed
+     *              afterwards
+     * @return Whether a new generation was started
+     */
+    public boolean compact(Netlist board) {
+        if (!compacting.compareAndSet(false, true)) {
+            return false;
+        }
+        commit();
+        long newGeneration = ++generation;
+        generationBytes = 0;
+        definitionIndices.clear();
+
+        writer.execute(() -> {
+            try {
+                channel.force(false);
+                channel.close();
+                channel = openJournal(journalPath(directory, newGeneration));
+            } catch (IOException ioe) {
+                System.out.println("Journal Rotation " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+            }
+        });
+        compactor.execute(() -> {
+            try {
+                CircuitFile.save(snapshotPath(directory, newGeneration), board);
+                deleteGenerationsBefore(newGeneration);
+            } catch (IOException ioe) {
+                System.out.println("Journal Compaction " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+            } finally {
+                compacting.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Write out everything recorded so far and stop the background threads
+     * @throws IOException If the journal cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        commit();
+        writer.shutdown();
+        compactor.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * Rebuild the newest board stored in a directory
+     * @param directory The directory a journal was kept in
+     * @param replayer Receives the newest snapshot, then every edit made since
+     * @return Whether the directory held a board to rebuild
+     * @throws IOException If the snapshot cannot be read
+     */
+    public static boolean recover(Path directory, Replayer replayer) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        long snapshotGeneration = newestGeneration(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (snapshotGeneration < 0) {
+            return false;
+        }
+        replayer.restore(CircuitFile.load(snapshotPath(directory, snapshotGeneration)));
+
+        long newestJournal = newestGeneration(directory, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+        for (long g = snapshotGeneration; g <= newestJournal; g++) {
+            Path path = journalPath(directory, g);
+            if (Files.exists(path) && !replay(path, replayer)) {
+                // Anything after a damaged record was made on top of an edit which is now lost
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Move every generation in a directory into a new damaged-<i>n</i> subdirectory, where it is no longer
+     * recovered or deleted. <br>
+     * Used when {@link #recover} fails, so that starting a new journal afterwards does not destroy the only
+     * copies of the board left by the previous session.
+     * @param directory The directory a journal was kept in
+     * @return The subdirectory the generations were moved into, or null if there were none to move
+     * @throws IOException If the files cannot be moved
+     */
+    public static Path setAside(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        Path damaged = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (generationOf(file, JOURNAL_PREFIX, JOURNAL_SUFFIX) < 0
+                        && generationOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < 0) {
+                    continue;
+                }
+                if (damaged == null) {
+                    int n = 1;
+                    while (Files.exists(directory.resolve(DAMAGED_PREFIX + n))) {
+                        n++;
+                    }
+                    damaged = Files.createDirectory(directory.resolve(DAMAGED_PREFIX + n));
+                }
+                Files.move(file, damaged.resolve(file.getFileName()));
+            }
+        }
+        return damaged;
+    }
+
+    /**
+     * Replay every intact record in a journal file
+     * @return Whether the whole file was intact
+     */
+    private static boolean replay(Path path, Replayer replayer) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+        }
+        VarIntInput in = new VarIntInput(buffer);
+        try {
+            if (!in.hasRemaining() || in.readFixedInt() != MAGIC || in.readVarInt() != VERSION) {
+                return false;
+            }
+        } catch (IOException ioe) {
+            // Torn while the header was being written, so nothing was ever recorded in it
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        CompoundDefinition[] definitions = new CompoundDefinition[16];
+        while (in.hasRemaining()) {
+            try {
+                int length = in.readVarInt();
+                if (length <= 0 || length > buffer.remaining() - 4) {
+                    return false;
+                }
+                ByteBuffer payload = buffer.slice().limit(length);
+                buffer.position(buffer.position() + length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != in.readFixedInt()) {
+                    return false;
+                }
+                definitions = replayRecord(new VarIntInput(payload), definitions, replayer);
+            } catch (IOException ioe) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replay a single record
+     * @return The table of definitions read so far, which may have been grown
+     */
+    private static CompoundDefinition[] replayRecord(VarIntInput in, CompoundDefinition[] definitions,
+                                                     Replayer replayer) throws IOException {
+        switch (in.readVarInt()) {
+            case ADD -> {
+                GateType type;
+                try {
+                    type = GateType.fromOrdinal(in.readVarInt());
+                } catch (IllegalArgumentException iae) {
+                    throw new IOException(iae.getMessage(), iae);
+                }
+                int id = in.readVarInt();
+                double x = CircuitFile.fromFixed(in.readSignedVarInt());
+                double y = CircuitFile.fromFixed(in.readSignedVarInt());
+                replayer.add(type, id, x, y, in.readByte() != 0);
+            }
+            case ADD_COMPOUND -> {
+                int definitionIndex = in.readVarInt();
+                if (definitionIndex >= definitions.length || definitions[definitionIndex] == null) {
+                    throw new IOException("Undefined definition " + definitionIndex);
+                }
+                int id = in.readVarInt();
+                double x = CircuitFile.fromFixed(in.readSignedVarInt());
+                double y = CircuitFile.fromFixed(in.readSignedVarInt());
+                replayer.addCompound(definitions[definitionIndex], id, x, y);
+            }
+            case DEFINE -> {
+                int definitionIndex = in.readVarInt();
+                int length = in.readVarInt();
+                byte[] encoded = in.readBytes(length);
+                if (definitionIndex >= definitions.length) {
+                    definitions = Arrays.copyOf(definitions, Math.max(definitions.length * 2, definitionIndex + 1));
+                }
+                definitions[definitionIndex] = CircuitFile.readDefinition(new VarIntInput(ByteBuffer.wrap(encoded)));
+            }
+            case MOVE -> {
+                int id = in.readVarInt();
+                double x = CircuitFile.fromFixed(in.readSignedVarInt());
+                double y = CircuitFile.fromFixed(in.readSignedVarInt());
+                replayer.move(id, x, y);
+            }
+            case REMOVE -> replayer.remove(in.readVarInt());
+            case CONNECT -> replayer.connect(in.readVarInt(), in.readVarInt(), in.readVarInt(), in.readVarInt());
+            case DISCONNECT -> replayer.disconnect(in.readVarInt(), in.readVarInt());
+            case STATE -> replayer.setState(in.readVarInt(), in.readByte() != 0);
+            case ADD_MEMORY -> {
+                GateType type = in.readVarInt() == GateType.ROM.ordinal() ? GateType.ROM : GateType.RAM;
+                MemoryBlock memory = CircuitFile.readMemory(in, type);
+                int id = in.readVarInt();
+                double x = CircuitFile.fromFixed(in.readSignedVarInt());
+                double y = CircuitFile.fromFixed(in.readSignedVarInt());
+                replayer.addMemory(memory, id, x, y);
+            }
+            case ADD_REGISTER -> {
+                int width = in.readVarInt();
+                if (width < 1 || width > Netlist.MAX_REGISTER_WIDTH) {
+                    throw new IOException("Register width " + width + " out of range");
+                }
+                int id = in.readVarInt();
+                double x = CircuitFile.fromFixed(in.readSignedVarInt());
+                double y = CircuitFile.fromFixed(in.readSignedVarInt());
+                replayer.addRegister(width, id, x, y);
+            }
+            default -> throw new IOException("Unknown journal record");
+        }
+        return definitions;
+    }
+
+    /**
+     * Open a new, empty journal file and write its header
+     */
+    private static FileChannel openJournal(Path path) throws IOException {
+        FileChannel journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        VarIntOutput header = new VarIntOutput(8);
+        header.writeFixedInt(MAGIC);
+        header.writeVarInt(VERSION);
+        header.writeTo(journal);
+        return journal;
+    }
+
+    /**
+     * Delete every journal and snapshot older than a generation
+     */
+    private void deleteGenerationsBefore(long oldestKept) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                long fileGeneration = Math.max(generationOf(file, JOURNAL_PREFIX, JOURNAL_SUFFIX),
+                        generationOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX));
+                if (fileGeneration >= 0 && fileGeneration < oldestKept) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the newest generation of a kind of file in a directory
+     * @return The newest generation, or -1 if there are no such files
+     */
+    private static long newestGeneration(Path directory, String prefix, String suffix) throws IOException {
+        long newest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                newest = Math.max(newest, generationOf(file, prefix, suffix));
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Get the generation number from a file name
+     * @return The generation, or -1 if the file is not of the kind given
+     */
+    private static long generationOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(prefix) && name.endsWith(suffix)) {
+            try {
+                return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+            } catch (NumberFormatException nfe) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static Path journalPath(Path directory, long generation) {
+        return directory.resolve(JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+    }
+
+    private static Path snapshotPath(Path directory, long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+}
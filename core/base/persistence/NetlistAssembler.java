@@ -0,0 +1,591 @@
+package base.persistence;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.Netlist;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the Netlist for one imported model as its gates are read. <br>
+ * Imported formats connect gates through named nets, which can have any number of readers, while every Port on a
+ * Component holds at most one Connection. Gates are therefore added to the Netlist straight away, but only the
+ * net each of their Ports touches is remembered. Once the whole model has been read, each net is turned into
+ * Connections, with a tree of Splitters wherever one output feeds several inputs.
+ */
+class NetlistAssembler {
+    /** Number of Components placed in each row of the imported layout */
+    private final static int LAYOUT_COLUMNS = 40;
+    /** Horizontal distance between imported Components, in pixels */
+    private final static double LAYOUT_CELL_WIDTH = 150;
+    /** Vertical distance between imported Components, in pixels */
+    private final static double LAYOUT_CELL_HEIGHT = 150;
+
+    /** Width of an imported Compound Component, in pixels */
+    private final static double COMPOUND_WIDTH = 90;
+    /** Height of an imported Compound Component, in pixels per pin on its busier side */
+    private final static double COMPOUND_HEIGHT_PER_PIN = 30;
+    /** Color of an imported Compound Component, packed as 0xAARRGGBB */
+    private final static int COMPOUND_COLOR = 0xFF0000FF;
+
+    /**
+     * A Compound Component whose definition may not have been read yet
+     * @param model The name of the model it is an instance of
+     * @param formals The model's port names, or null if the ports are connected in header order
+     * @param actuals The nets connected to each port, most significant bit first
+     */
+    record Instance(String model, String[] formals, int[][] actuals) {}
+
+    /** Name of the model being assembled */
+    private final String name;
+    /** The Netlist gates are added to */
+    private final Netlist netlist;
+
+    /** Identifier of every named net */
+    private final Map<String, Integer> netIds;
+    /** Number of nets, named or not */
+    private int netCount;
+    /** Union-find parent of each net, for nets declared to be the same */
+    private int[] aliases;
+    /** Component driving each net, or -1 */
+    private int[] driverComponents;
+    /** Output Port driving each net */
+    private int[] driverPorts;
+
+    /** Number of input Ports reading from a net */
+    private int sinkCount;
+    /** Net each sink reads from */
+    private int[] sinkNets;
+    /** Component each sink is on */
+    private int[] sinkComponents;
+    /** Input Port number of each sink */
+    private int[] sinkPorts;
+
+    /** Nets connected to the model's input pins, in order */
+    private final List<Integer> inputs;
+    /** Nets connected to the model's output pins, in order */
+    private final List<Integer> outputs;
+    /** Name of every port, in the order they are listed in the model's header */
+    private final List<String> ports;
+    /** Compound Components waiting for their definitions */
+    private final List<Instance> instances;
+
+    /**
+     * Start assembling a new model
+     * @param name The name of the model
+     */
+    NetlistAssembler(String name) {
+        this.name = name;
+        this.netlist = new Netlist(1024, 1024);
+        this.netIds = new HashMap<>();
+        this.aliases = new int[1024];
+        this.driverComponents = new int[1024];
+        this.driverPorts = new int[1024];
+        this.sinkNets = new int[1024];
+        this.sinkComponents = new int[1024];
+        this.sinkPorts = new int[1024];
+        this.inputs = new ArrayList<>();
+        this.outputs = new ArrayList<>();
+        this.ports = new ArrayList<>();
+        this.instances = new ArrayList<>();
+    }
+
+    /**
+     * Get the name of the model being assembled
+     * @return The model's name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Get the names of every model this model instantiates
+     * @return The instantiated model names, without duplicates
+     */
+    Set<String> getDependencies() {
+        Set<String> dependencies = new LinkedHashSet<>();
+        for (Instance instance : instances) {
+            dependencies.add(instance.model());
+        }
+        return dependencies;
+    }
+
+    /**
+     * Get a named net, creating it if it has not been seen yet
+     * @param netName The name of the net
+     * @return The net's identifier
+     */
+    int net(String netName) {
+        Integer id = netIds.get(netName);
+        if (id == null) {
+            id = newNet();
+            netIds.put(netName, id);
+        }
+        return id;
+    }
+
+    /**
+     * Create a new unnamed net
+     * @return The net's identifier
+     */
+    int newNet() {
+        if (netCount == aliases.length) {
+            int newCapacity = netCount * 2;
+            aliases = Arrays.copyOf(aliases, newCapacity);
+            driverComponents = Arrays.copyOf(driverComponents, newCapacity);
+            driverPorts = Arrays.copyOf(driverPorts, newCapacity);
+        }
+        aliases[netCount] = netCount;
+        driverComponents[netCount] = -1;
+        return netCount++;
+    }
+
+    /**
+     * Declare an input port of the model
+     * @param netName The name of the port's net
+     */
+    void addInput(String netName) {
+        inputs.add(net(netName));
+        ports.add(netName);
+    }
+
+    /**
+     * Declare an output port of the model
+     * @param netName The name of the port's net
+     */
+    void addOutput(String netName) {
+        outputs.add(net(netName));
+        ports.add(netName);
+    }
+
+    /**
+     * Declare that two nets are the same net
+     */
+    void alias(int a, int b) {
+        aliases[root(a)] = root(b);
+    }
+
+    /**
+     * Find the net a net has been merged into
+     */
+    private int root(int net) {
+        while (aliases[net] != net) {
+            aliases[net] = aliases[aliases[net]];
+            net = aliases[net];
+        }
+        return net;
+    }
+
+    /**
+     * Add a basic gate reading from and driving nets
+     * @param type The type of gate
+     * @param ins The net read by each input Port
+     * @param outs The net driven by each output Port
+     * @return The index of the new gate
+     */
+    int gate(GateType type, int[] ins, int[] outs) throws IOException {
+        return place(netlist.addComponent(type, nextId(), layoutX(), layoutY()), ins, outs);
+    }
+
+    /**
+     * Record the nets read and driven by a newly added Component
+     */
+    private int place(int component, int[] ins, int[] outs) throws IOException {
+        for (int port = 0; port < ins.length; port++) {
+            if (sinkCount == sinkNets.length) {
+                int newCapacity = sinkCount * 2;
+                sinkNets = Arrays.copyOf(sinkNets, newCapacity);
+                sinkComponents = Arrays.copyOf(sinkComponents, newCapacity);
+                sinkPorts = Arrays.copyOf(sinkPorts, newCapacity);
+            }
+            sinkNets[sinkCount] = ins[port];
+            sinkComponents[sinkCount] = component;
+            sinkPorts[sinkCount++] = port;
+        }
+        for (int port = 0; port < outs.length; port++) {
+            if (driverComponents[outs[port]] != -1) {
+                throw new IOException("Net driven more than once in " + name);
+            }
+            driverComponents[outs[port]] = component;
+            driverPorts[outs[port]] = port;
+        }
+        return component;
+    }
+
+    /**
+     * Drive a net with a constant value
+     * @param out The net to drive
+     * @param on The constant value
+     */
+    void constant(int out, boolean on) throws IOException {
+        int source = gate(GateType.SIGNAL_SOURCE, new int[0], new int[] {out});
+        netlist.setState(source, on);
+    }
+
+    /**
+     * Drive a net with the inverse of another
+     */
+    void not(int in, int out) throws IOException {
+        gate(GateType.NOT, new int[] {in}, new int[] {out});
+    }
+
+    /**
+     * Drive a net with the logical and of any number of nets, using a balanced tree of AND gates
+     */
+    void and(int[] ins, int out) throws IOException {
+        tree(GateType.AND, ins, 0, ins.length, out);
+    }
+
+    /**
+     * Drive a net with the logical or of any number of nets, using a balanced tree of OR gates
+     */
+    void or(int[] ins, int out) throws IOException {
+        tree(GateType.OR, ins, 0, ins.length, out);
+    }
+
+    /**
+     * Drive a net with the exclusive or of any number of nets
+     */
+    void xor(int[] ins, int out) throws IOException {
+        if (ins.length == 0) {
+            constant(out, false);
+            return;
+        }
+        int accumulated = ins[0];
+        for (int i = 1; i < ins.length; i++) {
+            int result = i == ins.length - 1 ? out : newNet();
+            // a ^ b = (a & !b) | (!a & b)
+            int notA = newNet();
+            int notB = newNet();
+            not(accumulated, notA);
+            not(ins[i], notB);
+            int left = newNet();
+            int right = newNet();
+            and(new int[] {accumulated, notB}, left);
+            and(new int[] {notA, ins[i]}, right);
+            or(new int[] {left, right}, result);
+            accumulated = result;
+        }
+        if (ins.length == 1) {
+            alias(out, ins[0]);
+        }
+    }
+
+    /**
+     * Combine a range of nets with a balanced tree of two-input gates
+     */
+    private void tree(GateType type, int[] ins, int from, int to, int out) throws IOException {
+        int count = to - from;
+        if (count == 0) {
+            // The empty and is true, the empty or is false
+            constant(out, type == GateType.AND);
+        } else if (count == 1) {
+            alias(out, ins[from]);
+        } else if (count == 2) {
+            gate(type, new int[] {ins[from], ins[from + 1]}, new int[] {out});
+        } else {
+            int middle = from + count / 2;
+            int left = newNet();
+            int right = newNet();
+            tree(type, ins, from, middle, left);
+            tree(type, ins, middle, to, right);
+            gate(type, new int[] {left, right}, new int[] {out});
+        }
+    }
+
+    /**
+     * Add an instance of another model, to be resolved once that model has been read
+     * @param instance The instance to add
+     */
+    void instance(Instance instance) {
+        instances.add(instance);
+    }
+
+    /**
+     * Turn every net into Connections and build the model's definition. <br>
+     * Every model instantiated by this one must already be finished.
+     * @param finished Every finished model by name
+     * @return The model's definition
+     * @throws IOException If the model is malformed
+     */
+    ImportedModel finish(Map<String, ImportedModel> finished) throws IOException {
+        for (Instance instance : instances) {
+            resolve(instance, finished.get(instance.model()));
+        }
+        instances.clear();
+
+        // Merge the drivers of aliased nets
+        for (int net = 0; net < netCount; net++) {
+            int root = root(net);
+            if (root != net && driverComponents[net] != -1) {
+                if (driverComponents[root] != -1) {
+                    throw new IOException("Net driven more than once in " + name);
+                }
+                driverComponents[root] = driverComponents[net];
+                driverPorts[root] = driverPorts[net];
+            }
+        }
+
+        // Group every reader by net. Readers are sink indices, output pins are stored as -(pin + 1)
+        int[] readerOffsets = new int[netCount + 1];
+        for (int s = 0; s < sinkCount; s++) {
+            readerOffsets[root(sinkNets[s]) + 1]++;
+        }
+        for (int output : outputs) {
+            readerOffsets[root(output) + 1]++;
+        }
+        for (int net = 0; net < netCount; net++) {
+            readerOffsets[net + 1] += readerOffsets[net];
+        }
+        int[] readers = new int[readerOffsets[netCount]];
+        int[] filled = Arrays.copyOf(readerOffsets, netCount);
+        for (int s = 0; s < sinkCount; s++) {
+            readers[filled[root(sinkNets[s])]++] = s;
+        }
+        for (int pin = 0; pin < outputs.size(); pin++) {
+            readers[filled[root(outputs.get(pin))]++] = -(pin + 1);
+        }
+
+        int[] inputPinComponents = new int[inputs.size()];
+        int[] inputPinPorts = new int[inputs.size()];
+        int[] outputPinComponents = new int[outputs.size()];
+        int[] outputPinPorts = new int[outputs.size()];
+        int[] inputPinOfNet = new int[netCount];
+        Arrays.fill(inputPinOfNet, -1);
+        for (int pin = 0; pin < inputs.size(); pin++) {
+            int root = root(inputs.get(pin));
+            if (driverComponents[root] != -1 || inputPinOfNet[root] != -1) {
+                throw new IOException("Input of " + name + " is also driven from inside it");
+            }
+            inputPinOfNet[root] = pin;
+        }
+
+        int[][] pins = {inputPinComponents, inputPinPorts, outputPinComponents, outputPinPorts};
+        for (int net = 0; net < netCount; net++) {
+            if (root(net) != net) {
+                continue;
+            }
+            int from = readerOffsets[net];
+            int to = readerOffsets[net + 1];
+            int inputPin = inputPinOfNet[net];
+
+            if (inputPin != -1) {
+                if (to - from == 1 && readers[from] >= 0) {
+                    // The pin can feed its only reader directly
+                    inputPinComponents[inputPin] = sinkComponents[readers[from]];
+                    inputPinPorts[inputPin] = sinkPorts[readers[from]];
+                } else if (to == from) {
+                    // A pin which nothing reads still needs a Port to land on
+                    inputPinComponents[inputPin] = netlist.addComponent(GateType.LIGHT, nextId(), layoutX(),
+                            layoutY());
+                    inputPinPorts[inputPin] = 0;
+                } else {
+                    int splitter = netlist.addComponent(GateType.SPLITTER, nextId(), layoutX(), layoutY());
+                    inputPinComponents[inputPin] = splitter;
+                    inputPinPorts[inputPin] = 0;
+                    splitFrom(splitter, readers, from, to, pins);
+                }
+            } else if (to > from) {
+                if (driverComponents[net] == -1) {
+                    // Undriven nets read as off
+                    int source = netlist.addComponent(GateType.SIGNAL_SOURCE, nextId(), layoutX(), layoutY());
+                    driverComponents[net] = source;
+                    driverPorts[net] = 0;
+                }
+                distribute(driverComponents[net], driverPorts[net], readers, from, to, pins);
+            }
+        }
+
+        int busierSide = Math.max(Math.max(inputs.size(), outputs.size()), 3);
+        CompoundDefinition definition = new CompoundDefinition(name, COMPOUND_COLOR, COMPOUND_WIDTH,
+                busierSide * COMPOUND_HEIGHT_PER_PIN, netlist,
+                inputPinComponents, inputPinPorts, outputPinComponents, outputPinPorts);
+
+        String[] netNames = new String[netCount];
+        netIds.forEach((netName, id) -> netNames[id] = netName);
+        return new ImportedModel(definition, inputs.stream().map(net -> netNames[net]).toList(),
+                outputs.stream().map(net -> netNames[net]).toList(), ports);
+    }
+
+    /**
+     * Add a Compound Component for an instance of a finished model
+     */
+    private void resolve(Instance instance, ImportedModel model) throws IOException {
+        String modelName = model.definition().getName();
+        int[] ins = new int[model.definition().getNumInputs()];
+        int[] outs = new int[model.definition().getNumOutputs()];
+        Arrays.fill(ins, -1);
+        Arrays.fill(outs, -1);
+
+        List<String> formals = instance.formals() == null ? model.portGroups() : Arrays.asList(instance.formals());
+        if (instance.actuals().length > formals.size()) {
+            throw new IOException("Too many connections to " + modelName + " in " + name);
+        }
+        for (int i = 0; i < instance.actuals().length; i++) {
+            List<String> pins = model.pinsOf(formals.get(i));
+            if (pins.isEmpty()) {
+                throw new IOException(modelName + " has no port named " + formals.get(i));
+            }
+            // Line up the least significant bits when the widths differ
+            int[] nets = instance.actuals()[i];
+            for (int bit = 1; bit <= Math.min(pins.size(), nets.length); bit++) {
+                String pin = pins.get(pins.size() - bit);
+                int net = nets[nets.length - bit];
+                if (model.inputPin(pin) != -1) {
+                    ins[model.inputPin(pin)] = net;
+                } else {
+                    outs[model.outputPin(pin)] = net;
+                }
+            }
+        }
+        // Unconnected inputs read as off, unconnected outputs go nowhere
+        for (int pin = 0; pin < ins.length; pin++) {
+            if (ins[pin] == -1) {
+                ins[pin] = newNet();
+            }
+        }
+        for (int pin = 0; pin < outs.length; pin++) {
+            if (outs[pin] == -1) {
+                outs[pin] = newNet();
+            }
+        }
+        place(netlist.addCompound(model.definition(), nextId(), layoutX(), layoutY()), ins, outs);
+    }
+
+    /**
+     * Connect one output Port to a range of readers, through a tree of Splitters if there is more than one
+     */
+    private void distribute(int component, int port, int[] readers, int from, int to, int[][] pins) {
+        if (to - from == 1) {
+            connect(component, port, readers[from], pins);
+        } else {
+            int splitter = netlist.addComponent(GateType.SPLITTER, nextId(), layoutX(), layoutY());
+            netlist.addConnection(component, port, splitter, 0);
+            splitFrom(splitter, readers, from, to, pins);
+        }
+    }
+
+    /**
+     * Share a range of at least two readers between the two outputs of a Splitter
+     */
+    private void splitFrom(int splitter, int[] readers, int from, int to, int[][] pins) {
+        if (to - from == 1) {
+            connect(splitter, 0, readers[from], pins);
+            return;
+        }
+        int middle = from + (to - from) / 2;
+        distribute(splitter, 0, readers, from, middle, pins);
+        distribute(splitter, 1, readers, middle, to, pins);
+    }
+
+    /**
+     * Connect an output Port to a single reader
+     */
+    private void connect(int component, int port, int reader, int[][] pins) {
+        if (reader >= 0) {
+            netlist.addConnection(component, port, sinkComponents[reader], sinkPorts[reader]);
+        } else {
+            pins[2][-reader - 1] = component;
+            pins[3][-reader - 1] = port;
+        }
+    }
+
+    private int nextId() {
+        return netlist.size();
+    }
+
+    private double layoutX() {
+        return (netlist.size() % LAYOUT_COLUMNS) * LAYOUT_CELL_WIDTH + LAYOUT_CELL_WIDTH / 2;
+    }
+
+    private double layoutY() {
+        return (netlist.size() / LAYOUT_COLUMNS) * LAYOUT_CELL_HEIGHT + LAYOUT_CELL_HEIGHT / 2;
+    }
+
+    /**
+     * A finished model and the names of its ports
+     */
+    static final class ImportedModel {
+        /** The model's definition */
+        private final CompoundDefinition definition;
+        /** Pin number of each input port, by name */
+        private final Map<String, Integer> inputPins;
+        /** Pin number of each output port, by name */
+        private final Map<String, Integer> outputPins;
+        /** Names of the bits making up each port, grouped by the port's name without a bit index, in header order */
+        private final Map<String, List<String>> portBits;
+
+        /**
+         * Describe a finished model
+         * @param definition The model's definition
+         * @param inputs The name of each input pin, in pin order
+         * @param outputs The name of each output pin, in pin order
+         * @param ports The name of every pin, in the order they are listed in the model's header
+         */
+        ImportedModel(CompoundDefinition definition, List<String> inputs, List<String> outputs, List<String> ports) {
+            this.definition = definition;
+            this.inputPins = new HashMap<>();
+            this.outputPins = new HashMap<>();
+            this.portBits = new LinkedHashMap<>();
+            for (int pin = 0; pin < inputs.size(); pin++) {
+                inputPins.put(inputs.get(pin), pin);
+            }
+            for (int pin = 0; pin < outputs.size(); pin++) {
+                outputPins.put(outputs.get(pin), pin);
+            }
+            for (String port : ports) {
+                int bracket = port.lastIndexOf('[');
+                String group = port.endsWith("]") && bracket > 0 ? port.substring(0, bracket) : port;
+                portBits.computeIfAbsent(group, key -> new ArrayList<>()).add(port);
+            }
+        }
+
+        CompoundDefinition definition() {
+            return definition;
+        }
+
+        /**
+         * Get the pin number of an input port
+         * @return The pin number, or -1 if there is no input port with that name
+         */
+        int inputPin(String port) {
+            return inputPins.getOrDefault(port, -1);
+        }
+
+        /**
+         * Get the pin number of an output port
+         * @return The pin number, or -1 if there is no output port with that name
+         */
+        int outputPin(String port) {
+            return outputPins.getOrDefault(port, -1);
+        }
+
+        /**
+         * Get the names of every port, with the bits of each vector port grouped under one name
+         * @return The port names, in header order
+         */
+        List<String> portGroups() {
+            return new ArrayList<>(portBits.keySet());
+        }
+
+        /**
+         * Get the pins a port name refers to
+         * @param port The name of a single pin, or of a vector port
+         * @return The names of the pins, most significant bit first, or an empty list if there is no such port
+         */
+        List<String> pinsOf(String port) {
+            if (inputPins.containsKey(port) || outputPins.containsKey(port)) {
+                return List.of(port);
+            }
+            return portBits.getOrDefault(port, List.of());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package base.persistence;
+
+import base.netlist.CompoundDefinition;
+import base.persistence.NetlistAssembler.ImportedModel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads gate-level netlists written by other tools into CompoundDefinitions. <br>
+ * Files are read one line or token at a time and gates go straight into the Netlist of the model they belong to,
+ * so no syntax tree of the whole file is ever held in memory. Every model in a file becomes its own
+ * CompoundDefinition, and instances of one model inside another become Compound Components.
+ * <br><br>
+ * Gates the simulator has no Component for are rebuilt from the ones it does: wide AND and OR gates become
+ * balanced trees of two-input gates, NAND, NOR, XOR and XNOR are built from AND, OR and NOT, and nets read by more
+ * than one input become trees of Splitters.
+ */
+public abstract class NetlistImporter {
+    /** Every model which has been finished, by name */
+    private final Map<String, ImportedModel> finished;
+    /** Models which have been read but instantiate a model which has not been finished yet */
+    private final List<NetlistAssembler> waiting;
+    /** Names of every model instantiated by another model */
+    private final Set<String> instantiated;
+    /** Names of every model read, in the order they were read */
+    private final List<String> modelOrder;
+
+    NetlistImporter() {
+        this.finished = new HashMap<>();
+        this.waiting = new ArrayList<>();
+        this.instantiated = new HashSet<>();
+        this.modelOrder = new ArrayList<>();
+    }
+
+    /**
+     * Import a netlist file, choosing the format from its file name
+     * @param path The file to import. Files ending in .blif are read as BLIF, files ending in .v as Verilog
+     * @return The definition of the top-level model in the file
+     * @throws IOException If the file cannot be read, is malformed, or is in an unknown format
+     */
+    public static CompoundDefinition importFile(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        NetlistImporter importer;
+        if (fileName.endsWith(".blif")) {
+            importer = new BlifImporter();
+        } else if (fileName.endsWith(".v")) {
+            importer = new VerilogImporter();
+        } else {
+            throw new IOException("Unknown netlist format: " + fileName);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            return importer.read(reader);
+        }
+    }
+
+    /**
+     * Read every model from a netlist
+     * @param reader The netlist text
+     * @return The definition of the top-level model
+     * @throws IOException If the text cannot be read or is malformed
+     */
+    public CompoundDefinition read(Reader reader) throws IOException {
+        parse(reader);
+        if (!waiting.isEmpty()) {
+            Set<String> missing = new HashSet<>();
+            for (NetlistAssembler model : waiting) {
+                missing.addAll(model.getDependencies());
+            }
+            missing.removeAll(finished.keySet());
+            throw new IOException("Models used but never defined (or used recursively): " + missing);
+        }
+        if (modelOrder.isEmpty()) {
+            throw new IOException("No models found");
+        }
+        return finished.get(topModel(modelOrder, instantiated)).definition();
+    }
+
+    /**
+     * Read every model from a netlist, handing each to {@link #endModel(NetlistAssembler)} once it is complete
+     * @param reader The netlist text
+     * @throws IOException If the text cannot be read or is malformed
+     */
+    abstract void parse(Reader reader) throws IOException;
+
+    /**
+     * Choose which model in a file is the top-level model
+     * @param modelOrder Names of every model, in the order they were read
+     * @param instantiated Names of every model instantiated by another model
+     * @return The name of the top-level model
+     */
+    abstract String topModel(List<String> modelOrder, Set<String> instantiated);
+
+    /**
+     * Hand over a model which has been completely read. It is finished as soon as every model it instantiates is
+     * @param model The model which has been read
+     * @throws IOException If the model has the same name as another, or is malformed
+     */
+    void endModel(NetlistAssembler model) throws IOException {
+        if (modelOrder.contains(model.getName())) {
+            throw new IOException("Model " + model.getName() + " defined more than once");
+        }
+        modelOrder.add(model.getName());
+        instantiated.addAll(model.getDependencies());
+        waiting.add(model);
+
+        // Finishing one model may be all another was waiting for
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            Iterator<NetlistAssembler> toFinish = waiting.iterator();
+            while (toFinish.hasNext()) {
+                NetlistAssembler next = toFinish.next();
+                if (finished.keySet().containsAll(next.getDependencies())) {
+                    finished.put(next.getName(), next.finish(finished));
+                    toFinish.remove();
+                    progress = true;
+                }
+            }
+        }
+    }
+}
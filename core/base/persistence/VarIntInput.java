@@ -0,0 +1,117 @@
+package base.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads values written by a VarIntOutput back out of a ByteBuffer. <br>
+ * The buffer is usually a memory-mapped file, so nothing is copied until a value is actually decoded.
+ * @see VarIntOutput
+ */
+public class VarIntInput {
+    /** The buffer values are read from */
+    private final ByteBuffer buffer;
+
+    /**
+     * Create a new VarIntInput reading from the current position of a buffer
+     * @param buffer The buffer to read from
+     */
+    public VarIntInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Read a single raw byte
+     * @return The byte, from 0 to 255
+     * @throws IOException If the buffer has no bytes left
+     */
+    public int readByte() throws IOException {
+        requireRemaining(1);
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Read a raw big-endian 32-bit integer
+     * @return The integer read
+     * @throws IOException If the buffer has fewer than 4 bytes left
+     */
+    public int readFixedInt() throws IOException {
+        requireRemaining(4);
+        return buffer.getInt();
+    }
+
+    /**
+     * Read an unsigned variable-length integer
+     * @return The integer read
+     * @throws IOException If the buffer ends in the middle of the integer, or the integer is too long
+     */
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer at byte " + buffer.position());
+    }
+
+    /**
+     * Read a zig-zag encoded signed variable-length integer
+     * @return The integer read
+     * @throws IOException If the buffer ends in the middle of the integer, or the integer is too long
+     */
+    public int readSignedVarInt() throws IOException {
+        int raw = readVarInt();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * Read a number of raw bytes
+     * @param count The number of bytes to read
+     * @return A new array holding the bytes
+     * @throws IOException If the buffer has fewer bytes left than requested
+     */
+    public byte[] readBytes(int count) throws IOException {
+        requireRemaining(count);
+        byte[] bytes = new byte[count];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Read a String written as its UTF-8 length followed by its UTF-8 bytes
+     * @return The String read
+     * @throws IOException If the buffer ends in the middle of the String
+     */
+    public String readString() throws IOException {
+        return new String(readBytes(readVarInt()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get whether there are any bytes left to read
+     * @return Whether any bytes are left
+     */
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    /**
+     * Get the position of the next byte to be read
+     * @return The position in the underlying buffer
+     */
+    public int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Throw if fewer than some number of bytes remain
+     */
+    private void requireRemaining(int count) throws IOException {
+        if (buffer.remaining() < count) {
+            throw new IOException("Unexpected end of data at byte " + buffer.position());
+        }
+    }
+}
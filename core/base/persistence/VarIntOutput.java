@@ -0,0 +1,138 @@
+package base.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer which writes integers as variable-length quantities. <br>
+ * Each byte holds 7 bits of the value, least significant first, with the high bit set on every byte except
+ * the last. Small values therefore take a single byte.
+ * @see VarIntInput
+ */
+public class VarIntOutput {
+    /** The bytes written so far */
+    private byte[] bytes;
+    /** The number of bytes written so far */
+    private int length;
+
+    /**
+     * Create a new, empty VarIntOutput
+     * @param initialCapacity The number of bytes to allocate room for
+     */
+    public VarIntOutput(int initialCapacity) {
+        this.bytes = new byte[Math.max(initialCapacity, 16)];
+        this.length = 0;
+    }
+
+    /**
+     * Make sure there is room for some number of additional bytes
+     */
+    private void ensureRoom(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+
+    /**
+     * Write a single raw byte
+     * @param b The byte to write. Only the low 8 bits are used
+     */
+    public void writeByte(int b) {
+        ensureRoom(1);
+        bytes[length++] = (byte) b;
+    }
+
+    /**
+     * Write a raw big-endian 32-bit integer
+     * @param value The integer to write
+     */
+    public void writeFixedInt(int value) {
+        ensureRoom(4);
+        bytes[length++] = (byte) (value >>> 24);
+        bytes[length++] = (byte) (value >>> 16);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Write an unsigned integer as a variable-length quantity
+     * @param value The integer to write, treated as unsigned
+     */
+    public void writeVarInt(int value) {
+        ensureRoom(5);
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Write a signed integer as a variable-length quantity. <br>
+     * Zig-zag encoding is used so that values close to zero take few bytes whichever their sign
+     * @param value The integer to write
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Write a String as its UTF-8 length followed by its UTF-8 bytes
+     * @param string The String to write
+     */
+    public void writeString(String string) {
+        byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(utf8.length);
+        writeBytes(utf8, 0, utf8.length);
+    }
+
+    /**
+     * Write a section of a raw byte array
+     * @param source The array to copy from
+     * @param offset The index of the first byte to copy
+     * @param count The number of bytes to copy
+     */
+    public void writeBytes(byte[] source, int offset, int count) {
+        ensureRoom(count);
+        System.arraycopy(source, offset, bytes, length, count);
+        length += count;
+    }
+
+    /**
+     * Get the number of bytes written so far
+     * @return The number of bytes written
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Get the array backing this VarIntOutput. Only the first {@link #length()} bytes are meaningful
+     * @return The backing array, not a copy
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Forget everything written so far, keeping the allocated space for reuse
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * Write everything written so far to a channel
+     * @param channel The channel to write to
+     * @throws IOException If the channel cannot be written to
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
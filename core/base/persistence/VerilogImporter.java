@@ -0,0 +1,719 @@
+package base.persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads structural, gate-level Verilog such as the netlists written by Yosys and most synthesis tools. <br>
+ * Supported are modules with scalar or vector ports and wires, the built-in gate primitives (and, or, not, nand,
+ * nor, xor, xnor, buf), continuous assignments of bitwise expressions, and instances of other modules with named
+ * or positional connections. Behavioural code (always, initial, reg) has no Component to become and is rejected.
+ * <br><br>
+ * Every module becomes a CompoundDefinition. The top-level module is the last one in the file which no other
+ * module instantiates.
+ */
+public class VerilogImporter extends NetlistImporter {
+    /** Gate primitives built into Verilog */
+    private final static Set<String> PRIMITIVES = Set.of("and", "or", "not", "nand", "nor", "xor", "xnor", "buf");
+    /** Statements which change nothing about the circuit */
+    private final static Set<String> IGNORED = Set.of("parameter", "localparam", "defparam", "specify");
+
+    /** Source of characters */
+    private BufferedReader in;
+    /** A character read ahead, or -2 if none has been */
+    private int peeked;
+    /** The token read ahead, or null if none has been */
+    private String lookahead;
+    /** Line number of the line being read, for error messages */
+    private int lineNumber;
+
+    /** The module currently being read */
+    private NetlistAssembler model;
+    /** Most and least significant bit of every vector declared in the current module */
+    private Map<String, int[]> vectors;
+    /** Port names in the current module's header, in order */
+    private List<String> headerPorts;
+    /** Direction of every port declared in the current module, "input" or "output" */
+    private Map<String, String> directions;
+    /** Nets driven constantly off and on in the current module, or -1 until needed */
+    private int[] constants;
+
+    public VerilogImporter() {
+        this.peeked = -2;
+        this.lineNumber = 1;
+    }
+
+    @Override
+    void parse(Reader reader) throws IOException {
+        in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        try {
+            String token;
+            while ((token = next()) != null) {
+                if (token.equals("module") || token.equals("macromodule")) {
+                    module();
+                } else {
+                    throw new IOException("Expected module, found " + token);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new IOException("Line " + lineNumber + ": " + ioe.getMessage(), ioe);
+        }
+    }
+
+    @Override
+    String topModel(List<String> modelOrder, Set<String> instantiated) {
+        for (int i = modelOrder.size() - 1; i >= 0; i--) {
+            if (!instantiated.contains(modelOrder.get(i))) {
+                return modelOrder.get(i);
+            }
+        }
+        return modelOrder.get(modelOrder.size() - 1);
+    }
+
+    /**
+     * Read a module, from just after the module keyword to just after endmodule
+     */
+    private void module() throws IOException {
+        model = new NetlistAssembler(identifier());
+        vectors = new HashMap<>();
+        headerPorts = new ArrayList<>();
+        directions = new HashMap<>();
+        constants = new int[] {-1, -1};
+
+        if (accept("#")) {
+            // Parameter declarations
+            expect("(");
+            skipParenthesized();
+        }
+        if (accept("(")) {
+            if (!accept(")")) {
+                String direction = null;
+                int[] range = null;
+                do {
+                    String token = peek();
+                    if (token.equals("input") || token.equals("output") || token.equals("inout")) {
+                        // ANSI style header, declaring each port as it is listed
+                        direction = next();
+                        range = null;
+                        accept("wire");
+                    }
+                    if (peek().equals("[")) {
+                        range = range();
+                    }
+                    String port = identifier();
+                    headerPorts.add(port);
+                    if (direction != null) {
+                        declare(direction, port, range);
+                    }
+                } while (accept(","));
+                expect(")");
+            }
+        }
+        expect(";");
+
+        String token;
+        while (!(token = required()).equals("endmodule")) {
+            switch (token) {
+                case "input", "output", "inout", "wire" -> declaration(token);
+                case "supply0", "supply1" -> {
+                    do {
+                        model.alias(model.net(identifier()), constant(token.equals("supply1")));
+                    } while (accept(","));
+                    expect(";");
+                }
+                case "assign" -> {
+                    do {
+                        assign();
+                    } while (accept(","));
+                    expect(";");
+                }
+                case "reg", "always", "initial", "function", "task" ->
+                        throw new IOException(token + " is behavioural, only gate-level Verilog can be imported");
+                default -> {
+                    if (IGNORED.contains(token)) {
+                        skipPast(token.equals("specify") ? "endspecify" : ";");
+                    } else if (PRIMITIVES.contains(token)) {
+                        primitive(token);
+                    } else {
+                        instance(token);
+                    }
+                }
+            }
+        }
+
+        for (String port : headerPorts) {
+            String direction = directions.get(port);
+            if (direction == null) {
+                throw new IOException("Port " + port + " of " + model.getName() + " has no direction");
+            }
+            for (String bit : bitNames(port)) {
+                if (direction.equals("input")) {
+                    model.addInput(bit);
+                } else {
+                    model.addOutput(bit);
+                }
+            }
+        }
+        endModel(model);
+        model = null;
+    }
+
+    /**
+     * Read an input, output, inout or wire declaration
+     */
+    private void declaration(String kind) throws IOException {
+        accept("wire");
+        accept("signed");
+        int[] range = peek().equals("[") ? range() : null;
+        do {
+            String name = identifier();
+            if (kind.equals("wire")) {
+                if (range != null) {
+                    vectors.put(name, range);
+                }
+                if (accept("=")) {
+                    // A wire declared along with its value
+                    assignTo(name);
+                }
+            } else {
+                declare(kind, name, range);
+            }
+        } while (accept(","));
+        expect(";");
+    }
+
+    /**
+     * Record the direction and width of a port
+     */
+    private void declare(String direction, String port, int[] range) throws IOException {
+        if (direction.equals("inout")) {
+            throw new IOException("Bidirectional port " + port + " cannot be imported");
+        }
+        directions.put(port, direction);
+        if (range != null) {
+            vectors.put(port, range);
+        }
+    }
+
+    /**
+     * Read one lhs = expression part of an assign statement
+     */
+    private void assign() throws IOException {
+        int[] targets = signal();
+        expect("=");
+        drive(targets, expression());
+    }
+
+    /**
+     * Read the expression assigned to a wire in its declaration
+     */
+    private void assignTo(String name) throws IOException {
+        drive(bits(name), expression());
+    }
+
+    /**
+     * Connect the result of an expression to its destination nets, lining up their least significant bits
+     */
+    private void drive(int[] targets, int[] values) throws IOException {
+        for (int bit = 1; bit <= targets.length; bit++) {
+            int value = bit <= values.length ? values[values.length - bit] : constant(false);
+            model.alias(targets[targets.length - bit], value);
+        }
+    }
+
+    /**
+     * Read a bitwise expression made of |, ^, &amp;, ~, parentheses and signals
+     * @return The nets holding the expression's value, most significant bit first
+     */
+    private int[] expression() throws IOException {
+        int[] left = xorExpression();
+        while (accept("|")) {
+            left = bitwise(left, xorExpression(), 'o');
+        }
+        return left;
+    }
+
+    private int[] xorExpression() throws IOException {
+        int[] left = andExpression();
+        while (true) {
+            if (accept("^")) {
+                left = bitwise(left, andExpression(), 'x');
+            } else if (accept("~^") || accept("^~")) {
+                left = invert(bitwise(left, andExpression(), 'x'));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private int[] andExpression() throws IOException {
+        int[] left = unaryExpression();
+        while (accept("&")) {
+            left = bitwise(left, unaryExpression(), 'a');
+        }
+        return left;
+    }
+
+    private int[] unaryExpression() throws IOException {
+        if (accept("~")) {
+            return invert(unaryExpression());
+        }
+        if (accept("(")) {
+            int[] inner = expression();
+            expect(")");
+            return inner;
+        }
+        return signal();
+    }
+
+    /**
+     * Combine two vectors bit by bit, lining up their least significant bits
+     * @param operation 'a' for and, 'o' for or, 'x' for exclusive or
+     */
+    private int[] bitwise(int[] left, int[] right, char operation) throws IOException {
+        int width = Math.max(left.length, right.length);
+        int[] result = new int[width];
+        for (int bit = 1; bit <= width; bit++) {
+            int a = bit <= left.length ? left[left.length - bit] : constant(false);
+            int b = bit <= right.length ? right[right.length - bit] : constant(false);
+            int out = model.newNet();
+            switch (operation) {
+                case 'a' -> model.and(new int[] {a, b}, out);
+                case 'o' -> model.or(new int[] {a, b}, out);
+                default -> model.xor(new int[] {a, b}, out);
+            }
+            result[width - bit] = out;
+        }
+        return result;
+    }
+
+    private int[] invert(int[] nets) throws IOException {
+        int[] result = new int[nets.length];
+        for (int bit = 0; bit < nets.length; bit++) {
+            result[bit] = model.newNet();
+            model.not(nets[bit], result[bit]);
+        }
+        return result;
+    }
+
+    /**
+     * Read one or more gate primitive instances, such as "nand g1 (y, a, b), g2 (z, c, d);"
+     */
+    private void primitive(String gate) throws IOException {
+        if (accept("#")) {
+            skipDelay();
+        }
+        do {
+            if (!peek().equals("(")) {
+                identifier();
+                if (peek().equals("[")) {
+                    throw new IOException("Arrays of instances are not supported");
+                }
+            }
+            expect("(");
+            List<Integer> terminals = new ArrayList<>();
+            do {
+                int[] nets = expression();
+                if (nets.length != 1) {
+                    throw new IOException("Terminals of " + gate + " must be single bits");
+                }
+                terminals.add(nets[0]);
+            } while (accept(","));
+            expect(")");
+            gate(gate, terminals);
+        } while (accept(","));
+        expect(";");
+    }
+
+    /**
+     * Build a gate primitive. Outputs come first in the terminal list
+     */
+    private void gate(String gate, List<Integer> terminals) throws IOException {
+        if (terminals.size() < 2) {
+            throw new IOException(gate + " needs an output and an input");
+        }
+        if (gate.equals("not") || gate.equals("buf")) {
+            // One input, any number of outputs
+            int input = terminals.get(terminals.size() - 1);
+            for (int i = 0; i < terminals.size() - 1; i++) {
+                if (gate.equals("not")) {
+                    model.not(input, terminals.get(i));
+                } else {
+                    model.alias(terminals.get(i), input);
+                }
+            }
+            return;
+        }
+
+        int out = terminals.get(0);
+        int[] ins = terminals.subList(1, terminals.size()).stream().mapToInt(Integer::intValue).toArray();
+        boolean inverted = gate.equals("nand") || gate.equals("nor") || gate.equals("xnor");
+        int result = inverted ? model.newNet() : out;
+        switch (gate) {
+            case "and", "nand" -> model.and(ins, result);
+            case "or", "nor" -> model.or(ins, result);
+            default -> model.xor(ins, result);
+        }
+        if (inverted) {
+            model.not(result, out);
+        }
+    }
+
+    /**
+     * Read one or more instances of a module, such as "adder a1 (.a(x), .b(y), .s(z));"
+     */
+    private void instance(String moduleName) throws IOException {
+        if (accept("#")) {
+            // Parameter values
+            expect("(");
+            skipParenthesized();
+        }
+        do {
+            identifier();
+            if (peek().equals("[")) {
+                throw new IOException("Arrays of instances are not supported");
+            }
+            expect("(");
+            List<String> formals = new ArrayList<>();
+            List<int[]> actuals = new ArrayList<>();
+            boolean named = peek().equals(".");
+            if (!peek().equals(")")) {
+                do {
+                    if (named) {
+                        expect(".");
+                        formals.add(identifier());
+                        expect("(");
+                        actuals.add(peek().equals(")") ? new int[0] : expression());
+                        expect(")");
+                    } else {
+                        actuals.add(peek().equals(",") || peek().equals(")") ? new int[0] : expression());
+                    }
+                } while (accept(","));
+            }
+            expect(")");
+            model.instance(new NetlistAssembler.Instance(moduleName, named ? formals.toArray(new String[0]) : null,
+                    actuals.toArray(new int[0][])));
+        } while (accept(","));
+        expect(";");
+    }
+
+    /**
+     * Read a signal: a net, a bit or part of a vector, a sized constant, or a {concatenation}
+     * @return The nets making up the signal, most significant bit first
+     */
+    private int[] signal() throws IOException {
+        if (accept("{")) {
+            List<int[]> parts = new ArrayList<>();
+            do {
+                parts.add(expression());
+            } while (accept(","));
+            expect("}");
+            return parts.stream().flatMapToInt(Arrays::stream).toArray();
+        }
+
+        String token = required();
+        if (Character.isDigit(token.charAt(0)) || token.charAt(0) == '\'') {
+            return literal(token);
+        }
+        if (!isIdentifier(token)) {
+            throw new IOException("Expected a signal, found " + token);
+        }
+        if (!accept("[")) {
+            return bits(token);
+        }
+        int msb = number();
+        int lsb = accept(":") ? number() : msb;
+        expect("]");
+        int[] nets = new int[Math.abs(msb - lsb) + 1];
+        int step = msb >= lsb ? -1 : 1;
+        for (int i = 0, bit = msb; i < nets.length; i++, bit += step) {
+            nets[i] = model.net(token + "[" + bit + "]");
+        }
+        return nets;
+    }
+
+    /**
+     * Get the nets making up a whole named signal
+     * @return The nets, most significant bit first
+     */
+    private int[] bits(String name) {
+        List<String> names = bitNames(name);
+        int[] nets = new int[names.size()];
+        for (int i = 0; i < nets.length; i++) {
+            nets[i] = model.net(names.get(i));
+        }
+        return nets;
+    }
+
+    /**
+     * Get the net names making up a whole named signal
+     * @return The net names, most significant bit first
+     */
+    private List<String> bitNames(String name) {
+        int[] range = vectors.get(name);
+        if (range == null) {
+            return List.of(name);
+        }
+        List<String> names = new ArrayList<>();
+        int step = range[0] >= range[1] ? -1 : 1;
+        for (int bit = range[0]; bit != range[1] + step; bit += step) {
+            names.add(name + "[" + bit + "]");
+        }
+        return names;
+    }
+
+    /**
+     * Turn a number such as 1'b0, 4'hA or 3 into constant nets
+     * @return The nets, most significant bit first
+     */
+    private int[] literal(String token) throws IOException {
+        int quote = token.indexOf('\'');
+        int width;
+        long value;
+        try {
+            // Numbers without a size are 32 bits wide
+            width = quote > 0 ? Integer.parseInt(token.substring(0, quote)) : 32;
+            if (width <= 0 || quote == token.length() - 1) {
+                throw new IOException("Malformed number " + token);
+            }
+            if (quote == -1) {
+                value = Long.parseLong(token);
+            } else {
+                String digits = token.substring(quote + 2).replace("_", "").toLowerCase();
+                int radix = switch (Character.toLowerCase(token.charAt(quote + 1))) {
+                    case 'b' -> 2;
+                    case 'o' -> 8;
+                    case 'd' -> 10;
+                    case 'h' -> 16;
+                    default -> throw new IOException("Malformed number " + token);
+                };
+                if (digits.indexOf('x') != -1 || digits.indexOf('z') != -1) {
+                    // Unknown and floating bits read as off
+                    digits = digits.replace('x', '0').replace('z', '0');
+                }
+                value = Long.parseUnsignedLong(digits, radix);
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IOException("Malformed number " + token);
+        }
+        int[] nets = new int[width];
+        for (int bit = 0; bit < width; bit++) {
+            nets[width - 1 - bit] = constant(bit < 64 && ((value >>> bit) & 1) == 1);
+        }
+        return nets;
+    }
+
+    /**
+     * Get the net driven constantly off or on, creating it the first time it is needed
+     */
+    private int constant(boolean on) throws IOException {
+        int which = on ? 1 : 0;
+        if (constants[which] == -1) {
+            constants[which] = model.newNet();
+            model.constant(constants[which], on);
+        }
+        return constants[which];
+    }
+
+    /**
+     * Read a [msb:lsb] range
+     * @return The most and least significant bit numbers
+     */
+    private int[] range() throws IOException {
+        expect("[");
+        int msb = number();
+        expect(":");
+        int lsb = number();
+        expect("]");
+        return new int[] {msb, lsb};
+    }
+
+    private int number() throws IOException {
+        String token = required();
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException nfe) {
+            throw new IOException("Expected a number, found " + token);
+        }
+    }
+
+    private String identifier() throws IOException {
+        String token = required();
+        if (!isIdentifier(token)) {
+            throw new IOException("Expected a name, found " + token);
+        }
+        return token;
+    }
+
+    private static boolean isIdentifier(String token) {
+        char first = token.charAt(0);
+        if (first == '\\') {
+            return true;
+        }
+        // Outside an escaped name a quote only belongs in a number, so x'b1 is a malformed number
+        return (Character.isLetter(first) || first == '_') && token.indexOf('\'') == -1;
+    }
+
+    /**
+     * Skip a #delay, which is either a single number or parenthesized
+     */
+    private void skipDelay() throws IOException {
+        if (accept("(")) {
+            skipParenthesized();
+        } else {
+            required();
+        }
+    }
+
+    /**
+     * Skip to just after the parenthesis closing one which has just been read
+     */
+    private void skipParenthesized() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            String token = required();
+            if (token.equals("(")) {
+                depth++;
+            } else if (token.equals(")")) {
+                depth--;
+            }
+        }
+    }
+
+    private void skipPast(String end) throws IOException {
+        while (!required().equals(end)) {
+            // Skipping
+        }
+    }
+
+    private void expect(String expected) throws IOException {
+        String token = required();
+        if (!token.equals(expected)) {
+            throw new IOException("Expected " + expected + ", found " + token);
+        }
+    }
+
+    /**
+     * Read the next token if it is the one expected
+     * @return Whether the token was read
+     */
+    private boolean accept(String expected) throws IOException {
+        if (expected.equals(peek())) {
+            lookahead = null;
+            return true;
+        }
+        return false;
+    }
+
+    private String peek() throws IOException {
+        if (lookahead == null) {
+            lookahead = next();
+        }
+        return lookahead == null ? "" : lookahead;
+    }
+
+    private String required() throws IOException {
+        String token = next();
+        if (token == null) {
+            throw new IOException("Unexpected end of file");
+        }
+        return token;
+    }
+
+    /**
+     * Read the next token, skipping whitespace, comments, attributes and compiler directives
+     * @return The token, or null at the end of the file
+     */
+    private String next() throws IOException {
+        if (lookahead != null) {
+            String token = lookahead;
+            lookahead = null;
+            return token;
+        }
+
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return null;
+            } else if (Character.isWhitespace(c)) {
+                continue;
+            } else if (c == '`') {
+                // Compiler directives such as `timescale take up the rest of the line
+                while (c != '\n' && c != -1) {
+                    c = read();
+                }
+                continue;
+            } else if (c == '/' && peekChar() == '/') {
+                while (c != '\n' && c != -1) {
+                    c = read();
+                }
+                continue;
+            } else if (c == '/' && peekChar() == '*') {
+                read();
+                skipComment('*', '/');
+                continue;
+            } else if (c == '(' && peekChar() == '*') {
+                read();
+                skipComment('*', ')');
+                continue;
+            }
+
+            StringBuilder token = new StringBuilder();
+            token.append((char) c);
+            if (c == '\\') {
+                // Escaped names run until whitespace
+                while (peekChar() != -1 && !Character.isWhitespace(peekChar())) {
+                    token.append((char) read());
+                }
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '\'' || c == '$') {
+                while (peekChar() != -1 && (Character.isLetterOrDigit(peekChar()) || peekChar() == '_'
+                        || peekChar() == '$' || peekChar() == '\'')) {
+                    token.append((char) read());
+                }
+            } else if ((c == '~' && peekChar() == '^') || (c == '^' && peekChar() == '~')) {
+                token.append((char) read());
+            }
+            return token.toString();
+        }
+    }
+
+    private void skipComment(int first, int second) throws IOException {
+        int previous = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (previous == first && c == second) {
+                return;
+            }
+            previous = c;
+        }
+        throw new IOException("Unterminated comment");
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (peeked != -2) {
+            c = peeked;
+            peeked = -2;
+        } else {
+            c = in.read();
+        }
+        if (c == '\n') {
+            lineNumber++;
+        }
+        return c;
+    }
+
+    private int peekChar() throws IOException {
+        if (peeked == -2) {
+            peeked = in.read();
+        }
+        return peeked;
+    }
+}
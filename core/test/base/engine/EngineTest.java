@@ -0,0 +1,232 @@
+package base.engine;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineTest {
+    /** Most ticks any of these circuits needs to settle */
+    private final static int MAX_TICKS = 100;
+
+    /**
+     * Get whether the Light at an index of the compiled Netlist is lit
+     */
+    private static boolean lit(Engine engine, int light) {
+        return engine.isOn(engine.getCircuit().getInputNet(light, 0));
+    }
+
+    @Test
+    void splitterDrivesBothOutputs() {
+        Netlist board = new Netlist();
+        int source = board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        int splitter = board.addComponent(GateType.SPLITTER, 2, 100, 0);
+        int not = board.addComponent(GateType.NOT, 3, 200, 0);
+        int direct = board.addComponent(GateType.LIGHT, 4, 300, 0);
+        int inverted = board.addComponent(GateType.LIGHT, 5, 300, 100);
+        board.addConnection(source, 0, splitter, 0);
+        board.addConnection(splitter, 0, direct, 0);
+        board.addConnection(splitter, 1, not, 0);
+        board.addConnection(not, 0, inverted, 0);
+
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        Engine engine = new Engine(circuit);
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isSettled());
+        assertFalse(lit(engine, direct));
+        assertTrue(lit(engine, inverted));
+
+        engine.setSource(circuit.getSource(source), true);
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isSettled());
+        assertTrue(lit(engine, direct));
+        assertFalse(lit(engine, inverted));
+    }
+
+    @Test
+    void signalsPassThroughCompoundPins() {
+        // An AND gate whose second input is inverted, with both of its inputs as pins
+        Netlist interior = new Netlist();
+        int and = interior.addComponent(GateType.AND, 1, 100, 0);
+        int not = interior.addComponent(GateType.NOT, 2, 0, 50);
+        interior.addConnection(not, 0, and, 1);
+        CompoundDefinition andNot = new CompoundDefinition("AND NOT", 0xFF000000, 80, 80, interior,
+                new int[] {and, not}, new int[] {0, 0}, new int[] {and}, new int[] {0});
+
+        Netlist board = new Netlist();
+        int a = board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        int b = board.addComponent(GateType.SIGNAL_SOURCE, 2, 0, 100);
+        int compound = board.addCompound(andNot, 3, 100, 50);
+        int light = board.addComponent(GateType.LIGHT, 4, 200, 50);
+        board.addConnection(a, 0, compound, 0);
+        board.addConnection(b, 0, compound, 1);
+        board.addConnection(compound, 0, light, 0);
+
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        Engine engine = new Engine(circuit);
+        boolean[][] cases = {{false, false, false}, {true, false, true}, {true, true, false}, {false, true, false}};
+        for (boolean[] inputs : cases) {
+            engine.setSource(circuit.getSource(a), inputs[0]);
+            engine.setSource(circuit.getSource(b), inputs[1]);
+            engine.settle(MAX_TICKS);
+            assertTrue(engine.isSettled());
+            assertEquals(inputs[2], lit(engine, light), "a=" + inputs[0] + " b=" + inputs[1]);
+        }
+    }
+
+    @Test
+    void nestedCompoundsShareNetsWithTheirInteriors() {
+        // A Splitter feeding an inverter Compound, so that the outer Compound outputs a signal and its inverse
+        Netlist inverterInterior = new Netlist();
+        inverterInterior.addComponent(GateType.NOT, 1, 0, 0);
+        CompoundDefinition inverter = new CompoundDefinition("Inverter", 0xFF000000, 40, 40, inverterInterior);
+
+        Netlist interior = new Netlist();
+        int splitter = interior.addComponent(GateType.SPLITTER, 1, 0, 0);
+        int inner = interior.addCompound(inverter, 2, 100, 0);
+        interior.addConnection(splitter, 1, inner, 0);
+        CompoundDefinition both = new CompoundDefinition("Both", 0xFF000000, 80, 80, interior);
+        assertEquals(1, both.getNumInputs());
+        assertEquals(2, both.getNumOutputs());
+
+        Netlist board = new Netlist();
+        int source = board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        int first = board.addCompound(both, 2, 100, 0);
+        int second = board.addCompound(both, 3, 100, 100);
+        int direct = board.addComponent(GateType.LIGHT, 4, 200, 0);
+        int inverted = board.addComponent(GateType.LIGHT, 5, 200, 50);
+        int twiceInverted = board.addComponent(GateType.LIGHT, 6, 300, 100);
+        board.addConnection(source, 0, first, 0);
+        board.addConnection(first, 0, direct, 0);
+        board.addConnection(first, 1, second, 0);
+        board.addConnection(second, 1, twiceInverted, 0);
+        board.addConnection(second, 0, inverted, 0);
+
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        assertEquals(2, circuit.getInstanceCount(both));
+        assertEquals(2, circuit.getInstanceCount(inverter));
+        Engine engine = new Engine(circuit);
+
+        for (boolean on : new boolean[] {true, false, true}) {
+            engine.setSource(circuit.getSource(source), on);
+            engine.settle(MAX_TICKS);
+            assertTrue(engine.isSettled());
+            assertEquals(on, lit(engine, direct));
+            assertEquals(!on, lit(engine, inverted));
+            assertEquals(on, lit(engine, twiceInverted));
+
+            // One instance's Splitter reads the source through its pin, the other reads its inverse
+            boolean firstSplitter = engine.isOn(circuit.getInteriorInputNet(both, 0, splitter, 0));
+            boolean secondSplitter = engine.isOn(circuit.getInteriorInputNet(both, 1, splitter, 0));
+            assertNotEquals(firstSplitter, secondSplitter);
+        }
+    }
+
+    @Test
+    void unconnectedInputsReadLow() {
+        Netlist board = new Netlist();
+        int not = board.addComponent(GateType.NOT, 1, 0, 0);
+        int light = board.addComponent(GateType.LIGHT, 2, 100, 0);
+        board.addConnection(not, 0, light, 0);
+
+        Engine engine = new Engine(CompiledCircuit.compile(board));
+        engine.settle(MAX_TICKS);
+        assertEquals(CompiledCircuit.LOW, engine.getCircuit().getInputNet(not, 0));
+        assertTrue(lit(engine, light));
+    }
+
+    @Test
+    void patchedGatesFollowTheirNewInputs() {
+        Netlist board = new Netlist();
+        int a = board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        int b = board.addComponent(GateType.SIGNAL_SOURCE, 2, 0, 100);
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        Engine engine = new Engine(circuit);
+        int aNet = engine.getSourceNet(circuit.getSource(a));
+        int bNet = engine.getSourceNet(circuit.getSource(b));
+
+        int and = engine.addGate(CompiledCircuit.AND);
+        int not = engine.addGate(CompiledCircuit.NOT);
+        engine.rewire(and, 0, aNet);
+        engine.rewire(and, 1, bNet);
+        engine.rewire(not, 0, and);
+        engine.setSource(circuit.getSource(a), true);
+        engine.settle(MAX_TICKS);
+        assertFalse(engine.isOn(and));
+        assertTrue(engine.isOn(not));
+
+        engine.setSource(circuit.getSource(b), true);
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isOn(and));
+        assertFalse(engine.isOn(not));
+
+        // Reading one net on both inputs, then moving one of them away, keeps the gate listening to it
+        engine.rewire(and, 1, aNet);
+        engine.rewire(and, 1, bNet);
+        engine.setSource(circuit.getSource(a), false);
+        engine.settle(MAX_TICKS);
+        assertFalse(engine.isOn(and));
+        assertTrue(engine.isOn(not));
+
+        // A removed gate stays off whatever its old inputs do
+        engine.setSource(circuit.getSource(a), true);
+        engine.settle(MAX_TICKS);
+        engine.removeGate(and);
+        engine.settle(MAX_TICKS);
+        assertFalse(engine.isOn(and));
+        engine.setSource(circuit.getSource(b), false);
+        engine.setSource(circuit.getSource(b), true);
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isSettled());
+        assertFalse(engine.isOn(and));
+        assertTrue(engine.isOn(not));
+
+        engine.removeGate(not);
+        engine.settle(MAX_TICKS);
+        assertFalse(engine.isOn(not));
+    }
+
+    @Test
+    void patchingLeavesTheCompiledCircuitAlone() {
+        Netlist board = new Netlist();
+        int source = board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        int not = board.addComponent(GateType.NOT, 2, 100, 0);
+        int light = board.addComponent(GateType.LIGHT, 3, 200, 0);
+        board.addConnection(source, 0, not, 0);
+        board.addConnection(not, 0, light, 0);
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+
+        Engine patched = new Engine(circuit);
+        patched.removeGate(circuit.getOutputNet(not, 0));
+        patched.settle(MAX_TICKS);
+        assertFalse(lit(patched, light));
+
+        Engine fresh = new Engine(circuit);
+        fresh.settle(MAX_TICKS);
+        assertTrue(lit(fresh, light));
+    }
+
+    @Test
+    void rewireRejectsInputsAGateDoesNotHave() {
+        Netlist board = new Netlist();
+        int source = board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        int not = board.addComponent(GateType.NOT, 2, 100, 0);
+        int and = board.addComponent(GateType.AND, 3, 100, 100);
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        Engine engine = new Engine(circuit);
+        int sourceNet = engine.getSourceNet(circuit.getSource(source));
+        int notNet = circuit.getOutputNet(not, 0);
+        int andNet = circuit.getOutputNet(and, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> engine.rewire(notNet, 1, sourceNet));
+        assertThrows(IllegalArgumentException.class, () -> engine.rewire(andNet, 2, sourceNet));
+        assertThrows(IllegalArgumentException.class, () -> engine.rewire(sourceNet, 0, notNet));
+
+        // The rejected rewire left the NOT gate reading nothing
+        engine.setSource(circuit.getSource(source), true);
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isOn(notNet));
+    }
+}
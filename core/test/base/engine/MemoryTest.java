@@ -0,0 +1,182 @@
+package base.engine;
+
+import base.netlist.GateType;
+import base.netlist.MemoryBlock;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryTest {
+    /** Most ticks any of these circuits needs to settle */
+    private final static int MAX_TICKS = 100;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * A RAM or ROM on a board, with a Signal Source on every input Port and a Light on every output Port
+     */
+    private static class Harness {
+        final MemoryBlock memory;
+        final CompiledCircuit circuit;
+        final Engine engine;
+
+        Harness(MemoryBlock memory) {
+            this.memory = memory;
+            Netlist board = new Netlist();
+            int block = board.addMemory(memory, 1, 0, 0);
+            for (int port = 0; port < memory.getNumInputs(); port++) {
+                int source = board.addComponent(GateType.SIGNAL_SOURCE, board.size() + 1, 0, 0);
+                board.addConnection(source, 0, block, port);
+            }
+            for (int port = 0; port < memory.getNumOutputs(); port++) {
+                int light = board.addComponent(GateType.LIGHT, board.size() + 1, 0, 0);
+                board.addConnection(block, port, light, 0);
+            }
+            this.circuit = CompiledCircuit.compile(board);
+            this.engine = new Engine(circuit);
+        }
+
+        /**
+         * Run the same circuit on another Engine, with its own copy of the memory
+         */
+        Harness(Harness shared) {
+            this.memory = shared.memory;
+            this.circuit = shared.circuit;
+            this.engine = new Engine(circuit);
+            engine.detachMemory();
+        }
+
+        /**
+         * Set the Signal Sources on a range of input Ports to a number, lowest bit on the first Port
+         */
+        void set(int firstPort, int bits, long value) {
+            for (int bit = 0; bit < bits; bit++) {
+                engine.setSource(circuit.getSource(1 + firstPort + bit), (value >>> bit & 1) != 0);
+            }
+        }
+
+        void address(long address) {
+            set(0, memory.getAddressBits(), address);
+        }
+
+        void data(long data) {
+            set(memory.getAddressBits(), memory.getDataBits(), data);
+        }
+
+        void write(boolean on) {
+            set(memory.getAddressBits() + memory.getDataBits(), 1, on ? 1 : 0);
+        }
+
+        /**
+         * Settle and read the Lights as a number, lowest bit on the first output Port
+         */
+        long read() {
+            engine.settle(MAX_TICKS);
+            assertTrue(engine.isSettled());
+            long word = 0;
+            for (int bit = 0; bit < memory.getDataBits(); bit++) {
+                int light = 1 + memory.getNumInputs() + bit;
+                if (engine.isOn(circuit.getInputNet(light, 0))) {
+                    word |= 1L << bit;
+                }
+            }
+            return word;
+        }
+    }
+
+    @Test
+    void ramWritesOnTheRisingEdgeOfItsWriteInput() {
+        Harness ram = new Harness(MemoryBlock.ram(2, 4));
+        assertEquals(0, ram.read());
+
+        ram.address(2);
+        ram.data(0b1010);
+        ram.read();
+        ram.write(true);
+        assertEquals(0b1010, ram.read());
+
+        // Changing the data while the write input stays on writes nothing
+        ram.data(0b0101);
+        assertEquals(0b1010, ram.read());
+        ram.write(false);
+        ram.address(1);
+        ram.read();
+        ram.write(true);
+        assertEquals(0b0101, ram.read());
+        ram.write(false);
+
+        ram.address(2);
+        assertEquals(0b1010, ram.read());
+        ram.address(3);
+        assertEquals(0, ram.read());
+
+        // A RAM on the board shares its contents with the board
+        assertEquals(0b1010, ram.memory.read(2));
+        assertEquals(0b0101, ram.memory.read(1));
+    }
+
+    @Test
+    void detachedEnginesKeepTheirWritesToThemselves() {
+        Harness board = new Harness(MemoryBlock.ram(1, 8));
+        board.memory.write(0, 0x11);
+        Harness detached = new Harness(board);
+        board.memory.write(0, 0x22);
+
+        // The detached Engine copied the contents as they were when it detached
+        assertEquals(0x11, detached.read());
+        assertEquals(0x22, board.read());
+
+        detached.address(1);
+        detached.data(0x33);
+        detached.write(true);
+        assertEquals(0x33, detached.read());
+        assertEquals(0, board.memory.read(1));
+    }
+
+    @Test
+    void romReadsItsImageAndZeroesPastTheEnd() throws IOException {
+        Path image = directory.resolve("image.bin");
+        // Two bytes per word, little-endian, with the top bits beyond the 12 data bits ignored
+        Files.write(image, new byte[] {0x34, 0x12, (byte) 0xFF, (byte) 0xFF, 0x01});
+        Harness rom = new Harness(MemoryBlock.rom(image, 3, 12));
+        assertEquals(GateType.ROM, rom.memory.getType());
+        assertEquals(3, rom.memory.getNumInputs());
+
+        rom.address(0);
+        assertEquals(0x234, rom.read());
+        rom.address(1);
+        assertEquals(0xFFF, rom.read());
+        // Half a word at the end of the image, then nothing
+        rom.address(2);
+        assertEquals(0, rom.read());
+        rom.address(7);
+        assertEquals(0, rom.read());
+
+        assertThrows(UnsupportedOperationException.class, () -> rom.memory.write(0, 1));
+        assertSame(rom.memory, rom.memory.copy());
+    }
+
+    @Test
+    void wordsKeepOnlyTheirDataBits() {
+        for (int dataBits : new int[] {1, 8, 12, 16, 31, 33, 64}) {
+            MemoryBlock ram = MemoryBlock.ram(2, dataBits);
+            long mask = dataBits == 64 ? -1L : (1L << dataBits) - 1;
+            ram.write(3, -1L);
+            assertEquals(mask, ram.read(3), dataBits + " data bits");
+            assertEquals(0, ram.read(2));
+
+            MemoryBlock copy = ram.copy();
+            copy.write(3, 0);
+            assertEquals(mask, ram.read(3));
+        }
+        assertThrows(IllegalArgumentException.class, () -> MemoryBlock.ram(0, 8));
+        assertThrows(IllegalArgumentException.class, () -> MemoryBlock.ram(4, 65));
+    }
+}
@@ -0,0 +1,94 @@
+package base.engine;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertyCheckerTest {
+    /**
+     * Build a Compound Component of eight NOT gates side by side, pin n of each side belonging to gate n
+     */
+    private static CompoundDefinition inverters() {
+        Netlist interior = new Netlist();
+        int[] gates = new int[8];
+        for (int i = 0; i < gates.length; i++) {
+            gates[i] = interior.addComponent(GateType.NOT, i + 1, 0, 50 * i);
+        }
+        return new CompoundDefinition("Inverters", 0xFF000000, 80, 400, interior,
+                gates, new int[gates.length], gates, new int[gates.length]);
+    }
+
+    @Test
+    void checksEveryInputWhenThereAreFewEnough() {
+        PropertyChecker checker = new PropertyChecker(inverters())
+                .addProperty("inverts", (in, out) -> out == (~in & 0xFF))
+                .addProperty("keeps the top pin", (in, out) -> (out >>> 7 & 1) == (in >>> 7 & 1));
+        PropertyChecker.Report report = checker.check(1000, 1);
+        assertTrue(report.exhaustive());
+        assertEquals(256, report.vectors());
+        assertEquals(1, report.counterexamples().size());
+
+        // Every input breaks the second property, and the smallest has no pins on at all
+        PropertyChecker.Counterexample counterexample = report.counterexamples().get(0);
+        assertEquals("keeps the top pin", counterexample.property());
+        assertEquals(0, counterexample.inputs());
+        assertEquals(0xFF, counterexample.outputs());
+    }
+
+    @Test
+    void shrinksRandomFailuresToTheLowestPins() {
+        PropertyChecker checker = new PropertyChecker(inverters())
+                .addProperty("at most two on", (in, out) -> Long.bitCount(~out & 0xFF) <= 2);
+        PropertyChecker.Report report = checker.check(100, 42);
+        assertFalse(report.exhaustive());
+        assertFalse(report.passed());
+
+        PropertyChecker.Counterexample counterexample = report.counterexamples().get(0);
+        assertTrue(Long.bitCount(counterexample.original()) > 2);
+        // Three pins on, moved as low as they go
+        assertEquals(0b111, counterexample.inputs());
+        assertEquals(0xF8, counterexample.outputs());
+    }
+
+    @Test
+    void passesWhenEveryPropertyHolds() {
+        PropertyChecker checker = new PropertyChecker(inverters())
+                .addProperty("inverts", (in, out) -> out == (~in & 0xFF));
+        PropertyChecker.Report report = checker.check(100, 7);
+        assertTrue(report.passed());
+        assertEquals(100, report.vectors());
+    }
+
+    @Test
+    void failsInputsWhoseOutputsNeverSettle() {
+        // The output is NOT (a AND output), which oscillates while a is on
+        Netlist interior = new Netlist();
+        int and = interior.addComponent(GateType.AND, 1, 0, 0);
+        int not = interior.addComponent(GateType.NOT, 2, 100, 0);
+        int splitter = interior.addComponent(GateType.SPLITTER, 3, 200, 0);
+        interior.addConnection(and, 0, not, 0);
+        interior.addConnection(not, 0, splitter, 0);
+        interior.addConnection(splitter, 0, and, 1);
+        CompoundDefinition ringing = new CompoundDefinition("Ringing", 0xFF000000, 80, 80, interior,
+                new int[] {and}, new int[] {0}, new int[] {splitter}, new int[] {1});
+
+        PropertyChecker checker = new PropertyChecker(ringing);
+        checker.setMaxTicks(50);
+        PropertyChecker.Report report = checker.check(10, 3);
+        assertTrue(report.exhaustive());
+        assertEquals(1, report.counterexamples().size());
+        assertEquals(PropertyChecker.SETTLES, report.counterexamples().get(0).property());
+        assertEquals(1, report.counterexamples().get(0).inputs());
+    }
+
+    @Test
+    void rejectsComponentsWithState() {
+        Netlist interior = new Netlist();
+        interior.addRegister(4, 1, 0, 0);
+        CompoundDefinition register = new CompoundDefinition("Register", 0xFF000000, 80, 80, interior);
+        assertThrows(IllegalArgumentException.class, () -> new PropertyChecker(register));
+    }
+}
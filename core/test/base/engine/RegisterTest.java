@@ -0,0 +1,150 @@
+package base.engine;
+
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegisterTest {
+    /** Most ticks any of these circuits needs to settle */
+    private final static int MAX_TICKS = 100;
+
+    /**
+     * Get whether the Light at an index of the compiled Netlist is lit
+     */
+    private static boolean lit(Engine engine, int light) {
+        return engine.isOn(engine.getCircuit().getInputNet(light, 0));
+    }
+
+    /**
+     * Get whether each of several Lights is lit
+     */
+    private static boolean[] lights(Engine engine, int[] lights) {
+        boolean[] on = new boolean[lights.length];
+        for (int i = 0; i < lights.length; i++) {
+            on[i] = lit(engine, lights[i]);
+        }
+        return on;
+    }
+
+    @Test
+    void registerOnlyTakesItsDataWhenTheClockTurnsOn() {
+        Netlist board = new Netlist();
+        int register = board.addRegister(4, 1, 100, 0);
+        int[] data = new int[4];
+        int[] lights = new int[4];
+        for (int bit = 0; bit < 4; bit++) {
+            data[bit] = board.addComponent(GateType.SIGNAL_SOURCE, 2 + bit, 0, 50 * bit);
+            board.addConnection(data[bit], 0, register, bit);
+            lights[bit] = board.addComponent(GateType.LIGHT, 6 + bit, 200, 50 * bit);
+            board.addConnection(register, bit, lights[bit], 0);
+        }
+        int clock = board.addComponent(GateType.SIGNAL_SOURCE, 10, 0, 200);
+        board.addConnection(clock, 0, register, 4);
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        Engine engine = new Engine(circuit);
+
+        engine.setSource(circuit.getSource(data[0]), true);
+        engine.setSource(circuit.getSource(data[2]), true);
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isSettled());
+        assertArrayEquals(new boolean[4], lights(engine, lights));
+
+        engine.setSource(circuit.getSource(clock), true);
+        engine.settle(MAX_TICKS);
+        assertArrayEquals(new boolean[] {true, false, true, false}, lights(engine, lights));
+
+        // Data changes while the clock stays on, or as it turns off, are ignored
+        engine.setSource(circuit.getSource(data[1]), true);
+        engine.settle(MAX_TICKS);
+        engine.setSource(circuit.getSource(clock), false);
+        engine.settle(MAX_TICKS);
+        assertArrayEquals(new boolean[] {true, false, true, false}, lights(engine, lights));
+
+        engine.setSource(circuit.getSource(clock), true);
+        engine.settle(MAX_TICKS);
+        assertArrayEquals(new boolean[] {true, true, true, false}, lights(engine, lights));
+    }
+
+    @Test
+    void chainedFlipFlopsShiftOnePlacePerEdge() {
+        // Three D flip-flops in a row on one clock, added last to first
+        Netlist board = new Netlist();
+        int third = board.addRegister(1, 1, 300, 0);
+        int second = board.addRegister(1, 2, 200, 0);
+        int first = board.addRegister(1, 3, 100, 0);
+        int input = board.addComponent(GateType.SIGNAL_SOURCE, 4, 0, 0);
+        int clock = board.addComponent(GateType.SIGNAL_SOURCE, 5, 0, 100);
+        int clockSplit = board.addComponent(GateType.SPLITTER, 6, 50, 100);
+        int clockSplitAgain = board.addComponent(GateType.SPLITTER, 7, 150, 100);
+        int firstSplit = board.addComponent(GateType.SPLITTER, 8, 150, 0);
+        int secondSplit = board.addComponent(GateType.SPLITTER, 9, 250, 0);
+        int[] lights = {board.addComponent(GateType.LIGHT, 10, 150, -50),
+                board.addComponent(GateType.LIGHT, 11, 250, -50), board.addComponent(GateType.LIGHT, 12, 350, 0)};
+
+        board.addConnection(clock, 0, clockSplit, 0);
+        board.addConnection(clockSplit, 0, first, 1);
+        board.addConnection(clockSplit, 1, clockSplitAgain, 0);
+        board.addConnection(clockSplitAgain, 0, second, 1);
+        board.addConnection(clockSplitAgain, 1, third, 1);
+        board.addConnection(input, 0, first, 0);
+        board.addConnection(first, 0, firstSplit, 0);
+        board.addConnection(firstSplit, 0, second, 0);
+        board.addConnection(firstSplit, 1, lights[0], 0);
+        board.addConnection(second, 0, secondSplit, 0);
+        board.addConnection(secondSplit, 0, third, 0);
+        board.addConnection(secondSplit, 1, lights[1], 0);
+        board.addConnection(third, 0, lights[2], 0);
+
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        Engine engine = new Engine(circuit);
+        boolean[] pattern = {true, false, true, true, false, false};
+        boolean[] expected = new boolean[3];
+        for (boolean bit : pattern) {
+            engine.setSource(circuit.getSource(input), bit);
+            engine.settle(MAX_TICKS);
+            engine.setSource(circuit.getSource(clock), true);
+            engine.settle(MAX_TICKS);
+            engine.setSource(circuit.getSource(clock), false);
+            engine.settle(MAX_TICKS);
+            assertTrue(engine.isSettled());
+
+            expected = new boolean[] {bit, expected[0], expected[1]};
+            assertArrayEquals(expected, lights(engine, lights));
+        }
+    }
+
+    @Test
+    void restoredOutputsAreHeldUntilTheNextEdge() {
+        Netlist board = new Netlist();
+        int flipFlop = board.addRegister(1, 1, 100, 0);
+        int data = board.addComponent(GateType.SIGNAL_SOURCE, 2, 0, 0);
+        int clock = board.addComponent(GateType.SIGNAL_SOURCE, 3, 0, 100);
+        int light = board.addComponent(GateType.LIGHT, 4, 200, 0);
+        board.addConnection(data, 0, flipFlop, 0);
+        board.addConnection(clock, 0, flipFlop, 1);
+        board.addConnection(flipFlop, 0, light, 0);
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        Engine engine = new Engine(circuit);
+
+        engine.restore(circuit.getOutputNet(flipFlop, 0), true);
+        engine.settle(MAX_TICKS);
+        assertTrue(lit(engine, light));
+
+        engine.setSource(circuit.getSource(clock), true);
+        engine.settle(MAX_TICKS);
+        assertFalse(lit(engine, light));
+    }
+
+    @Test
+    void rejectsWidthsOutOfRange() {
+        Netlist board = new Netlist();
+        assertThrows(IllegalArgumentException.class, () -> board.addRegister(0, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> board.addRegister(Netlist.MAX_REGISTER_WIDTH + 1, 1, 0, 0));
+        int register = board.addRegister(Netlist.MAX_REGISTER_WIDTH, 1, 0, 0);
+        assertEquals(Netlist.MAX_REGISTER_WIDTH + 1, board.getNumInputs(register));
+        assertEquals(Netlist.MAX_REGISTER_WIDTH, board.getNumOutputs(register));
+    }
+}
@@ -0,0 +1,108 @@
+package base.engine;
+
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioRunnerTest {
+    /**
+     * Build a board with two Signal Sources a and b, a Light showing a AND b, and a Light showing NOT b
+     */
+    private static Netlist andAndNot() {
+        Netlist board = new Netlist();
+        int a = board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        int b = board.addComponent(GateType.SIGNAL_SOURCE, 2, 0, 100);
+        int splitter = board.addComponent(GateType.SPLITTER, 3, 100, 100);
+        int and = board.addComponent(GateType.AND, 4, 200, 0);
+        int not = board.addComponent(GateType.NOT, 5, 200, 100);
+        int andLight = board.addComponent(GateType.LIGHT, 6, 300, 0);
+        int notLight = board.addComponent(GateType.LIGHT, 7, 300, 100);
+        board.addConnection(a, 0, and, 0);
+        board.addConnection(b, 0, splitter, 0);
+        board.addConnection(splitter, 0, and, 1);
+        board.addConnection(splitter, 1, not, 0);
+        board.addConnection(and, 0, andLight, 0);
+        board.addConnection(not, 0, notLight, 0);
+        return board;
+    }
+
+    /**
+     * Build a stimulus which counts through every state of two Signal Sources, starting at a number
+     */
+    private static ScenarioRunner.Stimulus counting(int start) {
+        boolean[][] steps = new boolean[4][];
+        for (int step = 0; step < steps.length; step++) {
+            int value = (start + step) % 4;
+            steps[step] = new boolean[] {(value & 2) != 0, (value & 1) != 0};
+        }
+        return new ScenarioRunner.Stimulus("from " + start, steps);
+    }
+
+    @Test
+    void runsEveryStimulusOnItsOwnEngine() throws InterruptedException {
+        Netlist board = andAndNot();
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        List<ScenarioRunner.Stimulus> stimuli = new ArrayList<>();
+        for (int run = 0; run < 200; run++) {
+            stimuli.add(counting(run));
+        }
+
+        for (int parallelism : new int[] {1, 8}) {
+            ScenarioRunner runner = new ScenarioRunner(circuit, ScenarioRunner.lightNets(board, circuit));
+            runner.setParallelism(parallelism);
+            ScenarioRunner.Report report = runner.run(stimuli);
+            assertEquals(stimuli.size(), report.results().size());
+            assertEquals(0, report.unsettledRuns());
+            assertEquals(parallelism, report.parallelism());
+
+            long ticks = 0;
+            for (int run = 0; run < stimuli.size(); run++) {
+                ScenarioRunner.Result result = report.results().get(run);
+                // Results come back in the order the stimuli were given, whichever finished first
+                assertEquals(stimuli.get(run).name(), result.name());
+                for (int step = 0; step < 4; step++) {
+                    boolean[] inputs = stimuli.get(run).steps()[step];
+                    assertArrayEquals(new boolean[] {inputs[0] && inputs[1], !inputs[1]}, result.outputs()[step],
+                            result.name() + " step " + step);
+                }
+                ticks += result.ticks();
+            }
+            assertEquals(ticks, report.ticks());
+        }
+    }
+
+    @Test
+    void countsStepsWhichNeverSettle() throws InterruptedException {
+        // A NOT gate reading its own output never settles
+        Netlist board = new Netlist();
+        board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        int not = board.addComponent(GateType.NOT, 2, 100, 0);
+        board.addConnection(not, 0, not, 0);
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+
+        ScenarioRunner runner = new ScenarioRunner(circuit, new int[] {circuit.getOutputNet(not, 0)});
+        runner.setMaxTicks(10);
+        boolean[][] steps = {{false}, {true}, {false}};
+        ScenarioRunner.Report report = runner.run(List.of(new ScenarioRunner.Stimulus("oscillator", steps)));
+        assertEquals(1, report.unsettledRuns());
+        assertEquals(3, report.results().get(0).unsettledSteps());
+        assertEquals(30, report.results().get(0).ticks());
+    }
+
+    @Test
+    void rejectsStimuliForTheWrongNumberOfSources() {
+        Netlist board = andAndNot();
+        CompiledCircuit circuit = CompiledCircuit.compile(board);
+        ScenarioRunner runner = new ScenarioRunner(circuit, ScenarioRunner.lightNets(board, circuit));
+        boolean[][] steps = {{true, false}, {true}};
+        assertThrows(IllegalArgumentException.class,
+                () -> runner.run(List.of(new ScenarioRunner.Stimulus("short", steps))));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ScenarioRunner(circuit, new int[] {circuit.getNetCount()}));
+    }
+}
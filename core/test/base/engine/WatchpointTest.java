@@ -0,0 +1,122 @@
+package base.engine;
+
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchpointTest {
+    /** Most ticks any of these circuits needs to settle */
+    private final static int MAX_TICKS = 100;
+
+    /** Indices of the Components of the chain built by {@link #chain} */
+    private final static int SOURCE = 0, FIRST = 1, SECOND = 2, THIRD = 3, LIGHT = 4;
+
+    /**
+     * Build a Signal Source feeding three NOT gates in a row, ending in a Light
+     */
+    private static CompiledCircuit chain() {
+        Netlist board = new Netlist();
+        board.addComponent(GateType.SIGNAL_SOURCE, 1, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            board.addComponent(GateType.NOT, 2 + i, 100 * (i + 1), 0);
+            board.addConnection(i, 0, i + 1, 0);
+        }
+        board.addComponent(GateType.LIGHT, 5, 400, 0);
+        board.addConnection(THIRD, 0, LIGHT, 0);
+        return CompiledCircuit.compile(board);
+    }
+
+    @Test
+    void stopsOnTheTickTheConditionStartsToHold() {
+        CompiledCircuit circuit = chain();
+        Engine engine = new Engine(circuit);
+        engine.settle(MAX_TICKS);
+        int second = circuit.getOutputNet(SECOND, 0);
+        int light = circuit.getInputNet(LIGHT, 0);
+        assertTrue(engine.isOn(light));
+
+        int watchpoint = engine.addWatchpoint(new int[] {second}, 1);
+        engine.setSource(circuit.getSource(SOURCE), true);
+        assertEquals(2, engine.settle(MAX_TICKS));
+        assertEquals(watchpoint, engine.getTriggeredWatchpoint());
+        assertFalse(engine.isSettled());
+        // The change has not yet reached the Light
+        assertTrue(engine.isOn(light));
+
+        // Nothing runs until the watchpoint is resumed
+        assertEquals(0, engine.settle(MAX_TICKS));
+        engine.resume();
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isSettled());
+        assertEquals(-1, engine.getTriggeredWatchpoint());
+        assertFalse(engine.isOn(light));
+    }
+
+    @Test
+    void readsSeveralNetsAsANumber() {
+        CompiledCircuit circuit = chain();
+        Engine engine = new Engine(circuit);
+        engine.settle(MAX_TICKS);
+        int[] nets = {circuit.getOutputNet(FIRST, 0), circuit.getOutputNet(SECOND, 0),
+                circuit.getOutputNet(THIRD, 0)};
+
+        // The chain never shows all three on
+        engine.addWatchpoint(nets, 0b111);
+        // With the source on it goes 0b101, 0b100, 0b110 and settles at 0b010, the first gate being the lowest bit
+        int settledOn = engine.addWatchpoint(nets, 0b010);
+        engine.setSource(circuit.getSource(SOURCE), true);
+        assertEquals(3, engine.settle(MAX_TICKS));
+        assertEquals(settledOn, engine.getTriggeredWatchpoint());
+        assertTrue(engine.isSettled());
+    }
+
+    @Test
+    void onlyTriggersWhenTheConditionStartsToHold() {
+        CompiledCircuit circuit = chain();
+        Engine engine = new Engine(circuit);
+        engine.settle(MAX_TICKS);
+        int first = circuit.getOutputNet(FIRST, 0);
+
+        // Already holds when added, so it waits for the first gate to turn off and back on
+        int watchpoint = engine.addWatchpoint(new int[] {first}, 1);
+        engine.setSource(circuit.getSource(SOURCE), true);
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isSettled());
+        assertEquals(-1, engine.getTriggeredWatchpoint());
+
+        engine.setSource(circuit.getSource(SOURCE), false);
+        engine.settle(MAX_TICKS);
+        assertEquals(watchpoint, engine.getTriggeredWatchpoint());
+
+        // Removing the triggered watchpoint lets the simulation run on
+        engine.removeWatchpoint(watchpoint);
+        assertEquals(-1, engine.getTriggeredWatchpoint());
+        engine.setSource(circuit.getSource(SOURCE), true);
+        engine.setSource(circuit.getSource(SOURCE), false);
+        engine.settle(MAX_TICKS);
+        assertTrue(engine.isSettled());
+    }
+
+    @Test
+    void watchesSignalSourcesAsTheyAreSet() {
+        CompiledCircuit circuit = chain();
+        Engine engine = new Engine(circuit);
+        int source = engine.getSourceNet(circuit.getSource(SOURCE));
+        int watchpoint = engine.addWatchpoint(new int[] {source}, 1);
+
+        engine.setSource(circuit.getSource(SOURCE), true);
+        assertEquals(watchpoint, engine.getTriggeredWatchpoint());
+        assertEquals(0, engine.settle(MAX_TICKS));
+    }
+
+    @Test
+    void rejectsWatchpointsOnNetsWhichDoNotExist() {
+        Engine engine = new Engine(chain());
+        assertThrows(IllegalArgumentException.class, () -> engine.addWatchpoint(new int[0], 0));
+        assertThrows(IllegalArgumentException.class, () -> engine.addWatchpoint(new int[65], 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.addWatchpoint(new int[] {engine.getNetCount()}, 0));
+    }
+}
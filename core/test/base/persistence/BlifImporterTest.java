@@ -0,0 +1,113 @@
+package base.persistence;
+
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlifImporterTest {
+    @Test
+    void buildsOnSetAndOffSetCovers() throws IOException {
+        ImportedCircuit covers = ImportedCircuit.read(new BlifImporter(), """
+                # y is on when a and b are on or c is off
+                # z is off only when a is on and b is off
+                .model covers
+                .inputs a b c
+                .outputs y z
+                .names a b c y
+                11- 1
+                --0 1
+                .names a b z
+                10 0
+                .end
+                """);
+        assertEquals(3, covers.getDefinition().getNumInputs());
+        assertEquals(2, covers.getDefinition().getNumOutputs());
+        for (int in = 0; in < 8; in++) {
+            boolean a = (in & 4) != 0;
+            boolean b = (in & 2) != 0;
+            boolean c = (in & 1) != 0;
+            boolean[] out = covers.run(a, b, c);
+            assertEquals(a && b || !c, out[0], "y for " + in);
+            assertEquals(!(a && !b), out[1], "z for " + in);
+        }
+    }
+
+    @Test
+    void readsTheFirstModelAsTheTopAndInstantiatesTheRest() throws IOException {
+        ImportedCircuit top = ImportedCircuit.read(new BlifImporter(), """
+                .model top
+                .inputs a b
+                .outputs y
+                .subckt nand2 x=a w=b out=y
+                .end
+
+                .model nand2
+                .inputs x w
+                .outputs out
+                .names x w out
+                11 0
+                .end
+                """);
+        assertEquals("top", top.getDefinition().getName());
+        assertArrayEquals(new boolean[] {true}, top.run(false, false));
+        assertArrayEquals(new boolean[] {true}, top.run(true, false));
+        assertArrayEquals(new boolean[] {false}, top.run(true, true));
+    }
+
+    @Test
+    void sharesANetBetweenManyReadersThroughSplitters() throws IOException {
+        // Input a feeds five readers, one of them an output pin, and its inverse feeds three
+        ImportedCircuit fanOut = ImportedCircuit.read(new BlifImporter(), """
+                .model fanout
+                .inputs a b
+                .outputs a y0 y1 y2 y3
+                .names a b y0
+                11 1
+                .names a b y1
+                1- 1
+                -1 1
+                .names a n
+                0 1
+                .names n y2
+                1 1
+                .names n b y3
+                11 1
+                .end
+                """);
+        Netlist interior = fanOut.getDefinition().getInterior();
+        int splitters = 0;
+        for (int i = 0; i < interior.size(); i++) {
+            if (interior.getType(i) == GateType.SPLITTER) {
+                splitters++;
+            }
+        }
+        // A Splitter has two outputs, so five readers of one net need at least four
+        assertTrue(splitters >= 4, splitters + " Splitters");
+
+        for (int in = 0; in < 4; in++) {
+            boolean a = (in & 2) != 0;
+            boolean b = (in & 1) != 0;
+            boolean[] out = fanOut.run(a, b);
+            assertArrayEquals(new boolean[] {a, a && b, a || b, !a, !a && b}, out, "a=" + a + " b=" + b);
+        }
+    }
+
+    @Test
+    void reportsMalformedNetlistsAsIOException() {
+        String[] malformed = {
+                ".model m\n.inputs a\n.outputs y\n.names a y\n1 1\n0 0\n.end\n",
+                ".model m\n.inputs a\n.outputs y\n.names a y\n12 1\n.end\n",
+                ".model m\n.inputs a\n.outputs y\n.names a y\n2 1\n.end\n",
+                ".model m\n.inputs a\n.outputs y\n.latch a y 0\n.end\n",
+                ".model m\n.inputs a\n.outputs y\n.subckt missing p=a q=y\n.end\n",
+                ".model m\n.inputs a\n.outputs y\n.subckt\n.end\n",
+        };
+        for (String text : malformed) {
+            assertThrows(IOException.class, () -> ImportedCircuit.read(new BlifImporter(), text), text);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package base.persistence;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitFileTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Build a board using every kind of Component which needs no memory image, including two instances of one
+     * Compound definition and a definition nested inside it
+     */
+    private static Netlist sampleBoard() {
+        Netlist inner = new Netlist();
+        inner.addComponent(GateType.NOT, 1, 10, 20);
+        CompoundDefinition inverter = new CompoundDefinition("Inverter", 0xFF336699, 60, 40, inner);
+
+        Netlist outer = new Netlist();
+        outer.addComponent(GateType.SPLITTER, 1, 5.5, 5.5);
+        outer.addCompound(inverter, 2, 80, 5.5);
+        outer.addComponent(GateType.AND, 3, 160, 5.5);
+        outer.addConnection(0, 0, 1, 0);
+        outer.addConnection(1, 0, 2, 0);
+        outer.addConnection(0, 1, 2, 1);
+        CompoundDefinition pulse = new CompoundDefinition("Pulse", 0xFFCC0000, 120, 90.25, outer);
+
+        Netlist board = new Netlist();
+        int source = board.addComponent(GateType.SIGNAL_SOURCE, 7, 0, 0);
+        board.setState(source, true);
+        board.addComponent(GateType.SIGNAL_SOURCE, 8, 0, 150);
+        board.addCompound(pulse, 9, 150, 0);
+        board.addCompound(pulse, 10, 150, 150);
+        board.addComponent(GateType.OR, 11, 300, 75.0625);
+        board.addRegister(4, 12, 450, 75);
+        board.addComponent(GateType.LIGHT, 13, -300.5, 1e5);
+        board.addConnection(0, 0, 2, 0);
+        board.addConnection(1, 0, 3, 0);
+        board.addConnection(2, 0, 4, 0);
+        board.addConnection(3, 0, 4, 1);
+        board.addConnection(4, 0, 6, 0);
+        return board;
+    }
+
+    @Test
+    void savedBoardLoadsBackUnchanged() throws IOException {
+        Netlist board = sampleBoard();
+        Path path = directory.resolve("board.mlc");
+        CircuitFile.save(path, board);
+        Netlist loaded = CircuitFile.load(path);
+
+        assertSameNetlist(board, loaded);
+        // Instances of one definition still share it after loading
+        assertSame(loaded.getDefinition(2), loaded.getDefinition(3));
+        assertFalse(Files.exists(directory.resolve("board.mlc.tmp")));
+    }
+
+    @Test
+    void savingReplacesAnExistingFile() throws IOException {
+        Path path = directory.resolve("board.mlc");
+        CircuitFile.save(path, sampleBoard());
+        Netlist empty = new Netlist();
+        CircuitFile.save(path, empty);
+
+        assertEquals(0, CircuitFile.load(path).size());
+    }
+
+    @Test
+    void rejectsFilesWhichAreNotSaves() throws IOException {
+        Path path = directory.resolve("other.mlc");
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> CircuitFile.load(path));
+    }
+
+    @Test
+    void rejectsTruncatedSaves() throws IOException {
+        Path path = directory.resolve("board.mlc");
+        CircuitFile.save(path, sampleBoard());
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThrows(IOException.class, () -> CircuitFile.load(path));
+    }
+
+    /**
+     * Check that two Netlists hold the same Components, Connections and definitions
+     */
+    static void assertSameNetlist(Netlist expected, Netlist actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getType(i), actual.getType(i));
+            assertEquals(expected.getId(i), actual.getId(i));
+            assertEquals(expected.getX(i), actual.getX(i));
+            assertEquals(expected.getY(i), actual.getY(i));
+            assertEquals(expected.getState(i), actual.getState(i));
+            assertEquals(expected.getNumInputs(i), actual.getNumInputs(i));
+            assertEquals(expected.getNumOutputs(i), actual.getNumOutputs(i));
+            if (expected.getType(i) == GateType.REGISTER) {
+                assertEquals(expected.getWidth(i), actual.getWidth(i));
+            }
+            if (expected.getType(i) == GateType.COMPOUND) {
+                assertSameDefinition(expected.getDefinition(i), actual.getDefinition(i));
+            }
+        }
+
+        assertEquals(expected.getConnectionCount(), actual.getConnectionCount());
+        for (int c = 0; c < expected.getConnectionCount(); c++) {
+            assertEquals(expected.getSource(c), actual.getSource(c));
+            assertEquals(expected.getSourcePort(c), actual.getSourcePort(c));
+            assertEquals(expected.getDest(c), actual.getDest(c));
+            assertEquals(expected.getDestPort(c), actual.getDestPort(c));
+        }
+    }
+
+    private static void assertSameDefinition(CompoundDefinition expected, CompoundDefinition actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getColor(), actual.getColor());
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getNumInputs(), actual.getNumInputs());
+        assertEquals(expected.getNumOutputs(), actual.getNumOutputs());
+        for (int pin = 0; pin < expected.getNumInputs(); pin++) {
+            assertEquals(expected.getInputPinComponent(pin), actual.getInputPinComponent(pin));
+            assertEquals(expected.getInputPinPort(pin), actual.getInputPinPort(pin));
+        }
+        for (int pin = 0; pin < expected.getNumOutputs(); pin++) {
+            assertEquals(expected.getOutputPinComponent(pin), actual.getOutputPinComponent(pin));
+            assertEquals(expected.getOutputPinPort(pin), actual.getOutputPinPort(pin));
+        }
+        assertSameNetlist(expected.getInterior(), actual.getInterior());
+    }
+}
@@ -0,0 +1,202 @@
+package base.persistence;
+
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.MemoryBlock;
+import base.netlist.Netlist;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EditJournalTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Writes down everything replayed, one line per edit
+     */
+    private static class Recorder implements EditJournal.Replayer {
+        Netlist snapshot;
+        final List<String> edits = new ArrayList<>();
+
+        @Override
+        public void restore(Netlist snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void add(GateType type, int id, double x, double y, boolean on) {
+            edits.add("add " + type + " " + id + " " + x + " " + y + " " + on);
+        }
+
+        @Override
+        public void addCompound(CompoundDefinition definition, int id, double x, double y) {
+            edits.add("addCompound " + definition.getName() + " " + id + " " + x + " " + y);
+        }
+
+        @Override
+        public void addMemory(MemoryBlock memory, int id, double x, double y) {
+            edits.add("addMemory " + id + " " + x + " " + y);
+        }
+
+        @Override
+        public void addRegister(int width, int id, double x, double y) {
+            edits.add("addRegister " + width + " " + id + " " + x + " " + y);
+        }
+
+        @Override
+        public void move(int id, double x, double y) {
+            edits.add("move " + id + " " + x + " " + y);
+        }
+
+        @Override
+        public void remove(int id) {
+            edits.add("remove " + id);
+        }
+
+        @Override
+        public void connect(int sourceId, int sourcePort, int destId, int destPort) {
+            edits.add("connect " + sourceId + " " + sourcePort + " " + destId + " " + destPort);
+        }
+
+        @Override
+        public void disconnect(int destId, int destPort) {
+            edits.add("disconnect " + destId + " " + destPort);
+        }
+
+        @Override
+        public void setState(int id, boolean on) {
+            edits.add("setState " + id + " " + on);
+        }
+    }
+
+    /** Every edit written by {@link #writeJournal}, as the Recorder writes it down */
+    private final static List<String> EDITS = List.of(
+            "add SIGNAL_SOURCE 2 10.0 20.0 true",
+            "add NOT 3 110.0 20.0 false",
+            "connect 2 0 3 0",
+            "addCompound Buffer 4 210.0 20.5",
+            "connect 3 0 4 0",
+            "move 3 120.0 40.0",
+            "setState 2 false");
+
+    /**
+     * Start a journal on a board holding one Light, record every edit in EDITS and close it
+     */
+    private void writeJournal() throws IOException {
+        Netlist board = new Netlist();
+        board.addComponent(GateType.LIGHT, 1, 0, 0);
+        Netlist interior = new Netlist();
+        interior.addComponent(GateType.SPLITTER, 1, 0, 0);
+        CompoundDefinition buffer = new CompoundDefinition("Buffer", 0xFF000000, 50, 50, interior);
+
+        try (EditJournal journal = EditJournal.start(directory, board)) {
+            journal.recordAdd(GateType.SIGNAL_SOURCE, 2, 10, 20, true);
+            journal.recordAdd(GateType.NOT, 3, 110, 20, false);
+            journal.recordConnect(2, 0, 3, 0);
+            journal.commit();
+            journal.recordAddCompound(buffer, 4, 210, 20.5);
+            journal.recordConnect(3, 0, 4, 0);
+            journal.recordMove(3, 120, 40);
+            journal.recordState(2, false);
+        }
+    }
+
+    private Path journalFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-"))
+                    .findFirst().orElseThrow();
+        }
+    }
+
+    private Recorder recover() throws IOException {
+        Recorder recorder = new Recorder();
+        assertTrue(EditJournal.recover(directory, recorder));
+        assertNotNull(recorder.snapshot);
+        assertEquals(1, recorder.snapshot.size());
+        assertEquals(GateType.LIGHT, recorder.snapshot.getType(0));
+        return recorder;
+    }
+
+    @Test
+    void replaysEveryEditOnTopOfTheSnapshot() throws IOException {
+        writeJournal();
+
+        assertEquals(EDITS, recover().edits);
+    }
+
+    @Test
+    void dropsATruncatedLastRecord() throws IOException {
+        writeJournal();
+        Path journal = journalFile();
+        byte[] bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertEquals(EDITS.subList(0, EDITS.size() - 1), recover().edits);
+    }
+
+    @Test
+    void dropsARecordWithABadChecksumAndEverythingAfter() throws IOException {
+        writeJournal();
+        Path journal = journalFile();
+        byte[] bytes = Files.readAllBytes(journal);
+        // Each record ends with its checksum, so this breaks the last one
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(journal, bytes);
+
+        assertEquals(EDITS.subList(0, EDITS.size() - 1), recover().edits);
+    }
+
+    @Test
+    void recoversTheSnapshotWhenTheHeaderIsTorn() throws IOException {
+        writeJournal();
+        Path journal = journalFile();
+        byte[] bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, 2));
+
+        assertEquals(List.of(), recover().edits);
+    }
+
+    @Test
+    void keepsTheOldGenerationsWhenTheSnapshotIsUnreadable() throws IOException {
+        writeJournal();
+        Path journal = journalFile();
+        Path snapshot;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshot = files.filter(path -> path.getFileName().toString().startsWith("snapshot-"))
+                    .findFirst().orElseThrow();
+        }
+        Files.write(snapshot, new byte[] {1, 2, 3});
+        byte[] journalBytes = Files.readAllBytes(journal);
+
+        assertThrows(IOException.class, () -> EditJournal.recover(directory, new Recorder()));
+        Path damaged = EditJournal.setAside(directory);
+        assertNotNull(damaged);
+        EditJournal.start(directory, new Netlist()).close();
+
+        // The new generation starts beside the old files without deleting them
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(damaged.resolve(snapshot.getFileName())));
+        assertArrayEquals(journalBytes, Files.readAllBytes(damaged.resolve(journal.getFileName())));
+        Recorder recorder = new Recorder();
+        assertTrue(EditJournal.recover(directory, recorder));
+        assertEquals(0, recorder.snapshot.size());
+
+        // Setting aside again never mixes two sessions' files
+        assertNotEquals(damaged, EditJournal.setAside(directory));
+    }
+
+    @Test
+    void findsNothingInAnEmptyDirectory() throws IOException {
+        assertFalse(EditJournal.recover(directory, new Recorder()));
+        assertFalse(EditJournal.recover(directory.resolve("missing"), new Recorder()));
+    }
+}
@@ -0,0 +1,94 @@
+package base.persistence;
+
+import base.engine.CompiledCircuit;
+import base.engine.Engine;
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.Netlist;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Simulates one instance of an imported definition, with a Signal Source on every input pin and a Light on every
+ * output pin, so importer tests can check what a netlist computes rather than how it was laid out
+ */
+class ImportedCircuit {
+    /** Most ticks an imported circuit may take to settle */
+    private final static int MAX_TICKS = 1000;
+
+    private final CompoundDefinition definition;
+    private final CompiledCircuit circuit;
+    private final Engine engine;
+
+    ImportedCircuit(CompoundDefinition definition) {
+        this.definition = definition;
+        Netlist board = new Netlist();
+        int compound = board.addCompound(definition, 0, 0, 0);
+        for (int pin = 0; pin < definition.getNumInputs(); pin++) {
+            int source = board.addComponent(GateType.SIGNAL_SOURCE, board.size(), 0, 0);
+            board.addConnection(source, 0, compound, pin);
+        }
+        for (int pin = 0; pin < definition.getNumOutputs(); pin++) {
+            int light = board.addComponent(GateType.LIGHT, board.size(), 0, 0);
+            board.addConnection(compound, pin, light, 0);
+        }
+        this.circuit = CompiledCircuit.compile(board);
+        this.engine = new Engine(circuit);
+    }
+
+    /**
+     * Import a netlist held in a String
+     */
+    static ImportedCircuit read(NetlistImporter importer, String text) throws IOException {
+        return new ImportedCircuit(importer.read(new StringReader(text)));
+    }
+
+    CompoundDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Set every input pin, let the circuit settle and read every output pin
+     * @param inputs The value of each input pin, in pin order
+     * @return The value of each output pin, in pin order
+     */
+    boolean[] run(boolean... inputs) {
+        for (int pin = 0; pin < inputs.length; pin++) {
+            // Signal Sources were added straight after the Compound Component, in pin order
+            engine.setSource(circuit.getSource(1 + pin), inputs[pin]);
+        }
+        engine.settle(MAX_TICKS);
+        if (!engine.isSettled()) {
+            throw new AssertionError("Circuit did not settle");
+        }
+        boolean[] outputs = new boolean[definition.getNumOutputs()];
+        for (int pin = 0; pin < outputs.length; pin++) {
+            int light = 1 + definition.getNumInputs() + pin;
+            outputs[pin] = engine.isOn(circuit.getInputNet(light, 0));
+        }
+        return outputs;
+    }
+
+    /**
+     * Get the bits of a number as pin values, most significant first
+     */
+    static boolean[] bits(long value, int width) {
+        boolean[] bits = new boolean[width];
+        for (int bit = 0; bit < width; bit++) {
+            bits[width - 1 - bit] = ((value >>> bit) & 1) == 1;
+        }
+        return bits;
+    }
+
+    /**
+     * Read pin values as a number, most significant first
+     */
+    static long value(boolean[] bits, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 1 | (bits[i] ? 1 : 0);
+        }
+        return value;
+    }
+}
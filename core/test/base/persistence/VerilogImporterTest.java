@@ -0,0 +1,93 @@
+package base.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static base.persistence.ImportedCircuit.bits;
+import static base.persistence.ImportedCircuit.value;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerilogImporterTest {
+    /** A two-bit ripple-carry adder, built from full adders connected by name and by position */
+    private final static String ADDER = """
+            // Full adder from gate primitives and an assignment
+            module full_adder(a, b, cin, sum, cout);
+              input a, b, cin;
+              output sum, cout;
+              wire ab, carry_in;
+              xor x1 (sum, a, b, cin);
+              and a1 (ab, a, b);
+              assign carry_in = (a ^ b) & cin;
+              or  o1 (cout, ab, carry_in);
+            endmodule
+
+            module adder2(input [1:0] a, input [1:0] b, output [1:0] s, output cout);
+              wire c0;
+              full_adder low (.a(a[0]), .b(b[0]), .cin(1'b0), .sum(s[0]), .cout(c0));
+              full_adder high (a[1], b[1], c0, s[1], cout);
+            endmodule
+            """;
+
+    @Test
+    void importsAHierarchicalAdder() throws IOException {
+        ImportedCircuit adder = ImportedCircuit.read(new VerilogImporter(), ADDER);
+        assertEquals("adder2", adder.getDefinition().getName());
+        assertEquals(4, adder.getDefinition().getNumInputs());
+        assertEquals(3, adder.getDefinition().getNumOutputs());
+
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                boolean[] inputs = new boolean[4];
+                System.arraycopy(bits(a, 2), 0, inputs, 0, 2);
+                System.arraycopy(bits(b, 2), 0, inputs, 2, 2);
+                boolean[] outputs = adder.run(inputs);
+                // Outputs are s[1], s[0], then cout
+                long sum = value(outputs, 0, 2) | (outputs[2] ? 4 : 0);
+                assertEquals(a + b, sum, a + " + " + b);
+            }
+        }
+    }
+
+    @Test
+    void buildsGatesWithoutAComponentOfTheirOwn() throws IOException {
+        ImportedCircuit gates = ImportedCircuit.read(new VerilogImporter(), """
+                module gates(a, b, c, y_nand, y_nor, y_xnor, y_buf);
+                  input a, b, c;
+                  output y_nand, y_nor, y_xnor, y_buf;
+                  nand (y_nand, a, b, c);
+                  nor (y_nor, a, b, c);
+                  xnor (y_xnor, a, b);
+                  buf (y_buf, c);
+                endmodule
+                """);
+        for (int in = 0; in < 8; in++) {
+            boolean a = (in & 4) != 0;
+            boolean b = (in & 2) != 0;
+            boolean c = (in & 1) != 0;
+            boolean[] out = gates.run(a, b, c);
+            assertEquals(!(a && b && c), out[0]);
+            assertEquals(!(a || b || c), out[1]);
+            assertEquals(a == b, out[2]);
+            assertEquals(c, out[3]);
+        }
+    }
+
+    @Test
+    void reportsMalformedNetlistsAsIOException() {
+        String[] malformed = {
+                "module m(a); input a; endmodule garbage",
+                "module m(y); output y; assign y = 99999999999'b1; endmodule",
+                "module m(y); output y; assign y = x'b1; endmodule",
+                "module m(y); output y; assign y = 0'b1; endmodule",
+                "module m(y); output y; assign y = 4'b; endmodule",
+                "module m(y); output y; assign y = 4'q1; endmodule",
+                "module m(y); output y; always @(*) y = 1; endmodule",
+                "module m(y); output y; missing u (y); endmodule",
+                "module m(y); output y; not (y, y",
+        };
+        for (String text : malformed) {
+            assertThrows(IOException.class, () -> ImportedCircuit.read(new VerilogImporter(), text), text);
+        }
+    }
+}
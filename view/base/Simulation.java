@@ -0,0 +1,802 @@
+package base;
+
+import base.components.*;
+import base.fundamentals.*;
+import base.netlist.CompoundDefinition;
+import base.netlist.MemoryBlock;
+import base.netlist.Netlist;
+import base.persistence.CircuitFile;
+import base.persistence.CompoundLibrary;
+import base.persistence.NetlistImporter;
+import base.view.BoardCapture;
+import base.view.HeatMapOverlay;
+import base.view.JournalRecorder;
+import base.view.LiveSimulation;
+import base.view.PerformanceOverlay;
+import base.view.SimulationMetrics;
+import base.view.TickScheduler;
+import base.view.UndoLog;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.animation.*;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.scene.*;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/// Things to do:
+/// Fix Compound Creation exceptions
+/// Add input/output ports on interiors of Compounds
+
+/**
+ * Main simulation class <br>
+ * Sets up the Application and holds every Component
+ * @author Lucas Peterson
+ */
+public class Simulation extends Application {
+    /** Number of cells wide the board is at the start of the simulation */
+    public final static int INIT_BOARD_WIDTH = 900;
+    /** Number of cells tall the board is at the start of the simulation */
+    public final static int INIT_BOARD_HEIGHT = 900;
+    /** Pixels wide the side UI frame should be */
+    public final static int PREF_UI_WIDTH = 225;
+    /** Max pixels tall the TextAreas should be */
+    public final static int MAX_TEXT_AREA_HEIGHT = 40;
+    /** Max pixels tall the list of the hottest Components should be */
+    public final static int MAX_HOTTEST_LIST_HEIGHT = 160;
+
+    /** X position at which all new Components appear, in pixels */
+    public final static double NEW_COMPONENT_X = 60;
+    /** Y position at which all new Components appear, in pixels */
+    public final static double NEW_COMPONENT_Y = 60;
+
+    /** Most milliseconds of CPU time the simulation may be given each frame, as chosen in the UI */
+    public final static double MAX_TICK_BUDGET_MS = 16;
+
+    /** File name pattern of saved boards */
+    public final static String SAVE_FILE_PATTERN = "*.mlc";
+    /** File name patterns of netlists which can be imported */
+    public final static String[] IMPORT_FILE_PATTERNS = {"*.blif", "*.v"};
+    /** Directory every edit to the main board is journaled to, and which it is restored from on startup */
+    public final static Path AUTOSAVE_DIRECTORY =
+            Path.of(System.getProperty("user.home"), ".modular-logic", "autosave");
+    /** Directory reusable Compound Component definitions are kept in */
+    public final static Path LIBRARY_DIRECTORY =
+            Path.of(System.getProperty("user.home"), ".modular-logic", "library");
+    /** Most memory the library may use for loaded definitions, in bytes */
+    public final static long LIBRARY_CACHE_BYTES = 64L << 20;
+
+    /** Main top-level display Pane */
+    private final static DisplayPane mainPane = new DisplayPane("Main View");
+    /** Current display Pane being viewed */
+    private static DisplayPane currentPane = mainPane;
+    /** The view whose node count is sampled besides the main board's */
+    private static DisplayPane watchedPane = mainPane;
+    /** Top-level layout object all UI and display objects */
+    private final static BorderPane window = new BorderPane();
+    /** Holds the current view, with the heat map and performance overlay on top of it */
+    private final static StackPane center = new StackPane();
+
+    /** Stack of Pane view history, for back-history jumps */
+    private final static Deque<DisplayPane> paneViewStack = new LinkedList<>();
+
+    /** Journals every edit made to the main board, or null if autosaving could not be started */
+    private static JournalRecorder journalRecorder;
+    /** Records edits to the main board so they can be undone, or null before the board is restored */
+    private static UndoLog undoLog;
+    /** Library of reusable Compound Component definitions, or null if it could not be opened */
+    private static CompoundLibrary library;
+    /** Counts what the simulator is doing, readable over JMX */
+    private final static SimulationMetrics metrics = new SimulationMetrics();
+    /** Shows the metrics over the board when turned on. Created once JavaFX is running */
+    private static PerformanceOverlay performanceOverlay;
+    /** Simulates the main board */
+    private final static LiveSimulation liveSimulation = new LiveSimulation(mainPane, metrics);
+    /** Tints the current view by how often each signal toggles, when turned on. Created once JavaFX is running */
+    private static HeatMapOverlay heatMap;
+    /** Runs the main board every frame, within a CPU budget. Created once JavaFX is running */
+    private static TickScheduler tickScheduler;
+
+
+    /**
+     * Get the main-level display pane used by the Simulation Class
+     * @return The top level Pane object
+     */
+    public static DisplayPane getMainPane() {
+        return mainPane;
+    }
+
+    /**
+     * Initializes everything related to the main display window
+     */
+    private static void initMainDisplay() {
+        performanceOverlay = new PerformanceOverlay(metrics);
+        heatMap = new HeatMapOverlay(liveSimulation, mainPane);
+
+        // Set up logic update loop, running as many ticks each frame as the UI can afford
+        tickScheduler = new TickScheduler(liveSimulation);
+        tickScheduler.start();
+
+        // Time every pulse, refreshing the overlays whenever new rates are worked out
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (metrics.recordPulse(now)) {
+                    performanceOverlay.refresh();
+                    heatMap.refresh();
+                }
+            }
+        }.start();
+    }
+
+    /**
+     * Show a view in the center of the window, under the heat map and performance overlay
+     * @param view The view to show
+     */
+    private static void showCenter(Node view) {
+        if (center.getChildren().isEmpty()) {
+            center.getChildren().addAll(view, heatMap, performanceOverlay);
+            StackPane.setAlignment(performanceOverlay, Pos.TOP_RIGHT);
+        } else {
+            center.getChildren().set(0, view);
+        }
+    }
+
+    /**
+     * Creates a new Text area with standard attributes. Helper function for text-entry UIs
+     * @param promptText The prompt text to display before a user starts typing
+     * @return The initialized TextArea
+     */
+    private static TextArea createTextArea(String promptText) {
+        TextArea ret = new TextArea();
+        ret.setMaxHeight(MAX_TEXT_AREA_HEIGHT);
+        ret.setWrapText(true);
+        ret.setPromptText(promptText);
+        return ret;
+    }
+
+    /**
+     * Sets up everything related to the Compound Component UI elements
+     * @return The initialized VBox UI frame
+     */
+    private static VBox initAddCompoundComponentUI() {
+        VBox addCompoundComponentUI = new VBox();
+
+        TextArea nameField = createTextArea("Enter Compound Component Name, e.g. XOR");
+
+        Label colorLabel = new Label("Select Compound Component Color");
+        ColorPicker colorPicker = new ColorPicker();
+        colorPicker.setValue(CompoundComponent.DEFAULT_COLOR);
+
+        TextArea widthField = createTextArea("Enter Compound Component Width (in cells)");
+        TextArea heightField = createTextArea("Enter Compound Component Height (in cells)");
+
+        Button createCompoundButton = new Button("Create new Compound Component from highlighted Components");
+        createCompoundButton.setWrapText(true);
+        createCompoundButton.setTextAlignment(TextAlignment.CENTER);
+        createCompoundButton.setOnAction(e -> {
+            CompoundComponent.makeCompoundComponent(
+                    mainPane.getSelection(),
+                    widthField.getText(),
+                    heightField.getText(),
+                    colorPicker.getValue(),
+                    nameField.getText(),
+                    currentPane);
+            mainPane.getSelection().getSelected().forEach(Component::remove);
+            mainPane.getSelection().clearSelection();
+        });
+
+        addCompoundComponentUI.getChildren().addAll(
+                nameField, colorLabel, colorPicker, widthField, heightField, createCompoundButton);
+        addCompoundComponentUI.setAlignment(Pos.CENTER);
+
+        return addCompoundComponentUI;
+    }
+
+    /**
+     * Creates a VBox which holds UI elements to add new basic Components to the current Screen
+     * @return The VBox described above
+     */
+    private static VBox initAddComponentUI() {
+        Button addButton = new Button("Add new ____");
+        ChoiceBox<String> componentSelector = new ChoiceBox<>();
+
+        addButton.setOnAction(ae -> {
+            ComponentFactory factory = ComponentFactories.get(componentSelector.getValue());
+            if (factory != null) {
+                factory.create(NEW_COMPONENT_X, NEW_COMPONENT_Y, currentPane);
+            }
+        });
+
+        componentSelector.getItems().addAll(ComponentFactories.getNames());
+        componentSelector.setValue("AND");
+        componentSelector.setOnAction(e -> {
+            String addText = componentSelector.getValue();
+            addButton.setText("Add new " + (addText == null ? "____" : addText));
+        });
+
+        VBox addComponentUI = new VBox(addButton, componentSelector);
+        addComponentUI.setAlignment(Pos.CENTER);
+
+        return addComponentUI;
+    }
+
+    /**
+     * Creates a VBox which holds UI elements to add RAMs, and ROMs mapped from image files, to the current Screen
+     * @return The VBox described above
+     */
+    private static VBox initMemoryUI() {
+        TextArea addressField = createTextArea("Memory address bits, e.g. 8");
+        TextArea dataField = createTextArea("Memory data bits, e.g. 8");
+
+        Button addRamButton = new Button("Add new RAM");
+        addRamButton.setOnAction(e -> {
+            try {
+                MemoryBlock memory = MemoryBlock.ram(Integer.parseInt(addressField.getText().strip()),
+                        Integer.parseInt(dataField.getText().strip()));
+                new MemoryComponent(memory, NEW_COMPONENT_X, NEW_COMPONENT_Y, currentPane);
+            } catch (IllegalArgumentException iae) {
+                System.out.println("RAM Creation " + iae.getClass() + ": " + iae.getLocalizedMessage());
+            }
+        });
+
+        FileChooser imageChooser = new FileChooser();
+        Button addRomButton = new Button("Add new ROM from image");
+        addRomButton.setOnAction(e -> {
+            File file = imageChooser.showOpenDialog(window.getScene().getWindow());
+            if (file != null) {
+                try {
+                    MemoryBlock memory = MemoryBlock.rom(file.toPath(),
+                            Integer.parseInt(addressField.getText().strip()),
+                            Integer.parseInt(dataField.getText().strip()));
+                    new MemoryComponent(memory, NEW_COMPONENT_X, NEW_COMPONENT_Y, currentPane);
+                } catch (IOException | IllegalArgumentException ex) {
+                    System.out.println("ROM Creation " + ex.getClass() + ": " + ex.getLocalizedMessage());
+                }
+            }
+        });
+
+        VBox memoryUI = new VBox(addressField, dataField, addRamButton, addRomButton);
+        memoryUI.setAlignment(Pos.CENTER);
+
+        return memoryUI;
+    }
+
+    /**
+     * Creates a VBox which holds UI elements to add Registers of any width to the current Screen
+     * @return The VBox described above
+     */
+    private static VBox initRegisterUI() {
+        TextArea widthField = createTextArea("Register width in bits, e.g. 8");
+
+        Button addRegisterButton = new Button("Add new Register");
+        addRegisterButton.setOnAction(e -> {
+            try {
+                int width = Integer.parseInt(widthField.getText().strip());
+                if (width < 1 || width > Netlist.MAX_REGISTER_WIDTH) {
+                    throw new IllegalArgumentException("Registers hold 1 to " + Netlist.MAX_REGISTER_WIDTH
+                            + " bits, not " + width);
+                }
+                BoardCapture.createRegister(width, NEW_COMPONENT_X, NEW_COMPONENT_Y, currentPane);
+            } catch (IllegalArgumentException iae) {
+                System.out.println("Register Creation " + iae.getClass() + ": " + iae.getLocalizedMessage());
+            }
+        });
+
+        VBox registerUI = new VBox(widthField, addRegisterButton);
+        registerUI.setAlignment(Pos.CENTER);
+
+        return registerUI;
+    }
+
+    /**
+     * Creates a VBox which holds UI elements to place Compound Components from the library, and to add highlighted
+     * Compound Components to it
+     * @return The VBox described above
+     */
+    private static VBox initLibraryUI() {
+        ChoiceBox<String> librarySelector = new ChoiceBox<>();
+        if (library != null) {
+            librarySelector.getItems().addAll(library.getNames());
+        }
+
+        Button placeButton = new Button("Place from library");
+        placeButton.setOnAction(e -> {
+            String name = librarySelector.getValue();
+            if (library != null && name != null) {
+                try {
+                    // Only loaded from disk the first time it is placed
+                    new CompoundComponent(library.get(name), NEW_COMPONENT_X, NEW_COMPONENT_Y, currentPane);
+                } catch (IOException ioe) {
+                    System.out.println("Library Placement " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+                }
+            }
+        });
+
+        TextArea columnsField = createTextArea("Grid columns, e.g. 8");
+        TextArea rowsField = createTextArea("Grid rows, e.g. 8");
+        TextArea chainField = createTextArea("Chain output to input, e.g. 0>2 (blank for none)");
+        Button placeGridButton = new Button("Place grid from library");
+        placeGridButton.setOnAction(e -> {
+            String name = librarySelector.getValue();
+            if (library != null && name != null) {
+                try {
+                    int chainOutput = -1;
+                    int chainInput = -1;
+                    String chain = chainField.getText().strip();
+                    if (!chain.isEmpty()) {
+                        String[] pins = chain.split(">");
+                        chainOutput = Integer.parseInt(pins[0].strip());
+                        chainInput = Integer.parseInt(pins[pins.length - 1].strip());
+                    }
+                    CompoundComponent.instantiateGrid(library.get(name),
+                            Integer.parseInt(columnsField.getText().strip()),
+                            Integer.parseInt(rowsField.getText().strip()),
+                            NEW_COMPONENT_X, NEW_COMPONENT_Y, chainOutput, chainInput, currentPane);
+                } catch (IOException | IllegalArgumentException ex) {
+                    System.out.println("Grid Placement " + ex.getClass() + ": " + ex.getLocalizedMessage());
+                }
+            }
+        });
+
+        Button addToLibraryButton = new Button("Add highlighted Compound Components to library");
+        addToLibraryButton.setWrapText(true);
+        addToLibraryButton.setTextAlignment(TextAlignment.CENTER);
+        addToLibraryButton.setOnAction(e -> {
+            if (library != null) {
+                for (Component component : mainPane.getSelection().getSelected()) {
+                    if (component instanceof CompoundComponent compound) {
+                        try {
+                            library.add(compound.getDefinition());
+                        } catch (IOException ioe) {
+                            System.out.println("Library Saving " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+                        }
+                    }
+                }
+                librarySelector.getItems().setAll(library.getNames());
+            }
+        });
+
+        VBox libraryUI = new VBox(placeButton, librarySelector, columnsField, rowsField, chainField, placeGridButton,
+                addToLibraryButton);
+        libraryUI.setAlignment(Pos.CENTER);
+
+        return libraryUI;
+    }
+
+    /**
+     * Creates a VBox which holds UI elements to save the main board to a file and load it back
+     * @return The VBox described above
+     */
+    private static VBox initSaveLoadUI() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Modular Logic boards", SAVE_FILE_PATTERN));
+
+        Button saveButton = new Button("Save board");
+        saveButton.setOnAction(e -> {
+            File file = fileChooser.showSaveDialog(window.getScene().getWindow());
+            if (file != null) {
+                try {
+                    CircuitFile.save(file.toPath(), BoardCapture.capture(mainPane));
+                } catch (IOException ioe) {
+                    System.out.println("Board Saving " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+                }
+            }
+        });
+
+        Button loadButton = new Button("Load board");
+        loadButton.setOnAction(e -> {
+            File file = fileChooser.showOpenDialog(window.getScene().getWindow());
+            if (file != null) {
+                loadBoard(file.toPath());
+            }
+        });
+
+        FileChooser importChooser = new FileChooser();
+        importChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("BLIF or Verilog netlists", IMPORT_FILE_PATTERNS));
+
+        Button importButton = new Button("Import netlist");
+        importButton.setOnAction(e -> {
+            File file = importChooser.showOpenDialog(window.getScene().getWindow());
+            if (file != null) {
+                importNetlist(file.toPath());
+            }
+        });
+
+        VBox saveLoadUI = new VBox(saveButton, loadButton, importButton);
+        saveLoadUI.setAlignment(Pos.CENTER);
+
+        return saveLoadUI;
+    }
+
+    /**
+     * Import a BLIF or Verilog netlist as a new Compound Component on the current Pane. <br>
+     * Large netlists take a while to read, so they are read away from the UI thread. The Compound Component only
+     * creates its interior Components if it is opened
+     * @param path The netlist file to import
+     */
+    private static void importNetlist(Path path) {
+        DisplayPane importInto = currentPane;
+        Thread importer = new Thread(() -> {
+            try {
+                CompoundDefinition definition = NetlistImporter.importFile(path);
+                Platform.runLater(() ->
+                        new CompoundComponent(definition, NEW_COMPONENT_X, NEW_COMPONENT_Y, importInto));
+            } catch (IOException ioe) {
+                System.out.println("Netlist Import " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+            }
+        }, "Netlist Importer");
+        importer.setDaemon(true);
+        importer.start();
+    }
+
+    /**
+     * Replace everything on the main board with a board loaded from a file. <br>
+     * The current board is left alone if the file cannot be loaded
+     * @param path The file to load
+     */
+    private static void loadBoard(Path path) {
+        Netlist board;
+        try {
+            board = CircuitFile.load(path);
+        } catch (IOException ioe) {
+            System.out.println("Board Loading " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+            return;
+        }
+
+        mainPane.getSelection().clearSelection();
+        mainPane.getComponents().snapshot().forEach(Component::remove);
+        BoardCapture.restore(board, mainPane);
+        if (journalRecorder != null) {
+            // Far cheaper to replay later than the removal and re-creation of every Component
+            journalRecorder.snapshot();
+        }
+        if (undoLog != null) {
+            // Loading is not undoable, and nothing from the previous board can be redone onto this one
+            undoLog.clear();
+        }
+
+        paneViewStack.clear();
+        currentPane = mainPane;
+        updateCurrentPane();
+    }
+
+    /**
+     * Changes the view displayed on the window, saving the previous view in the view history
+     */
+    public static void setCenterPane(DisplayPane paneToView) {
+        try {
+            // Save previous view
+            paneViewStack.push(currentPane);
+            currentPane = paneToView;
+            updateCurrentPane();
+        } catch (IllegalStateException ise) {
+            System.out.println("You're digging too deep! You've hit the max view level");
+        }
+    }
+
+    /**
+     * Returns to the view visited most recently in the view history
+     */
+    private static void previousCenterPane() {
+        if (!paneViewStack.isEmpty()) {
+            currentPane = paneViewStack.pop();
+            updateCurrentPane();
+        } else {
+            System.out.println("You're back to the top level!");
+        }
+    }
+
+    /**
+     * Updates the UI to reflect the value of currentPane
+     */
+    private static void updateCurrentPane() {
+        showCenter(currentPane.getView());
+        if (watchedPane != mainPane) {
+            metrics.unwatch(watchedPane);
+        }
+        metrics.watch(currentPane);
+        watchedPane = currentPane;
+        heatMap.show(currentPane);
+        Label viewLabel = (Label) window.lookup("#viewLabel");
+        viewLabel.setText("Current View: " + currentPane.getName());
+        CheckBox canvasCheckBox = (CheckBox) window.lookup("#canvasCheckBox");
+        canvasCheckBox.setSelected(currentPane.getRenderMode() == DisplayPane.RenderMode.CANVAS);
+    }
+
+    /**
+     * Creates a UI to control the current view Pane
+     * @return An HBox containing the UI described above
+     */
+    private static HBox initPaneViewUI() {
+        Button backButton = new Button("<");
+        Label viewLabel = new Label("Current View: Main View");
+        viewLabel.setId("viewLabel");
+
+        backButton.setOnAction(e -> previousCenterPane());
+        HBox paneViewUI = new HBox(backButton, viewLabel);
+        paneViewUI.setAlignment(Pos.CENTER);
+
+        return paneViewUI;
+    }
+
+    /**
+     * Creates a UI to limit how much CPU time the simulation is given each frame
+     * @return A VBox containing the UI described above
+     */
+    private static VBox initTickBudgetUI() {
+        Label budgetLabel = new Label();
+        Slider budgetSlider = new Slider(1, MAX_TICK_BUDGET_MS, tickScheduler.getBudgetLimitMillis());
+        budgetSlider.valueProperty().addListener(o -> {
+            tickScheduler.setBudgetLimitMillis(budgetSlider.getValue());
+            budgetLabel.setText(String.format("Simulation budget: %.0f ms per frame", budgetSlider.getValue()));
+        });
+        budgetLabel.setText(String.format("Simulation budget: %.0f ms per frame", budgetSlider.getValue()));
+
+        VBox tickBudgetUI = new VBox(budgetLabel, budgetSlider);
+        tickBudgetUI.setAlignment(Pos.CENTER);
+
+        return tickBudgetUI;
+    }
+
+    /**
+     * Creates a UI to show or hide the performance overlay
+     * @return A CheckBox which shows the overlay while checked
+     */
+    private static CheckBox initPerformanceUI() {
+        CheckBox overlayCheckBox = new CheckBox("Show performance overlay");
+        overlayCheckBox.setOnAction(e -> {
+            performanceOverlay.setVisible(overlayCheckBox.isSelected());
+            performanceOverlay.refresh();
+        });
+        return overlayCheckBox;
+    }
+
+    /**
+     * Creates a UI to show which Components toggle most, as a heat map over the current view and as a sortable list
+     * @return A VBox containing the UI described above
+     */
+    private static VBox initHeatMapUI() {
+        CheckBox heatMapCheckBox = new CheckBox("Show activity heat map");
+        heatMapCheckBox.setOnAction(e -> {
+            heatMap.setVisible(heatMapCheckBox.isSelected());
+            heatMap.refresh();
+        });
+
+        Button resetButton = new Button("Reset activity");
+        resetButton.setOnAction(e -> heatMap.clearCounts());
+
+        TableView<HeatMapOverlay.Hotspot> hottestTable = new TableView<>();
+        TableColumn<HeatMapOverlay.Hotspot, String> nameColumn = new TableColumn<>("Hottest Components");
+        nameColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().name()));
+        TableColumn<HeatMapOverlay.Hotspot, Long> togglesColumn = new TableColumn<>("Toggles");
+        togglesColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().toggles()));
+        hottestTable.getColumns().add(nameColumn);
+        hottestTable.getColumns().add(togglesColumn);
+        hottestTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        hottestTable.setPlaceholder(new Label("Turn on the heat map to list the hottest Components"));
+        hottestTable.setMaxHeight(MAX_HOTTEST_LIST_HEIGHT);
+
+        // Keep whichever column the user sorted by as the list is refreshed
+        SortedList<HeatMapOverlay.Hotspot> sortedHottest = new SortedList<>(heatMap.getHottest());
+        sortedHottest.comparatorProperty().bind(hottestTable.comparatorProperty());
+        hottestTable.setItems(sortedHottest);
+
+        VBox heatMapUI = new VBox(heatMapCheckBox, resetButton, hottestTable);
+        heatMapUI.setAlignment(Pos.CENTER);
+
+        return heatMapUI;
+    }
+
+    /**
+     * Creates a UI to pause the main board when the highlighted Components show a value. <br>
+     * Each highlighted Component contributes one bit, read from its first output, or its first input if it has no
+     * outputs, such as a Light. Bits are taken top to bottom and left to right, least significant first
+     * @return A VBox containing the UI described above
+     */
+    private static VBox initWatchpointUI() {
+        TextArea valueField = createTextArea("Value the highlighted Components must show, e.g. 1 or 0x2A");
+        Label statusLabel = new Label("Running");
+        statusLabel.setWrapText(true);
+        liveSimulation.setOnPause(() -> statusLabel.setText("Paused: " + liveSimulation.getPauseReason()));
+
+        Button watchButton = new Button("Pause when highlighted Components show value");
+        watchButton.setWrapText(true);
+        watchButton.setTextAlignment(TextAlignment.CENTER);
+        watchButton.setOnAction(e -> {
+            List<Port> ports = new ArrayList<>();
+            StringBuilder description = new StringBuilder();
+            for (Component component : mainPane.getSelection().getSelected()) {
+                if (component.getNumOutputs() > 0) {
+                    ports.add(component.getOutputPort(0));
+                } else if (component.getNumInputs() > 0) {
+                    ports.add(component.getInputPort(0));
+                } else {
+                    continue;
+                }
+                description.append(description.length() == 0 ? "" : ", ").append(component.getText().getText());
+            }
+            try {
+                String value = valueField.getText().strip();
+                liveSimulation.addWatchpoint(ports, Long.decode(value), description + " showed " + value);
+            } catch (IllegalArgumentException iae) {
+                System.out.println("Watchpoint " + iae.getClass() + ": " + iae.getLocalizedMessage());
+            }
+        });
+
+        Button resumeButton = new Button("Resume");
+        resumeButton.setOnAction(e -> {
+            liveSimulation.resume();
+            statusLabel.setText("Running");
+        });
+        Button clearButton = new Button("Clear watchpoints");
+        clearButton.setOnAction(e -> {
+            liveSimulation.clearWatchpoints();
+            statusLabel.setText("Running");
+        });
+
+        VBox watchpointUI = new VBox(valueField, watchButton, new HBox(resumeButton, clearButton), statusLabel);
+        watchpointUI.setAlignment(Pos.CENTER);
+
+        return watchpointUI;
+    }
+
+    /**
+     * Creates a UI to undo and redo edits to the main board
+     * @return An HBox containing the UI described above
+     */
+    private static HBox initUndoUI() {
+        Button undoButton = new Button("Undo");
+        undoButton.setOnAction(e -> undo());
+        Button redoButton = new Button("Redo");
+        redoButton.setOnAction(e -> redo());
+
+        HBox undoUI = new HBox(undoButton, redoButton);
+        undoUI.setAlignment(Pos.CENTER);
+
+        return undoUI;
+    }
+
+    /**
+     * Undo the most recent edit to the main board
+     */
+    private static void undo() {
+        if (undoLog != null) {
+            undoLog.undo();
+        }
+    }
+
+    /**
+     * Redo the most recently undone edit to the main board
+     */
+    private static void redo() {
+        if (undoLog != null) {
+            undoLog.redo();
+        }
+    }
+
+    /**
+     * Creates a UI to choose how the current view Pane is drawn
+     * @return A CheckBox which draws the current view to a Canvas while checked
+     */
+    private static CheckBox initRenderModeUI() {
+        CheckBox canvasCheckBox = new CheckBox("Draw to canvas (large boards)");
+        canvasCheckBox.setId("canvasCheckBox");
+        canvasCheckBox.setOnAction(e -> currentPane.setRenderMode(canvasCheckBox.isSelected()
+                ? DisplayPane.RenderMode.CANVAS : DisplayPane.RenderMode.NODES));
+        return canvasCheckBox;
+    }
+
+    /**
+     * Sets up everything related to the UI
+     * @return The initialized UI frame
+     */
+    private static VBox initUI() {
+        VBox frame = new VBox();
+        frame.setAlignment(Pos.CENTER);
+        frame.setPrefWidth(PREF_UI_WIDTH);
+        frame.setBackground(new Background(new BackgroundFill(Color.GRAY, null, null)));
+
+        frame.getChildren().addAll(
+                initPaneViewUI(),
+                initRenderModeUI(),
+                initPerformanceUI(),
+                initTickBudgetUI(),
+                initUndoUI(),
+                new Separator(Orientation.HORIZONTAL),
+                initHeatMapUI(),
+                new Separator(Orientation.HORIZONTAL),
+                initWatchpointUI(),
+                new Separator(Orientation.HORIZONTAL),
+                initAddComponentUI(),
+                new Separator(Orientation.HORIZONTAL),
+                initMemoryUI(),
+                new Separator(Orientation.HORIZONTAL),
+                initRegisterUI(),
+                new Separator(Orientation.HORIZONTAL),
+                initAddCompoundComponentUI(),
+                new Separator(Orientation.HORIZONTAL),
+                initLibraryUI(),
+                new Separator(Orientation.HORIZONTAL),
+                initSaveLoadUI());
+
+        return frame;
+    }
+
+    /**
+     * Construct the JavaFX Scene structure for this Application
+     *
+     * @param primaryStage the primary stage for this application, onto which
+     * the application scene can be set.
+     * Applications may create other stages, if needed, but they will not be
+     * primary stages.
+     * @throws Exception If any exception occurs
+     */
+    @Override
+    public void start(Stage primaryStage) throws Exception {
+        try {
+            library = CompoundLibrary.open(LIBRARY_DIRECTORY, LIBRARY_CACHE_BYTES);
+        } catch (IOException ioe) {
+            System.out.println("Library Startup " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+        }
+
+        initMainDisplay();
+        VBox addUI = initUI();
+
+        showCenter(mainPane.getView());
+        window.setCenter(center);
+        metrics.watch(mainPane);
+        metrics.register();
+        window.setLeft(addUI);
+
+        try {
+            journalRecorder = JournalRecorder.open(AUTOSAVE_DIRECTORY, mainPane);
+        } catch (IOException ioe) {
+            System.out.println("Autosave Startup " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+        }
+        // Started after recovery, so the restored board is not itself an undoable edit
+        undoLog = new UndoLog(mainPane);
+
+        Scene scene = new Scene(window);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN),
+                Simulation::undo);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN),
+                Simulation::redo);
+        primaryStage.setTitle("Modular Logic");
+        primaryStage.setScene(scene);
+        primaryStage.show();
+    }
+
+    /**
+     * Write out every edit still waiting to be journaled before the Application exits
+     * @throws Exception If any exception occurs
+     */
+    @Override
+    public void stop() throws Exception {
+        if (journalRecorder != null) {
+            journalRecorder.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        Simulation.launch();
+    }
+}
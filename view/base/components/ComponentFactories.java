@@ -0,0 +1,77 @@
+package base.components;
+
+import base.fundamentals.Component;
+import base.fundamentals.ComponentFactory;
+
+import java.util.*;
+
+/**
+ * Every kind of Component which can be placed from the editor, and how to create each one. <br>
+ * The basic gates are always registered. Factories from other jars on the class path are found with ServiceLoader
+ * the first time any factory is needed, and are listed after the basic gates. The editor simulates and saves a
+ * Component from another jar as the basic gate it extends, so such Components should extend one of them.
+ * <br><br>
+ * Compound Components are not listed, since each needs a definition to be created from.
+ */
+public class ComponentFactories {
+    /** Every factory, keyed by name, in the order they were registered */
+    private final static Map<String, ComponentFactory> byName = new LinkedHashMap<>();
+    /** Every factory, keyed by the class it creates */
+    private final static Map<Class<? extends Component>, ComponentFactory> byClass = new HashMap<>();
+
+    static {
+        register(ComponentFactory.of("AND", AND.class, AND::new));
+        register(ComponentFactory.of("OR", OR.class, OR::new));
+        register(ComponentFactory.of("NOT", NOT.class, NOT::new));
+        register(ComponentFactory.of("Light", Light.class, Light::new));
+        register(ComponentFactory.of("Splitter", Splitter.class, Splitter::new));
+        register(ComponentFactory.of("SignalSource", SignalSource.class, SignalSource::new));
+        register(ComponentFactory.of("DFF", DFlipFlop.class, DFlipFlop::new));
+
+        try {
+            for (ComponentFactory factory : ServiceLoader.load(ComponentFactory.class)) {
+                register(factory);
+            }
+        } catch (ServiceConfigurationError sce) {
+            System.out.println("Component Factory Loading " + sce.getClass() + ": " + sce.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Add a factory, such as for a Component defined outside the editor
+     * @param factory The factory to add. Replaces any factory already registered under its name or for its class
+     */
+    public static void register(ComponentFactory factory) {
+        ComponentFactory replaced = byName.put(factory.getName(), factory);
+        if (replaced != null) {
+            byClass.remove(replaced.getComponentClass());
+        }
+        byClass.put(factory.getComponentClass(), factory);
+    }
+
+    /**
+     * Get the names of every registered factory
+     * @return Every name, basic gates first
+     */
+    public static List<String> getNames() {
+        return List.copyOf(byName.keySet());
+    }
+
+    /**
+     * Get the factory registered under a name
+     * @param name The name listed in the editor
+     * @return The factory, or null if there is none by that name
+     */
+    public static ComponentFactory get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Get the factory which creates Components of exactly a class
+     * @param componentClass The class of Component
+     * @return The factory, or null if none creates that class
+     */
+    public static ComponentFactory forClass(Class<? extends Component> componentClass) {
+        return byClass.get(componentClass);
+    }
+}
@@ -0,0 +1,349 @@
+package base.components;
+
+import base.Simulation;
+import base.fundamentals.*;
+import base.netlist.CompoundDefinition;
+import base.view.BoardCapture;
+import javafx.scene.input.MouseButton;
+import javafx.scene.paint.Color;
+
+import java.util.*;
+
+/**
+ * A Component which is made up of multiple other Components,
+ * encapsulating the functionality of all contained Components
+ * @author Lucas Peterson
+ */
+public class CompoundComponent extends Component {
+    /** The default width of a CompoundComponent in pixels*/
+    private final static double DEFAULT_WIDTH = 90;
+    /** The default height of a CompoundComponent in pixels*/
+    private final static double DEFAULT_HEIGHT= 120;
+    /** The default color of a CompoundComponent */
+    public final static Color DEFAULT_COLOR = Color.BLUE;
+    /** The default String displayed on this CompoundComponent */
+    private final static String DEFAULT_TEXT = "CompoundComponent";
+    /** The default Color of the Text displayed on this CompoundComponent */
+    private final static Color DEFAULT_TEXT_COLOR = Color.WHITE;
+
+    /**
+     * Unique Pane on which the contents of this CompoundComponent are displayed. <br>
+     * Null until first viewed for CompoundComponents built from a definition, so that large imported or saved
+     * Compounds only create their interior Components if someone actually looks inside
+     */
+    private DisplayPane internalDisplayPane;
+    /** The definition this CompoundComponent is an instance of, shared with every copy */
+    private final CompoundDefinition definition;
+    /**
+     * Index in the definition's interior of each interior Component built from it. Components added to the interior
+     * afterwards have none, and the indices stay right however the interior's Registry reorders its Components
+     */
+    private final IdentityHashMap<Component, Integer> interiorIndices;
+
+    /** Space left between neighbouring instances placed in a grid, in pixels */
+    public final static double GRID_GAP = 40;
+
+    /** Threshold beyond which successive clicks are no longer considered a double click (in milliseconds) */
+    private final static int DOUBLE_CLICK_DELAY = 500;
+    /** Time value when the last time this Compound Component was left-clicked */
+    private long lastClickTime;
+
+    /**
+     * Create a new CompoundComponent
+     * @param x The x coordinate (in cells) of the CompoundComponent
+     * @param y The y coordinate (in cells) of the CompoundComponent
+     * @param width The width of the CompoundComponent
+     * @param height The height of the CompoundComponent
+     * @param color The Color of the CompoundComponent
+     * @param numInputs The number of input Ports on the CompoundComponent
+     * @param numOutputs The number of output Port on the CompoundComponent
+     * @param name The name displayed on the CompoundComponent
+     * @param displayPane The Pane on which this CompoundComponent lives
+     * @param internalDisplayPane The Internal Display Pane which shows the interior of the Compound Component
+     * @param definition The definition describing the interior of the Compound Component
+     */
+    private CompoundComponent(double x, double y, double width, double height, Color color, int numInputs,
+                              int numOutputs, String name, DisplayPane displayPane, DisplayPane internalDisplayPane,
+                              CompoundDefinition definition) {
+        super(x, y, width, height, color, numInputs, numOutputs, name, DEFAULT_TEXT_COLOR, displayPane);
+        this.internalDisplayPane = internalDisplayPane;
+        this.definition = definition;
+        this.interiorIndices = new IdentityHashMap<>();
+        init();
+    }
+
+    /**
+     * Create a new instance of a saved CompoundDefinition
+     * @param definition The definition to build the CompoundComponent from
+     * @param x The x coordinate (in pixels) of the CompoundComponent
+     * @param y The y coordinate (in pixels) of the CompoundComponent
+     * @param displayPane The Pane on which this CompoundComponent lives
+     */
+    public CompoundComponent(CompoundDefinition definition, double x, double y, DisplayPane displayPane) {
+        super(x, y, definition.getWidth(), definition.getHeight(), BoardCapture.fromArgb(definition.getColor()),
+                definition.getNumInputs(), definition.getNumOutputs(), definition.getName(), DEFAULT_TEXT_COLOR,
+                displayPane);
+        this.definition = definition;
+        this.internalDisplayPane = null;
+        this.interiorIndices = new IdentityHashMap<>();
+        init();
+    }
+
+    /**
+     * Create a new deep copy from a Compound Component, on the same Display Pane
+     * @param other The Compound Component to copy
+     */
+    public CompoundComponent(CompoundComponent other) {
+        this(other, other.getParentPane());
+    }
+
+    /**
+     * Create a new deep copy from a Compound Component
+     * @param other The Compound Component to copy
+     * @param displayPane The Pane on which the copy lives
+     */
+    public CompoundComponent(CompoundComponent other, DisplayPane displayPane) {
+        super(other.getRect().getX(), other.getRect().getY(), other.getRect().getWidth(), other.getRect().getHeight(),
+                other.getRect().getFill(), other.getNumInputs(), other.getNumOutputs(), other.getText().getText(),
+                DEFAULT_TEXT_COLOR, displayPane);
+
+        this.definition = other.definition;
+        this.interiorIndices = new IdentityHashMap<>();
+
+        if (other.internalDisplayPane == null) {
+            // Nothing has been viewed or edited yet, so the copy can be built from the definition when needed too
+            this.internalDisplayPane = null;
+        } else {
+            // Set up, copy over, and connect the internal Display Pane and its Components
+            this.internalDisplayPane = new DisplayPane(other.getText().getText() + " View");
+            List<Component> originals = other.internalDisplayPane.getComponents().snapshot();
+            Map<Integer, Component> copies = copyAll(originals, internalDisplayPane);
+            connectComponents(originals, copies);
+            for (Component original : originals) {
+                Integer index = other.interiorIndices.get(original);
+                Component copy = copies.get(original.getId());
+                if (index != null && copy != null) {
+                    interiorIndices.put(copy, index);
+                }
+            }
+        }
+        init();
+    }
+
+    /**
+     * Copy and connect the internals of a new Compound Components from the collection of Components which make it up
+     */
+    private void init() {
+        // Double-click detection to change view to internal display
+        this.lastClickTime = 0;
+        getRect().setOnMousePressed(e -> {
+            if (e.getButton().equals(MouseButton.PRIMARY)) {
+                processPrimaryClick();
+            } else if (e.getButton().equals(MouseButton.SECONDARY)) {
+                removeWithSelection();
+            }
+        });
+
+        for (Port port : getAllPorts()) {
+            new Port(this, port.getType(), port.getPortNum());
+        }
+    }
+
+    /**
+     * Creates a new CompoundComponent from the user-entered fields
+     * @param selection The SelectionArea holding the Components which make up the CompoundComponent
+     * @param widthStr The text currently in the width field
+     * @param heightStr The text currently in the height field
+     * @param color The color currently selected by the ColorPicker
+     * @param name The text currently in the name field
+     * @param displayPane The Pane currently being viewed
+     */
+    public static void makeCompoundComponent(SelectionArea selection, String widthStr, String heightStr,
+                                                   Color color, String name, DisplayPane displayPane) {
+        double width = widthStr.isBlank() ? DEFAULT_WIDTH : Double.parseDouble(widthStr);
+        double height = heightStr.isBlank() ? DEFAULT_HEIGHT : Double.parseDouble(heightStr);
+        name = name.isBlank() ? DEFAULT_TEXT : name;
+
+        DisplayPane internalDisplayPane = new DisplayPane(name + " View");
+        Map<Integer, Component> copies = copyAll(selection.getSelected(), internalDisplayPane);
+        int[] IOCounts = connectComponents(selection.getSelected(), copies);
+
+        boolean containsSomething = !selection.getSelected().isEmpty();
+        if (containsSomething) {
+            CompoundDefinition definition = new CompoundDefinition(name, BoardCapture.toArgb(color), width, height,
+                    BoardCapture.capture(selection.getSelected()));
+            CompoundComponent compound = new CompoundComponent(1, 1, width, height, color, IOCounts[0],
+                    IOCounts[1], name, displayPane, internalDisplayPane, definition);
+            // The definition was captured in selection order
+            int index = 0;
+            for (Component original : selection.getSelected()) {
+                Component copy = copies.get(original.getId());
+                if (copy != null) {
+                    compound.interiorIndices.put(copy, index);
+                }
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Place many instances of one definition in a grid, optionally chaining each to the next. <br>
+     * Instances are built from the shared definition, so no interior Components are created for any of them until
+     * they are looked inside, and the board is only recompiled once for the whole grid. Instances are placed and
+     * chained row by row, left to right.
+     * @param definition The definition to place instances of
+     * @param columns The number of instances in each row
+     * @param rows The number of rows
+     * @param x The x coordinate (in pixels) of the top left instance
+     * @param y The y coordinate (in pixels) of the top left instance
+     * @param chainOutput The output Port of each instance to connect to the next instance, or -1 for no chain
+     * @param chainInput The input Port of each instance the previous instance connects to. Ignored with no chain
+     * @param displayPane The Pane to place the instances on
+     * @return The new instances, in the order they were placed
+     * @throws IllegalArgumentException If the grid is empty or a chain Port does not exist on the definition
+     */
+    public static List<CompoundComponent> instantiateGrid(CompoundDefinition definition, int columns, int rows,
+                                                          double x, double y, int chainOutput, int chainInput,
+                                                          DisplayPane displayPane) {
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("A grid needs at least one row and column, not "
+                    + columns + " by " + rows);
+        }
+        boolean chained = chainOutput >= 0;
+        if (chained && (chainOutput >= definition.getNumOutputs() || chainInput < 0
+                || chainInput >= definition.getNumInputs())) {
+            throw new IllegalArgumentException("No output " + chainOutput + " to input " + chainInput
+                    + " chain on " + definition.getName());
+        }
+
+        double stepX = definition.getWidth() + GRID_GAP;
+        double stepY = definition.getHeight() + GRID_GAP;
+        List<CompoundComponent> instances = new ArrayList<>(columns * rows);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                instances.add(new CompoundComponent(definition, x + column * stepX, y + row * stepY, displayPane));
+            }
+        }
+        if (chained) {
+            for (int i = 1; i < instances.size(); i++) {
+                instances.get(i - 1).getOutputPort(chainOutput).connectTo(instances.get(i), chainInput);
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * Get the definition this CompoundComponent is an instance of
+     * @return This CompoundComponent's definition
+     */
+    public CompoundDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Get the index in the definition's interior of a Component on this CompoundComponent's internal Display Pane
+     * @param interior A Component on the internal Display Pane
+     * @return Its index in the definition's interior, or -1 if it was added after the interior was built
+     */
+    public int getInteriorIndex(Component interior) {
+        Integer index = interiorIndices.get(interior);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Get the Pane showing the interior of this CompoundComponent, if it has been built
+     * @return This CompoundComponent's internal Display Pane, or null if it has not been looked inside yet
+     */
+    public DisplayPane getInteriorView() {
+        return internalDisplayPane;
+    }
+
+    /**
+     * Get the Pane showing the interior of this CompoundComponent, creating its Components from the definition
+     * the first time it is asked for
+     * @return This CompoundComponent's internal Display Pane
+     */
+    private DisplayPane getInternalDisplayPane() {
+        if (internalDisplayPane == null) {
+            internalDisplayPane = new DisplayPane(definition.getName() + " View");
+            List<Component> restored = BoardCapture.restore(definition.getInterior(), internalDisplayPane);
+            for (int i = 0; i < restored.size(); i++) {
+                interiorIndices.put(restored.get(i), i);
+            }
+        }
+        return internalDisplayPane;
+    }
+
+    /**
+     * Process a left click, checking for double clicks.
+     * Tells the Simulation to view this Compound Component's internal world when a double click is detected
+     */
+    private void processPrimaryClick() {
+        long thisClickTime = System.currentTimeMillis();
+        if (thisClickTime - lastClickTime < DOUBLE_CLICK_DELAY) {
+            // Set simulation display Pane to this pane
+            Simulation.setCenterPane(getInternalDisplayPane());
+            lastClickTime = 0;
+        } else {
+            lastClickTime = thisClickTime;
+        }
+    }
+
+    /**
+     * Copy a group of Components onto a Display Pane
+     * @param originals The Components to copy
+     * @param displayPane The Pane to add the copies to
+     * @return The copy of each original, keyed by the original's identifier
+     */
+    private static Map<Integer, Component> copyAll(Collection<Component> originals, DisplayPane displayPane) {
+        Map<Integer, Component> copies = new HashMap<>(originals.size() * 2);
+        for (Component original : originals) {
+            Component copy = original.copy(displayPane);
+            if (copy != null) {
+                copies.put(original.getId(), copy);
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Connect the Components in the internal display Pane in the same manner as those in the SelectionArea which
+     * was used to create this CompoundComponent
+     * @return An int array of length 2, with index 0 being the number of sources needed to cover all unconnected
+     *      input Ports once all original connections have been carried over, and index 1 being the same for
+     *      the number destinations needed to cover unconnected output Ports.
+     */
+    private static int[] connectComponents(Collection<Component> originals, Map<Integer, Component> copies) {
+        int[] IOPortsNeeded = new int[] {0,0};
+        // For every original which was copied
+        for (Component original : originals) {
+            Component copy = copies.get(original.getId());
+            if (copy != null) {
+                Port[] originalPorts = original.getAllPorts();
+                Port[] copyPorts = copy.getAllPorts();
+                // For every port
+                for (int portNum = 0; portNum < originalPorts.length; portNum++) {
+                    Port originalPort = originalPorts[portNum];
+                    Component connectedToOriginal = originalPort.getConnectedComponent();
+                    Component connectedToCopy = connectedToOriginal == null
+                            ? null : copies.get(connectedToOriginal.getId());
+                    // If the port is connected to a Component which is also in the original set
+                    if (connectedToCopy != null) {
+                        // Connect those components
+                        copyPorts[portNum].connectTo(connectedToCopy, originalPort.getConnectedPortNum());
+                    } else {
+                        // Otherwise, the Port was connected from outside or not at all. Either way, it needs somewhere
+                        // to go. Input Ports need a source, output Ports need a destination
+                        IOPortsNeeded[originalPort.isInput() ? 0 : 1]++;
+                    }
+                }
+            }
+        }
+        return IOPortsNeeded;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " with " + getNumInputs() + " ins, " + getNumOutputs() + " outs";
+    }
+}
\ No newline at end of file
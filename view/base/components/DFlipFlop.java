@@ -0,0 +1,28 @@
+package base.components;
+
+import base.fundamentals.Component;
+import base.fundamentals.DisplayPane;
+
+/**
+ * An edge-triggered D flip-flop: a Register holding a single bit. <br>
+ * Input Port 0 is the data bit and input Port 1 is the clock
+ */
+public class DFlipFlop extends RegisterComponent {
+    /** The String displayed on every DFlipFlop */
+    private final static String TEXT = "DFF";
+
+    /**
+     * Create a new DFlipFlop
+     * @param x The x coordinate (in pixels) of the new DFlipFlop
+     * @param y The y coordinate (in pixels) of the new DFlipFlop
+     * @param displayPane The Pane on which to display the DFlipFlop
+     */
+    public DFlipFlop(double x, double y, DisplayPane displayPane) {
+        super(1, x, y, TEXT, displayPane);
+    }
+
+    @Override
+    public Component copy(DisplayPane displayPane) {
+        return new DFlipFlop(getRect().getX(), getRect().getY(), displayPane);
+    }
+}
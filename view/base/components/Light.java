@@ -28,6 +28,9 @@ public class Light extends Component {
     /** The Color of the text on an inactive Light */
     private final static Color OFF_TEXT_COLOR = Color.WHITE;
 
+    /** Whether this Light is currently displayed as on */
+    private boolean shownOn;
+
 
     /**
      * Create a new Light Component
@@ -37,11 +40,17 @@ public class Light extends Component {
      */
     public Light(double x, double y, DisplayPane displayPane) {
         super(x, y, WIDTH, HEIGHT, OFF_COLOR, 1, 0, OFF_TEXT, OFF_TEXT_COLOR, displayPane);
+        this.shownOn = false;
     }
 
     @Override
     public void update() {
         boolean on = getInputPort(0).isOn();
+        if (on == shownOn) {
+            // Changed and changed back within the frame
+            return;
+        }
+        shownOn = on;
         getRect().setFill(on ? ON_COLOR : OFF_COLOR);
         setText(on ? ON_TEXT : OFF_TEXT);
         setTextColor(on ? ON_TEXT_COLOR : OFF_TEXT_COLOR);
@@ -0,0 +1,74 @@
+package base.components;
+
+import base.fundamentals.Component;
+import base.fundamentals.DisplayPane;
+import base.netlist.MemoryBlock;
+import javafx.scene.paint.Color;
+
+/**
+ * A RAM or ROM, whose contents are held by a MemoryBlock. <br>
+ * Its input Ports are the address bits, then for a RAM the data bits and the write input. Its output Ports are
+ * the data bits of the word at the address. The contents are read and written by the core Engine, so a
+ * MemoryComponent only shows its widths.
+ */
+public class MemoryComponent extends Component {
+    /** The width of a MemoryComponent in pixels */
+    private final static double WIDTH = 90;
+    /** The smallest height of a MemoryComponent in pixels */
+    private final static double MIN_HEIGHT = 90;
+    /** The height given to each Port along the taller side, in pixels */
+    private final static double PORT_SPACING = 24;
+    /** The Color of every RAM */
+    private final static Color RAM_COLOR = Color.DARKGREEN;
+    /** The Color of every ROM */
+    private final static Color ROM_COLOR = Color.DARKRED;
+    /** The Color of the text on every MemoryComponent */
+    private final static Color TEXT_COLOR = Color.WHITE;
+
+    /** The contents of this RAM or ROM */
+    private final MemoryBlock memory;
+
+    /**
+     * Create a new MemoryComponent
+     * @param memory The contents of the new RAM or ROM, which belong to it from now on
+     * @param x The x coordinate (in pixels) of the new MemoryComponent
+     * @param y The y coordinate (in pixels) of the new MemoryComponent
+     * @param displayPane The Pane on which to display the MemoryComponent
+     */
+    public MemoryComponent(MemoryBlock memory, double x, double y, DisplayPane displayPane) {
+        super(x, y, WIDTH, height(memory), memory.isReadOnly() ? ROM_COLOR : RAM_COLOR, memory.getNumInputs(),
+                memory.getNumOutputs(), memory.toString(), TEXT_COLOR, displayPane);
+        this.memory = memory;
+    }
+
+    /**
+     * Get a height tall enough to space out every Port of a memory
+     */
+    private static double height(MemoryBlock memory) {
+        return Math.max(MIN_HEIGHT,
+                (Math.max(memory.getNumInputs(), memory.getNumOutputs()) + 1) * PORT_SPACING);
+    }
+
+    /**
+     * Get the contents of this RAM or ROM
+     * @return The MemoryBlock the Engine reads and writes
+     */
+    public MemoryBlock getMemory() {
+        return memory;
+    }
+
+    /**
+     * Creates a copy of this MemoryComponent, with its own copy of a RAM's contents
+     * @param displayPane The Pane to add the copy to
+     * @return The new MemoryComponent
+     */
+    @Override
+    public Component copy(DisplayPane displayPane) {
+        return new MemoryComponent(memory.copy(), getRect().getX(), getRect().getY(), displayPane);
+    }
+
+    @Override
+    public String toString() {
+        return "Memory " + super.toString();
+    }
+}
@@ -29,9 +29,4 @@ public class NOT extends Component {
     public NOT(double x, double y, DisplayPane displayPane) {
         super(x, y, WIDTH, HEIGHT, COLOR, 1, 1, TEXT, TEXT_COLOR, displayPane);
     }
-
-    @Override
-    public void update() {
-        getOutputPort(0).setState(!getInputPort(0).isOn());
-    }
 }
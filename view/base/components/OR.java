@@ -31,11 +31,4 @@ public class OR extends Component {
     public OR(double x, double y, DisplayPane displayPane) {
         super(x, y, WIDTH, HEIGHT, COLOR, 2, 1, TEXT, TEXT_COLOR, displayPane);
     }
-
-    @Override
-    public void update() {
-        boolean in1 = getInputPort(0).isOn();
-        boolean in2 = getInputPort(1).isOn();
-        getOutputPort(0).setState(in1 || in2);
-    }
 }
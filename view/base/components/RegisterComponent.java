@@ -0,0 +1,76 @@
+package base.components;
+
+import base.fundamentals.Component;
+import base.fundamentals.DisplayPane;
+import javafx.scene.paint.Color;
+
+/**
+ * A Register, which holds a number of bits and copies its data inputs to its outputs each time its clock input
+ * turns on. <br>
+ * Its input Ports are the data bits, lowest first, then the clock. Its output Ports are the bits held, lowest
+ * first. The core Engine updates every Register in a commit phase of its own, so a Register holds its bits without
+ * any feedback loop between gates.
+ */
+public class RegisterComponent extends Component {
+    /** The width of a RegisterComponent in pixels */
+    private final static double WIDTH = 90;
+    /** The smallest height of a RegisterComponent in pixels */
+    private final static double MIN_HEIGHT = 60;
+    /** The height given to each input Port, in pixels */
+    private final static double PORT_SPACING = 24;
+    /** The Color of every RegisterComponent */
+    private final static Color COLOR = Color.DARKSLATEBLUE;
+    /** The Color of the text on every RegisterComponent */
+    private final static Color TEXT_COLOR = Color.WHITE;
+
+    /** The number of bits this Register holds */
+    private final int registerWidth;
+
+    /**
+     * Create a new RegisterComponent
+     * @param registerWidth The number of bits the new Register holds
+     * @param x The x coordinate (in pixels) of the new Register
+     * @param y The y coordinate (in pixels) of the new Register
+     * @param displayPane The Pane on which to display the Register
+     */
+    public RegisterComponent(int registerWidth, double x, double y, DisplayPane displayPane) {
+        this(registerWidth, x, y, "Register " + registerWidth, displayPane);
+    }
+
+    /**
+     * Create a new RegisterComponent with its own text
+     * @param registerWidth The number of bits the new Register holds
+     * @param x The x coordinate (in pixels) of the new Register
+     * @param y The y coordinate (in pixels) of the new Register
+     * @param text The text displayed on the new Register
+     * @param displayPane The Pane on which to display the Register
+     */
+    protected RegisterComponent(int registerWidth, double x, double y, String text, DisplayPane displayPane) {
+        super(x, y, WIDTH, Math.max(MIN_HEIGHT, (registerWidth + 2) * PORT_SPACING), COLOR, registerWidth + 1,
+                registerWidth, text, TEXT_COLOR, displayPane);
+        this.registerWidth = registerWidth;
+    }
+
+    /**
+     * Get the number of bits this Register holds
+     * @return The Register's width
+     */
+    public int getRegisterWidth() {
+        return registerWidth;
+    }
+
+    /**
+     * Creates a copy of this RegisterComponent, holding the same number of bits
+     * @param displayPane The Pane to add the copy to
+     * @return The new RegisterComponent
+     */
+    @Override
+    public Component copy(DisplayPane displayPane) {
+        return new RegisterComponent(registerWidth, getRect().getX(), getRect().getY(), displayPane);
+    }
+
+    @Override
+    public String toString() {
+        return "Register " + super.toString();
+    }
+}
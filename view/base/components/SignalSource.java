@@ -53,16 +53,28 @@ public class SignalSource extends Component {
     public void toggle(MouseEvent me) {
         // Don't toggle when you're dragging
         if (me.isStillSincePress()) {
-            on = !on;
-            getRect().setFill(on ? ON_COLOR : OFF_COLOR);
-            setText(on ? ON_TEXT : OFF_TEXT);
-            setTextColor(on ? ON_TEXT_COLOR : OFF_TEXT_COLOR);
+            setOn(!on);
         }
     }
 
-    @Override
-    public void update() {
-        getOutputPort(0).setState(on);
+    /**
+     * Get whether this Signal Source is outputting a signal
+     * @return Whether this Signal Source is on
+     */
+    public boolean isOn() {
+        return on;
+    }
+
+    /**
+     * Set whether this Signal Source is outputting a signal
+     * @param on Whether this Signal Source should be on
+     */
+    public void setOn(boolean on) {
+        this.on = on;
+        getRect().setFill(on ? ON_COLOR : OFF_COLOR);
+        setText(on ? ON_TEXT : OFF_TEXT);
+        setTextColor(on ? ON_TEXT_COLOR : OFF_TEXT_COLOR);
+        getParentPane().notifyComponentChanged(this);
     }
 
     /**
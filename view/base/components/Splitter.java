@@ -28,13 +28,6 @@ public class Splitter extends Component {
         super(x, y, WIDTH, HEIGHT, COLOR, 1, 2, null, null, displayPane);
     }
 
-    @Override
-    public void update() {
-        boolean in1 = getInputPort(0).isOn();
-        getOutputPort(0).setState(in1);
-        getOutputPort(1).setState(in1);
-    }
-
     @Override
     public String toString() {
         return "Splitter " + super.toString();
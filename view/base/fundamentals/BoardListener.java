@@ -0,0 +1,44 @@
+package base.fundamentals;
+
+/**
+ * Receives a notification for every edit made to the Components on a DisplayPane
+ * @see DisplayPane#addBoardListener
+ */
+public interface BoardListener {
+    /**
+     * Called when a new Component is created on the DisplayPane. <br>
+     * This is called from the Component's own constructor, so subclass fields may not be set up yet
+     * @param component The new Component
+     */
+    void componentAdded(Component component);
+
+    /**
+     * Called whenever a Component on the DisplayPane moves
+     * @param component The Component which moved
+     */
+    void componentMoved(Component component);
+
+    /**
+     * Called when a Component is removed from the DisplayPane, after its Connections have been removed
+     * @param component The removed Component
+     */
+    void componentRemoved(Component component);
+
+    /**
+     * Called when the saved state of a Component changes, such as a Signal Source being toggled
+     * @param component The Component which changed
+     */
+    void componentChanged(Component component);
+
+    /**
+     * Called when a Connection between two Ports on the DisplayPane is completed
+     * @param connection The completed Connection
+     */
+    void connected(Connection connection);
+
+    /**
+     * Called when a completed Connection on the DisplayPane is removed
+     * @param connection The removed Connection
+     */
+    void disconnected(Connection connection);
+}
@@ -0,0 +1,449 @@
+package base.fundamentals;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws a DisplayPane into a single Canvas instead of keeping a Node in the scene graph for every Component, Port
+ * and Connection. <br>
+ * The Canvas covers only the visible part of the board. Edits and signal changes mark the area they touch as dirty,
+ * and once the current UI event is finished only that area is cleared and redrawn. Wires are batched into one path
+ * per color, and fills and strokes are only set when they change between Components.
+ * <br><br>
+ * Clicks are tested against the positions of Components, Ports and Connections rather than picked from Nodes.
+ * Mouse events on a Component are passed on to its Rectangle, so Components behave exactly as they do when drawn
+ * with Nodes. Dragging out a new Connection is handled here, since it relies on Node drag gestures.
+ */
+class CanvasRenderer {
+    /** Color of wires which are on, matching Connection */
+    private final static Color WIRE_ON_COLOR = Color.GREEN;
+    /** Color of wires which are off, matching Connection */
+    private final static Color WIRE_OFF_COLOR = Color.BLACK;
+    /** Color of the wire being dragged out of a Port */
+    private final static Color WIRE_DRAG_COLOR = Color.GRAY;
+    /** Width of wires, in pixels, matching Connection */
+    private final static double WIRE_WIDTH = 5.0;
+    /** How far from a wire, in pixels, a click may land and still hit it */
+    private final static double WIRE_HIT_DISTANCE = WIRE_WIDTH / 2 + 2;
+    /** Color of every Port, matching Port */
+    private final static Color PORT_COLOR = Color.SLATEGRAY;
+
+    /** The DisplayPane being drawn */
+    private final DisplayPane displayPane;
+    /** Index of the Components on the DisplayPane, and its visible area */
+    private final Viewport viewport;
+    /** The Canvas everything is drawn to */
+    private final Canvas canvas;
+    /** Receives every mouse event on the Pane */
+    private final EventHandler<MouseEvent> mouseHandler;
+    /** Repaints everything when the view scrolls, resizes or is shown, kept so it can be removed again */
+    private final InvalidationListener repaintListener;
+
+    /** Whether anything needs redrawing */
+    private boolean dirty;
+    /** Bounds of the area needing redrawing, in Pane coordinates */
+    private double dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY;
+    /** Whether a paint has already been scheduled for the end of the current UI event */
+    private boolean paintScheduled;
+
+    /** Rectangle of the Component the current mouse gesture started on, which receives the rest of it */
+    private Rectangle pressedRect;
+    /** Connection the current mouse gesture started on */
+    private Connection pressedConnection;
+    /** Port a new Connection is being dragged out of */
+    private Port draggingFrom;
+    /** Where the new Connection being dragged out currently ends */
+    private double dragX, dragY;
+
+    /**
+     * Start drawing a DisplayPane to a Canvas. The Pane's Nodes are expected to be detached already
+     * @param displayPane The DisplayPane to draw
+     * @param viewport The DisplayPane's Viewport
+     */
+    CanvasRenderer(DisplayPane displayPane, Viewport viewport) {
+        this.displayPane = displayPane;
+        this.viewport = viewport;
+        this.canvas = new Canvas();
+        this.mouseHandler = this::handleMouse;
+        this.repaintListener = o -> repaintAll();
+        this.dirty = false;
+        this.paintScheduled = false;
+
+        Pane pane = displayPane.getPane();
+        pane.getChildren().add(canvas);
+        pane.addEventHandler(MouseEvent.ANY, mouseHandler);
+
+        ScrollPane scrollPane = viewport.getScrollPane();
+        scrollPane.hvalueProperty().addListener(repaintListener);
+        scrollPane.vvalueProperty().addListener(repaintListener);
+        scrollPane.viewportBoundsProperty().addListener(repaintListener);
+        canvas.sceneProperty().addListener(repaintListener);
+        repaintAll();
+    }
+
+    /**
+     * Stop drawing, removing the Canvas from the Pane and every listener added to the ScrollPane, so nothing keeps
+     * this CanvasRenderer reachable or repainting
+     */
+    void dispose() {
+        Pane pane = displayPane.getPane();
+        pane.getChildren().remove(canvas);
+        pane.removeEventHandler(MouseEvent.ANY, mouseHandler);
+
+        ScrollPane scrollPane = viewport.getScrollPane();
+        scrollPane.hvalueProperty().removeListener(repaintListener);
+        scrollPane.vvalueProperty().removeListener(repaintListener);
+        scrollPane.viewportBoundsProperty().removeListener(repaintListener);
+        canvas.sceneProperty().removeListener(repaintListener);
+    }
+
+    /**
+     * Mark everything currently visible as needing redrawing
+     */
+    void repaintAll() {
+        Bounds visible = viewport.getVisibleArea();
+        markDirty(visible.getMinX(), visible.getMinY(), visible.getMaxX(), visible.getMaxY());
+    }
+
+    /**
+     * Mark a Component, including its Ports, as needing redrawing
+     * @param component The Component which changed
+     */
+    void repaint(Component component) {
+        Rectangle rect = component.getRect();
+        markDirty(rect.getX() - Port.RADIUS, rect.getY() - Port.RADIUS,
+                rect.getX() + rect.getWidth() + Port.RADIUS, rect.getY() + rect.getHeight() + Port.RADIUS);
+    }
+
+    /**
+     * Mark the wire of a Connection as needing redrawing
+     * @param connection The Connection which changed
+     */
+    void repaint(Connection connection) {
+        if (connection.isComplete()) {
+            repaintWire(connection.getSourcePort(), connection.getDestPort());
+        }
+    }
+
+    private void repaintWire(Port from, Port to) {
+        double fromX = from.getCircle().getCenterX();
+        double fromY = from.getCircle().getCenterY();
+        double toX = to.getCircle().getCenterX();
+        double toY = to.getCircle().getCenterY();
+        markDirty(Math.min(fromX, toX) - Port.RADIUS, Math.min(fromY, toY) - Port.RADIUS,
+                Math.max(fromX, toX) + Port.RADIUS, Math.max(fromY, toY) + Port.RADIUS);
+    }
+
+    private void markDirty(double minX, double minY, double maxX, double maxY) {
+        if (dirty) {
+            dirtyMinX = Math.min(dirtyMinX, minX);
+            dirtyMinY = Math.min(dirtyMinY, minY);
+            dirtyMaxX = Math.max(dirtyMaxX, maxX);
+            dirtyMaxY = Math.max(dirtyMaxY, maxY);
+        } else {
+            dirty = true;
+            dirtyMinX = minX;
+            dirtyMinY = minY;
+            dirtyMaxX = maxX;
+            dirtyMaxY = maxY;
+        }
+        if (!paintScheduled) {
+            paintScheduled = true;
+            Platform.runLater(this::paint);
+        }
+    }
+
+    /**
+     * Redraw the dirty area. Nothing is drawn while the DisplayPane is not being shown
+     */
+    private void paint() {
+        paintScheduled = false;
+        if (!dirty || canvas.getScene() == null) {
+            return;
+        }
+        dirty = false;
+
+        Bounds visible = viewport.getVisibleArea();
+        if (canvas.getWidth() != visible.getWidth() || canvas.getHeight() != visible.getHeight()
+                || canvas.getLayoutX() != visible.getMinX() || canvas.getLayoutY() != visible.getMinY()) {
+            canvas.setWidth(visible.getWidth());
+            canvas.setHeight(visible.getHeight());
+            canvas.relocate(visible.getMinX(), visible.getMinY());
+            dirtyMinX = visible.getMinX();
+            dirtyMinY = visible.getMinY();
+            dirtyMaxX = visible.getMaxX();
+            dirtyMaxY = visible.getMaxY();
+        }
+        double minX = Math.max(dirtyMinX, visible.getMinX());
+        double minY = Math.max(dirtyMinY, visible.getMinY());
+        double maxX = Math.min(dirtyMaxX, visible.getMaxX());
+        double maxY = Math.min(dirtyMaxY, visible.getMaxY());
+        if (minX >= maxX || minY >= maxY) {
+            return;
+        }
+        Bounds area = new BoundingBox(minX, minY, maxX - minX, maxY - minY);
+
+        List<Component> onScreen = new ArrayList<>();
+        viewport.forEachIntersecting(visible, onScreen::add);
+        // Wires can cross the screen without either end being on it, so they are found through their own index
+        List<Connection> wires = new ArrayList<>();
+        viewport.forEachWireIntersecting(new BoundingBox(minX - WIRE_WIDTH, minY - WIRE_WIDTH,
+                maxX - minX + 2 * WIRE_WIDTH, maxY - minY + 2 * WIRE_WIDTH), wires::add);
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.save();
+        gc.translate(-visible.getMinX(), -visible.getMinY());
+        gc.beginPath();
+        gc.rect(minX, minY, maxX - minX, maxY - minY);
+        gc.clip();
+        gc.clearRect(minX, minY, maxX - minX, maxY - minY);
+
+        drawComponents(gc, onScreen, area);
+        drawWires(gc, wires);
+        drawPorts(gc, onScreen, area);
+        if (draggingFrom != null) {
+            gc.setStroke(WIRE_DRAG_COLOR);
+            gc.setLineWidth(WIRE_WIDTH);
+            gc.strokeLine(draggingFrom.getCircle().getCenterX(), draggingFrom.getCircle().getCenterY(), dragX, dragY);
+        }
+        gc.restore();
+    }
+
+    private void drawComponents(GraphicsContext gc, List<Component> components, Bounds area) {
+        Paint fill = null;
+        Paint stroke = null;
+        double strokeWidth = -1;
+        for (Component component : components) {
+            Rectangle rect = component.getRect();
+            if (!rect.getBoundsInLocal().intersects(area)) {
+                continue;
+            }
+            if (rect.getFill() != fill) {
+                fill = rect.getFill();
+                gc.setFill(fill);
+            }
+            if (rect.getStroke() != stroke) {
+                stroke = rect.getStroke();
+                gc.setStroke(stroke);
+            }
+            if (rect.getStrokeWidth() != strokeWidth) {
+                strokeWidth = rect.getStrokeWidth();
+                gc.setLineWidth(strokeWidth);
+            }
+            gc.fillRoundRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(),
+                    rect.getArcWidth(), rect.getArcHeight());
+            gc.strokeRoundRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(),
+                    rect.getArcWidth(), rect.getArcHeight());
+        }
+
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        fill = null;
+        for (Component component : components) {
+            Rectangle rect = component.getRect();
+            Text text = component.getText();
+            if (text.getText() == null || text.getText().isEmpty() || !rect.getBoundsInLocal().intersects(area)) {
+                continue;
+            }
+            if (text.getFill() != fill) {
+                fill = text.getFill();
+                gc.setFill(fill);
+            }
+            gc.setFont(text.getFont());
+            gc.fillText(text.getText(), rect.getX() + rect.getWidth() / 2, rect.getY() + rect.getHeight() / 2);
+        }
+    }
+
+    /**
+     * Draw every wire found crossing the area as part of one path per color
+     */
+    private void drawWires(GraphicsContext gc, List<Connection> wires) {
+        gc.setLineWidth(WIRE_WIDTH);
+        for (boolean on : new boolean[] {false, true}) {
+            gc.beginPath();
+            for (Connection connection : wires) {
+                Port output = connection.getSourcePort();
+                if (output.isOn() == on) {
+                    Port input = connection.getDestPort();
+                    gc.moveTo(output.getCircle().getCenterX(), output.getCircle().getCenterY());
+                    gc.lineTo(input.getCircle().getCenterX(), input.getCircle().getCenterY());
+                }
+            }
+            gc.setStroke(on ? WIRE_ON_COLOR : WIRE_OFF_COLOR);
+            gc.stroke();
+        }
+    }
+
+    /**
+     * Draw every Port in the area as part of one path
+     */
+    private void drawPorts(GraphicsContext gc, List<Component> components, Bounds area) {
+        gc.beginPath();
+        for (Component component : components) {
+            for (Port port : component.getAllPorts()) {
+                double x = port.getCircle().getCenterX();
+                double y = port.getCircle().getCenterY();
+                if (area.intersects(x - Port.RADIUS, y - Port.RADIUS, 2 * Port.RADIUS, 2 * Port.RADIUS)) {
+                    gc.moveTo(x + Port.RADIUS, y);
+                    gc.arc(x, y, Port.RADIUS, Port.RADIUS, 0, 360);
+                    gc.closePath();
+                }
+            }
+        }
+        gc.setFill(PORT_COLOR);
+        gc.fill();
+    }
+
+    /**
+     * Find what is drawn at a point, checking Ports first since they overlap the edges of Components
+     * @param x The x coordinate, in Pane coordinates
+     * @param y The y coordinate, in Pane coordinates
+     * @return The Port, Component or Connection at the point, or null if there is nothing there
+     */
+    Object pick(double x, double y) {
+        Object[] found = new Object[1];
+        Bounds near = new BoundingBox(x - Port.RADIUS, y - Port.RADIUS, 2 * Port.RADIUS, 2 * Port.RADIUS);
+        viewport.forEachIntersecting(near, component -> {
+            for (Port port : component.getAllPorts()) {
+                double dx = port.getCircle().getCenterX() - x;
+                double dy = port.getCircle().getCenterY() - y;
+                if (dx * dx + dy * dy <= Port.RADIUS * Port.RADIUS) {
+                    found[0] = port;
+                }
+            }
+        });
+        if (found[0] == null) {
+            viewport.forEachIntersecting(near, component -> {
+                if (component.getRect().contains(x, y)) {
+                    found[0] = component;
+                }
+            });
+        }
+        if (found[0] == null) {
+            Bounds search = new BoundingBox(x - WIRE_HIT_DISTANCE, y - WIRE_HIT_DISTANCE,
+                    2 * WIRE_HIT_DISTANCE, 2 * WIRE_HIT_DISTANCE);
+            viewport.forEachWireIntersecting(search, connection -> {
+                if (onWire(connection.getSourcePort(), connection.getDestPort(), x, y)) {
+                    found[0] = connection;
+                }
+            });
+        }
+        return found[0];
+    }
+
+    /**
+     * Get whether a point is within clicking distance of the wire between two Ports
+     */
+    private static boolean onWire(Port from, Port to, double x, double y) {
+        double fromX = from.getCircle().getCenterX();
+        double fromY = from.getCircle().getCenterY();
+        double dx = to.getCircle().getCenterX() - fromX;
+        double dy = to.getCircle().getCenterY() - fromY;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((x - fromX) * dx + (y - fromY) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double distanceX = fromX + t * dx - x;
+        double distanceY = fromY + t * dy - y;
+        return distanceX * distanceX + distanceY * distanceY <= WIRE_HIT_DISTANCE * WIRE_HIT_DISTANCE;
+    }
+
+    /**
+     * Route a mouse event on the Pane to whatever is drawn under it
+     */
+    private void handleMouse(MouseEvent me) {
+        if (me.getEventType() == MouseEvent.MOUSE_PRESSED) {
+            pressedRect = null;
+            pressedConnection = null;
+            Object target = pick(me.getX(), me.getY());
+            if (target instanceof Component component) {
+                pressedRect = component.getRect();
+            } else if (target instanceof Connection connection) {
+                pressedConnection = connection;
+            } else if (target instanceof Port port) {
+                if (me.getButton() == MouseButton.SECONDARY) {
+                    port.removeConnection();
+                } else if (me.getButton() == MouseButton.PRIMARY) {
+                    draggingFrom = port;
+                    dragX = me.getX();
+                    dragY = me.getY();
+                }
+            }
+        }
+
+        if (pressedRect != null) {
+            forward(me, pressedRect);
+        } else if (draggingFrom != null) {
+            dragConnection(me);
+        } else if (pressedConnection != null && me.getEventType() == MouseEvent.MOUSE_CLICKED
+                && me.getButton() == MouseButton.SECONDARY) {
+            pressedConnection.remove();
+            pressedConnection = null;
+        }
+
+        if (me.getEventType() == MouseEvent.MOUSE_RELEASED) {
+            pressedConnection = null;
+        } else if (me.getEventType() == MouseEvent.MOUSE_CLICKED) {
+            pressedRect = null;
+        }
+    }
+
+    /**
+     * Follow the mouse with a new Connection, and complete it if released over a free Port of the other type
+     */
+    private void dragConnection(MouseEvent me) {
+        Port from = draggingFrom;
+        if (me.getEventType() == MouseEvent.DRAG_DETECTED) {
+            // Dragging out of a connected Port replaces its Connection
+            from.removeConnection();
+        } else if (me.getEventType() == MouseEvent.MOUSE_DRAGGED) {
+            markDirty(Math.min(from.getCircle().getCenterX(), Math.min(dragX, me.getX())) - WIRE_WIDTH,
+                    Math.min(from.getCircle().getCenterY(), Math.min(dragY, me.getY())) - WIRE_WIDTH,
+                    Math.max(from.getCircle().getCenterX(), Math.max(dragX, me.getX())) + WIRE_WIDTH,
+                    Math.max(from.getCircle().getCenterY(), Math.max(dragY, me.getY())) + WIRE_WIDTH);
+            dragX = me.getX();
+            dragY = me.getY();
+        } else if (me.getEventType() == MouseEvent.MOUSE_RELEASED) {
+            draggingFrom = null;
+            markDirty(Math.min(from.getCircle().getCenterX(), dragX) - WIRE_WIDTH,
+                    Math.min(from.getCircle().getCenterY(), dragY) - WIRE_WIDTH,
+                    Math.max(from.getCircle().getCenterX(), dragX) + WIRE_WIDTH,
+                    Math.max(from.getCircle().getCenterY(), dragY) + WIRE_WIDTH);
+            if (pick(me.getX(), me.getY()) instanceof Port to && !to.isConnected() && to.isInput() != from.isInput()) {
+                from.connectTo(to.getParent(), to.getPortNum());
+            }
+        }
+        me.consume();
+    }
+
+    /**
+     * Pass a mouse event on to a Component's Rectangle. <br>
+     * The Rectangle is not in the scene, so the event is rebuilt with it as the source to keep Pane coordinates
+     */
+    private static void forward(MouseEvent me, Node target) {
+        Event.fireEvent(target, new MouseEvent(target, target, me.getEventType(), me.getX(), me.getY(),
+                me.getScreenX(), me.getScreenY(), me.getButton(), me.getClickCount(), me.isShiftDown(),
+                me.isControlDown(), me.isAltDown(), me.isMetaDown(), me.isPrimaryButtonDown(),
+                me.isMiddleButtonDown(), me.isSecondaryButtonDown(), me.isSynthesized(), me.isPopupTrigger(),
+                me.isStillSincePress(), null));
+    }
+}
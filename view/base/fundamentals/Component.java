@@ -1,5 +1,6 @@
 package base.fundamentals;
 
+import base.components.ComponentFactories;
 import base.components.CompoundComponent;
 import javafx.geometry.Bounds;
 import javafx.geometry.VPos;
@@ -27,6 +28,11 @@ public abstract class Component implements Comparable<Component>{
     /** Default border width on the display Rectangle */
     private final static double STROKE_WIDTH = 2.0;
 
+    /** Identifier given to the next Component created */
+    private static int nextId = 0;
+    /** Identifier of this Component, unique for the lifetime of the program */
+    private final int id;
+
     /** Font used by all text displayed on Components */
     private final static Font DEFAULT_FONT = Font.getDefault();
     /** Text field placed on the center of every Component */
@@ -38,6 +44,8 @@ public abstract class Component implements Comparable<Component>{
     private final Rectangle rect;
     /** The Display Pane this Component lives on */
     private final DisplayPane parentPane;
+    /** Whether this Component has been removed from its Display Pane */
+    private boolean removed;
 
     /** Number of input Ports on this Component */
     private final int numInputs;
@@ -60,8 +68,6 @@ public abstract class Component implements Comparable<Component>{
     private boolean selected;
     /** The SelectionArea this Component is being multi-selected with */
     private SelectionArea selector;
-    /** Whether this Component should relay MouseEvents to other selected Components. Used to avoid feedback loops */
-    private boolean canEcho;
 
     /**
      * Set up the basic fields of a new object extending from Component
@@ -78,6 +84,8 @@ public abstract class Component implements Comparable<Component>{
      */
     public Component(double x, double y, double width, double height, Paint color, int numInputs, int numOutputs,
                      String defaultText, Color defaultTextColor, DisplayPane displayPane) {
+        this.id = nextId++;
+
         // Set up basic Rectangle fields
         this.rect = new Rectangle(width, height);
         rect.setX(x);
@@ -96,6 +104,7 @@ public abstract class Component implements Comparable<Component>{
         rect.setUserData(this);
 
         this.parentPane = displayPane;
+        this.removed = false;
 
         // Set up display text
         this.text = new Text();
@@ -115,7 +124,6 @@ public abstract class Component implements Comparable<Component>{
         // Init multiselect vars
         this.selected = false;
         this.selector = null;
-        this.canEcho = true;
 
         displayPane.addChildren(rect, text);
 
@@ -133,47 +141,46 @@ public abstract class Component implements Comparable<Component>{
         }
 
         // Input Handlers
-        // Delete on left click
+        // Delete on right click, taking the rest of the selection along
         rect.setOnMousePressed(e -> {
             if (e.getButton() == MouseButton.SECONDARY) {
-                remove();
-                if (selected && canEcho) {
-                    selector.echo(this, e);
-                }
+                removeWithSelection();
             }
         });
 
         // Save drag start pos on drag start
         rect.setOnDragDetected(e -> {
             inDrag = true;
+            parentPane.startDrag();
             dragOffsetX = e.getX() - rect.getX();
             dragOffsetY = e.getY() - rect.getY();
-
-            if (selected && canEcho) {
-                selector.echo(this, e);
-            }
         });
 
-        // Move on mouse drag
+        // Move on mouse drag, taking the rest of the selection along
         rect.setOnMouseDragged(e -> {
             if (inDrag) {
-                move(e.getX() - dragOffsetX, e.getY() - dragOffsetY);
-                if (selected && canEcho) {
-                    selector.echo(this, e);
-                }
+                dragTo(e.getX() - dragOffsetX, e.getY() - dragOffsetY);
             }
         });
 
         // Stop dragging when mouse released
         rect.setOnMouseReleased(e -> {
             if (inDrag) {
-                move(e.getX() - dragOffsetX, e.getY() - dragOffsetY);
+                dragTo(e.getX() - dragOffsetX, e.getY() - dragOffsetY);
                 inDrag = false;
-                if (selected && canEcho) {
-                    selector.echo(this, e);
-                }
+                parentPane.endDrag();
             }
         });
+
+        displayPane.notifyComponentAdded(this);
+    }
+
+    /**
+     * Get the identifier of this Component
+     * @return This Component's identifier
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -250,6 +257,7 @@ public abstract class Component implements Comparable<Component>{
      */
     public void setTextColor(Color textColor) {
         text.setFill(textColor);
+        parentPane.repaint(this);
     }
 
     /**
@@ -260,6 +268,7 @@ public abstract class Component implements Comparable<Component>{
         text.setText(newText);
         this.halfTextWidth = text.getLayoutBounds().getCenterX() - text.getX();
         centerAlignText();
+        parentPane.repaint(this);
     }
 
     /**
@@ -276,8 +285,28 @@ public abstract class Component implements Comparable<Component>{
      * @param y The y position (in pixels) to move this Component to
      */
     public void move(double x, double y) {
-        // Calculate the boundaries for sensible movement (don't go past screen edges)
-        Bounds bounds = rect.getParent().getLayoutBounds();
+        // Don't go past screen edges
+        setPosition(clampX(x), clampY(y));
+    }
+
+    /**
+     * Move this Component, or the whole selection if it is selected, so this Component ends up at a position
+     */
+    private void dragTo(double x, double y) {
+        if (selected) {
+            selector.moveGroup(this, x, y);
+        } else {
+            move(x, y);
+        }
+    }
+
+    /**
+     * Get the closest x position to the one given which keeps this Component within the screen edges
+     * @param x The x position (in pixels) this Component would be moved to
+     * @return The x position (in pixels) this Component can be moved to
+     */
+    double clampX(double x) {
+        Bounds bounds = parentPane.getPane().getLayoutBounds();
 
         double inPortAdjustment = Math.min(numInputs, 1) * Port.RADIUS;
         double minInBoundsX = bounds.getMinX() + inPortAdjustment;
@@ -285,16 +314,75 @@ public abstract class Component implements Comparable<Component>{
         double outPortAdjustment = Math.min(numOutputs, 1) * Port.RADIUS;
         double maxInBoundsX = bounds.getMaxX() - rect.getWidth() - outPortAdjustment;
 
+        return Math.max( Math.min(x, maxInBoundsX), minInBoundsX );
+    }
+
+    /**
+     * Get the closest y position to the one given which keeps this Component within the screen edges
+     * @param y The y position (in pixels) this Component would be moved to
+     * @return The y position (in pixels) this Component can be moved to
+     */
+    double clampY(double y) {
+        Bounds bounds = parentPane.getPane().getLayoutBounds();
         double maxInBoundsY = bounds.getMaxY() - rect.getHeight();
+        return Math.max( Math.min(y, maxInBoundsY), bounds.getMinY() );
+    }
 
-        x = Math.max( Math.min(x, maxInBoundsX), minInBoundsX );
-        y = Math.max( Math.min(y, maxInBoundsY), bounds.getMinY() );
+    /**
+     * Shift this Component as part of a group move. <br>
+     * Only the Rectangle and Text move straight away. The Ports and Connections follow, and BoardListeners are
+     * told, once at the end of the frame however many times the group moves before then
+     * @param dx Distance (in pixels) to move right
+     * @param dy Distance (in pixels) to move down
+     */
+    void translate(double dx, double dy) {
+        repaintWithConnections();
+        rect.setX(rect.getX() + dx);
+        rect.setY(rect.getY() + dy);
+        centerAlignText();
+        parentPane.markMoved(this);
+    }
+
+    /**
+     * Bring the Ports and Connections of this Component up to date after one or more calls to translate
+     */
+    void finishMove() {
+        if (removed) {
+            return;
+        }
+        for (Port port : getAllPorts()) {
+            port.updatePosition();
+        }
+        repaintWithConnections();
+        parentPane.notifyComponentMoved(this);
+    }
 
-        // Actually move the Component
+    /**
+     * Place this Component at an exact position, without keeping it within the screen edges. <br>
+     * Used when rebuilding a saved board, before the display has been laid out
+     * @param x The x position (in pixels) to move this Component to
+     * @param y The y position (in pixels) to move this Component to
+     */
+    public void setPosition(double x, double y) {
+        repaintWithConnections();
         rect.setX(x);
         rect.setY(y);
         centerAlignText();
         Arrays.stream(getAllPorts()).forEach(Port::updatePosition);
+        repaintWithConnections();
+        parentPane.notifyComponentMoved(this);
+    }
+
+    /**
+     * Redraw this Component and every Connection attached to it the next time its Display Pane is drawn
+     */
+    private void repaintWithConnections() {
+        parentPane.repaint(this);
+        for (Port port : getAllPorts()) {
+            if (port.isConnected()) {
+                parentPane.repaint(port.getConnection());
+            }
+        }
     }
 
     /**
@@ -302,27 +390,30 @@ public abstract class Component implements Comparable<Component>{
      * Components
      */
     public void remove() {
-        if (rect.getParent() != null) {
+        if (!removed) {
+            removed = true;
+            if (inDrag) {
+                // The release which would end the drag will never reach a removed Component
+                inDrag = false;
+                parentPane.endDrag();
+            }
             parentPane.removeChildren(rect, text);
             for (Port port : getAllPorts()) {
                 port.remove();
             }
+            parentPane.notifyComponentRemoved(this);
         }
     }
 
     /**
-     * Set this Component to be able to echo MouseEvents to other selected Components
-     */
-    public void allowEcho() {
-        canEcho = true;
-    }
-
-    /**
-     * Stop this Component from echoing MouseEvents to other selected Components.
-     * Should be called whenever receiving an echo to avoid feedback loops.
+     * Remove this Component, along with the rest of its multi-selection if it is part of one
      */
-    public void disallowEcho() {
-        canEcho = false;
+    public void removeWithSelection() {
+        if (selected) {
+            selector.removeSelected();
+        } else {
+            remove();
+        }
     }
 
     /**
@@ -333,6 +424,7 @@ public abstract class Component implements Comparable<Component>{
             selected = true;
             this.selector = selector;
             rect.setStrokeWidth(rect.getStrokeWidth() * 2);
+            parentPane.repaint(this);
         }
     }
 
@@ -343,32 +435,36 @@ public abstract class Component implements Comparable<Component>{
         selected = false;
         selector = null;
         rect.setStrokeWidth(STROKE_WIDTH);
+        parentPane.repaint(this);
     }
 
     /**
      * Creates a deep copy of this Component, adding it to the specified screen
      * @param displayPane The Pane to add this new Component to
+     * @return The new Component, or null if it could not be created
      */
-    public void copy(DisplayPane displayPane) {
-        Rectangle rect = getRect();
+    public Component copy(DisplayPane displayPane) {
         if (getClass() == CompoundComponent.class) {
-            new CompoundComponent((CompoundComponent) this);
-        } else {
-            try {
-                getClass().getDeclaredConstructor(Double.TYPE, Double.TYPE, DisplayPane.class)
-                        .newInstance(rect.getX(), rect.getY(), displayPane);
-            } catch (Exception e) {
-                System.out.println("Exception during copying process: " + e.getClass() + " " + e.getLocalizedMessage());
-            }
+            return new CompoundComponent((CompoundComponent) this, displayPane);
         }
+        ComponentFactory factory = ComponentFactories.forClass(getClass());
+        if (factory == null) {
+            System.out.println("No ComponentFactory registered for " + getClass().getName() + ", so it was not copied");
+            return null;
+        }
+        return factory.create(rect.getX(), rect.getY(), displayPane);
     }
 
     /**
-     * Method which is called once per logic cycle to progress a Component's state.
+     * Method which is called at the end of a display frame in which the state of one of this Component's input
+     * Ports changed, while its Display Pane is being shown.
      * <br>
-     * Should implement each Component's unique logical functionality
+     * Components which show their signals, such as Lights, should refresh their display here. The logic of each
+     * Component is simulated by the core Engine, not by its view
      */
-    public abstract void update();
+    public void update() {
+
+    }
 
     /**
      * Provides a baseline String representation of a Component.
@@ -387,19 +483,20 @@ public abstract class Component implements Comparable<Component>{
 
     /**
      * Gives a hashcode for this Component <br>
-     * Hashcode is based on its Rectangle, so two components with the same Rectangle are considered equal.
+     * Hashcode is based on its identifier, so it does not change as the Component moves.
      * @return A hashcode for this Component
      */
     @Override
     public int hashCode() {
-        return (int) (rect.getX() * numInputs + rect.getY() * (17.4 + numOutputs));
+        return Integer.hashCode(id);
     }
 
     /**
      * Defines a natural ordering of Components.
      * Components which are placed higher on the screen are defined as less than another Component.
      * A Component which is of equal y-value to another Component but lesser x-value is defined as less than.
-     * Components which have exactly the same positioning are considered equal.
+     * Components which have exactly the same positioning are ordered by identifier, so only a Component is equal
+     * to itself.
      * @param o the object to be compared.
      * @return A negative integer if the other Component is less than this Component, 0 if equal, and a positive
      *      integer otherwise
@@ -407,23 +504,26 @@ public abstract class Component implements Comparable<Component>{
     @Override
     public int compareTo(Component o) {
         Rectangle otherRect = o.getRect();
-        int res = (int) (rect.getY() - otherRect.getY());
+        int res = Double.compare(rect.getY(), otherRect.getY());
+        if (res == 0) {
+            res = Double.compare(rect.getX(), otherRect.getX());
+        }
         if (res == 0) {
-            res = (int) (rect.getX() - otherRect.getX());
+            res = Integer.compare(id, o.id);
         }
         return res;
     }
 
     /**
-     * Two Components are equal if they have the same underlying Rectangle
+     * Two Components are equal if they have the same identifier. <br>
+     * Identifiers are never reused, so a Component is only equal to itself, even if another sits in the same place
      * @param obj The object to compare
-     * @return False unless obj is a Component with an equivalent Rectangle
+     * @return False unless obj is a Component with the same identifier
      */
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Component) {
-            Rectangle otherRect = ((Component) obj).getRect();
-            return rect.getX() == otherRect.getX() && rect.getY() == otherRect.getY();
+            return id == ((Component) obj).id;
         }
         return false;
     }
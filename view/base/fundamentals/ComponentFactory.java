@@ -0,0 +1,64 @@
+package base.fundamentals;
+
+/**
+ * Creates one kind of Component. <br>
+ * Every kind of Component which can be placed from the editor or copied has a factory registered with
+ * ComponentFactories. Other jars can add their own by listing an implementation of this interface, with a public
+ * no-argument constructor, in META-INF/services/base.fundamentals.ComponentFactory.
+ */
+public interface ComponentFactory {
+    /**
+     * Builds a Component at a position. Usually a constructor reference
+     */
+    @FunctionalInterface
+    interface Constructor {
+        Component create(double x, double y, DisplayPane displayPane);
+    }
+
+    /**
+     * Get the name this kind of Component is listed under in the editor
+     * @return The name to list, unique among every registered factory
+     */
+    String getName();
+
+    /**
+     * Get the class of the Components this factory creates
+     * @return The exact class created, used to find the factory when copying
+     */
+    Class<? extends Component> getComponentClass();
+
+    /**
+     * Create a new Component
+     * @param x The x coordinate (in pixels) of the new Component
+     * @param y The y coordinate (in pixels) of the new Component
+     * @param displayPane The Pane to add the new Component to
+     * @return The new Component
+     */
+    Component create(double x, double y, DisplayPane displayPane);
+
+    /**
+     * Make a factory from a constructor
+     * @param name The name to list the Components under
+     * @param componentClass The exact class the constructor creates
+     * @param constructor Creates each Component
+     * @return A factory calling the constructor
+     */
+    static ComponentFactory of(String name, Class<? extends Component> componentClass, Constructor constructor) {
+        return new ComponentFactory() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Class<? extends Component> getComponentClass() {
+                return componentClass;
+            }
+
+            @Override
+            public Component create(double x, double y, DisplayPane displayPane) {
+                return constructor.create(x, y, displayPane);
+            }
+        };
+    }
+}
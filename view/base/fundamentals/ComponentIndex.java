@@ -0,0 +1,84 @@
+package base.fundamentals;
+
+import javafx.geometry.Bounds;
+import javafx.scene.shape.Rectangle;
+
+import java.util.function.Consumer;
+
+/**
+ * A quadtree of every Component on a DisplayPane, by the area its Rectangle covers. <br>
+ * Each Component is stored in the smallest square which fully contains it, so finding what lies under a point or
+ * inside a box only visits the squares which overlap it. The tree grows outwards as Components are placed beyond
+ * it, and is kept up to date by the DisplayPane as Components are added, moved and removed.
+ */
+public class ComponentIndex {
+    /** Every Component, by the area its Rectangle covered when it was last added or moved */
+    private final QuadTree<Component> tree;
+
+    public ComponentIndex() {
+        this.tree = new QuadTree<>();
+    }
+
+    /**
+     * Get the number of Components in the index
+     * @return The number of Components
+     */
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * Add a Component at its current position
+     * @param component The Component to add
+     */
+    public void add(Component component) {
+        Rectangle rect = component.getRect();
+        tree.put(component, rect.getX(), rect.getY(), rect.getX() + rect.getWidth(), rect.getY() + rect.getHeight());
+    }
+
+    /**
+     * Move a Component to match its current position
+     * @param component The Component which moved
+     */
+    public void move(Component component) {
+        Rectangle rect = component.getRect();
+        tree.move(component, rect.getX(), rect.getY(), rect.getX() + rect.getWidth(), rect.getY() + rect.getHeight());
+    }
+
+    /**
+     * Remove a Component
+     * @param component The Component to remove
+     */
+    public void remove(Component component) {
+        tree.remove(component);
+    }
+
+    /**
+     * Visit every Component whose Rectangle intersects an area
+     * @param area The area to search, in Pane coordinates
+     * @param visitor Called once for each Component found
+     */
+    public void forEachIntersecting(Bounds area, Consumer<Component> visitor) {
+        tree.forEachIntersecting(area, visitor);
+    }
+
+    /**
+     * Visit every Component in the index
+     * @param visitor Called once for each Component
+     */
+    public void forEach(Consumer<Component> visitor) {
+        tree.forEach(visitor);
+    }
+
+    /**
+     * Find a Component whose Rectangle contains a point
+     * @param x The x coordinate, in Pane coordinates
+     * @param y The y coordinate, in Pane coordinates
+     * @return The Component found, or null if there is none
+     */
+    public Component componentAt(double x, double y) {
+        Component[] found = new Component[1];
+        tree.forEachIntersecting(x, y, x, y, component -> found[0] = component);
+        return found[0];
+    }
+}
@@ -77,6 +77,7 @@ public class Connection {
         this.line = new Line(srcCircle.getCenterX(), srcCircle.getCenterY(),
                 dstCircle.getCenterX(), dstCircle.getCenterY());
         setUpLine(line);
+        getDisplayPane().notifyConnected(this);
     }
 
     /**
@@ -98,7 +99,23 @@ public class Connection {
             }
         });
 
-        (complete ? sourcePort : anchorPort).getParent().getParentPane().addChildren(line);
+        getDisplayPane().addChildren(line);
+    }
+
+    /**
+     * Get the Display Pane this Connection lives on
+     * @return The Display Pane of the Port this Connection started from
+     */
+    private DisplayPane getDisplayPane() {
+        return (complete ? sourcePort : anchorPort).getParent().getParentPane();
+    }
+
+    /**
+     * Get the Line which represents this Connection
+     * @return This Connection's Line
+     */
+    public Line getLine() {
+        return line;
     }
 
     /**
@@ -130,9 +147,12 @@ public class Connection {
      */
     public void remove() {
         // Remove the connection from the main display Pane
-        (complete ? sourcePort : anchorPort).getParent().getParentPane().removeChildren(line);
+        getDisplayPane().removeChildren(line);
         if(sourcePort != null) {sourcePort.deregisterConnection();}
         if(destPort != null) {destPort.deregisterConnection();}
+        if (complete) {
+            getDisplayPane().notifyDisconnected(this);
+        }
     }
 
     /**
@@ -140,12 +160,22 @@ public class Connection {
      */
     public void updateState() {
         if (isComplete()) {
-            on = sourcePort.isOn();
-            line.setStroke(on ? ON_COLOR : OFF_COLOR);
+            if (on != sourcePort.isOn()) {
+                on = sourcePort.isOn();
+                getDisplayPane().markChanged(this);
+            }
             destPort.setState(on);
         }
     }
 
+    /**
+     * Restyle the Line to match whether this Connection is carrying a signal. <br>
+     * Called once per frame for each Connection whose signal changed
+     */
+    void refresh() {
+        line.setStroke(on ? ON_COLOR : OFF_COLOR);
+    }
+
     /**
      * Update the position of the Connection based on a Mouse Drag
      * @param me The MouseEvent representing the MouseMoved event
@@ -185,6 +215,7 @@ public class Connection {
             complete = true;
             anchorPort = null;
             line.setMouseTransparent(false);
+            getDisplayPane().notifyConnected(this);
         }
     }
 
@@ -0,0 +1,498 @@
+package base.fundamentals;
+
+import base.Simulation;
+import javafx.application.Platform;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Line;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+public class DisplayPane {
+    /** Drag number reported while no Components are being dragged */
+    public final static int NO_DRAG = -1;
+
+    /** Ways a Display Pane can be drawn */
+    public enum RenderMode {
+        /** A Node in the scene graph for every Component, Port and Connection in view */
+        NODES,
+        /** Everything drawn into one Canvas, for large boards */
+        CANVAS
+    }
+
+    private final Pane pane;
+    private final String name;
+    private final SelectionArea selection;
+    private boolean selecting;
+    /** Every Node on this Display Pane, whether or not it is currently attached to the Pane */
+    private final Registry<Node> children;
+    /** Nodes removed from this Display Pane but not yet detached from the Pane */
+    private final Set<Node> detachPending;
+    /** Whether detaching the pending Nodes has already been scheduled for the end of the current UI event */
+    private boolean detachScheduled;
+    /** Every Component on this Display Pane */
+    private final Registry<Component> components;
+    /** Every Port of the Components on this Display Pane */
+    private final Registry<Port> ports;
+    /** Every completed Connection on this Display Pane */
+    private final Registry<Connection> connections;
+    /** Every Component on this Display Pane, by position */
+    private final ComponentIndex componentIndex;
+    /** Every completed Connection on this Display Pane, by the area its wire covers */
+    private final QuadTree<Connection> wireIndex;
+    /** Decides which Nodes are attached to the Pane, based on what is scrolled into view */
+    private final Viewport viewport;
+    /** Draws this Display Pane while it is in CANVAS mode, otherwise null */
+    private CanvasRenderer renderer;
+    /** Components and Connections whose signals changed since the last frame */
+    private final RenderQueue renderQueue;
+    /** Everything which wants to hear about edits made on this Display Pane */
+    private final List<BoardListener> boardListeners;
+    /** Number of the drag of Components in progress, or NO_DRAG between drags */
+    private int dragGesture;
+    /** Number of drags of Components started so far */
+    private int dragCount;
+
+    public DisplayPane(String name) {
+        this.pane = new Pane();
+        this.name = name;
+        this.selecting = false;
+        this.selection = new SelectionArea();
+
+        this.children = new Registry<>();
+        this.detachPending = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.detachScheduled = false;
+        this.components = new Registry<>();
+        this.ports = new Registry<>();
+        this.connections = new Registry<>();
+        this.componentIndex = new ComponentIndex();
+        this.wireIndex = new QuadTree<>();
+        this.viewport = new Viewport(pane, componentIndex, wireIndex);
+        this.renderer = null;
+        this.renderQueue = new RenderQueue(this);
+        this.boardListeners = new ArrayList<>();
+        this.dragGesture = NO_DRAG;
+        this.dragCount = 0;
+
+        pane.setUserData(this);
+        pane.setPrefWidth(Simulation.INIT_BOARD_WIDTH);
+        pane.setPrefHeight(Simulation.INIT_BOARD_HEIGHT);
+
+        addEventHandling();
+    }
+
+    public void addEventHandling() {
+        // Multi-selection handling
+        pane.setOnDragDetected(e -> {
+            // Know a multi-select is happening
+            if (selecting) {
+                pane.getChildren().add(selection.getRect());
+            }
+        });
+
+        pane.setOnMousePressed(e -> {
+            // Possible multi-select start, more accurate than waiting for drag detection
+            if (getClickedOn(e) == null && e.getButton() == MouseButton.PRIMARY) {
+                selecting = true;
+                selection.startNew(e.getX(), e.getY());
+            }
+        });
+
+        pane.setOnMouseDragged(e -> {
+            // Expand Selection Area
+            if (selecting) {
+                selection.expandSelection(e.getX(), e.getY(), componentIndex);
+            }
+        });
+
+        pane.setOnMouseReleased(e -> {
+            // Done selecting more elements, remove selection rect
+            if (selecting) {
+                pane.getChildren().remove(selection.getRect());
+                selection.doneSelecting();
+                selecting = false;
+            }
+        });
+    }
+
+    /**
+     * Retrieve this Display Pane's list of children. <br>
+     * This includes the Nodes of Components which are scrolled out of view, and so not attached to the Pane.
+     * Use {@link #getComponents()}, {@link #getPorts()} or {@link #getConnections()} to find what is on the board
+     * @return This Display Pane's children
+     */
+    public Registry<Node> getChildren() {
+        return children;
+    }
+
+    /**
+     * Retrieve this Display Pane's Pane object
+     * @return This Display Pane's Pane object
+     */
+    public Pane getPane() {
+        return pane;
+    }
+
+    /**
+     * Retrieve every Component on this Display Pane
+     * @return This Display Pane's Components
+     */
+    public Registry<Component> getComponents() {
+        return components;
+    }
+
+    /**
+     * Retrieve every Port of the Components on this Display Pane
+     * @return This Display Pane's Ports
+     */
+    public Registry<Port> getPorts() {
+        return ports;
+    }
+
+    /**
+     * Retrieve every completed Connection on this Display Pane
+     * @return This Display Pane's Connections
+     */
+    public Registry<Connection> getConnections() {
+        return connections;
+    }
+
+    /**
+     * Retrieve the index of every Component on this Display Pane by position
+     * @return This Display Pane's ComponentIndex
+     */
+    public ComponentIndex getComponentIndex() {
+        return componentIndex;
+    }
+
+    /**
+     * Retrieve the ScrollPane to show this Display Pane in. <br>
+     * Once shown, only the Components in or near view are kept attached to the Pane
+     * @return The ScrollPane holding this Display Pane's Pane object
+     */
+    public ScrollPane getView() {
+        return viewport.getScrollPane();
+    }
+
+    /**
+     * Get the part of this Display Pane currently scrolled into view
+     * @return The visible area, in Pane coordinates. Empty until the Display Pane is first shown
+     */
+    public Bounds getVisibleArea() {
+        return viewport.getVisibleArea();
+    }
+
+    /**
+     * Get how this Display Pane is drawn
+     * @return The current RenderMode
+     */
+    public RenderMode getRenderMode() {
+        return renderer == null ? RenderMode.NODES : RenderMode.CANVAS;
+    }
+
+    /**
+     * Change how this Display Pane is drawn. Components behave the same either way
+     * @param mode The RenderMode to switch to
+     */
+    public void setRenderMode(RenderMode mode) {
+        if (mode == getRenderMode()) {
+            return;
+        }
+        detachRemoved();
+        if (mode == RenderMode.CANVAS) {
+            viewport.detachAll();
+            renderer = new CanvasRenderer(this, viewport);
+        } else {
+            renderer.dispose();
+            renderer = null;
+            viewport.attachAll(children.snapshot());
+        }
+    }
+
+    /**
+     * Record that the signal shown by a Component changed, so its display is updated once at the end of the frame
+     * @param component The Component whose input changed
+     */
+    public void markChanged(Component component) {
+        renderQueue.add(component);
+    }
+
+    /**
+     * Record that the signal carried by a Connection changed, so its Line is restyled once at the end of the frame
+     * @param connection The Connection whose signal changed
+     */
+    public void markChanged(Connection connection) {
+        renderQueue.add(connection);
+    }
+
+    /**
+     * Record that a Component was shifted as part of a group move, so its Ports and Connections follow it once at
+     * the end of the frame
+     * @param component The Component which moved
+     */
+    void markMoved(Component component) {
+        renderQueue.addMoved(component);
+    }
+
+    /**
+     * Redraw a Component the next time this Display Pane is drawn. <br>
+     * Only needed in CANVAS mode, since Nodes redraw themselves
+     * @param component The Component whose appearance changed
+     */
+    public void repaint(Component component) {
+        if (renderer != null) {
+            renderer.repaint(component);
+        }
+    }
+
+    /**
+     * Redraw a Connection the next time this Display Pane is drawn. <br>
+     * Only needed in CANVAS mode, since Nodes redraw themselves
+     * @param connection The Connection whose appearance changed
+     */
+    public void repaint(Connection connection) {
+        if (renderer != null) {
+            renderer.repaint(connection);
+        }
+    }
+
+    /**
+     * Retrieve this Display Pane's name
+     * @return This Display Pane's name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieve this Display Pane's Selection Area object
+     * @return This Display Pane's Selection Area
+     */
+    public SelectionArea getSelection() {
+        return selection;
+    }
+
+    /**
+     * Add children to this display
+     * @param childrenToAdd An array of the Children Nodes to be added
+     */
+    public void addChildren(Node ... childrenToAdd) {
+        for (Node child : childrenToAdd) {
+            children.add(child);
+            if (detachPending.remove(child)) {
+                // Removed and added back within the same UI event, so it is still attached
+                continue;
+            }
+            if (viewport.isCulling()) {
+                pane.getChildren().add(child);
+            }
+        }
+    }
+
+    /**
+     * Remove children from this display. <br>
+     * Children in the provided array which are not on this Display Pane will be ignored. They are detached from
+     * the Pane together with everything else removed during the same UI event, so removing a large selection
+     * walks the Pane's children once rather than once per Node
+     * @param childrenToRemove An array of the Children Nodes to be removed
+     */
+    public void removeChildren(Node ... childrenToRemove) {
+        for (Node child : childrenToRemove) {
+            children.remove(child);
+            detachPending.add(child);
+        }
+        if (!detachScheduled) {
+            detachScheduled = true;
+            Platform.runLater(this::detachRemoved);
+        }
+    }
+
+    /**
+     * Detach every Node removed since the last time from the Pane, in one pass
+     */
+    private void detachRemoved() {
+        detachScheduled = false;
+        if (!detachPending.isEmpty()) {
+            pane.getChildren().removeIf(detachPending::contains);
+            detachPending.clear();
+        }
+    }
+
+    /**
+     * Start notifying a BoardListener of every edit made on this Display Pane
+     * @param listener The BoardListener to notify
+     */
+    public void addBoardListener(BoardListener listener) {
+        boardListeners.add(listener);
+    }
+
+    /**
+     * Stop notifying a BoardListener of edits made on this Display Pane
+     * @param listener The BoardListener to stop notifying
+     */
+    public void removeBoardListener(BoardListener listener) {
+        boardListeners.remove(listener);
+    }
+
+    /**
+     * Note that the user started dragging Components, so every move until the drag ends belongs to it
+     */
+    void startDrag() {
+        dragGesture = dragCount++;
+    }
+
+    /**
+     * Note that the user stopped dragging Components
+     */
+    void endDrag() {
+        dragGesture = NO_DRAG;
+    }
+
+    /**
+     * Get which drag of Components the moves made now belong to, so listeners can tell one drag from the next
+     * @return A number shared by every move made during one drag, or NO_DRAG if no drag is in progress
+     */
+    public int getDragGesture() {
+        return dragGesture;
+    }
+
+    /**
+     * Tell every BoardListener a Component was created on this Display Pane
+     * @param component The new Component
+     */
+    public void notifyComponentAdded(Component component) {
+        components.add(component);
+        for (Port port : component.getAllPorts()) {
+            ports.add(port);
+        }
+        componentIndex.add(component);
+        viewport.added(component);
+        repaint(component);
+        for (BoardListener listener : boardListeners) {
+            listener.componentAdded(component);
+        }
+    }
+
+    /**
+     * Tell every BoardListener a Component on this Display Pane moved
+     * @param component The Component which moved
+     */
+    public void notifyComponentMoved(Component component) {
+        componentIndex.move(component);
+        for (Port port : component.getAllPorts()) {
+            if (port.isConnected() && port.getConnection().isComplete()) {
+                indexWire(port.getConnection());
+            }
+        }
+        viewport.moved(component);
+        for (BoardListener listener : boardListeners) {
+            listener.componentMoved(component);
+        }
+    }
+
+    /**
+     * Tell every BoardListener a Component was removed from this Display Pane
+     * @param component The removed Component
+     */
+    public void notifyComponentRemoved(Component component) {
+        components.remove(component);
+        for (Port port : component.getAllPorts()) {
+            ports.remove(port);
+        }
+        componentIndex.remove(component);
+        viewport.removed(component);
+        repaint(component);
+        for (BoardListener listener : boardListeners) {
+            listener.componentRemoved(component);
+        }
+    }
+
+    /**
+     * Tell every BoardListener the saved state of a Component on this Display Pane changed
+     * @param component The Component which changed
+     */
+    public void notifyComponentChanged(Component component) {
+        for (BoardListener listener : boardListeners) {
+            listener.componentChanged(component);
+        }
+    }
+
+    /**
+     * Tell every BoardListener a Connection on this Display Pane was completed
+     * @param connection The completed Connection
+     */
+    public void notifyConnected(Connection connection) {
+        connections.add(connection);
+        indexWire(connection);
+        viewport.connected(connection);
+        repaint(connection);
+        for (BoardListener listener : boardListeners) {
+            listener.connected(connection);
+        }
+    }
+
+    /**
+     * Tell every BoardListener a completed Connection on this Display Pane was removed
+     * @param connection The removed Connection
+     */
+    public void notifyDisconnected(Connection connection) {
+        connections.remove(connection);
+        wireIndex.remove(connection);
+        viewport.disconnected(connection);
+        repaint(connection);
+        for (BoardListener listener : boardListeners) {
+            listener.disconnected(connection);
+        }
+    }
+
+    /**
+     * Bring the area a Connection's wire covers up to date in the wire index
+     */
+    private void indexWire(Connection connection) {
+        Line line = connection.getLine();
+        wireIndex.put(connection,
+                Math.min(line.getStartX(), line.getEndX()), Math.min(line.getStartY(), line.getEndY()),
+                Math.max(line.getStartX(), line.getEndX()), Math.max(line.getStartY(), line.getEndY()));
+    }
+
+    /**
+     * Get the Object clicked on by a MouseEvent, if any. <br>
+     * Components and Ports are found through the ComponentIndex. Connections are found when the click landed on
+     * their Line, or through the wire index while drawn to a Canvas
+     * @param me The MouseEvent in question. Assumed to be targeted at this DisplayPane
+     * @return The Object, if any, on the display pane which was clicked on
+     */
+    private Object getClickedOn(MouseEvent me) {
+        if (renderer != null) {
+            return renderer.pick(me.getX(), me.getY());
+        }
+        double x = me.getX();
+        double y = me.getY();
+        Object[] found = new Object[1];
+        Bounds near = new BoundingBox(x - Port.RADIUS, y - Port.RADIUS, 2 * Port.RADIUS, 2 * Port.RADIUS);
+        componentIndex.forEachIntersecting(near, component -> {
+            for (Port port : component.getAllPorts()) {
+                if (port.getCircle().contains(x, y)) {
+                    found[0] = port;
+                    return;
+                }
+            }
+            if (found[0] == null && component.getRect().contains(x, y)) {
+                found[0] = component;
+            }
+        });
+        if (found[0] == null && me.getTarget() instanceof Node node && node != pane) {
+            found[0] = node.getUserData();
+        }
+        return found[0];
+    }
+}
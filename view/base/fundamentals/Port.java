@@ -225,8 +225,13 @@ public class Port {
      * @param state The desired state of this Port
      */
     public void setState(boolean state) {
+        if (on == state) {
+            return;
+        }
         on = state;
-        if (isConnected() && type == PortType.OUTPUT) {
+        if (type == PortType.INPUT) {
+            parent.getParentPane().markChanged(parent);
+        } else if (isConnected()) {
             connection.updateState();
         }
     }
@@ -267,8 +272,8 @@ public class Port {
      * @see Connection#remove
      */
     public void deregisterConnection() {
-        on = false;
         connection = null;
+        setState(false);
     }
 
     /**
@@ -0,0 +1,243 @@
+package base.fundamentals;
+
+import javafx.geometry.Bounds;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A quadtree of items by the box each one covers, as it was when the item was last added or moved. <br>
+ * Each item is stored in the smallest square which fully contains its box, so finding what lies under a point or
+ * inside an area only visits the squares which overlap it. The tree grows outwards as items are placed beyond it.
+ * Used by the ComponentIndex for Components and by the DisplayPane for the wires of Connections.
+ */
+class QuadTree<T> {
+    /** Items a square may hold before it is split into four */
+    private final static int MAX_ITEMS = 16;
+    /** How many times a square may be split, so stacks of items at one spot do not split forever */
+    private final static int MAX_DEPTH = 16;
+    /** Width of the first square, in pixels */
+    private final static double INITIAL_SIZE = 1024;
+
+    /**
+     * An item, with the box it covers and the square it is stored in
+     */
+    private static class Entry<T> {
+        private final T item;
+        private double minX, minY, maxX, maxY;
+        private Square<T> square;
+
+        private Entry(T item) {
+            this.item = item;
+        }
+    }
+
+    /**
+     * One square of the tree
+     */
+    private static class Square<T> {
+        private final double minX;
+        private final double minY;
+        private final double size;
+        private final int depth;
+        /** Items stored in this square which do not fit in any of its quarters */
+        private final List<Entry<T>> entries;
+        /** The four quarters of this square, or null if it has not been split */
+        private Square<T>[] quarters;
+
+        private Square(double minX, double minY, double size, int depth) {
+            this.minX = minX;
+            this.minY = minY;
+            this.size = size;
+            this.depth = depth;
+            this.entries = new ArrayList<>();
+            this.quarters = null;
+        }
+
+        private boolean contains(Entry<T> entry) {
+            return entry.minX >= minX && entry.minY >= minY
+                    && entry.maxX <= minX + size && entry.maxY <= minY + size;
+        }
+
+        private boolean intersects(double areaMinX, double areaMinY, double areaMaxX, double areaMaxY) {
+            return areaMaxX >= minX && areaMinX <= minX + size && areaMaxY >= minY && areaMinY <= minY + size;
+        }
+    }
+
+    /** The square covering every item */
+    private Square<T> root;
+    /** The entry of each item */
+    private final IdentityHashMap<T, Entry<T>> entryOf;
+
+    QuadTree() {
+        this.root = new Square<>(0, 0, INITIAL_SIZE, 0);
+        this.entryOf = new IdentityHashMap<>();
+    }
+
+    /**
+     * Get the number of items in the tree
+     */
+    int size() {
+        return entryOf.size();
+    }
+
+    /**
+     * Add an item covering a box, or move it there if it is already in the tree
+     */
+    void put(T item, double minX, double minY, double maxX, double maxY) {
+        Entry<T> entry = entryOf.get(item);
+        if (entry == null) {
+            entry = new Entry<>(item);
+            entryOf.put(item, entry);
+        } else {
+            setBox(entry, minX, minY, maxX, maxY);
+            // Still in the right square if it fits there and would not fit any further down
+            if (entry.square.contains(entry)
+                    && (entry.square.quarters == null || quarterFor(entry.square, entry) == null)) {
+                return;
+            }
+            entry.square.entries.remove(entry);
+        }
+        setBox(entry, minX, minY, maxX, maxY);
+        while (!root.contains(entry)) {
+            grow(entry);
+        }
+        insert(root, entry);
+    }
+
+    /**
+     * Update the box an item covers, if it is in the tree
+     */
+    void move(T item, double minX, double minY, double maxX, double maxY) {
+        if (entryOf.containsKey(item)) {
+            put(item, minX, minY, maxX, maxY);
+        }
+    }
+
+    /**
+     * Remove an item, if it is in the tree
+     */
+    void remove(T item) {
+        Entry<T> entry = entryOf.remove(item);
+        if (entry != null) {
+            entry.square.entries.remove(entry);
+        }
+    }
+
+    /**
+     * Visit every item whose box intersects an area
+     */
+    void forEachIntersecting(Bounds area, Consumer<T> visitor) {
+        forEachIntersecting(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY(), visitor);
+    }
+
+    /**
+     * Visit every item whose box intersects an area
+     */
+    void forEachIntersecting(double minX, double minY, double maxX, double maxY, Consumer<T> visitor) {
+        visit(root, minX, minY, maxX, maxY, visitor);
+    }
+
+    /**
+     * Visit every item in the tree
+     */
+    void forEach(Consumer<T> visitor) {
+        entryOf.keySet().forEach(visitor);
+    }
+
+    private static <T> void setBox(Entry<T> entry, double minX, double minY, double maxX, double maxY) {
+        entry.minX = minX;
+        entry.minY = minY;
+        entry.maxX = maxX;
+        entry.maxY = maxY;
+    }
+
+    private void visit(Square<T> square, double minX, double minY, double maxX, double maxY, Consumer<T> visitor) {
+        if (!square.intersects(minX, minY, maxX, maxY)) {
+            return;
+        }
+        for (Entry<T> entry : square.entries) {
+            if (maxX >= entry.minX && minX <= entry.maxX && maxY >= entry.minY && minY <= entry.maxY) {
+                visitor.accept(entry.item);
+            }
+        }
+        if (square.quarters != null) {
+            for (Square<T> quarter : square.quarters) {
+                visit(quarter, minX, minY, maxX, maxY, visitor);
+            }
+        }
+    }
+
+    private void insert(Square<T> square, Entry<T> entry) {
+        while (square.quarters != null) {
+            Square<T> quarter = quarterFor(square, entry);
+            if (quarter == null) {
+                break;
+            }
+            square = quarter;
+        }
+        square.entries.add(entry);
+        entry.square = square;
+        if (square.quarters == null && square.entries.size() > MAX_ITEMS && square.depth < MAX_DEPTH) {
+            split(square);
+        }
+    }
+
+    /**
+     * Split a square into quarters, moving down every item which fits in one
+     */
+    @SuppressWarnings("unchecked")
+    private void split(Square<T> square) {
+        double half = square.size / 2;
+        square.quarters = new Square[] {
+                new Square<T>(square.minX, square.minY, half, square.depth + 1),
+                new Square<T>(square.minX + half, square.minY, half, square.depth + 1),
+                new Square<T>(square.minX, square.minY + half, half, square.depth + 1),
+                new Square<T>(square.minX + half, square.minY + half, half, square.depth + 1)};
+
+        List<Entry<T>> entries = new ArrayList<>(square.entries);
+        square.entries.clear();
+        for (Entry<T> entry : entries) {
+            Square<T> quarter = quarterFor(square, entry);
+            Square<T> target = quarter == null ? square : quarter;
+            target.entries.add(entry);
+            entry.square = target;
+        }
+    }
+
+    /**
+     * Get the quarter of a split square which fully contains an item's box
+     * @return The quarter, or null if the box crosses the middle of the square
+     */
+    private static <T> Square<T> quarterFor(Square<T> square, Entry<T> entry) {
+        for (Square<T> quarter : square.quarters) {
+            if (quarter.contains(entry)) {
+                return quarter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Double the size of the tree towards a box which does not fit in it, keeping the old root as a quarter
+     */
+    @SuppressWarnings("unchecked")
+    private void grow(Entry<T> entry) {
+        boolean growLeft = entry.minX < root.minX;
+        boolean growUp = entry.minY < root.minY;
+        double size = root.size * 2;
+        Square<T> newRoot = new Square<>(growLeft ? root.minX - root.size : root.minX,
+                growUp ? root.minY - root.size : root.minY, size, 0);
+        double half = root.size;
+        newRoot.quarters = new Square[] {
+                new Square<T>(newRoot.minX, newRoot.minY, half, 1),
+                new Square<T>(newRoot.minX + half, newRoot.minY, half, 1),
+                new Square<T>(newRoot.minX, newRoot.minY + half, half, 1),
+                new Square<T>(newRoot.minX + half, newRoot.minY + half, half, 1)};
+        newRoot.quarters[(growLeft ? 1 : 0) + (growUp ? 2 : 0)] = root;
+        root = newRoot;
+        // Depths below the old root are now one too small, which only loosens the split limit
+    }
+}
@@ -0,0 +1,114 @@
+package base.fundamentals;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The objects of one kind on a DisplayPane, kept in an array so they can be walked without touching the scene graph
+ * or allocating. <br>
+ * Adding and removing take constant time. Removing moves the last object into the gap, so the order is only stable
+ * between removals.
+ * <br><br>
+ * Walk the contents with {@link #size()} and {@link #get(int)}, and take a {@link #snapshot()} first if the walk
+ * may add or remove anything.
+ * @param <T> The kind of object held
+ */
+public class Registry<T> {
+    /** Room for objects before the array first has to grow */
+    private final static int INITIAL_CAPACITY = 16;
+
+    /** The objects held, packed at the start of the array */
+    private T[] items;
+    /** The number of objects held */
+    private int size;
+    /** Where each object sits in the array */
+    private final IdentityHashMap<T, Integer> slots;
+
+    @SuppressWarnings("unchecked")
+    Registry() {
+        this.items = (T[]) new Object[INITIAL_CAPACITY];
+        this.size = 0;
+        this.slots = new IdentityHashMap<>();
+    }
+
+    /**
+     * Get the number of objects held
+     * @return The number of objects held
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the object in a slot
+     * @param index The slot, from 0 to size() - 1
+     * @return The object in that slot
+     */
+    public T get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return items[index];
+    }
+
+    /**
+     * Check whether an object is held
+     * @param item The object to look for
+     * @return True if this exact object is held
+     */
+    public boolean contains(T item) {
+        return slots.containsKey(item);
+    }
+
+    /**
+     * Visit every object held
+     * @param visitor Called once for each object. Must not add or remove anything
+     */
+    public void forEach(Consumer<? super T> visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.accept(items[i]);
+        }
+    }
+
+    /**
+     * Copy out the objects held, for walks which may add or remove some
+     * @return An unmodifiable List of the objects held, in slot order
+     */
+    public List<T> snapshot() {
+        return List.of(Arrays.copyOf(items, size));
+    }
+
+    /**
+     * Start holding an object. Objects already held are ignored
+     */
+    void add(T item) {
+        if (slots.containsKey(item)) {
+            return;
+        }
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size] = item;
+        slots.put(item, size);
+        size++;
+    }
+
+    /**
+     * Stop holding an object. Objects not held are ignored
+     */
+    void remove(T item) {
+        Integer slot = slots.remove(item);
+        if (slot == null) {
+            return;
+        }
+        size--;
+        if (slot != size) {
+            T last = items[size];
+            items[slot] = last;
+            slots.put(last, slot);
+        }
+        items[size] = null;
+    }
+}
@@ -0,0 +1,103 @@
+package base.fundamentals;
+
+import javafx.application.Platform;
+import javafx.scene.layout.Pane;
+
+import java.util.*;
+
+/**
+ * Collects the Components and Connections on a DisplayPane whose signals changed, and redraws them together once
+ * per frame. <br>
+ * However many times a signal flips within a frame, its Component or Connection is only restyled once, and the
+ * ones which did not change are not touched at all. While the DisplayPane is not being shown nothing is restyled;
+ * everything collected in the meantime is redrawn as soon as it is shown again.
+ * <br><br>
+ * Components shifted by a group move are collected the same way, so their Ports and Connections are repositioned
+ * once per frame rather than once per mouse event.
+ */
+class RenderQueue {
+    /** The DisplayPane being redrawn */
+    private final DisplayPane displayPane;
+    /** The Pane of the DisplayPane, which is in a Scene whenever it is being shown */
+    private final Pane pane;
+    /** Components waiting to be redrawn, each once, in no particular order */
+    private final Set<Component> components;
+    /** Connections waiting to be redrawn, each once, in no particular order */
+    private final Set<Connection> connections;
+    /** Components whose Ports and Connections have not caught up with a group move */
+    private final Set<Component> moved;
+    /** Whether a flush has already been scheduled for the end of the current frame */
+    private boolean flushScheduled;
+
+    RenderQueue(DisplayPane displayPane) {
+        this.displayPane = displayPane;
+        this.pane = displayPane.getPane();
+        this.components = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.connections = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.flushScheduled = false;
+
+        pane.sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene != null) {
+                scheduleFlush();
+            }
+        });
+    }
+
+    /**
+     * Redraw a Component at the end of this frame
+     */
+    void add(Component component) {
+        components.add(component);
+        scheduleFlush();
+    }
+
+    /**
+     * Redraw a Connection at the end of this frame
+     */
+    void add(Connection connection) {
+        connections.add(connection);
+        scheduleFlush();
+    }
+
+    /**
+     * Reposition the Ports and Connections of a Component at the end of this frame
+     */
+    void addMoved(Component component) {
+        moved.add(component);
+        scheduleFlush();
+    }
+
+    /**
+     * Flush once the current frame's events are handled, if the DisplayPane is being shown
+     */
+    private void scheduleFlush() {
+        if (!flushScheduled && pane.getScene() != null) {
+            flushScheduled = true;
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * Redraw everything collected, unless the DisplayPane has stopped being shown in the meantime
+     */
+    private void flush() {
+        flushScheduled = false;
+        if (pane.getScene() == null) {
+            return;
+        }
+        for (Component component : moved) {
+            component.finishMove();
+        }
+        for (Component component : components) {
+            component.update();
+        }
+        for (Connection connection : connections) {
+            connection.refresh();
+            displayPane.repaint(connection);
+        }
+        moved.clear();
+        components.clear();
+        connections.clear();
+    }
+}
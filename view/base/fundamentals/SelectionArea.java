@@ -1,7 +1,6 @@
 package base.fundamentals;
 
 import javafx.geometry.Bounds;
-import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 
@@ -46,12 +45,14 @@ public class SelectionArea {
     }
 
     /**
-     * Moves the free corner to a specified position
+     * Moves the free corner to a specified position. <br>
+     * Only the Components already selected and the ones the ComponentIndex finds under the area are checked,
+     * so each drag event costs time in proportion to the selection, not to the whole board
      * @param x The x coordinate of the free corner
      * @param y The y coordinate of the free corner
-     * @param components The list of all Components that may be newly selected.
+     * @param index The ComponentIndex of the Display Pane being selected on
      */
-    public void expandSelection(double x, double y, List<Component> components) {
+    public void expandSelection(double x, double y, ComponentIndex index) {
         double width = x - anchor[0];
         if (width < 0) {
             rect.setX(anchor[0] + width);
@@ -71,18 +72,26 @@ public class SelectionArea {
 
         Bounds selectionRange = rect.getLayoutBounds();
 
-        for (Component component : components) {
-            Bounds rectBounds = component.getRect().getLayoutBounds();
-            boolean centerInSelectionRange = selectionRange.contains(rectBounds.getCenterX(), rectBounds.getCenterY());
-            if (!selected.contains(component) && centerInSelectionRange) {
+        // Drop everything whose centre has left the area
+        selected.removeIf(component -> {
+            if (centerIn(selectionRange, component)) {
+                return false;
+            }
+            component.deselect();
+            return true;
+        });
+
+        index.forEachIntersecting(selectionRange, component -> {
+            if (!selected.contains(component) && centerIn(selectionRange, component)) {
                 selected.add(component);
                 component.select(this);
-            } else if (!centerInSelectionRange){
-                // Innate check only tries to remove if present
-                selected.remove(component);
-                component.deselect();
             }
-        }
+        });
+    }
+
+    private static boolean centerIn(Bounds selectionRange, Component component) {
+        Bounds rectBounds = component.getRect().getLayoutBounds();
+        return selectionRange.contains(rectBounds.getCenterX(), rectBounds.getCenterY());
     }
 
     /**
@@ -96,19 +105,37 @@ public class SelectionArea {
     }
 
     /**
-     * Echo a MouseEvent from one source across all selected Components
-     * @param source The selected Component the MouseEvent came from
-     * @param me The MouseEvent to echo
+     * Move every selected Component by the same amount, so that one of them ends up at a position. <br>
+     * The move is cut short if it would take any selected Component past the screen edges, so the group keeps its
+     * shape. Ports and Connections catch up once at the end of the frame
+     * @param source The selected Component being dragged
+     * @param x The x position (in pixels) the source Component is being dragged to
+     * @param y The y position (in pixels) the source Component is being dragged to
      */
-    public void echo(Component source, MouseEvent me) {
-        // Echoing a remove call modifies the selected list when the event is fired, so need to iterate from a copy
-        List<Component> staticCopy = List.copyOf(selected);
-        for (Component component : staticCopy) {
-            if (component != source) {
-                component.disallowEcho();
-                MouseEvent.fireEvent(component.getRect(), me);
-                component.allowEcho();
-            }
+    public void moveGroup(Component source, double x, double y) {
+        double dx = x - source.getRect().getX();
+        double dy = y - source.getRect().getY();
+        for (Component component : selected) {
+            dx = component.clampX(component.getRect().getX() + dx) - component.getRect().getX();
+            dy = component.clampY(component.getRect().getY() + dy) - component.getRect().getY();
+        }
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        for (Component component : selected) {
+            component.translate(dx, dy);
+        }
+    }
+
+    /**
+     * Remove every selected Component from its Display Pane, and empty the selection
+     */
+    public void removeSelected() {
+        // Removing a Component can notify listeners which change the selection, so work from a copy
+        List<Component> removing = List.copyOf(selected);
+        clearSelection();
+        for (Component component : removing) {
+            component.remove();
         }
     }
 
@@ -0,0 +1,285 @@
+package base.fundamentals;
+
+import javafx.application.Platform;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Line;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Scrolls a DisplayPane and keeps only the Components in or near the visible part of it in the scene graph. <br>
+ * Components near the visible area are found with the DisplayPane's ComponentIndex, so it costs time in proportion
+ * to how many there are, not to the size of the board. Components which scroll out of range have their
+ * Nodes detached from the Pane and reattached when they come back, so layout, CSS and picking only ever see what
+ * is near the screen. Connections are found with an index of their wires in the same way, and stay attached while
+ * their wire crosses that range, so a long wire across the screen is shown even when both its ends are far off it.
+ * <br><br>
+ * Until the DisplayPane is first shown, every Node stays attached. While it is drawn by a CanvasRenderer, none are,
+ * and the index is only used to find what needs drawing and what was clicked on.
+ */
+class Viewport {
+    /** Distance beyond the visible area within which Components are kept attached, in pixels */
+    private final static double MARGIN = 300;
+    /** Space left past the furthest Component, so there is always room to scroll to it and build beyond it */
+    private final static double EXTENT_PADDING = 300;
+
+    /** The Pane holding the attached Nodes */
+    private final Pane pane;
+    /** The ScrollPane showing the Pane, or null until the DisplayPane is first shown */
+    private ScrollPane scrollPane;
+
+    /** Every Component on the DisplayPane, by position */
+    private final ComponentIndex index;
+    /** Every completed Connection on the DisplayPane, by the area its wire covers */
+    private final QuadTree<Connection> wires;
+    /** Components whose Nodes are attached to the Pane */
+    private Set<Component> shown;
+    /** Connections whose Lines are attached to the Pane */
+    private Set<Connection> shownWires;
+    /** The area Nodes were attached within at the last cull, or null before the first */
+    private Bounds range;
+    /** Whether Nodes are attached and detached as they come into range, false while drawing to a Canvas */
+    private boolean culling;
+
+    /** Whether a cull has already been scheduled for the end of the current UI event */
+    private boolean cullScheduled;
+    /** Furthest right any Component has reached, plus padding */
+    private double extentX;
+    /** Furthest down any Component has reached, plus padding */
+    private double extentY;
+
+    Viewport(Pane pane, ComponentIndex index, QuadTree<Connection> wires) {
+        this.pane = pane;
+        this.scrollPane = null;
+        this.index = index;
+        this.wires = wires;
+        this.shown = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.shownWires = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.range = null;
+        this.culling = true;
+        this.cullScheduled = false;
+        this.extentX = 0;
+        this.extentY = 0;
+    }
+
+    /**
+     * Get the ScrollPane showing the Pane, creating it the first time
+     * @return The ScrollPane to place in the window
+     */
+    ScrollPane getScrollPane() {
+        if (scrollPane == null) {
+            scrollPane = new ScrollPane(pane);
+            scrollPane.hvalueProperty().addListener(o -> requestCull());
+            scrollPane.vvalueProperty().addListener(o -> requestCull());
+            scrollPane.viewportBoundsProperty().addListener(o -> requestCull());
+            requestCull();
+        }
+        return scrollPane;
+    }
+
+    /**
+     * Get the part of the Pane currently scrolled into view
+     * @return The visible area, in Pane coordinates. Empty until the DisplayPane is first shown
+     */
+    Bounds getVisibleArea() {
+        if (scrollPane == null) {
+            return new BoundingBox(0, 0, 0, 0);
+        }
+        Bounds viewport = scrollPane.getViewportBounds();
+        double scrollableX = Math.max(0, pane.getWidth() - viewport.getWidth());
+        double scrollableY = Math.max(0, pane.getHeight() - viewport.getHeight());
+        return new BoundingBox(scrollPane.getHvalue() * scrollableX, scrollPane.getVvalue() * scrollableY,
+                viewport.getWidth(), viewport.getHeight());
+    }
+
+    /**
+     * Visit every Component whose Rectangle intersects an area
+     * @param area The area to search, in Pane coordinates
+     * @param visitor Called once for each Component found
+     */
+    void forEachIntersecting(Bounds area, Consumer<Component> visitor) {
+        index.forEachIntersecting(area, visitor);
+    }
+
+    /**
+     * Visit every completed Connection whose wire crosses an area
+     * @param area The area to search, in Pane coordinates
+     * @param visitor Called once for each Connection found
+     */
+    void forEachWireIntersecting(Bounds area, Consumer<Connection> visitor) {
+        wires.forEachIntersecting(area, visitor);
+    }
+
+    /**
+     * Stop attaching Nodes to the Pane, and detach every one which is attached
+     */
+    void detachAll() {
+        culling = false;
+        pane.getChildren().clear();
+        shown.clear();
+        shownWires.clear();
+    }
+
+    /**
+     * Attach every Node to the Pane and start culling again
+     * @param nodes Every Node on the DisplayPane
+     */
+    void attachAll(List<Node> nodes) {
+        culling = true;
+        pane.getChildren().setAll(nodes);
+        shown.clear();
+        index.forEach(shown::add);
+        shownWires.clear();
+        wires.forEach(shownWires::add);
+        requestCull();
+    }
+
+    /**
+     * Get whether Nodes are being attached to the Pane
+     * @return False while the DisplayPane is drawn to a Canvas
+     */
+    boolean isCulling() {
+        return culling;
+    }
+
+    /**
+     * Track a new Component. Its Nodes were attached when it was created
+     */
+    void added(Component component) {
+        if (culling) {
+            shown.add(component);
+        }
+        growExtent(component);
+        requestCull();
+    }
+
+    /**
+     * Bring a moved Component, or a wire it drags along, into range if it was moved into view
+     */
+    void moved(Component component) {
+        growExtent(component);
+        boolean wireHidden = false;
+        for (Port port : component.getAllPorts()) {
+            if (port.isConnected() && port.getConnection().isComplete()
+                    && !shownWires.contains(port.getConnection())) {
+                wireHidden = true;
+            }
+        }
+        if (!shown.contains(component) || wireHidden) {
+            requestCull();
+        }
+    }
+
+    /**
+     * Stop tracking a removed Component. Its Nodes were detached when it was removed
+     */
+    void removed(Component component) {
+        shown.remove(component);
+    }
+
+    /**
+     * Detach the Line of a new Connection if its wire is out of range. Its Line was attached when it was created
+     */
+    void connected(Connection connection) {
+        if (!culling) {
+            return;
+        }
+        Line line = connection.getLine();
+        if (range != null && !range.intersects(Math.min(line.getStartX(), line.getEndX()),
+                Math.min(line.getStartY(), line.getEndY()), Math.abs(line.getEndX() - line.getStartX()),
+                Math.abs(line.getEndY() - line.getStartY()))) {
+            pane.getChildren().remove(line);
+        } else {
+            shownWires.add(connection);
+        }
+    }
+
+    /**
+     * Stop tracking a removed Connection. Its Line was detached when it was removed
+     */
+    void disconnected(Connection connection) {
+        shownWires.remove(connection);
+    }
+
+    /**
+     * Cull once the current UI event is finished, so a burst of edits or scroll events only culls once
+     */
+    private void requestCull() {
+        if (culling && scrollPane != null && !cullScheduled) {
+            cullScheduled = true;
+            Platform.runLater(this::cull);
+        }
+    }
+
+    /**
+     * Attach the Nodes of every Component near the visible area and detach all the others
+     */
+    private void cull() {
+        cullScheduled = false;
+        if (!culling) {
+            return;
+        }
+        Bounds visible = getVisibleArea();
+        range = new BoundingBox(visible.getMinX() - MARGIN, visible.getMinY() - MARGIN,
+                visible.getWidth() + 2 * MARGIN, visible.getHeight() + 2 * MARGIN);
+
+        Set<Component> inRange = Collections.newSetFromMap(new IdentityHashMap<>());
+        forEachIntersecting(range, inRange::add);
+        Set<Connection> wiresInRange = Collections.newSetFromMap(new IdentityHashMap<>());
+        forEachWireIntersecting(range, wiresInRange::add);
+
+        Set<Node> detach = new HashSet<>();
+        for (Component component : shown) {
+            if (!inRange.contains(component)) {
+                detach.add(component.getRect());
+                detach.add(component.getText());
+                for (Port port : component.getAllPorts()) {
+                    detach.add(port.getCircle());
+                }
+            }
+        }
+        for (Connection connection : shownWires) {
+            if (!wiresInRange.contains(connection)) {
+                detach.add(connection.getLine());
+            }
+        }
+        Set<Node> attach = new LinkedHashSet<>();
+        for (Connection connection : wiresInRange) {
+            if (!shownWires.contains(connection)) {
+                attach.add(connection.getLine());
+            }
+        }
+        for (Component component : inRange) {
+            if (!shown.contains(component)) {
+                attach.add(component.getRect());
+                attach.add(component.getText());
+                for (Port port : component.getAllPorts()) {
+                    attach.add(port.getCircle());
+                }
+            }
+        }
+
+        pane.getChildren().removeAll(detach);
+        pane.getChildren().addAll(attach);
+        shown = inRange;
+        shownWires = wiresInRange;
+    }
+
+    private void growExtent(Component component) {
+        double right = component.getRect().getX() + component.getRect().getWidth() + EXTENT_PADDING;
+        double bottom = component.getRect().getY() + component.getRect().getHeight() + EXTENT_PADDING;
+        if (right > extentX) {
+            extentX = right;
+            pane.setMinWidth(extentX);
+        }
+        if (bottom > extentY) {
+            extentY = bottom;
+            pane.setMinHeight(extentY);
+        }
+    }
+}
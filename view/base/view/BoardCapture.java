@@ -0,0 +1,181 @@
+package base.view;
+
+import base.components.*;
+import base.fundamentals.Component;
+import base.fundamentals.DisplayPane;
+import base.fundamentals.Port;
+import base.netlist.GateType;
+import base.netlist.Netlist;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Converts between Components on a DisplayPane and the Netlists they are saved as
+ */
+public class BoardCapture {
+    /**
+     * Capture every Component on a DisplayPane
+     * @param displayPane The DisplayPane to capture
+     * @return A Netlist describing every Component on the DisplayPane and how they are connected
+     */
+    public static Netlist capture(DisplayPane displayPane) {
+        return capture(displayPane.getComponents().snapshot());
+    }
+
+    /**
+     * Capture a group of Components. Connections to Components outside the group are left out
+     * @param components The Components to capture
+     * @return A Netlist describing the Components and the Connections between them
+     */
+    public static Netlist capture(Collection<Component> components) {
+        Netlist netlist = new Netlist(components.size(), components.size());
+        IdentityHashMap<Component, Integer> indices = new IdentityHashMap<>(components.size());
+
+        for (Component component : components) {
+            double x = component.getRect().getX();
+            double y = component.getRect().getY();
+            int index;
+            if (component instanceof CompoundComponent compound) {
+                index = netlist.addCompound(compound.getDefinition(), component.getId(), x, y);
+            } else if (component instanceof MemoryComponent memory) {
+                index = netlist.addMemory(memory.getMemory(), component.getId(), x, y);
+            } else if (component instanceof RegisterComponent register) {
+                index = netlist.addRegister(register.getRegisterWidth(), component.getId(), x, y);
+            } else {
+                index = netlist.addComponent(typeOf(component), component.getId(), x, y);
+                if (component instanceof SignalSource source) {
+                    netlist.setState(index, source.isOn());
+                }
+            }
+            indices.put(component, index);
+        }
+
+        for (Component component : components) {
+            for (int portNum = 0; portNum < component.getNumOutputs(); portNum++) {
+                Port port = component.getOutputPort(portNum);
+                Integer dest = indices.get(port.getConnectedComponent());
+                if (dest != null) {
+                    netlist.addConnection(indices.get(component), portNum, dest, port.getConnectedPortNum());
+                }
+            }
+        }
+        return netlist;
+    }
+
+    /**
+     * Create Components on a DisplayPane matching a Netlist
+     * @param netlist The Netlist to recreate
+     * @param displayPane The DisplayPane to add the new Components to
+     * @return The new Components, in the same order as the Netlist
+     */
+    public static List<Component> restore(Netlist netlist, DisplayPane displayPane) {
+        List<Component> created = new ArrayList<>(netlist.size());
+        for (int i = 0; i < netlist.size(); i++) {
+            Component component = switch (netlist.getType(i)) {
+                case COMPOUND -> new CompoundComponent(netlist.getDefinition(i), netlist.getX(i), netlist.getY(i),
+                        displayPane);
+                case RAM, ROM -> new MemoryComponent(netlist.getMemory(i), netlist.getX(i), netlist.getY(i),
+                        displayPane);
+                case REGISTER -> createRegister(netlist.getWidth(i), netlist.getX(i), netlist.getY(i),
+                        displayPane);
+                default -> create(netlist.getType(i), netlist.getX(i), netlist.getY(i), displayPane);
+            };
+            if (component instanceof SignalSource source) {
+                source.setOn(netlist.getState(i));
+            }
+            created.add(component);
+        }
+
+        for (int c = 0; c < netlist.getConnectionCount(); c++) {
+            Component source = created.get(netlist.getSource(c));
+            Component dest = created.get(netlist.getDest(c));
+            source.getOutputPort(netlist.getSourcePort(c)).connectTo(dest, netlist.getDestPort(c));
+        }
+        return created;
+    }
+
+    /**
+     * Create a new basic Component
+     * @param type The type of Component to create. Must not be COMPOUND, RAM, ROM or REGISTER
+     * @param x The x coordinate (in pixels) of the new Component
+     * @param y The y coordinate (in pixels) of the new Component
+     * @param displayPane The Pane to add the new Component to
+     * @return The new Component
+     */
+    public static Component create(GateType type, double x, double y, DisplayPane displayPane) {
+        return switch (type) {
+            case AND -> new AND(x, y, displayPane);
+            case OR -> new OR(x, y, displayPane);
+            case NOT -> new NOT(x, y, displayPane);
+            case LIGHT -> new Light(x, y, displayPane);
+            case SPLITTER -> new Splitter(x, y, displayPane);
+            case SIGNAL_SOURCE -> new SignalSource(x, y, displayPane);
+            case COMPOUND -> throw new IllegalArgumentException("Compound Components need a definition");
+            case RAM, ROM -> throw new IllegalArgumentException("Memories need their contents");
+            case REGISTER -> throw new IllegalArgumentException("Registers need their width");
+        };
+    }
+
+    /**
+     * Create a new Register, as a D flip-flop if it holds a single bit
+     * @param width The number of bits the Register holds
+     * @param x The x coordinate (in pixels) of the new Register
+     * @param y The y coordinate (in pixels) of the new Register
+     * @param displayPane The Pane to add the new Register to
+     * @return The new Register
+     */
+    public static RegisterComponent createRegister(int width, double x, double y, DisplayPane displayPane) {
+        return width == 1 ? new DFlipFlop(x, y, displayPane) : new RegisterComponent(width, x, y, displayPane);
+    }
+
+    /**
+     * Get the GateType of a basic Component
+     * @param component The Component in question
+     * @return The matching GateType
+     */
+    public static GateType typeOf(Component component) {
+        if (component instanceof AND) {
+            return GateType.AND;
+        } else if (component instanceof OR) {
+            return GateType.OR;
+        } else if (component instanceof NOT) {
+            return GateType.NOT;
+        } else if (component instanceof Light) {
+            return GateType.LIGHT;
+        } else if (component instanceof Splitter) {
+            return GateType.SPLITTER;
+        } else if (component instanceof SignalSource) {
+            return GateType.SIGNAL_SOURCE;
+        } else if (component instanceof MemoryComponent memory) {
+            return memory.getMemory().getType();
+        } else if (component instanceof RegisterComponent) {
+            return GateType.REGISTER;
+        }
+        throw new IllegalArgumentException("No saved form for " + component.getClass().getSimpleName());
+    }
+
+    /**
+     * Pack a Color as 0xAARRGGBB
+     * @param color The Color to pack
+     * @return The packed Color
+     */
+    public static int toArgb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+
+    /**
+     * Unpack a Color stored as 0xAARRGGBB
+     * @param argb The packed Color
+     * @return The unpacked Color
+     */
+    public static Color fromArgb(int argb) {
+        return Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, ((argb >>> 24) & 0xFF) / 255.0);
+    }
+}
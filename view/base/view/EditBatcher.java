@@ -0,0 +1,121 @@
+package base.view;
+
+import base.fundamentals.BoardListener;
+import base.fundamentals.Component;
+import base.fundamentals.Connection;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A BoardListener which collects the edits made on a DisplayPane and handles them together once the current UI
+ * event is finished, by which point every new Component is fully constructed. Repeated moves of the same Component
+ * within that time are only handled once. <br>
+ * Shared by the JournalRecorder and the UndoLog, which differ only in what they do with each batch.
+ */
+abstract class EditBatcher implements BoardListener {
+    /** Kinds of edits waiting to be handled */
+    enum EditKind {ADDED, MOVED, REMOVED, CHANGED, CONNECTED, DISCONNECTED}
+
+    /**
+     * An edit waiting to be handled
+     * @param kind What kind of edit this is
+     * @param component The Component edited, if any
+     * @param connection The Connection edited, if any
+     */
+    record PendingEdit(EditKind kind, Component component, Connection connection) {}
+
+    /** Edits made since the last flush, in order */
+    private final List<PendingEdit> pending;
+    /** Components with a move waiting in the pending list */
+    private final IdentityHashMap<Component, Boolean> pendingMoves;
+    /** Whether a flush has already been scheduled for the end of the current UI event */
+    private boolean flushScheduled;
+
+    EditBatcher() {
+        this.pending = new ArrayList<>();
+        this.pendingMoves = new IdentityHashMap<>();
+        this.flushScheduled = false;
+    }
+
+    /**
+     * Handle a batch of edits. Moved Components are read as they are now, at the end of the batch
+     * @param edits Every edit made since the last batch, in order. Possibly empty
+     */
+    abstract void handle(List<PendingEdit> edits);
+
+    /**
+     * Get whether edits made now should be collected. Edits made while this is false are ignored
+     * @return True unless overridden
+     */
+    boolean isCollecting() {
+        return true;
+    }
+
+    /**
+     * Handle every pending edit now, rather than at the end of the current UI event
+     */
+    public void flush() {
+        flushScheduled = false;
+        handle(pending);
+        pending.clear();
+        pendingMoves.clear();
+    }
+
+    /**
+     * Forget every pending edit without handling it
+     */
+    void discardPending() {
+        pending.clear();
+        pendingMoves.clear();
+    }
+
+    /**
+     * Queue an edit to be handled once the current UI event is finished
+     */
+    private void queue(EditKind kind, Component component, Connection connection) {
+        if (!isCollecting()) {
+            return;
+        }
+        pending.add(new PendingEdit(kind, component, connection));
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Platform.runLater(this::flush);
+        }
+    }
+
+    @Override
+    public void componentAdded(Component component) {
+        queue(EditKind.ADDED, component, null);
+    }
+
+    @Override
+    public void componentMoved(Component component) {
+        // The position is read when the move is handled, so one pending move per Component is enough
+        if (isCollecting() && pendingMoves.put(component, Boolean.TRUE) == null) {
+            queue(EditKind.MOVED, component, null);
+        }
+    }
+
+    @Override
+    public void componentRemoved(Component component) {
+        queue(EditKind.REMOVED, component, null);
+    }
+
+    @Override
+    public void componentChanged(Component component) {
+        queue(EditKind.CHANGED, component, null);
+    }
+
+    @Override
+    public void connected(Connection connection) {
+        queue(EditKind.CONNECTED, null, connection);
+    }
+
+    @Override
+    public void disconnected(Connection connection) {
+        queue(EditKind.DISCONNECTED, null, connection);
+    }
+}
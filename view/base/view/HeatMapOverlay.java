@@ -0,0 +1,319 @@
+package base.view;
+
+import base.components.CompoundComponent;
+import base.engine.CompiledCircuit;
+import base.engine.Engine;
+import base.fundamentals.Component;
+import base.fundamentals.DisplayPane;
+import base.fundamentals.Port;
+import base.netlist.CompoundDefinition;
+import javafx.beans.InvalidationListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+import java.util.*;
+
+/**
+ * Tints every Component and Connection in view by how often its signal has toggled, from blue for the quietest to
+ * red for the busiest. <br>
+ * Counts are read from the Engine's per-net toggle counters, so nothing is allocated as signals change. A
+ * Component's count is that of its output nets, or of its input nets if it has no outputs, such as a Light. A
+ * Connection's count is that of the net it carries. Inside a Compound Component, each interior Component shows its
+ * total over every instance of the definition on the board. Interior Components are matched to the definition by
+ * the index recorded when they were built, so Components added inside afterwards show nothing.
+ * <br><br>
+ * The overlay is a Canvas covering the visible part of the board, and ignores the mouse. Counts start over
+ * whenever the board is recompiled, such as after a Splitter or Compound Component is added or removed.
+ */
+public class HeatMapOverlay extends Canvas {
+    /** Most Components listed as the hottest */
+    public final static int HOTTEST_LIMIT = 50;
+    /** Opacity of the tint over each Component and Connection */
+    private final static double TINT_OPACITY = 0.5;
+    /** Width of the tint over each Connection, in pixels, a little wider than the wire itself */
+    private final static double WIRE_TINT_WIDTH = 9;
+    /** Hue of the quietest Components, in degrees. The busiest are at hue 0 */
+    private final static double COLD_HUE = 240;
+
+    /**
+     * One Component in the list of the hottest
+     * @param name The Component's description
+     * @param toggles The number of times its signal has toggled
+     */
+    public record Hotspot(String name, long toggles) {}
+
+    /** The simulation whose Engine is read */
+    private final LiveSimulation simulation;
+    /** The board the simulation runs */
+    private final DisplayPane board;
+    /** The DisplayPane being tinted */
+    private DisplayPane shown;
+    /** The Compound Component whose interior is shown, or null if the board is shown or it was not found */
+    private CompoundComponent compound;
+    /** The definition the shown DisplayPane is the interior of, or null if it is the board or not found */
+    private CompoundDefinition definition;
+    /** Redraws the overlay as the shown DisplayPane is scrolled */
+    private final InvalidationListener scrollListener;
+
+    /** Components of the shown DisplayPane, in the order the circuit or definition numbers them */
+    private List<Component> components;
+    /** Position of each Component within components */
+    private final IdentityHashMap<Component, Integer> indices;
+    /** Toggle count of each Component within components, at the last refresh */
+    private long[] counts;
+    /** Index in the compiled circuit or definition of each Component within components, or -1 if it has none */
+    private int[] numbers;
+    /** Positions within components of the hottest Components at the last refresh, hottest first */
+    private final int[] top;
+    /** Highest toggle count at the last refresh */
+    private long maxCount;
+    /** The hottest Components at the last refresh, hottest first */
+    private final ObservableList<Hotspot> hottest;
+
+    /**
+     * Create a hidden overlay, showing the board
+     * @param simulation The simulation whose toggle counts are shown
+     * @param board The board the simulation runs
+     */
+    public HeatMapOverlay(LiveSimulation simulation, DisplayPane board) {
+        this.simulation = simulation;
+        this.board = board;
+        this.shown = null;
+        this.compound = null;
+        this.definition = null;
+        this.scrollListener = o -> redraw();
+        this.components = List.of();
+        this.indices = new IdentityHashMap<>();
+        this.counts = new long[0];
+        this.numbers = new int[0];
+        this.top = new int[HOTTEST_LIMIT];
+        this.maxCount = 0;
+        this.hottest = FXCollections.observableArrayList();
+        setMouseTransparent(true);
+        setManaged(false);
+        setVisible(false);
+        show(board);
+    }
+
+    /**
+     * Get the hottest Components of the shown DisplayPane, updated on every refresh while visible
+     * @return Up to HOTTEST_LIMIT Components, hottest first
+     */
+    public ObservableList<Hotspot> getHottest() {
+        return hottest;
+    }
+
+    /**
+     * Tint a different DisplayPane, either the board or the interior of a Compound Component on it
+     * @param displayPane The DisplayPane now in view
+     */
+    public void show(DisplayPane displayPane) {
+        if (shown != null) {
+            ScrollPane view = shown.getView();
+            view.hvalueProperty().removeListener(scrollListener);
+            view.vvalueProperty().removeListener(scrollListener);
+            view.viewportBoundsProperty().removeListener(scrollListener);
+        }
+        shown = displayPane;
+        compound = displayPane == board ? null : findCompound(board, displayPane);
+        definition = compound == null ? null : compound.getDefinition();
+        ScrollPane view = displayPane.getView();
+        view.hvalueProperty().addListener(scrollListener);
+        view.vvalueProperty().addListener(scrollListener);
+        view.viewportBoundsProperty().addListener(scrollListener);
+        refresh();
+    }
+
+    /**
+     * Start counting toggles from zero
+     */
+    public void clearCounts() {
+        Engine engine = simulation.getEngine();
+        if (engine != null) {
+            engine.clearToggleCounts();
+        }
+        refresh();
+    }
+
+    /**
+     * Read the latest toggle counts, update the hottest list and redraw. Does nothing while hidden
+     */
+    public void refresh() {
+        if (!isVisible()) {
+            return;
+        }
+        recount();
+        redraw();
+    }
+
+    /**
+     * Read the toggle count of every Component on the shown DisplayPane
+     */
+    private void recount() {
+        Engine engine = simulation.getEngine();
+        if (engine == null) {
+            components = List.of();
+        } else if (definition == null) {
+            components = shown == board ? simulation.getCompiledComponents() : List.of();
+        } else {
+            components = shown.getComponents().snapshot();
+        }
+
+        indices.clear();
+        if (counts.length < components.size()) {
+            counts = new long[components.size()];
+            numbers = new int[components.size()];
+        }
+        maxCount = 0;
+        int topSize = 0;
+        for (int c = 0; c < components.size(); c++) {
+            Component component = components.get(c);
+            counts[c] = 0;
+            numbers[c] = -1;
+            if (component == null) {
+                // Removed since the board was compiled
+                continue;
+            }
+            indices.put(component, c);
+            numbers[c] = definition == null ? c : compound.getInteriorIndex(component);
+            if (numbers[c] == -1) {
+                // Added inside since the interior was built, so the definition has no nets for it
+                continue;
+            }
+            long count = 0;
+            if (component.getNumOutputs() > 0) {
+                for (int port = 0; port < component.getNumOutputs(); port++) {
+                    count += toggles(engine, numbers[c], port, false);
+                }
+            } else {
+                for (int port = 0; port < component.getNumInputs(); port++) {
+                    count += toggles(engine, numbers[c], port, true);
+                }
+            }
+            counts[c] = count;
+            maxCount = Math.max(maxCount, count);
+
+            // Keep the hottest in order as they are found, rather than sorting every Component
+            if (count > 0 && (topSize < HOTTEST_LIMIT || count > counts[top[topSize - 1]])) {
+                int i = topSize < HOTTEST_LIMIT ? topSize++ : topSize - 1;
+                while (i > 0 && counts[top[i - 1]] < count) {
+                    top[i] = top[i - 1];
+                    i--;
+                }
+                top[i] = c;
+            }
+        }
+
+        List<Hotspot> hottestNow = new ArrayList<>(topSize);
+        for (int i = 0; i < topSize; i++) {
+            hottestNow.add(new Hotspot(components.get(top[i]).toString(), counts[top[i]]));
+        }
+        hottest.setAll(hottestNow);
+    }
+
+    /**
+     * Get the toggle count of the net on one Port of a Component, summed over every instance inside a Compound
+     * @param component The Component's index in the compiled circuit, or in the definition's interior
+     */
+    private long toggles(Engine engine, int component, int port, boolean input) {
+        if (definition == null) {
+            return engine.getToggleCount(input
+                    ? simulation.getInputNet(component, port) : simulation.getOutputNet(component, port));
+        }
+        CompiledCircuit circuit = engine.getCircuit();
+        long total = 0;
+        for (int instance = 0; instance < circuit.getInstanceCount(definition); instance++) {
+            total += engine.getToggleCount(input
+                    ? circuit.getInteriorInputNet(definition, instance, component, port)
+                    : circuit.getInteriorOutputNet(definition, instance, component, port));
+        }
+        return total;
+    }
+
+    /**
+     * Redraw the tint over the visible part of the shown DisplayPane with the counts from the last refresh
+     */
+    private void redraw() {
+        if (!isVisible()) {
+            return;
+        }
+        ScrollPane view = shown.getView();
+        Bounds viewport = view.getViewportBounds();
+        Insets insets = view.getInsets();
+        setWidth(viewport.getWidth());
+        setHeight(viewport.getHeight());
+        setTranslateX(insets.getLeft());
+        setTranslateY(insets.getTop());
+
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        Engine engine = simulation.getEngine();
+        if (maxCount == 0 || engine == null) {
+            return;
+        }
+
+        Bounds visible = shown.getVisibleArea();
+        gc.save();
+        gc.translate(-visible.getMinX(), -visible.getMinY());
+        gc.setLineWidth(WIRE_TINT_WIDTH);
+        shown.getComponentIndex().forEachIntersecting(visible, component -> {
+            Integer c = indices.get(component);
+            if (c == null) {
+                return;
+            }
+            if (counts[c] > 0) {
+                Rectangle rect = component.getRect();
+                gc.setFill(heatColor(counts[c]));
+                gc.fillRect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+            }
+            for (int port = 0; port < component.getNumOutputs(); port++) {
+                Port output = component.getOutputPort(port);
+                long count = output.isConnected() && numbers[c] != -1 ? toggles(engine, numbers[c], port, false) : 0;
+                if (count > 0) {
+                    Port input = output.getConnectedPort();
+                    gc.setStroke(heatColor(count));
+                    gc.strokeLine(output.getCircle().getCenterX(), output.getCircle().getCenterY(),
+                            input.getCircle().getCenterX(), input.getCircle().getCenterY());
+                }
+            }
+        });
+        gc.restore();
+    }
+
+    /**
+     * Get the tint for a toggle count, on a log scale so a few very busy Components do not wash out the rest
+     */
+    private Color heatColor(long count) {
+        double heat = Math.min(1, Math.log1p(count) / Math.log1p(maxCount));
+        return Color.hsb(COLD_HUE * (1 - heat), 1, 1, TINT_OPACITY);
+    }
+
+    /**
+     * Find the Compound Component a DisplayPane is the interior of, searching every Compound Component looked inside
+     * @param within The DisplayPane to search
+     * @param interior The interior DisplayPane to look for
+     * @return The Compound Component, or null if none within has that interior
+     */
+    private static CompoundComponent findCompound(DisplayPane within, DisplayPane interior) {
+        for (int c = 0; c < within.getComponents().size(); c++) {
+            if (within.getComponents().get(c) instanceof CompoundComponent compound
+                    && compound.getInteriorView() != null) {
+                if (compound.getInteriorView() == interior) {
+                    return compound;
+                }
+                CompoundComponent found = findCompound(compound.getInteriorView(), interior);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+}
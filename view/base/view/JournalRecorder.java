@@ -0,0 +1,208 @@
+package base.view;
+
+import base.components.CompoundComponent;
+import base.components.MemoryComponent;
+import base.components.RegisterComponent;
+import base.components.SignalSource;
+import base.fundamentals.*;
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.MemoryBlock;
+import base.netlist.Netlist;
+import base.persistence.EditJournal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps an EditJournal up to date with every edit made on a DisplayPane. <br>
+ * Edits are encoded together once the current UI event is finished, and committed to the journal as one batch.
+ */
+public class JournalRecorder extends EditBatcher {
+    /** The DisplayPane being recorded */
+    private final DisplayPane board;
+    /** The journal edits are recorded in */
+    private final EditJournal journal;
+
+    private JournalRecorder(DisplayPane board, EditJournal journal) {
+        this.board = board;
+        this.journal = journal;
+    }
+
+    /**
+     * Restore the board left in a journal directory by the previous session, then start recording every edit
+     * made on the DisplayPane into a new journal generation there. <br>
+     * If the board cannot be recovered, the previous session's files are set aside rather than replaced, so they
+     * can still be recovered by hand
+     * @param directory The directory the journal is kept in
+     * @param board The DisplayPane to restore into and record. Expected to be empty
+     * @return The JournalRecorder now recording the DisplayPane
+     * @throws IOException If the journal directory cannot be written
+     */
+    public static JournalRecorder open(Path directory, DisplayPane board) throws IOException {
+        try {
+            recover(directory, board);
+        } catch (IOException ioe) {
+            System.out.println("Journal Recovery " + ioe.getClass() + ": " + ioe.getLocalizedMessage());
+            // Starting a new generation deletes the older ones, which are the only copies of the lost board
+            Path damaged = EditJournal.setAside(directory);
+            if (damaged != null) {
+                System.out.println("The previous session's journal was moved to " + damaged);
+            }
+        }
+
+        // Recovered Components have new identifiers, so the new generation starts from a fresh snapshot
+        EditJournal journal = EditJournal.start(directory, BoardCapture.capture(board));
+        JournalRecorder recorder = new JournalRecorder(board, journal);
+        board.addBoardListener(recorder);
+        return recorder;
+    }
+
+    /**
+     * Rebuild the newest board in a journal directory onto a DisplayPane
+     */
+    private static void recover(Path directory, DisplayPane board) throws IOException {
+        // Journals refer to Components by the identifiers they had in the previous session
+        Map<Integer, Component> byId = new HashMap<>();
+
+        EditJournal.recover(directory, new EditJournal.Replayer() {
+            @Override
+            public void restore(Netlist snapshot) {
+                List<Component> restored = BoardCapture.restore(snapshot, board);
+                for (int i = 0; i < snapshot.size(); i++) {
+                    byId.put(snapshot.getId(i), restored.get(i));
+                }
+            }
+
+            @Override
+            public void add(GateType type, int id, double x, double y, boolean on) {
+                Component component = BoardCapture.create(type, x, y, board);
+                if (component instanceof SignalSource source) {
+                    source.setOn(on);
+                }
+                byId.put(id, component);
+            }
+
+            @Override
+            public void addCompound(CompoundDefinition definition, int id, double x, double y) {
+                byId.put(id, new CompoundComponent(definition, x, y, board));
+            }
+
+            @Override
+            public void addMemory(MemoryBlock memory, int id, double x, double y) {
+                byId.put(id, new MemoryComponent(memory, x, y, board));
+            }
+
+            @Override
+            public void addRegister(int width, int id, double x, double y) {
+                byId.put(id, BoardCapture.createRegister(width, x, y, board));
+            }
+
+            @Override
+            public void move(int id, double x, double y) {
+                Component component = byId.get(id);
+                if (component != null) {
+                    component.setPosition(x, y);
+                }
+            }
+
+            @Override
+            public void remove(int id) {
+                Component component = byId.remove(id);
+                if (component != null) {
+                    component.remove();
+                }
+            }
+
+            @Override
+            public void connect(int sourceId, int sourcePort, int destId, int destPort) {
+                Component source = byId.get(sourceId);
+                Component dest = byId.get(destId);
+                if (source != null && dest != null) {
+                    source.getOutputPort(sourcePort).connectTo(dest, destPort);
+                }
+            }
+
+            @Override
+            public void disconnect(int destId, int destPort) {
+                Component dest = byId.get(destId);
+                if (dest != null) {
+                    dest.getInputPort(destPort).removeConnection();
+                }
+            }
+
+            @Override
+            public void setState(int id, boolean on) {
+                if (byId.get(id) instanceof SignalSource source) {
+                    source.setOn(on);
+                }
+            }
+        });
+    }
+
+    /**
+     * Encode a batch of edits and hand them to the journal, compacting it if it has grown too large
+     */
+    @Override
+    void handle(List<PendingEdit> edits) {
+        for (PendingEdit edit : edits) {
+            Component component = edit.component();
+            Connection connection = edit.connection();
+            switch (edit.kind()) {
+                case ADDED -> {
+                    double x = component.getRect().getX();
+                    double y = component.getRect().getY();
+                    if (component instanceof CompoundComponent compound) {
+                        journal.recordAddCompound(compound.getDefinition(), component.getId(), x, y);
+                    } else if (component instanceof MemoryComponent memory) {
+                        journal.recordAddMemory(memory.getMemory(), component.getId(), x, y);
+                    } else if (component instanceof RegisterComponent register) {
+                        journal.recordAddRegister(register.getRegisterWidth(), component.getId(), x, y);
+                    } else {
+                        boolean on = component instanceof SignalSource source && source.isOn();
+                        journal.recordAdd(BoardCapture.typeOf(component), component.getId(), x, y, on);
+                    }
+                }
+                case MOVED -> journal.recordMove(component.getId(), component.getRect().getX(),
+                        component.getRect().getY());
+                case REMOVED -> journal.recordRemove(component.getId());
+                case CHANGED -> {
+                    if (component instanceof SignalSource source) {
+                        journal.recordState(component.getId(), source.isOn());
+                    }
+                }
+                case CONNECTED -> journal.recordConnect(
+                        connection.getSourcePort().getParent().getId(), connection.getSourcePort().getPortNum(),
+                        connection.getDestPort().getParent().getId(), connection.getDestPort().getPortNum());
+                case DISCONNECTED -> journal.recordDisconnect(
+                        connection.getDestPort().getParent().getId(), connection.getDestPort().getPortNum());
+            }
+        }
+        journal.commit();
+
+        if (journal.shouldCompact()) {
+            journal.compact(BoardCapture.capture(board));
+        }
+    }
+
+    /**
+     * Replace the journal with a fresh snapshot of the board, such as after loading a whole new board
+     */
+    public void snapshot() {
+        flush();
+        journal.compact(BoardCapture.capture(board));
+    }
+
+    /**
+     * Stop recording, writing out everything recorded so far
+     * @throws IOException If the journal cannot be written
+     */
+    public void close() throws IOException {
+        board.removeBoardListener(this);
+        flush();
+        journal.close();
+    }
+}
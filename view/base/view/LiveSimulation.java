@@ -0,0 +1,608 @@
+package base.view;
+
+import base.components.CompoundComponent;
+import base.components.MemoryComponent;
+import base.components.RegisterComponent;
+import base.components.SignalSource;
+import base.components.Splitter;
+import base.engine.CompiledCircuit;
+import base.engine.Engine;
+import base.engine.IntLists;
+import base.fundamentals.*;
+import base.netlist.GateType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Runs the Components on a DisplayPane with the core Engine and shows the result on them. <br>
+ * The DisplayPane is compiled the first time it is simulated. After that, adding or removing a basic gate, Light
+ * or Signal Source, or a Connection between them, patches the running Engine instead, touching only the nets the
+ * edit changes. Edits involving Splitters or Compound Components merge or split nets, so the whole board is
+ * recompiled, as it also is once removed Components make up most of the compiled board. Signals carry over a
+ * recompile, so latches keep what they were holding. Toggling a Signal Source needs neither.
+ * <br><br>
+ * Each frame, only the Ports on nets the Engine reports as changed are set. The DisplayPane then redraws just the
+ * Components and Connections whose signals changed, once per frame and only while it is shown.
+ * <br><br>
+ * Watchpoints are kept in terms of Ports, so they survive recompiles, and are handed to every new Engine. When
+ * one triggers, the simulation pauses on that tick, showing the board as it was then, until it is resumed.
+ * <br><br>
+ * Compound Components are simulated as part of the DisplayPane they sit on. Their interior DisplayPanes are not
+ * updated, since they are only views of the shared definition.
+ */
+public class LiveSimulation implements BoardListener {
+    /** Most ticks run by {@link #frame()}, so a circuit which never settles cannot stall the UI */
+    public final static int MAX_TICKS_PER_FRAME = 64;
+
+    /** The DisplayPane being simulated */
+    private final DisplayPane board;
+    /** Least number of removed Components which can make a recompile worthwhile */
+    private final static int MIN_RECOMPILE_REMOVALS = 1024;
+
+    /**
+     * Every Component simulated, in Netlist order followed by those patched in since, with null in place of those
+     * removed since
+     */
+    private final List<Component> components;
+    /** Index of each simulated Component within components */
+    private final IdentityHashMap<Component, Integer> indices;
+    /** Number of nulls in components */
+    private int removedCount;
+    /** Slot of each simulated Component's first Port. Its inputs come first, then its outputs */
+    private int[] portStarts;
+    /** Net each Port slot is on */
+    private int[] portNets;
+    /** Index of the Component owning each Port slot */
+    private int[] portOwners;
+    /** Port number of each Port slot. Output Port n is stored as -1 - n */
+    private int[] portNumbers;
+    /** Number of Port slots used */
+    private int portCount;
+    /** Signal Source number of each simulated Component, or -1 if it is not a Signal Source */
+    private int[] sources;
+    /** Port slots on each net. LOW never changes, so its list is not kept up to date */
+    private IntLists netPorts;
+    /** The Engine running the board, or null before the first frame */
+    private Engine engine;
+    /** Whether the board has changed shape since it was last compiled */
+    private boolean stale;
+    /** Where each frame's work is counted, or null if it is not */
+    private final SimulationMetrics metrics;
+
+    /**
+     * A condition on the signals of a group of Ports
+     * @param ports The Ports to read as a binary number, least significant bit first
+     * @param value The value the Ports must show
+     * @param description What the condition is, for showing once it triggers
+     */
+    private record Watch(List<Port> ports, long value, String description) {}
+
+    /** Every watchpoint set on the board */
+    private final List<Watch> watches;
+    /** Engine identifier of each watchpoint, in the same order, or -1 for those whose Ports are gone */
+    private int[] watchIds;
+    /** The watchpoint the simulation is paused on, or null while it is running */
+    private Watch pausedOn;
+    /** Tick the simulation paused on */
+    private long pausedTick;
+    /** Run whenever a watchpoint pauses the simulation, or null */
+    private Runnable onPause;
+
+    /**
+     * Start simulating a DisplayPane. Nothing is compiled until the first frame
+     * @param board The DisplayPane to simulate
+     */
+    public LiveSimulation(DisplayPane board) {
+        this(board, null);
+    }
+
+    /**
+     * Start simulating a DisplayPane, counting the work done each frame. Nothing is compiled until the first frame
+     * @param board The DisplayPane to simulate
+     * @param metrics Where to count each frame's ticks, gate evaluations and signal changes, or null
+     */
+    public LiveSimulation(DisplayPane board, SimulationMetrics metrics) {
+        this.board = board;
+        this.metrics = metrics;
+        this.components = new ArrayList<>();
+        this.indices = new IdentityHashMap<>();
+        this.engine = null;
+        this.stale = true;
+        this.watches = new ArrayList<>();
+        this.watchIds = new int[0];
+        this.pausedOn = null;
+        this.pausedTick = 0;
+        this.onPause = null;
+        board.addBoardListener(this);
+    }
+
+    /**
+     * Stop simulating the DisplayPane
+     */
+    public void close() {
+        board.removeBoardListener(this);
+    }
+
+    /**
+     * Get the Engine running the board
+     * @return The Engine, or null before the first frame
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Pause the simulation on the tick a group of Ports starts showing a value. <br>
+     * Read as a single Port, a value of 1 pauses when it turns on. Watchpoints on Ports which are later removed
+     * stop having any effect
+     * @param ports The Ports to read as a binary number, least significant bit first. From 1 to 64 of them
+     * @param value The value the Ports must show
+     * @param description What the condition is, for showing once it triggers
+     * @throws IllegalArgumentException If there are no Ports or more than 64
+     */
+    public void addWatchpoint(List<Port> ports, long value, String description) {
+        if (ports.isEmpty() || ports.size() > Long.SIZE) {
+            throw new IllegalArgumentException("A watchpoint reads 1 to 64 Ports, not " + ports.size());
+        }
+        watches.add(new Watch(List.copyOf(ports), value, description));
+        watchIds = Arrays.copyOf(watchIds, watches.size());
+        watchIds[watches.size() - 1] = -1;
+        if (engine != null && !stale) {
+            install(watches.size() - 1);
+        }
+    }
+
+    /**
+     * Remove every watchpoint, resuming the simulation if one had paused it
+     */
+    public void clearWatchpoints() {
+        if (engine != null) {
+            for (int id : watchIds) {
+                if (id != -1) {
+                    engine.removeWatchpoint(id);
+                }
+            }
+        }
+        watches.clear();
+        watchIds = new int[0];
+        resume();
+    }
+
+    /**
+     * Get whether a watchpoint has paused the simulation
+     * @return True while paused
+     */
+    public boolean isPaused() {
+        return pausedOn != null;
+    }
+
+    /**
+     * Describe why the simulation is paused
+     * @return The triggered watchpoint and the tick it triggered on, or null while running
+     */
+    public String getPauseReason() {
+        return pausedOn == null ? null : pausedOn.description() + " at tick " + pausedTick;
+    }
+
+    /**
+     * Carry on simulating after a watchpoint paused the simulation
+     */
+    public void resume() {
+        pausedOn = null;
+        if (engine != null) {
+            engine.resume();
+        }
+    }
+
+    /**
+     * Set what runs whenever a watchpoint pauses the simulation
+     * @param onPause Run on the JavaFX thread, after the paused state is shown. Null for nothing
+     */
+    public void setOnPause(Runnable onPause) {
+        this.onPause = onPause;
+    }
+
+    /**
+     * Hand a watchpoint to the Engine, in terms of the nets its Ports are on
+     */
+    private void install(int watch) {
+        List<Port> ports = watches.get(watch).ports();
+        int[] nets = new int[ports.size()];
+        for (int bit = 0; bit < nets.length; bit++) {
+            Port port = ports.get(bit);
+            Integer index = indices.get(port.getParent());
+            if (index == null) {
+                watchIds[watch] = -1;
+                return;
+            }
+            nets[bit] = port.isInput()
+                    ? getInputNet(index, port.getPortNum()) : getOutputNet(index, port.getPortNum());
+        }
+        watchIds[watch] = engine.addWatchpoint(nets, watches.get(watch).value());
+    }
+
+    /**
+     * Get whether the next frame will recompile the board first, because it has been edited since the last one
+     * @return Whether the board needs recompiling
+     */
+    public boolean needsRecompile() {
+        return stale;
+    }
+
+    /**
+     * Get every Component being simulated. <br>
+     * The Components of the board when it was last compiled come first, in the order the Engine's circuit numbers
+     * them, followed by any patched in since. Components removed since are left as null, so the rest keep their
+     * place until the next recompile
+     * @return The simulated Components, by index. Empty before the first frame
+     */
+    public List<Component> getCompiledComponents() {
+        return components;
+    }
+
+    /**
+     * Get the net read by an input Port of a simulated Component
+     * @param component The index of the Component within {@link #getCompiledComponents()}
+     * @param port The input Port number
+     * @return The net the Port reads from, which is LOW if nothing is connected
+     */
+    public int getInputNet(int component, int port) {
+        return portNets[portStarts[component] + port];
+    }
+
+    /**
+     * Get the net driven by an output Port of a simulated Component
+     * @param component The index of the Component within {@link #getCompiledComponents()}
+     * @param port The output Port number
+     * @return The net the Port drives
+     */
+    public int getOutputNet(int component, int port) {
+        return portNets[portStarts[component] + components.get(component).getNumInputs() + port];
+    }
+
+    /**
+     * Advance the simulation by one display frame of at most MAX_TICKS_PER_FRAME ticks, then set the Ports on
+     * every net which changed
+     * @return The number of ticks run
+     */
+    public int frame() {
+        return frame(MAX_TICKS_PER_FRAME);
+    }
+
+    /**
+     * Advance the simulation by one display frame, then set the Ports on every net which changed
+     * @param maxTicks The most ticks to run before showing the result, for circuits which take long to settle or
+     *                 never do
+     * @return The number of ticks run
+     */
+    public int frame(int maxTicks) {
+        boolean rebuilt = stale;
+        if (stale) {
+            rebuild();
+        }
+        long evaluations = engine.getGateEvaluations();
+        long changes = engine.getSignalChanges();
+        int ticks = isPaused() ? 0 : engine.settle(maxTicks);
+        if (metrics != null) {
+            metrics.recordSimulationFrame(ticks, engine.getGateEvaluations() - evaluations,
+                    engine.getSignalChanges() - changes);
+        }
+
+        if (rebuilt) {
+            // Ports and Connections may have been created or moved between nets, so set every one
+            engine.drainChangedNets(net -> {});
+            for (int c = 0; c < components.size(); c++) {
+                Component component = components.get(c);
+                for (int port = 0; port < component.getNumInputs(); port++) {
+                    component.getInputPort(port).setState(engine.isOn(getInputNet(c, port)));
+                }
+                for (int port = 0; port < component.getNumOutputs(); port++) {
+                    Port output = component.getOutputPort(port);
+                    output.setState(engine.isOn(getOutputNet(c, port)));
+                    if (output.isConnected()) {
+                        output.getConnection().updateState();
+                    }
+                }
+            }
+        } else {
+            engine.drainChangedNets(this::showNet);
+        }
+
+        int triggered = engine.getTriggeredWatchpoint();
+        if (triggered != -1 && !isPaused()) {
+            for (int watch = 0; watch < watches.size(); watch++) {
+                if (watchIds[watch] == triggered) {
+                    pausedOn = watches.get(watch);
+                }
+            }
+            pausedTick = engine.getTickCount();
+            if (onPause != null) {
+                onPause.run();
+            }
+        }
+        return ticks;
+    }
+
+    /**
+     * Set every Port on a net to the net's new value
+     */
+    private void showNet(int net) {
+        boolean on = engine.isOn(net);
+        int[] slots = netPorts.values();
+        for (int i = netPorts.start(net); i < netPorts.end(net); i++) {
+            showPort(slots[i], on);
+        }
+    }
+
+    /**
+     * Set the Port in a slot to a value
+     */
+    private void showPort(int slot, boolean on) {
+        Component component = components.get(portOwners[slot]);
+        int port = portNumbers[slot];
+        (port >= 0 ? component.getInputPort(port) : component.getOutputPort(-1 - port)).setState(on);
+    }
+
+    /**
+     * Compile the board as it is now, carrying over the signal on every output Port
+     */
+    private void rebuild() {
+        components.clear();
+        components.addAll(board.getComponents().snapshot());
+        indices.clear();
+        removedCount = 0;
+        CompiledCircuit circuit = CompiledCircuit.compile(BoardCapture.capture(components));
+
+        portStarts = new int[Math.max(components.size(), 1)];
+        sources = new int[portStarts.length];
+        portCount = 0;
+        for (int c = 0; c < components.size(); c++) {
+            Component component = components.get(c);
+            indices.put(component, c);
+            portStarts[c] = portCount;
+            portCount += component.getNumInputs() + component.getNumOutputs();
+            sources[c] = circuit.getSource(c);
+        }
+        portNets = new int[Math.max(portCount, 1)];
+        portOwners = new int[portNets.length];
+        portNumbers = new int[portNets.length];
+        for (int c = 0; c < components.size(); c++) {
+            Component component = components.get(c);
+            int slot = portStarts[c];
+            for (int port = 0; port < component.getNumInputs(); port++, slot++) {
+                portNets[slot] = circuit.getInputNet(c, port);
+                portOwners[slot] = c;
+                portNumbers[slot] = port;
+            }
+            for (int port = 0; port < component.getNumOutputs(); port++, slot++) {
+                portNets[slot] = circuit.getOutputNet(c, port);
+                portOwners[slot] = c;
+                portNumbers[slot] = -1 - port;
+            }
+        }
+
+        engine = new Engine(circuit);
+        for (int c = 0; c < components.size(); c++) {
+            Component component = components.get(c);
+            for (int port = 0; port < component.getNumOutputs(); port++) {
+                engine.restore(getOutputNet(c, port), component.getOutputPort(port).isOn());
+            }
+        }
+        for (int watch = 0; watch < watches.size(); watch++) {
+            install(watch);
+        }
+
+        // Group every Port slot by the net it is on, so changed nets can be shown without visiting the whole board
+        int netCount = circuit.getNetCount();
+        int[] offsets = new int[netCount + 1];
+        for (int slot = 0; slot < portCount; slot++) {
+            offsets[portNets[slot] + 1]++;
+        }
+        for (int net = 0; net < netCount; net++) {
+            offsets[net + 1] += offsets[net];
+        }
+        int[] slots = new int[portCount];
+        int[] filled = Arrays.copyOf(offsets, netCount);
+        for (int slot = 0; slot < portCount; slot++) {
+            slots[filled[portNets[slot]]++] = slot;
+        }
+        netPorts = new IntLists(offsets, slots);
+        stale = false;
+    }
+
+    /**
+     * Get whether an edit to a Component can be patched into the running Engine. <br>
+     * Splitters and Compound Components merge nets together, which only a recompile can undo. Memories and
+     * Registers are not gates of the compiled circuit, so they are recompiled too. A recompile carries over what
+     * every Register on the board holds
+     */
+    private boolean canPatch(Component component) {
+        return engine != null && !stale && !(component instanceof Splitter)
+                && !(component instanceof CompoundComponent) && !(component instanceof MemoryComponent)
+                && !(component instanceof RegisterComponent);
+    }
+
+    /**
+     * Get the type the Engine simulates a basic gate as
+     */
+    private static byte gateType(GateType type) {
+        return switch (type) {
+            case AND -> CompiledCircuit.AND;
+            case OR -> CompiledCircuit.OR;
+            default -> CompiledCircuit.NOT;
+        };
+    }
+
+    /**
+     * Give a new Component a place in the Port slot arrays, every Port reading or driving a given net
+     */
+    private int addSlots(Component component, int inputNet, int outputNet) {
+        int c = components.size();
+        components.add(component);
+        indices.put(component, c);
+        int ports = component.getNumInputs() + component.getNumOutputs();
+        if (c == portStarts.length) {
+            portStarts = Arrays.copyOf(portStarts, c * 2);
+            sources = Arrays.copyOf(sources, c * 2);
+        }
+        if (portCount + ports > portNets.length) {
+            int capacity = Math.max(portNets.length * 2, portCount + ports);
+            portNets = Arrays.copyOf(portNets, capacity);
+            portOwners = Arrays.copyOf(portOwners, capacity);
+            portNumbers = Arrays.copyOf(portNumbers, capacity);
+        }
+        portStarts[c] = portCount;
+        sources[c] = -1;
+        for (int port = 0; port < component.getNumInputs(); port++) {
+            setSlot(portCount++, c, port, inputNet);
+        }
+        for (int port = 0; port < component.getNumOutputs(); port++) {
+            setSlot(portCount++, c, -1 - port, outputNet);
+        }
+        return c;
+    }
+
+    private void setSlot(int slot, int component, int port, int net) {
+        portNets[slot] = net;
+        portOwners[slot] = component;
+        portNumbers[slot] = port;
+        if (net != CompiledCircuit.LOW) {
+            netPorts.add(net, slot);
+        }
+    }
+
+    /**
+     * Move a Port slot onto a different net
+     */
+    private void moveSlot(int slot, int net) {
+        if (portNets[slot] != CompiledCircuit.LOW) {
+            netPorts.remove(portNets[slot], slot);
+        }
+        portNets[slot] = net;
+        if (net != CompiledCircuit.LOW) {
+            netPorts.add(net, slot);
+        }
+    }
+
+    /**
+     * Make room in the net to Port slot lists for every net the Engine has added
+     */
+    private void growNets() {
+        while (netPorts.keyCount() < engine.getNetCount()) {
+            netPorts.addKey();
+        }
+    }
+
+    /**
+     * Point a gate's input, and the Port slot showing it, at a different net
+     */
+    private void rewireInput(int component, int port, int net) {
+        Component dest = components.get(component);
+        moveSlot(portStarts[component] + port, net);
+        if (dest.getNumOutputs() > 0 && !(dest instanceof SignalSource)) {
+            engine.rewire(getOutputNet(component, 0), port, net);
+        }
+        for (int watch = 0; watch < watches.size(); watch++) {
+            if (watches.get(watch).ports().contains(dest.getInputPort(port))) {
+                // The watched Port is on a different net now
+                if (watchIds[watch] != -1) {
+                    engine.removeWatchpoint(watchIds[watch]);
+                }
+                install(watch);
+            }
+        }
+    }
+
+    @Override
+    public void componentAdded(Component component) {
+        if (!canPatch(component)) {
+            stale = true;
+            return;
+        }
+        GateType type = BoardCapture.typeOf(component);
+        if (type == GateType.SIGNAL_SOURCE) {
+            int source = engine.addSource(((SignalSource) component).isOn());
+            growNets();
+            int c = addSlots(component, CompiledCircuit.LOW, engine.getSourceNet(source));
+            sources[c] = source;
+        } else if (type == GateType.LIGHT) {
+            addSlots(component, CompiledCircuit.LOW, CompiledCircuit.LOW);
+        } else {
+            int net = engine.addGate(gateType(type));
+            growNets();
+            addSlots(component, CompiledCircuit.LOW, net);
+        }
+    }
+
+    @Override
+    public void componentMoved(Component component) {
+        // Position does not affect the simulation
+    }
+
+    @Override
+    public void componentRemoved(Component component) {
+        Integer index = indices.get(component);
+        if (index == null || !canPatch(component)) {
+            stale = true;
+            return;
+        }
+        // Its Connections were removed first, so nothing reads from it any more
+        if (sources[index] != -1) {
+            engine.setSource(sources[index], false);
+        } else if (component.getNumOutputs() > 0) {
+            engine.removeGate(getOutputNet(index, 0));
+        }
+        int end = portStarts[index] + component.getNumInputs() + component.getNumOutputs();
+        for (int slot = portStarts[index]; slot < end; slot++) {
+            moveSlot(slot, CompiledCircuit.LOW);
+        }
+        indices.remove(component);
+        components.set(index, null);
+        removedCount++;
+        if (removedCount >= MIN_RECOMPILE_REMOVALS && removedCount * 2 > components.size()) {
+            stale = true;
+        }
+    }
+
+    @Override
+    public void componentChanged(Component component) {
+        Integer index = indices.get(component);
+        if (!stale && index != null && component instanceof SignalSource source) {
+            engine.setSource(sources[index], source.isOn());
+        }
+    }
+
+    @Override
+    public void connected(Connection connection) {
+        Component source = connection.getSourcePort().getParent();
+        Component dest = connection.getDestPort().getParent();
+        Integer sourceIndex = indices.get(source);
+        Integer destIndex = indices.get(dest);
+        if (sourceIndex == null || destIndex == null || !canPatch(source) || !canPatch(dest)) {
+            stale = true;
+            return;
+        }
+        int net = getOutputNet(sourceIndex, connection.getSourcePort().getPortNum());
+        rewireInput(destIndex, connection.getDestPort().getPortNum(), net);
+        connection.updateState();
+    }
+
+    @Override
+    public void disconnected(Connection connection) {
+        Component source = connection.getSourcePort().getParent();
+        Component dest = connection.getDestPort().getParent();
+        Integer sourceIndex = indices.get(source);
+        Integer destIndex = indices.get(dest);
+        if (sourceIndex == null || destIndex == null || !canPatch(source) || !canPatch(dest)) {
+            stale = true;
+            return;
+        }
+        rewireInput(destIndex, connection.getDestPort().getPortNum(), CompiledCircuit.LOW);
+        // Removing the Connection turned both its Ports off, but the source is still driving its net
+        int net = getOutputNet(sourceIndex, connection.getSourcePort().getPortNum());
+        connection.getSourcePort().setState(engine.isOn(net));
+    }
+}
@@ -0,0 +1,63 @@
+package base.view;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+import java.util.Map;
+
+/**
+ * A small panel showing SimulationMetrics over the corner of the board. <br>
+ * It ignores the mouse, so everything underneath it can still be clicked, and is only refreshed once per sampling
+ * period while it is visible.
+ */
+public class PerformanceOverlay extends Label {
+    /** Background behind the text, translucent so the board shows through */
+    private final static Color BACKGROUND_COLOR = new Color(0, 0, 0, 0.6);
+    /** Color of the text */
+    private final static Color TEXT_COLOR = Color.LIGHTGREEN;
+    /** Space between the text and the edge of the panel, in pixels */
+    private final static double PADDING = 6;
+
+    /** The metrics shown */
+    private final SimulationMetrics metrics;
+
+    /**
+     * Create a hidden overlay
+     * @param metrics The metrics to show
+     */
+    public PerformanceOverlay(SimulationMetrics metrics) {
+        this.metrics = metrics;
+        setFont(Font.font("Monospaced", 12));
+        setTextFill(TEXT_COLOR);
+        setBackground(new Background(new BackgroundFill(BACKGROUND_COLOR, new CornerRadii(4), null)));
+        setPadding(new Insets(PADDING));
+        setMouseTransparent(true);
+        setVisible(false);
+        setAlignment(Pos.TOP_LEFT);
+    }
+
+    /**
+     * Show the latest rates. Does nothing while hidden
+     */
+    public void refresh() {
+        if (!isVisible()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("ticks/s        %10.0f%n", metrics.getTicksPerSecond()));
+        text.append(String.format("evals/tick     %10.1f%n", metrics.getGateEvaluationsPerTick()));
+        text.append(String.format("changes/tick   %10.1f%n", metrics.getSignalChangesPerTick()));
+        text.append(String.format("ticks/frame    %10.2f%n", metrics.getSettleIterationsPerFrame()));
+        text.append(String.format("frame ms       %10.2f", metrics.getFrameTimeMillis()));
+        for (Map.Entry<String, Integer> nodes : metrics.getNodeCounts().entrySet()) {
+            text.append(String.format("%n%-14s %10d", nodes.getKey(), nodes.getValue()));
+        }
+        setText(text.toString());
+    }
+}
@@ -0,0 +1,221 @@
+package base.view;
+
+import base.fundamentals.DisplayPane;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what the simulator is doing, cheaply enough to always be on. <br>
+ * Counters are LongAdders, so recording never locks and never contends with a JMX client reading them. Rates,
+ * averages and node counts are worked out once per sampling period on the JavaFX thread, not on every read.
+ * <br><br>
+ * Readable through JMX as base:type=SimulationMetrics once registered, and shown by the PerformanceOverlay.
+ */
+public class SimulationMetrics implements SimulationMetricsMXBean {
+    /** Name the metrics are registered under with the platform MBean server */
+    public final static String OBJECT_NAME = "base:type=SimulationMetrics";
+    /** Length of each sampling period, in nanoseconds */
+    private final static long SAMPLE_PERIOD_NANOS = 1_000_000_000L;
+
+    private final LongAdder ticks;
+    private final LongAdder gateEvaluations;
+    private final LongAdder signalChanges;
+    /** Simulation frames run, each of which settles the board once */
+    private final LongAdder simulationFrames;
+    /** JavaFX pulses seen */
+    private final LongAdder pulses;
+    /** Total time between the pulses seen, in nanoseconds */
+    private final LongAdder pulseNanos;
+
+    /** DisplayPanes whose node counts are sampled */
+    private final List<DisplayPane> watched;
+    /** Node count of each watched DisplayPane at the last sample, keyed by name made unique. Never modified */
+    private volatile Map<String, Integer> nodeCounts;
+
+    /** Time of the previous pulse, or 0 before the first. Only touched on the JavaFX thread */
+    private long lastPulse;
+    /** Start of the current sampling period. Only touched on the JavaFX thread */
+    private long periodStart;
+    /** Counter totals at the start of the current sampling period. Only touched on the JavaFX thread */
+    private long periodTicks, periodEvaluations, periodChanges, periodFrames, periodPulses, periodPulseNanos;
+
+    private volatile double ticksPerSecond;
+    private volatile double gateEvaluationsPerTick;
+    private volatile double signalChangesPerTick;
+    private volatile double settleIterationsPerFrame;
+    private volatile double frameTimeMillis;
+
+    public SimulationMetrics() {
+        this.ticks = new LongAdder();
+        this.gateEvaluations = new LongAdder();
+        this.signalChanges = new LongAdder();
+        this.simulationFrames = new LongAdder();
+        this.pulses = new LongAdder();
+        this.pulseNanos = new LongAdder();
+        this.watched = new CopyOnWriteArrayList<>();
+        this.nodeCounts = Map.of();
+        this.lastPulse = 0;
+        this.periodStart = 0;
+    }
+
+    /**
+     * Make these metrics readable through the platform MBean server. Failures are reported and otherwise ignored,
+     * since the editor works the same without them
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException jme) {
+            System.out.println("Metrics Registration " + jme.getClass() + ": " + jme.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Start sampling the number of Nodes a DisplayPane has attached to the scene graph
+     * @param displayPane The DisplayPane to watch. DisplayPanes already watched are ignored
+     */
+    public void watch(DisplayPane displayPane) {
+        if (!watched.contains(displayPane)) {
+            watched.add(displayPane);
+        }
+    }
+
+    /**
+     * Stop sampling the node count of a DisplayPane, so that it can be garbage collected once it is no longer shown
+     * @param displayPane The DisplayPane to stop watching. DisplayPanes not watched are ignored
+     */
+    public void unwatch(DisplayPane displayPane) {
+        watched.remove(displayPane);
+    }
+
+    /**
+     * Record one simulation frame
+     * @param frameTicks Ticks run to settle the board
+     * @param frameEvaluations Gates evaluated over those ticks
+     * @param frameChanges Nets changed over those ticks
+     */
+    public void recordSimulationFrame(int frameTicks, long frameEvaluations, long frameChanges) {
+        simulationFrames.increment();
+        ticks.add(frameTicks);
+        gateEvaluations.add(frameEvaluations);
+        signalChanges.add(frameChanges);
+    }
+
+    /**
+     * Record a JavaFX pulse, and work out new rates if a sampling period has passed. Must be called on the
+     * JavaFX thread, such as from an AnimationTimer
+     * @param now The time of the pulse, in nanoseconds
+     * @return True if new rates were worked out
+     */
+    public boolean recordPulse(long now) {
+        if (lastPulse != 0) {
+            pulses.increment();
+            pulseNanos.add(now - lastPulse);
+        }
+        lastPulse = now;
+
+        if (periodStart == 0) {
+            periodStart = now;
+            return false;
+        }
+        if (now - periodStart < SAMPLE_PERIOD_NANOS) {
+            return false;
+        }
+        sample(now);
+        return true;
+    }
+
+    /**
+     * Work out the rates over the sampling period ending now and start the next one
+     */
+    private void sample(long now) {
+        long totalTicks = ticks.sum();
+        long totalEvaluations = gateEvaluations.sum();
+        long totalChanges = signalChanges.sum();
+        long totalFrames = simulationFrames.sum();
+        long totalPulses = pulses.sum();
+        long totalPulseNanos = pulseNanos.sum();
+
+        long periodTickCount = totalTicks - periodTicks;
+        long periodFrameCount = totalFrames - periodFrames;
+        long periodPulseCount = totalPulses - periodPulses;
+        ticksPerSecond = periodTickCount * 1e9 / (now - periodStart);
+        gateEvaluationsPerTick = periodTickCount == 0
+                ? 0 : (double) (totalEvaluations - periodEvaluations) / periodTickCount;
+        signalChangesPerTick = periodTickCount == 0
+                ? 0 : (double) (totalChanges - periodChanges) / periodTickCount;
+        settleIterationsPerFrame = periodFrameCount == 0 ? 0 : (double) periodTickCount / periodFrameCount;
+        frameTimeMillis = periodPulseCount == 0 ? 0 : (totalPulseNanos - periodPulseNanos) / 1e6 / periodPulseCount;
+
+        // Compound Components' views can share a name, so later ones are numbered to keep each count apart
+        Map<String, Integer> counts = new HashMap<>();
+        for (DisplayPane displayPane : watched) {
+            String key = displayPane.getName();
+            for (int n = 2; counts.containsKey(key); n++) {
+                key = displayPane.getName() + " (" + n + ")";
+            }
+            counts.put(key, displayPane.getPane().getChildren().size());
+        }
+        nodeCounts = Map.copyOf(counts);
+
+        periodStart = now;
+        periodTicks = totalTicks;
+        periodEvaluations = totalEvaluations;
+        periodChanges = totalChanges;
+        periodFrames = totalFrames;
+        periodPulses = totalPulses;
+        periodPulseNanos = totalPulseNanos;
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    @Override
+    public long getGateEvaluations() {
+        return gateEvaluations.sum();
+    }
+
+    @Override
+    public long getSignalChanges() {
+        return signalChanges.sum();
+    }
+
+    @Override
+    public double getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    @Override
+    public double getGateEvaluationsPerTick() {
+        return gateEvaluationsPerTick;
+    }
+
+    @Override
+    public double getSignalChangesPerTick() {
+        return signalChangesPerTick;
+    }
+
+    @Override
+    public double getSettleIterationsPerFrame() {
+        return settleIterationsPerFrame;
+    }
+
+    @Override
+    public double getFrameTimeMillis() {
+        return frameTimeMillis;
+    }
+
+    @Override
+    public Map<String, Integer> getNodeCounts() {
+        return nodeCounts;
+    }
+}
@@ -0,0 +1,56 @@
+package base.view;
+
+import java.util.Map;
+
+/**
+ * Management interface of SimulationMetrics, readable from JConsole, VisualVM or any other JMX client while the
+ * editor is running. <br>
+ * Totals count from startup. Rates and averages cover the most recent sampling period of about a second.
+ */
+public interface SimulationMetricsMXBean {
+    /**
+     * @return Ticks run since startup
+     */
+    long getTicks();
+
+    /**
+     * @return Gate evaluations since startup
+     */
+    long getGateEvaluations();
+
+    /**
+     * @return Signal changes since startup
+     */
+    long getSignalChanges();
+
+    /**
+     * @return Ticks run per second
+     */
+    double getTicksPerSecond();
+
+    /**
+     * @return Average gates evaluated per tick
+     */
+    double getGateEvaluationsPerTick();
+
+    /**
+     * @return Average nets changed per tick
+     */
+    double getSignalChangesPerTick();
+
+    /**
+     * @return Average ticks run to settle each simulation frame
+     */
+    double getSettleIterationsPerFrame();
+
+    /**
+     * @return Average time between JavaFX pulses, in milliseconds
+     */
+    double getFrameTimeMillis();
+
+    /**
+     * @return Nodes attached to the scene graph by each watched DisplayPane, keyed by name. A name
+     * shared by several DisplayPanes is numbered after the first
+     */
+    Map<String, Integer> getNodeCounts();
+}
@@ -0,0 +1,121 @@
+package base.view;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Runs a LiveSimulation once per JavaFX pulse, with as many ticks as fit in a CPU budget. <br>
+ * The cost of a tick is measured as the simulation runs, and each frame runs as many ticks as that cost allows
+ * within the budget, so small circuits run thousands of ticks a frame while huge ones run only a few. Frames are
+ * never held up waiting for a circuit to settle.
+ * <br><br>
+ * The budget backs off sharply whenever pulses arrive late, which means the UI is dropping frames, and creeps back
+ * up to its limit once they arrive on time again.
+ */
+public class TickScheduler extends AnimationTimer {
+    /** Budget limit given to new schedulers, in nanoseconds. Half a frame at 60 frames per second */
+    public final static long DEFAULT_BUDGET_LIMIT_NANOS = 8_000_000L;
+    /** Smallest budget backed off to, in nanoseconds */
+    private final static long MIN_BUDGET_NANOS = 500_000L;
+    /** Time between pulses when the UI keeps up, in nanoseconds */
+    private final static long TARGET_FRAME_NANOS = 1_000_000_000L / 60;
+    /** How late a pulse may be, as a multiple of the target frame time, before the frame counts as dropped */
+    private final static double DROPPED_FRAME_FACTOR = 1.5;
+    /** Factor the budget is cut by after a dropped frame */
+    private final static double BACK_OFF_FACTOR = 0.5;
+    /** Factor the budget grows by after each frame on time, until it reaches the limit */
+    private final static double RECOVERY_FACTOR = 1.05;
+    /** Weight given to the newest measurement when averaging the cost of a tick */
+    private final static double COST_SMOOTHING = 0.2;
+    /** Assumed cost of a tick before any have been measured, in nanoseconds */
+    private final static double INITIAL_TICK_NANOS = 10_000;
+    /** Most ticks run in one frame, however cheap they are */
+    private final static int MAX_TICKS_PER_FRAME = 1 << 20;
+
+    /** The simulation being run */
+    private final LiveSimulation simulation;
+    /** Most time the simulation may take each frame, in nanoseconds */
+    private long budgetLimitNanos;
+    /** Time the simulation may take this frame, in nanoseconds */
+    private double budgetNanos;
+    /** Average time a tick takes, including showing its result, in nanoseconds */
+    private double tickNanos;
+    /** Time of the previous pulse, or 0 before the first */
+    private long lastPulse;
+
+    /**
+     * Create a scheduler with the default budget limit. Nothing runs until it is started
+     * @param simulation The simulation to run
+     */
+    public TickScheduler(LiveSimulation simulation) {
+        this.simulation = simulation;
+        this.budgetLimitNanos = DEFAULT_BUDGET_LIMIT_NANOS;
+        this.budgetNanos = DEFAULT_BUDGET_LIMIT_NANOS;
+        this.tickNanos = INITIAL_TICK_NANOS;
+        this.lastPulse = 0;
+    }
+
+    /**
+     * Change the most time the simulation may take each frame
+     * @param millis The new limit, in milliseconds
+     */
+    public void setBudgetLimitMillis(double millis) {
+        budgetLimitNanos = Math.max(MIN_BUDGET_NANOS, (long) (millis * 1e6));
+        budgetNanos = Math.min(budgetNanos, budgetLimitNanos);
+    }
+
+    /**
+     * Get the most time the simulation may take each frame
+     * @return The limit, in milliseconds
+     */
+    public double getBudgetLimitMillis() {
+        return budgetLimitNanos / 1e6;
+    }
+
+    /**
+     * Get the time the simulation may take this frame, after any backing off
+     * @return The current budget, in milliseconds
+     */
+    public double getBudgetMillis() {
+        return budgetNanos / 1e6;
+    }
+
+    /**
+     * Get the average time a tick takes, including showing its result
+     * @return The average cost of a tick, in nanoseconds
+     */
+    public double getTickNanos() {
+        return tickNanos;
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        lastPulse = 0;
+    }
+
+    /**
+     * Adjust the budget to how the UI is keeping up, then run one frame within it
+     * @param now The time of the pulse, in nanoseconds
+     */
+    @Override
+    public void handle(long now) {
+        if (lastPulse != 0) {
+            if (now - lastPulse > TARGET_FRAME_NANOS * DROPPED_FRAME_FACTOR) {
+                budgetNanos = Math.max(MIN_BUDGET_NANOS, budgetNanos * BACK_OFF_FACTOR);
+            } else {
+                budgetNanos = Math.min(budgetLimitNanos, budgetNanos * RECOVERY_FACTOR);
+            }
+        }
+        lastPulse = now;
+
+        int maxTicks = (int) Math.max(1, Math.min(MAX_TICKS_PER_FRAME, budgetNanos / tickNanos));
+        // Recompiling costs far more than the ticks after it, so frames which recompile are not measured
+        boolean measure = !simulation.needsRecompile();
+        long start = System.nanoTime();
+        int ticks = simulation.frame(maxTicks);
+        if (measure && ticks > 0) {
+            double measured = (double) (System.nanoTime() - start) / ticks;
+            tickNanos += COST_SMOOTHING * (measured - tickNanos);
+        }
+    }
+}
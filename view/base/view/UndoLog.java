@@ -0,0 +1,453 @@
+package base.view;
+
+import base.components.CompoundComponent;
+import base.components.MemoryComponent;
+import base.components.RegisterComponent;
+import base.components.SignalSource;
+import base.fundamentals.*;
+import base.netlist.CompoundDefinition;
+import base.netlist.GateType;
+import base.netlist.MemoryBlock;
+
+import java.util.*;
+
+/**
+ * Records every edit made on a DisplayPane so it can be undone and redone. <br>
+ * Everything edited during one UI event, such as deleting a whole selection or making a Compound Component, is one
+ * entry, so it is undone in one step. A drag is one entry however many frames it lasts. Each entry is a packed list
+ * of commands holding only identifiers, types and positions, so undoing a large delete rebuilds the Components
+ * without the log ever holding a copy of the board.
+ * <br><br>
+ * Components recreated by an undo or redo get new identifiers. The log keeps referring to them by the identifier
+ * they had when first recorded.
+ */
+public class UndoLog extends EditBatcher {
+    /** Most entries kept. The oldest are forgotten first */
+    public final static int MAX_ENTRIES = 200;
+
+    /** Command placing a basic Component. Ints: id, type, on. Coordinates: x, y */
+    private final static int ADD = 0;
+    /** Command placing a Compound Component. Ints: id, definition index. Coordinates: x, y */
+    private final static int ADD_COMPOUND = 1;
+    /** Command removing a basic Component. Same operands as ADD */
+    private final static int REMOVE = 2;
+    /** Command removing a Compound Component. Same operands as ADD_COMPOUND */
+    private final static int REMOVE_COMPOUND = 3;
+    /** Command moving a Component. Ints: id. Coordinates: old x, old y, new x, new y */
+    private final static int MOVE = 4;
+    /** Command connecting two Ports. Ints: source id, source port, destination id, destination port */
+    private final static int CONNECT = 5;
+    /** Command disconnecting two Ports. Same operands as CONNECT */
+    private final static int DISCONNECT = 6;
+    /** Command placing a RAM or ROM. Ints: id, memory index. Coordinates: x, y */
+    private final static int ADD_MEMORY = 7;
+    /** Command removing a RAM or ROM. Same operands as ADD_MEMORY */
+    private final static int REMOVE_MEMORY = 8;
+    /** Command placing a Register. Ints: id, width. Coordinates: x, y */
+    private final static int ADD_REGISTER = 9;
+    /** Command removing a Register. Same operands as ADD_REGISTER */
+    private final static int REMOVE_REGISTER = 10;
+
+    /**
+     * Everything edited during one UI event, as packed commands
+     */
+    private static class Entry {
+        /** Each command's code followed by its int operands */
+        private int[] ints = new int[16];
+        private int intCount = 0;
+        /** The coordinate operands of every command, in order */
+        private double[] coordinates = new double[16];
+        private int coordinateCount = 0;
+        /** Definitions of the Compound Components placed or removed, shared rather than copied */
+        private final List<CompoundDefinition> definitions = new ArrayList<>();
+        /** Contents of the RAMs and ROMs placed or removed, so undoing a removal brings back what they held */
+        private final List<MemoryBlock> memories = new ArrayList<>();
+        /** Whether every command is a MOVE */
+        private boolean movesOnly = true;
+        /** The drag every command in this entry was made during, or NO_DRAG if any was not */
+        private int drag = DisplayPane.NO_DRAG;
+
+        private void addInts(int... values) {
+            if (intCount + values.length > ints.length) {
+                ints = Arrays.copyOf(ints, Math.max(ints.length * 2, intCount + values.length));
+            }
+            System.arraycopy(values, 0, ints, intCount, values.length);
+            intCount += values.length;
+            movesOnly &= values[0] == MOVE;
+        }
+
+        private void addCoordinates(double... values) {
+            if (coordinateCount + values.length > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates,
+                        Math.max(coordinates.length * 2, coordinateCount + values.length));
+            }
+            System.arraycopy(values, 0, coordinates, coordinateCount, values.length);
+            coordinateCount += values.length;
+        }
+
+        private boolean isEmpty() {
+            return intCount == 0;
+        }
+    }
+
+    /** The DisplayPane being recorded */
+    private final DisplayPane board;
+    /** Entries which can be undone, newest last */
+    private final Deque<Entry> undoStack;
+    /** Entries which can be redone, newest undo last */
+    private final Deque<Entry> redoStack;
+    /** Whether an undo or redo is being applied, so its own edits are not recorded */
+    private boolean replaying;
+    /** Whether a move has been made since the last flush */
+    private boolean movePending;
+    /** The drag every move since the last flush was made during, or NO_DRAG if any was not */
+    private int pendingDrag;
+
+    /** The identifier each Component on the board is recorded under */
+    private final IdentityHashMap<Component, Integer> logIdOf;
+    /** The Component on the board each recorded identifier currently refers to */
+    private final Map<Integer, Component> byLogId;
+    /** Position of each Component when last recorded, so a move knows where it came from */
+    private final IdentityHashMap<Component, double[]> positions;
+
+    /**
+     * Start recording every edit made on a DisplayPane. Components already on it can be edited and undone, but
+     * not un-placed
+     * @param board The DisplayPane to record
+     */
+    public UndoLog(DisplayPane board) {
+        this.board = board;
+        this.undoStack = new ArrayDeque<>();
+        this.redoStack = new ArrayDeque<>();
+        this.replaying = false;
+        this.movePending = false;
+        this.pendingDrag = DisplayPane.NO_DRAG;
+        this.logIdOf = new IdentityHashMap<>();
+        this.byLogId = new HashMap<>();
+        this.positions = new IdentityHashMap<>();
+
+        board.getComponents().forEach(this::track);
+        board.addBoardListener(this);
+    }
+
+    /**
+     * Get whether there is anything to undo
+     * @return True if undo() would change the board
+     */
+    public boolean canUndo() {
+        flush();
+        return !undoStack.isEmpty();
+    }
+
+    /**
+     * Get whether there is anything to redo
+     * @return True if redo() would change the board
+     */
+    public boolean canRedo() {
+        flush();
+        return !redoStack.isEmpty();
+    }
+
+    /**
+     * Undo the most recent entry still done
+     */
+    public void undo() {
+        flush();
+        Entry entry = undoStack.pollLast();
+        if (entry != null) {
+            replay(entry, false);
+            redoStack.addLast(entry);
+        }
+    }
+
+    /**
+     * Redo the most recently undone entry
+     */
+    public void redo() {
+        flush();
+        Entry entry = redoStack.pollLast();
+        if (entry != null) {
+            replay(entry, true);
+            undoStack.addLast(entry);
+        }
+    }
+
+    /**
+     * Forget every entry, such as after loading a whole new board
+     */
+    public void clear() {
+        discardPending();
+        movePending = false;
+        undoStack.clear();
+        redoStack.clear();
+        logIdOf.clear();
+        byLogId.clear();
+        positions.clear();
+        board.getComponents().forEach(this::track);
+    }
+
+    /**
+     * Stop recording
+     */
+    public void close() {
+        board.removeBoardListener(this);
+    }
+
+    /**
+     * Start tracking a Component under its own identifier, if it is not tracked already
+     * @return The identifier the Component is recorded under
+     */
+    private int track(Component component) {
+        Integer logId = logIdOf.get(component);
+        if (logId == null) {
+            logId = component.getId();
+            logIdOf.put(component, logId);
+            byLogId.put(logId, component);
+            positions.put(component, new double[] {component.getRect().getX(), component.getRect().getY()});
+        }
+        return logId;
+    }
+
+    /**
+     * Track a Component created by an undo or redo under the identifier it was first recorded with
+     */
+    private void retrack(Component component, int logId) {
+        logIdOf.put(component, logId);
+        byLogId.put(logId, component);
+        positions.put(component, new double[] {component.getRect().getX(), component.getRect().getY()});
+    }
+
+    /**
+     * Stop tracking a removed Component
+     */
+    private void untrack(Component component) {
+        Integer logId = logIdOf.remove(component);
+        if (logId != null) {
+            byLogId.remove(logId);
+        }
+        positions.remove(component);
+    }
+
+    @Override
+    boolean isCollecting() {
+        return !replaying;
+    }
+
+    @Override
+    public void componentMoved(Component component) {
+        if (!replaying) {
+            // Two drags are only told apart by the DisplayPane, and only while they are happening
+            int drag = board.getDragGesture();
+            pendingDrag = movePending && pendingDrag != drag ? DisplayPane.NO_DRAG : drag;
+            movePending = true;
+        }
+        super.componentMoved(component);
+    }
+
+    @Override
+    public void componentChanged(Component component) {
+        // Toggling a Signal Source is running the circuit, not editing it
+    }
+
+    /**
+     * Pack a batch of edits into one entry, or into the previous entry if both are part of the same drag
+     */
+    @Override
+    void handle(List<PendingEdit> edits) {
+        int drag = movePending ? pendingDrag : DisplayPane.NO_DRAG;
+        movePending = false;
+        if (edits.isEmpty()) {
+            return;
+        }
+        Entry entry = new Entry();
+        for (PendingEdit edit : edits) {
+            Component component = edit.component();
+            Connection connection = edit.connection();
+            switch (edit.kind()) {
+                case ADDED -> encodePlacement(entry, component, track(component), ADD, ADD_COMPOUND, ADD_MEMORY,
+                        ADD_REGISTER);
+                case MOVED -> {
+                    double[] from = positions.get(component);
+                    double x = component.getRect().getX();
+                    double y = component.getRect().getY();
+                    if (from != null && (from[0] != x || from[1] != y)) {
+                        entry.addInts(MOVE, logIdOf.get(component));
+                        entry.addCoordinates(from[0], from[1], x, y);
+                        from[0] = x;
+                        from[1] = y;
+                    }
+                }
+                case REMOVED -> {
+                    encodePlacement(entry, component, track(component), REMOVE, REMOVE_COMPOUND, REMOVE_MEMORY,
+                            REMOVE_REGISTER);
+                    untrack(component);
+                }
+                case CONNECTED, DISCONNECTED -> {
+                    Port source = connection.getSourcePort();
+                    Port dest = connection.getDestPort();
+                    entry.addInts(edit.kind() == EditKind.CONNECTED ? CONNECT : DISCONNECT,
+                            track(source.getParent()), source.getPortNum(), track(dest.getParent()), dest.getPortNum());
+                }
+            }
+        }
+        if (entry.isEmpty()) {
+            return;
+        }
+
+        Entry previous = undoStack.peekLast();
+        // Only entries of moves alone keep their drag, so this never folds moves into other edits
+        if (entry.movesOnly && drag != DisplayPane.NO_DRAG && previous != null && previous.drag == drag
+                && redoStack.isEmpty()) {
+            mergeDrag(previous, entry);
+            return;
+        }
+        entry.drag = entry.movesOnly ? drag : DisplayPane.NO_DRAG;
+        undoStack.addLast(entry);
+        redoStack.clear();
+        if (undoStack.size() > MAX_ENTRIES) {
+            undoStack.removeFirst();
+        }
+    }
+
+    /**
+     * Record the placement of a Component, for either placing or removing it
+     */
+    private static void encodePlacement(Entry entry, Component component, int logId, int basicCode,
+                                        int compoundCode, int memoryCode, int registerCode) {
+        if (component instanceof CompoundComponent compound) {
+            entry.definitions.add(compound.getDefinition());
+            entry.addInts(compoundCode, logId, entry.definitions.size() - 1);
+        } else if (component instanceof MemoryComponent memory) {
+            entry.memories.add(memory.getMemory());
+            entry.addInts(memoryCode, logId, entry.memories.size() - 1);
+        } else if (component instanceof RegisterComponent register) {
+            entry.addInts(registerCode, logId, register.getRegisterWidth());
+        } else {
+            boolean on = component instanceof SignalSource source && source.isOn();
+            entry.addInts(basicCode, logId, BoardCapture.typeOf(component).ordinal(), on ? 1 : 0);
+        }
+        entry.addCoordinates(component.getRect().getX(), component.getRect().getY());
+    }
+
+    /**
+     * Fold the moves in one entry into the previous one, made earlier in the same drag. Components moved by both
+     * keep the start position from the previous entry and the end position from the next
+     */
+    private static void mergeDrag(Entry previous, Entry next) {
+        // Each MOVE is two ints and four coordinates
+        Map<Integer, Integer> previousMoves = new HashMap<>();
+        for (int i = 0; i < previous.intCount; i += 2) {
+            previousMoves.put(previous.ints[i + 1], i / 2);
+        }
+        for (int i = 0; i < next.intCount; i += 2) {
+            Integer move = previousMoves.get(next.ints[i + 1]);
+            if (move == null) {
+                previous.addInts(MOVE, next.ints[i + 1]);
+                previous.addCoordinates(next.coordinates[i * 2], next.coordinates[i * 2 + 1],
+                        next.coordinates[i * 2 + 2], next.coordinates[i * 2 + 3]);
+            } else {
+                previous.coordinates[move * 4 + 2] = next.coordinates[i * 2 + 2];
+                previous.coordinates[move * 4 + 3] = next.coordinates[i * 2 + 3];
+            }
+        }
+    }
+
+    /**
+     * Apply an entry to the board, forwards to redo it or backwards to undo it
+     */
+    private void replay(Entry entry, boolean forwards) {
+        // Commands vary in length, so find where each starts before walking them backwards
+        int count = 0;
+        int[] intStarts = new int[entry.intCount];
+        int[] coordinateStarts = new int[entry.intCount];
+        for (int i = 0, c = 0; i < entry.intCount; count++) {
+            intStarts[count] = i;
+            coordinateStarts[count] = c;
+            switch (entry.ints[i]) {
+                case ADD, REMOVE -> { i += 4; c += 2; }
+                case ADD_COMPOUND, REMOVE_COMPOUND, ADD_MEMORY, REMOVE_MEMORY, ADD_REGISTER, REMOVE_REGISTER -> {
+                    i += 3;
+                    c += 2;
+                }
+                case MOVE -> { i += 2; c += 4; }
+                default -> i += 5;
+            }
+        }
+
+        replaying = true;
+        try {
+            for (int n = 0; n < count; n++) {
+                int command = forwards ? n : count - 1 - n;
+                apply(entry, intStarts[command], coordinateStarts[command], forwards);
+            }
+        } finally {
+            replaying = false;
+        }
+    }
+
+    /**
+     * Apply one command, or its opposite
+     */
+    private void apply(Entry entry, int i, int c, boolean forwards) {
+        int[] ints = entry.ints;
+        double[] coordinates = entry.coordinates;
+        int code = ints[i];
+        switch (code) {
+            case ADD, REMOVE, ADD_COMPOUND, REMOVE_COMPOUND, ADD_MEMORY, REMOVE_MEMORY, ADD_REGISTER,
+                    REMOVE_REGISTER -> {
+                boolean place = (code == ADD || code == ADD_COMPOUND || code == ADD_MEMORY || code == ADD_REGISTER)
+                        == forwards;
+                if (place) {
+                    Component component;
+                    if (code == ADD_COMPOUND || code == REMOVE_COMPOUND) {
+                        component = new CompoundComponent(entry.definitions.get(ints[i + 2]),
+                                coordinates[c], coordinates[c + 1], board);
+                    } else if (code == ADD_MEMORY || code == REMOVE_MEMORY) {
+                        component = new MemoryComponent(entry.memories.get(ints[i + 2]),
+                                coordinates[c], coordinates[c + 1], board);
+                    } else if (code == ADD_REGISTER || code == REMOVE_REGISTER) {
+                        component = BoardCapture.createRegister(ints[i + 2], coordinates[c], coordinates[c + 1],
+                                board);
+                    } else {
+                        component = BoardCapture.create(GateType.fromOrdinal(ints[i + 2]),
+                                coordinates[c], coordinates[c + 1], board);
+                        if (ints[i + 3] == 1 && component instanceof SignalSource source) {
+                            source.setOn(true);
+                        }
+                    }
+                    retrack(component, ints[i + 1]);
+                } else {
+                    Component component = byLogId.get(ints[i + 1]);
+                    if (component != null) {
+                        board.getSelection().getSelected().remove(component);
+                        component.remove();
+                        untrack(component);
+                    }
+                }
+            }
+            case MOVE -> {
+                Component component = byLogId.get(ints[i + 1]);
+                if (component != null) {
+                    double x = coordinates[forwards ? c + 2 : c];
+                    double y = coordinates[forwards ? c + 3 : c + 1];
+                    component.setPosition(x, y);
+                    double[] position = positions.get(component);
+                    position[0] = x;
+                    position[1] = y;
+                }
+            }
+            case CONNECT, DISCONNECT -> {
+                Component source = byLogId.get(ints[i + 1]);
+                Component dest = byLogId.get(ints[i + 3]);
+                if (source == null || dest == null) {
+                    return;
+                }
+                if ((code == CONNECT) == forwards) {
+                    source.getOutputPort(ints[i + 2]).connectTo(dest, ints[i + 4]);
+                } else {
+                    dest.getInputPort(ints[i + 4]).removeConnection();
+                }
+            }
+        }
+    }
+}